@@ -0,0 +1,229 @@
+package container;
+
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads machines from several producer threads into one {@code MachineList}.
+ *
+ * <p>Every producer thread appends to its own buffer, so producers never wait for
+ * each other; the lock of a buffer is only ever contended by {@link #publish()}.
+ * Publishing reserves the capacity of the target once and moves each buffer with
+ * one {@code System.arraycopy}.
+ *
+ * <p>In ordered mode every machine carries a sequence number, either given by the
+ * producer or taken from a counter shared by the loader, and publishing sorts the
+ * machines so that they are appended in ascending sequence order. Producers may keep
+ * adding while {@link #publish()} runs: it reads the counter first and publishes only
+ * the machines numbered below it, which are all in the buffers by then, and leaves the
+ * rest for the next publish. So numbers taken from the counter are appended in
+ * ascending order across publishes too. Numbers given by producers advance the counter
+ * past them, but a number given after a publish may be lower than numbers that publish
+ * appended; such numbers are ordered across publishes only if the producers are
+ * quiescent while publishing. Without ordered mode the machines of one thread keep
+ * their order but the buffers follow each other in no particular order.
+ *
+ * <p>The target list itself is not thread-safe: {@code publish} must not run at the
+ * same time as other operations on the target.
+ */
+public class BulkLoader {
+    private static final int INITIAL_BUFFER_CAPACITY = 64;
+
+    private final MachineList target;
+    private final boolean ordered;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Buffer> buffers = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Buffer> local = ThreadLocal.withInitial(this::register);
+
+    /**
+     * Creates an unordered loader.
+     *
+     * @param target list receiving the machines
+     */
+    public BulkLoader(MachineList target) {
+        this(target, false);
+    }
+
+    /**
+     * Creates the loader.
+     *
+     * @param target list receiving the machines
+     * @param ordered whether to append the machines in sequence order
+     */
+    public BulkLoader(MachineList target, boolean ordered) {
+        Objects.requireNonNull(target, "Argument must be not null");
+        this.target = target;
+        this.ordered = ordered;
+    }
+
+    private Buffer register() {
+        Buffer buffer = new Buffer(ordered);
+        buffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * Appends the machine to the buffer of the current thread. In ordered mode the
+     * machine gets the next sequence number of the loader.
+     *
+     * @param machine machine, may be null
+     */
+    public void add(Machine machine) {
+        Buffer buffer = local.get();
+        synchronized (buffer) {
+            buffer.add(ordered ? sequence.getAndIncrement() : 0, machine);
+        }
+    }
+
+    /**
+     * Appends the machine with the given sequence number to the buffer of the current thread.
+     *
+     * @param sequenceNumber position of the machine in the published order
+     * @param machine machine, may be null
+     * @throws IllegalStateException if the loader is not ordered
+     * @throws IllegalArgumentException if the sequence number is {@code Long.MAX_VALUE}
+     */
+    public void add(long sequenceNumber, Machine machine) {
+        if (!ordered)
+            throw new IllegalStateException("Sequence numbers need an ordered loader");
+        if (sequenceNumber == Long.MAX_VALUE)
+            throw new IllegalArgumentException("Illegal sequence number: " + sequenceNumber);
+        Buffer buffer = local.get();
+        synchronized (buffer) {
+            sequence.accumulateAndGet(sequenceNumber + 1, Math::max);
+            buffer.add(sequenceNumber, machine);
+        }
+    }
+
+    /**
+     * Moves the contents of all the buffers to the target list. In ordered mode only
+     * the machines numbered below the counter of the loader at the start are moved.
+     *
+     * @return number of appended machines
+     */
+    public int publish() {
+        long watermark = ordered ? sequence.get() : Long.MAX_VALUE;
+        Buffer[] drained = buffers.toArray(new Buffer[0]);
+        Machine[][] items = new Machine[drained.length][];
+        long[][] sequences = new long[drained.length][];
+        int[] sizes = new int[drained.length];
+        long total = 0;
+        for (int i = 0; i < drained.length; i++) {
+            synchronized (drained[i]) {
+                items[i] = drained[i].items;
+                sequences[i] = drained[i].sequences;
+                sizes[i] = drained[i].size;
+                drained[i].reset();
+                if (ordered)
+                    sizes[i] = drained[i].keep(items[i], sequences[i], sizes[i], watermark);
+            }
+            total += sizes[i];
+        }
+        if (target.size() + total > Integer.MAX_VALUE)
+            throw new OutOfMemoryError("Required array length too large");
+        target.ensureCapacity((int) (target.size() + total));
+        if (!ordered) {
+            for (int i = 0; i < drained.length; i++)
+                target.appendRange(items[i], 0, sizes[i]);
+        } else {
+            Machine[] merged = merge(items, sequences, sizes, (int) total);
+            target.appendRange(merged, 0, merged.length);
+        }
+        return (int) total;
+    }
+
+    /**
+     * Orders the machines of all the buffers by sequence number. Like
+     * {@code MachineSorter}, every sequence number is packed with the position of its
+     * machine into one {@code long}, so one primitive sort does it and equal numbers
+     * keep the order of the buffers. Numbers spanning more than 31 bits are first
+     * replaced by their rank among all the numbers.
+     */
+    private static Machine[] merge(Machine[][] items, long[][] sequences, int[] sizes, int total) {
+        Machine[] all = new Machine[total];
+        long[] keys = new long[total];
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0, position = 0; i < items.length; position += sizes[i++]) {
+            System.arraycopy(items[i], 0, all, position, sizes[i]);
+            System.arraycopy(sequences[i], 0, keys, position, sizes[i]);
+            for (int k = 0; k < sizes[i]; k++) {
+                min = Math.min(min, sequences[i][k]);
+                max = Math.max(max, sequences[i][k]);
+            }
+        }
+        if (total == 0)
+            return all;
+        long[] packed = new long[total];
+        if (max - min >= 0 && max - min <= Integer.MAX_VALUE) {
+            for (int k = 0; k < total; k++)
+                packed[k] = (keys[k] - min) << 32 | k;
+        } else {
+            long[] ranks = keys.clone();
+            Arrays.sort(ranks);
+            for (int k = 0; k < total; k++)
+                packed[k] = (long) Arrays.binarySearch(ranks, keys[k]) << 32 | k;
+        }
+        Arrays.sort(packed);
+        Machine[] merged = new Machine[total];
+        for (int k = 0; k < total; k++)
+            merged[k] = all[(int) packed[k]];
+        return merged;
+    }
+
+    /** Buffer of one producer thread. Guarded by its own monitor. */
+    private static final class Buffer {
+        private final boolean ordered;
+        Machine[] items;
+        long[] sequences;
+        int size;
+
+        Buffer(boolean ordered) {
+            this.ordered = ordered;
+            reset();
+        }
+
+        void add(long sequenceNumber, Machine machine) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+                if (ordered)
+                    sequences = Arrays.copyOf(sequences, size * 2);
+            }
+            items[size] = machine;
+            if (ordered)
+                sequences[size] = sequenceNumber;
+            size++;
+        }
+
+        /**
+         * Puts the machines numbered at or above the watermark back into the buffer
+         * and compacts the others at the start of the arrays.
+         *
+         * @return number of machines left in the arrays
+         */
+        int keep(Machine[] items, long[] sequences, int size, long watermark) {
+            int taken = 0;
+            for (int i = 0; i < size; i++) {
+                if (sequences[i] >= watermark) {
+                    add(sequences[i], items[i]);
+                } else {
+                    items[taken] = items[i];
+                    sequences[taken++] = sequences[i];
+                }
+            }
+            return taken;
+        }
+
+        /** Hands the arrays over to the caller and starts new ones. */
+        void reset() {
+            items = new Machine[INITIAL_BUFFER_CAPACITY];
+            sequences = ordered ? new long[INITIAL_BUFFER_CAPACITY] : null;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package container;
+
+import constant.TypeMillingMachine;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.MachineSink;
+import entity.UniversalMilling;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compact storage of machines without an object per machine.
+ *
+ * <p>Lathes take {@value #LATHE_STRIDE} {@code long} words of one array and milling
+ * machines {@value #MILLING_STRIDE} words of another; every machine also takes two
+ * {@code int} and one byte:
+ * <pre>
+ * word 0   power                | weight
+ * word 1   maxDiameter          | maxLengthDetail    (Lathe)
+ *          maxSpindleSpeed      | maxMillingSped     (Milling)
+ * word 2   tableArea            | numberAix          (Milling)
+ * word 3   code of softwareName                      (CncMilling)
+ *          bits of degreeLimb                        (UniversalMilling)
+ * int      slot of the words in the array of the kind
+ * int      code of model
+ * byte     kind (2 bits), thread (1 bit), typeMilling + 1 (2 bits)
+ * </pre>
+ * Strings are kept once in a dictionary and referenced by code, so equal models
+ * of different machines share one {@code String}. Identifiers take a {@code long}
+ * per machine once the first machine with an identifier is added.
+ * Machines are created only when {@link #get(int)} is called.
+ */
+public class CompactMachineStore implements MachineSink {
+    /** Number of {@code long} words per lathe. */
+    static final int LATHE_STRIDE = 2;
+
+    /** Number of {@code long} words per milling machine. */
+    static final int MILLING_STRIDE = 4;
+
+    static final int LATHE = 1;
+    static final int CNC_MILLING = 2;
+    static final int UNIVERSAL_MILLING = 3;
+
+    private static final int KIND_MASK = 0b11;
+    private static final int THREAD_FLAG = 0b100;
+    private static final int TYPE_SHIFT = 3;
+    private static final long LOW_INT = 0xFFFFFFFFL;
+    private static final TypeMillingMachine[] TYPES = TypeMillingMachine.values();
+
+    /** Number of machines in the store. */
+    private int size;
+
+    /** Numeric fields of lathes, {@link #LATHE_STRIDE} words per lathe. */
+    private long[] latheWords = new long[0];
+    private int lathes;
+
+    /** Numeric fields of milling machines, {@link #MILLING_STRIDE} words per machine. */
+    private long[] millingWords = new long[0];
+    private int millings;
+
+    /** Slot of every machine in the words of its kind. */
+    private int[] slots;
+
+    /** Dictionary code of the model of every machine. */
+    private int[] models;
+
+    /** Kind and flags of every machine. */
+    private byte[] flags;
+
+    /** Identifier of every machine, null while no machine has one. */
+    private long[] ids;
+
+    /** Strings referenced by code, code 0 means {@code null}. */
+    private String[] dictionary = new String[16];
+    private int dictionarySize = 1;
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * Constructs an empty store with the specified initial capacity.
+     *
+     * @param initialCapacity the initial capacity of the store
+     * @throws IllegalArgumentException if the specified initial capacity is negative
+     */
+    public CompactMachineStore(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        slots = new int[initialCapacity];
+        models = new int[initialCapacity];
+        flags = new byte[initialCapacity];
+    }
+
+    /** Constructs an empty store with an initial capacity of ten. */
+    public CompactMachineStore() {
+        this(10);
+    }
+
+    /**
+     * Returns the number of machines in the store.
+     *
+     * @return number of machines
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Appends the fields of {@code machine} to the store.
+     *
+     * @param machine machine to append
+     * @throws NullPointerException if the machine is null
+     * @throws IllegalArgumentException if the class of the machine is unknown
+     */
+    public void add(Machine machine) {
+        if (machine instanceof Lathe) {
+            Lathe l = (Lathe) machine;
+            lathe(l.getPower(), l.getWeight(), l.getModel(), l.getMaxDiameter(), l.getMaxLengthDetail(),
+                    l.isThread());
+        } else if (machine instanceof CncMilling) {
+            CncMilling c = (CncMilling) machine;
+            cncMilling(c.getPower(), c.getWeight(), c.getModel(), c.getMaxSpindleSpeed(), c.getMaxMillingSped(),
+                    c.getTableArea(), c.getSoftwareName(), c.getNumberAix());
+        } else if (machine instanceof UniversalMilling) {
+            UniversalMilling u = (UniversalMilling) machine;
+            universalMilling(u.getPower(), u.getWeight(), u.getModel(), u.getMaxSpindleSpeed(),
+                    u.getMaxMillingSped(), u.getTableArea(), u.getTypeMilling(), u.getDegreeLimb());
+        } else {
+            Objects.requireNonNull(machine, "Argument must be not null");
+            throw new IllegalArgumentException("Unknown machine class: " + machine.getClass().getName());
+        }
+        if (machine.getId() != Machine.NO_ID) {
+            if (ids == null)
+                ids = new long[flags.length];
+            ids[size - 1] = machine.getId();
+        }
+    }
+
+    @Override
+    public void lathe(int power, int weight, String model, int maxDiameter, int maxLengthDetail, boolean thread) {
+        int base = append(LATHE | (thread ? THREAD_FLAG : 0), power, weight, model);
+        latheWords[base + 1] = pack(maxDiameter, maxLengthDetail);
+    }
+
+    @Override
+    public void cncMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                           int tableArea, String softwareName, int numberAix) {
+        int base = append(CNC_MILLING, power, weight, model);
+        millingWords[base + 1] = pack(maxSpindleSpeed, maxMillingSped);
+        millingWords[base + 2] = pack(tableArea, numberAix);
+        millingWords[base + 3] = code(softwareName);
+    }
+
+    @Override
+    public void universalMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                                 int tableArea, TypeMillingMachine typeMilling, double degreeLimb) {
+        int type = typeMilling == null ? 0 : typeMilling.ordinal() + 1;
+        int base = append(UNIVERSAL_MILLING | type << TYPE_SHIFT, power, weight, model);
+        millingWords[base + 1] = pack(maxSpindleSpeed, maxMillingSped);
+        millingWords[base + 2] = pack(tableArea, 0);
+        millingWords[base + 3] = Double.doubleToRawLongBits(degreeLimb);
+    }
+
+    /** Appends a machine of the kind in {@code flag} and returns the base of its words. */
+    private int append(int flag, int power, int weight, String model) {
+        if (size == flags.length) {
+            int newCapacity = grow(size);
+            slots = Arrays.copyOf(slots, newCapacity);
+            models = Arrays.copyOf(models, newCapacity);
+            flags = Arrays.copyOf(flags, newCapacity);
+            if (ids != null)
+                ids = Arrays.copyOf(ids, newCapacity);
+        }
+        int row = size++;
+        int base;
+        if ((flag & KIND_MASK) == LATHE) {
+            if (lathes == latheWords.length / LATHE_STRIDE)
+                latheWords = Arrays.copyOf(latheWords, grow(lathes) * LATHE_STRIDE);
+            slots[row] = lathes;
+            base = lathes++ * LATHE_STRIDE;
+            latheWords[base] = pack(power, weight);
+        } else {
+            if (millings == millingWords.length / MILLING_STRIDE)
+                millingWords = Arrays.copyOf(millingWords, grow(millings) * MILLING_STRIDE);
+            slots[row] = millings;
+            base = millings++ * MILLING_STRIDE;
+            millingWords[base] = pack(power, weight);
+        }
+        models[row] = code(model);
+        flags[row] = (byte) flag;
+        if (ids != null)
+            ids[row] = Machine.NO_ID;
+        return base;
+    }
+
+    private static int grow(int capacity) {
+        return Math.max(capacity + (capacity >> 1), capacity + 1);
+    }
+
+    /** Returns word {@code word} of the machine at {@code index}. */
+    private long word(int index, int word) {
+        if ((flags[index] & KIND_MASK) == LATHE)
+            return latheWords[slots[index] * LATHE_STRIDE + word];
+        return millingWords[slots[index] * MILLING_STRIDE + word];
+    }
+
+    private static long pack(int high, int low) {
+        return ((long) high << 32) | (low & LOW_INT);
+    }
+
+    private int code(String value) {
+        if (value == null)
+            return 0;
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (dictionarySize == dictionary.length)
+                dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+            code = dictionarySize;
+            dictionary[dictionarySize++] = value;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index must be from 0 to size - 1");
+    }
+
+    /**
+     * Returns the power of the machine at {@code index} without creating it.
+     *
+     * @param index index of the machine
+     * @return power of the machine
+     */
+    public int getPower(int index) {
+        checkIndex(index);
+        return (int) (word(index, 0) >> 32);
+    }
+
+    /**
+     * Returns the weight of the machine at {@code index} without creating it.
+     *
+     * @param index index of the machine
+     * @return weight of the machine
+     */
+    public int getWeight(int index) {
+        checkIndex(index);
+        return (int) word(index, 0);
+    }
+
+    /**
+     * Returns the model of the machine at {@code index} without creating it.
+     *
+     * @param index index of the machine
+     * @return model of the machine
+     */
+    public String getModel(int index) {
+        checkIndex(index);
+        return dictionary[models[index]];
+    }
+
+    /**
+     * Returns the identifier of the machine at {@code index} without creating it.
+     *
+     * @param index index of the machine
+     * @return identifier, {@code Machine.NO_ID} if the machine has none
+     */
+    public long getId(int index) {
+        checkIndex(index);
+        return ids == null ? Machine.NO_ID : ids[index];
+    }
+
+    /**
+     * Creates the machine stored at {@code index}, with its identifier.
+     *
+     * @param index index of the machine
+     * @return new machine equal to the one which was added
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Machine get(int index) {
+        Machine machine = fields(index);
+        if (ids != null)
+            machine.setId(ids[index]);
+        return machine;
+    }
+
+    private Machine fields(int index) {
+        checkIndex(index);
+        long word0 = word(index, 0);
+        long word1 = word(index, 1);
+        int power = (int) (word0 >> 32);
+        int weight = (int) word0;
+        String model = dictionary[models[index]];
+        int high = (int) (word1 >> 32);
+        int low = (int) word1;
+        int flag = flags[index];
+        if ((flag & KIND_MASK) == LATHE)
+            return new Lathe(power, weight, model, high, low, (flag & THREAD_FLAG) != 0);
+        long word2 = word(index, 2);
+        long word3 = word(index, 3);
+        if ((flag & KIND_MASK) == CNC_MILLING)
+            return new CncMilling(power, weight, model, high, low, (int) (word2 >> 32),
+                    dictionary[(int) word3], (int) word2);
+        int type = flag >> TYPE_SHIFT;
+        return new UniversalMilling(power, weight, model, high, low, (int) (word2 >> 32),
+                type == 0 ? null : TYPES[type - 1], Double.longBitsToDouble(word3));
+    }
+
+    /**
+     * Creates a {@code MachineList} with all the machines of the store.
+     *
+     * @return new list
+     */
+    public MachineList toMachineList() {
+        MachineList list = new MachineList(size);
+        for (int i = 0; i < size; i++)
+            list.add(get(i));
+        return list;
+    }
+
+    /**
+     * Returns the number of distinct strings kept in the dictionary.
+     *
+     * @return number of strings
+     */
+    public int dictionarySize() {
+        return dictionarySize - 1;
+    }
+
+    long[] latheWords() {
+        return latheWords;
+    }
+
+    long[] millingWords() {
+        return millingWords;
+    }
+
+    int[] slots() {
+        return slots;
+    }
+
+    int[] models() {
+        return models;
+    }
+
+    byte[] flags() {
+        return flags;
+    }
+
+    long[] ids() {
+        return ids;
+    }
+
+    String[] dictionary() {
+        return dictionary;
+    }
+}
@@ -0,0 +1,328 @@
+package container;
+
+import entity.Machine;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the heap retained by machine containers.
+ *
+ * <p>The estimate follows the HotSpot object layout: an object takes its header plus
+ * its fields, rounded up to the alignment; an array takes its header plus its elements.
+ * Strings are counted once even when several machines share them, enum constants are
+ * not counted at all because they live as long as their class.
+ * The layout of a class is read once by reflection and cached.
+ */
+public class FootprintAnalyzer {
+    /** 64-bit JVM with compressed references (heaps below 32 GB). */
+    public static final FootprintAnalyzer COMPRESSED_OOPS = new FootprintAnalyzer(12, 16, 4, 8);
+
+    /** 64-bit JVM without compressed references. */
+    public static final FootprintAnalyzer UNCOMPRESSED_OOPS = new FootprintAnalyzer(16, 24, 8, 8);
+
+    private final int objectHeader;
+    private final int arrayHeader;
+    private final int referenceSize;
+    private final int alignment;
+
+    /** Fields of every analyzed class, in declaration order from {@code Object} down. */
+    private final Map<Class<?>, Field[]> layouts = new IdentityHashMap<>();
+
+    /**
+     * Creates an analyzer for the specified layout of the JVM.
+     *
+     * @param objectHeader size of an object header
+     * @param arrayHeader size of an array header including the length
+     * @param referenceSize size of a reference
+     * @param alignment alignment of objects
+     */
+    public FootprintAnalyzer(int objectHeader, int arrayHeader, int referenceSize, int alignment) {
+        this.objectHeader = objectHeader;
+        this.arrayHeader = arrayHeader;
+        this.referenceSize = referenceSize;
+        this.alignment = alignment;
+    }
+
+    /**
+     * Analyzes the heap retained by {@code list}: the list object, its array buffer,
+     * the machines and their strings.
+     *
+     * @param list list to analyze
+     * @return report of the list
+     */
+    public Report analyze(MachineList list) {
+        Report report = new Report();
+        report.containerBytes = shallowBytes(MachineList.class)
+                + arrayBytes(list.capacity(), referenceSize);
+        IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            Machine machine = list.get(i);
+            if (machine != null && seen.put(machine, Boolean.TRUE) == null)
+                addMachine(report, machine, seen);
+        }
+        return report;
+    }
+
+    /**
+     * Analyzes the heap retained by a compact store: its arrays and its dictionary.
+     *
+     * @param store store to analyze
+     * @return report of the store, all the bytes are reported under the store class
+     */
+    public Report analyze(CompactMachineStore store) {
+        Report report = new Report();
+        String[] dictionary = store.dictionary();
+        long stringBytes = 0;
+        for (int i = 1; i <= store.dictionarySize(); i++)
+            stringBytes += stringBytes(dictionary[i]);
+        /* every dictionary entry also costs a hash map node and a boxed code */
+        long mapBytes = store.dictionarySize() * (align(objectHeader + 4 + 3 * referenceSize)
+                + align(objectHeader + 4)) + arrayBytes(Integer.highestOneBit(store.dictionarySize() * 2 + 1),
+                referenceSize);
+        report.containerBytes = shallowBytes(CompactMachineStore.class)
+                + arrayBytes(store.latheWords().length, 8)
+                + arrayBytes(store.millingWords().length, 8)
+                + arrayBytes(store.slots().length, 4)
+                + arrayBytes(store.models().length, 4)
+                + arrayBytes(store.flags().length, 1)
+                + (store.ids() == null ? 0 : arrayBytes(store.ids().length, 8))
+                + arrayBytes(dictionary.length, referenceSize)
+                + mapBytes;
+        ClassFootprint footprint = report.classFootprint(CompactMachineStore.class);
+        footprint.count = store.size();
+        footprint.shallowBytes = report.containerBytes;
+        footprint.retainedBytes = report.containerBytes + stringBytes;
+        report.fieldFootprint("dictionary strings").add(store.dictionarySize(), stringBytes);
+        report.machineBytes = stringBytes;
+        return report;
+    }
+
+    private void addMachine(Report report, Machine machine, IdentityHashMap<Object, Boolean> seen) {
+        Class<?> type = machine.getClass();
+        Field[] fields = layout(type);
+        long shallow = objectHeader;
+        long retained = 0;
+        for (Field field : fields) {
+            int size = fieldSize(field.getType());
+            shallow += size;
+            long fieldBytes = size;
+            if (field.getType() == String.class) {
+                String value = (String) read(field, machine);
+                if (value != null && seen.put(value, Boolean.TRUE) == null)
+                    fieldBytes += stringBytes(value);
+            }
+            retained += fieldBytes;
+            report.fieldFootprint(field.getDeclaringClass().getSimpleName() + "." + field.getName())
+                    .add(1, fieldBytes);
+        }
+        long aligned = align(shallow);
+        report.fieldFootprint(type.getSimpleName() + " header and padding").add(1, aligned - shallow + objectHeader);
+        ClassFootprint footprint = report.classFootprint(type);
+        footprint.count++;
+        footprint.shallowBytes += aligned;
+        footprint.retainedBytes += aligned - shallow + objectHeader + retained;
+        report.machineBytes += aligned - shallow + objectHeader + retained;
+    }
+
+    private long shallowBytes(Class<?> type) {
+        long bytes = objectHeader;
+        for (Field field : layout(type))
+            bytes += fieldSize(field.getType());
+        return align(bytes);
+    }
+
+    private Field[] layout(Class<?> type) {
+        Field[] fields = layouts.get(type);
+        if (fields == null) {
+            List<Field> list = new ArrayList<>();
+            for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+                List<Field> declared = new ArrayList<>();
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        field.setAccessible(true);
+                        declared.add(field);
+                    }
+                }
+                list.addAll(0, declared);
+            }
+            fields = list.toArray(new Field[0]);
+            layouts.put(type, fields);
+        }
+        return fields;
+    }
+
+    private static Object read(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class)
+            return 8;
+        if (type == int.class || type == float.class)
+            return 4;
+        if (type == short.class || type == char.class)
+            return 2;
+        if (type == byte.class || type == boolean.class)
+            return 1;
+        return referenceSize;
+    }
+
+    private long stringBytes(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++)
+            latin1 = value.charAt(i) < 256;
+        /* hash, coder, hashIsZero and the reference to the value array */
+        return align(objectHeader + 4 + 1 + 1 + referenceSize)
+                + arrayBytes(value.length(), latin1 ? 1 : 2);
+    }
+
+    private long arrayBytes(long length, int elementSize) {
+        return align(arrayHeader + length * elementSize);
+    }
+
+    private long align(long bytes) {
+        return (bytes + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * Retained heap of one class of machines.
+     */
+    public static class ClassFootprint {
+        private final Class<?> type;
+        private long count;
+        private long shallowBytes;
+        private long retainedBytes;
+
+        ClassFootprint(Class<?> type) {
+            this.type = type;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getShallowBytes() {
+            return shallowBytes;
+        }
+
+        public long getRetainedBytes() {
+            return retainedBytes;
+        }
+    }
+
+    /**
+     * Bytes spent on one field over all the machines, including the strings it
+     * references first.
+     */
+    public static class FieldFootprint {
+        private final String name;
+        private long count;
+        private long bytes;
+
+        FieldFootprint(String name) {
+            this.name = name;
+        }
+
+        void add(long count, long bytes) {
+            this.count += count;
+            this.bytes += bytes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    /**
+     * Result of an analysis.
+     */
+    public static class Report {
+        private long containerBytes;
+        private long machineBytes;
+        private final Map<Class<?>, ClassFootprint> classes = new LinkedHashMap<>();
+        private final Map<String, FieldFootprint> fields = new LinkedHashMap<>();
+
+        ClassFootprint classFootprint(Class<?> type) {
+            return classes.computeIfAbsent(type, ClassFootprint::new);
+        }
+
+        FieldFootprint fieldFootprint(String name) {
+            return fields.computeIfAbsent(name, FieldFootprint::new);
+        }
+
+        /**
+         * Returns the bytes of the container itself: the object and its arrays.
+         *
+         * @return bytes of the container
+         */
+        public long getContainerBytes() {
+            return containerBytes;
+        }
+
+        /**
+         * Returns the bytes retained by the elements of the container.
+         *
+         * @return bytes of the elements
+         */
+        public long getMachineBytes() {
+            return machineBytes;
+        }
+
+        /**
+         * Returns the bytes retained by the container and its elements.
+         *
+         * @return total bytes
+         */
+        public long getTotalBytes() {
+            return containerBytes + machineBytes;
+        }
+
+        public Map<Class<?>, ClassFootprint> getClasses() {
+            return Collections.unmodifiableMap(classes);
+        }
+
+        public Map<String, FieldFootprint> getFields() {
+            return Collections.unmodifiableMap(fields);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder b = new StringBuilder();
+            b.append("total=").append(getTotalBytes())
+                    .append(", container=").append(containerBytes)
+                    .append(", machines=").append(machineBytes).append('\n');
+            for (ClassFootprint footprint : classes.values())
+                b.append("  ").append(footprint.type.getSimpleName())
+                        .append(": count=").append(footprint.count)
+                        .append(", shallow=").append(footprint.shallowBytes)
+                        .append(", retained=").append(footprint.retainedBytes).append('\n');
+            for (FieldFootprint footprint : fields.values())
+                b.append("    ").append(footprint.name)
+                        .append(": ").append(footprint.bytes).append('\n');
+            return b.toString();
+        }
+    }
+}
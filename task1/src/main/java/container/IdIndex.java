@@ -0,0 +1,124 @@
+package container;
+
+import entity.Machine;
+
+/**
+ * Index from the identifiers of the machines of a {@code MachineList} to their indexes.
+ *
+ * <p>The identifiers and indexes are kept in a {@code LongIntMap}, so nothing is boxed.
+ * The index follows the list as a listener. An insertion or removal shifts the indexes
+ * of all following elements; instead of updating them, the index only remembers the
+ * lowest shifted position, and the first lookup which finds a wrong index rescans the
+ * list from there. A lookup is therefore {@code O(1)}, and a rescan costs no more than
+ * the shifts which made it necessary.
+ *
+ * <p>Identifiers must be unique within the list; with duplicates a lookup finds one of them.
+ */
+final class IdIndex implements MachineListListener {
+    /** Value of {@link #dirtyFrom} when all stored indexes are right. */
+    private static final int CLEAN = Integer.MAX_VALUE;
+
+    private final MachineList list;
+    private final LongIntMap slots = new LongIntMap();
+
+    /** Stored indexes from this position on may be out of date. */
+    private int dirtyFrom;
+
+    /**
+     * Creates the index of the current elements of the list; the caller registers it as a listener.
+     *
+     * @param list indexed list
+     */
+    IdIndex(MachineList list) {
+        this.list = list;
+        rescan();
+    }
+
+    /**
+     * Returns the index of the machine with the identifier.
+     *
+     * @param id identifier
+     * @return index, -1 if the list has no such machine
+     */
+    int indexOf(long id) {
+        if (id == Machine.NO_ID)
+            return -1;
+        int slot = slots.get(id);
+        if (slot < 0 || holds(slot, id))
+            return slot;
+        if (dirtyFrom != CLEAN) {
+            rescan();
+            slot = slots.get(id);
+            if (slot < 0 || holds(slot, id))
+                return slot;
+        }
+        // the machine left the list in a way the events could not tell
+        slots.remove(id);
+        return -1;
+    }
+
+    private boolean holds(int slot, long id) {
+        if (slot >= list.size())
+            return false;
+        Machine machine = list.elementAt(slot);
+        return machine != null && machine.getId() == id;
+    }
+
+    private void rescan() {
+        for (int i = Math.min(dirtyFrom, list.size()); i < list.size(); i++)
+            put(list.elementAt(i), i);
+        dirtyFrom = CLEAN;
+    }
+
+    private void shifted(int index) {
+        dirtyFrom = Math.min(dirtyFrom, index);
+    }
+
+    @Override
+    public void added(int index, Machine machine) {
+        if (index != list.size() - 1)
+            shifted(index);
+        put(machine, index);
+    }
+
+    @Override
+    public void addedAll(int index, Object[] machines) {
+        if (index + machines.length != list.size())
+            shifted(index);
+        for (int i = 0; i < machines.length; i++)
+            put((Machine) machines[i], index + i);
+    }
+
+    @Override
+    public void replaced(int index, Machine oldMachine, Machine newMachine) {
+        forget(oldMachine);
+        put(newMachine, index);
+    }
+
+    @Override
+    public void removed(int index, Machine machine) {
+        if (index != list.size())
+            shifted(index);
+        forget(machine);
+    }
+
+    @Override
+    public void cleared() {
+        slots.clear();
+        dirtyFrom = CLEAN;
+    }
+
+    /** Deletes the identifier of a machine which left its position, unless the machine is still found at the stored index. */
+    private void forget(Machine machine) {
+        if (machine == null || machine.getId() == Machine.NO_ID)
+            return;
+        int slot = slots.get(machine.getId());
+        if (slot >= 0 && !holds(slot, machine.getId()))
+            slots.remove(machine.getId());
+    }
+
+    private void put(Machine machine, int slot) {
+        if (machine != null && machine.getId() != Machine.NO_ID)
+            slots.put(machine.getId(), slot);
+    }
+}
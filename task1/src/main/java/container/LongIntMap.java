@@ -0,0 +1,125 @@
+package container;
+
+import java.util.Arrays;
+
+/**
+ * Map from {@code long} keys to non-negative {@code int} values kept in two primitive
+ * arrays with open addressing and linear probing, so nothing is boxed. The key
+ * {@code 0} marks a free cell and can not be stored. Removal moves the following
+ * cells of the probe run back, so no tombstones are left behind.
+ */
+final class LongIntMap {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap() {
+        this(INITIAL_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a map holding {@code expected} keys without growing.
+     *
+     * @param expected expected number of keys
+     */
+    LongIntMap(int expected) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < expected * 2)
+            capacity <<= 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value of the key.
+     *
+     * @param key key, not 0
+     * @return value, -1 if the key is absent
+     */
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int cell = cell(key, mask); keys[cell] != 0; cell = (cell + 1) & mask)
+            if (keys[cell] == key)
+                return values[cell];
+        return -1;
+    }
+
+    /**
+     * Stores the value of the key.
+     *
+     * @param key key, not 0
+     * @param value value
+     */
+    void put(long key, int value) {
+        int mask = keys.length - 1;
+        int cell = cell(key, mask);
+        while (keys[cell] != 0 && keys[cell] != key)
+            cell = (cell + 1) & mask;
+        values[cell] = value;
+        if (keys[cell] == 0) {
+            keys[cell] = key;
+            if (++size * 2 > keys.length)
+                grow();
+        }
+    }
+
+    /**
+     * Removes the key.
+     *
+     * @param key key
+     * @return {@code true} if the key was present
+     */
+    boolean remove(long key) {
+        int mask = keys.length - 1;
+        int cell = cell(key, mask);
+        while (keys[cell] != key) {
+            if (keys[cell] == 0)
+                return false;
+            cell = (cell + 1) & mask;
+        }
+        for (int next = (cell + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = cell(keys[next], mask);
+            // the entry at next may fill the hole if its home is not between the hole and next
+            if (((next - home) & mask) >= ((next - cell) & mask)) {
+                keys[cell] = keys[next];
+                values[cell] = values[next];
+                cell = next;
+            }
+        }
+        keys[cell] = 0;
+        size--;
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldKeys[i] != 0) {
+                int cell = cell(oldKeys[i], mask);
+                while (keys[cell] != 0)
+                    cell = (cell + 1) & mask;
+                keys[cell] = oldKeys[i];
+                values[cell] = oldValues[i];
+            }
+    }
+
+    private static int cell(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32) & mask;
+    }
+}
@@ -0,0 +1,348 @@
+package container;
+
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of machines keyed by their identifiers.
+ *
+ * <p>All storage is allocated when the cache is created: the machines, their
+ * identifiers and times sit in arrays of {@code capacity} slots, linked into a
+ * recency list by two {@code int} arrays, and a {@code LongIntMap} finds the slot of an
+ * identifier. Hits, insertions and evictions are {@code O(1)} and allocate nothing, so
+ * the memory of the cache stays the same however long it runs.
+ *
+ * <p>With {@link Policy#LRU} a hit moves the machine to the end of the list, and a full
+ * cache evicts the least recently used machine. With {@link Policy#TTL} a machine
+ * expires {@code ttlMillis} after it was put; the list is in order of insertion, so the
+ * expired machines are at its head and every operation sweeps them away lazily. A full
+ * TTL cache evicts the oldest machine. Times come from {@code System.nanoTime}, which
+ * never goes back, unlike the wall clock; so the order of insertion is also the order
+ * of the put times, and looking at the head is enough.
+ *
+ * <p>The cache is a class of its own rather than a bounded mode of {@code MachineList}
+ * because it breaks the contract of a list: a hit reorders the machines, a put may
+ * silently drop one, and machines are found by identifier, not by position. Indices,
+ * iterators, versions and listeners of a list would all become stale on plain reads.
+ *
+ * <p>The cache is not synchronized, like {@code MachineList}.
+ */
+public class MachineCache {
+
+    /** Eviction policy of a cache. */
+    public enum Policy {
+        /** Evicts the least recently used machine. */
+        LRU,
+        /** Drops machines a fixed time after they were put, then the oldest one. */
+        TTL
+    }
+
+    private static final int NONE = -1;
+
+    private final Policy policy;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private final LongIntMap index;
+    private final Machine[] machines;
+    private final long[] ids;
+    private final long[] putTimes;
+    private final int[] previous;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    private int free;
+    private int size;
+    private MachineEvictionListener listener;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * Creates a cache evicting the least recently used machine.
+     *
+     * @param capacity maximum number of machines
+     * @return empty cache
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public static MachineCache lru(int capacity) {
+        return new MachineCache(capacity, Policy.LRU, 0, MachineCache::monotonicMillis);
+    }
+
+    /**
+     * Creates a cache dropping machines {@code ttlMillis} after they were put.
+     *
+     * @param capacity maximum number of machines
+     * @param ttlMillis time to live of a machine
+     * @return empty cache
+     * @throws IllegalArgumentException if {@code capacity} or {@code ttlMillis} is not positive
+     */
+    public static MachineCache ttl(int capacity, long ttlMillis) {
+        return new MachineCache(capacity, Policy.TTL, ttlMillis, MachineCache::monotonicMillis);
+    }
+
+    /** Milliseconds from an arbitrary origin, never going back. */
+    private static long monotonicMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    MachineCache(int capacity, Policy policy, long ttlMillis, LongSupplier clock) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        if (policy == Policy.TTL && ttlMillis <= 0)
+            throw new IllegalArgumentException("Illegal time to live: " + ttlMillis);
+        this.policy = policy;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+        index = new LongIntMap(capacity);
+        machines = new Machine[capacity];
+        ids = new long[capacity];
+        putTimes = new long[capacity];
+        previous = new int[capacity];
+        next = new int[capacity];
+        clear();
+    }
+
+    /**
+     * Sets the listener receiving evicted and expired machines.
+     *
+     * @param listener listener, null for none
+     */
+    public void setEvictionListener(MachineEvictionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Returns the machine with the identifier and counts a hit or a miss.
+     *
+     * @param id identifier
+     * @return machine, null if it is not cached
+     */
+    public Machine get(long id) {
+        expire();
+        int slot = id == Machine.NO_ID ? NONE : index.get(id);
+        if (slot == NONE) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if (policy == Policy.LRU)
+            moveToTail(slot);
+        return machines[slot];
+    }
+
+    /**
+     * Returns the cached machine with the identifier, loading and caching it on a miss.
+     *
+     * @param id identifier
+     * @param loader loads the machine, may return null, which is not cached
+     * @return machine, null if it is neither cached nor loaded
+     */
+    public Machine get(long id, LongFunction<? extends Machine> loader) {
+        Objects.requireNonNull(loader, "Argument must be not null");
+        Machine machine = get(id);
+        if (machine == null) {
+            machine = loader.apply(id);
+            if (machine != null)
+                put(machine);
+        }
+        return machine;
+    }
+
+    /**
+     * Caches the machine under its identifier, evicting a machine if the cache is full.
+     *
+     * @param machine machine with an identifier
+     * @return the machine previously cached with the identifier, or null
+     * @throws IllegalArgumentException if the machine has no identifier
+     */
+    public Machine put(Machine machine) {
+        Objects.requireNonNull(machine, "Argument must be not null");
+        long id = machine.getId();
+        if (id == Machine.NO_ID)
+            throw new IllegalArgumentException("Machine has no id");
+        expire();
+        int slot = index.get(id);
+        Machine old = null;
+        if (slot != NONE) {
+            old = machines[slot];
+            moveToTail(slot);
+        } else {
+            if (size == machines.length)
+                drop(head, MachineEvictionListener.Cause.CAPACITY);
+            slot = free;
+            free = next[slot];
+            ids[slot] = id;
+            index.put(id, slot);
+            link(slot);
+            size++;
+        }
+        machines[slot] = machine;
+        putTimes[slot] = clock.getAsLong();
+        return old;
+    }
+
+    /**
+     * Removes the machine with the identifier, without notifying the listener.
+     *
+     * @param id identifier
+     * @return removed machine, or null
+     */
+    public Machine remove(long id) {
+        int slot = id == Machine.NO_ID ? NONE : index.get(id);
+        if (slot == NONE)
+            return null;
+        Machine machine = machines[slot];
+        release(slot);
+        return machine;
+    }
+
+    /** Removes all machines, without notifying the listener. */
+    public void clear() {
+        index.clear();
+        Arrays.fill(machines, null);
+        for (int i = 0; i < next.length; i++)
+            next[i] = i + 1 < next.length ? i + 1 : NONE;
+        free = 0;
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of cached machines, after dropping the expired ones.
+     *
+     * @return number of machines
+     */
+    public int size() {
+        expire();
+        return size;
+    }
+
+    public int capacity() {
+        return machines.length;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the cached machines from the least to the most recently used, or from the
+     * oldest to the newest for a TTL cache. Does not count hits.
+     *
+     * @return new list of the machines
+     */
+    public MachineList toList() {
+        expire();
+        MachineList list = new MachineList(size);
+        for (int slot = head; slot != NONE; slot = next[slot])
+            list.add(machines[slot]);
+        return list;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of machines evicted because the cache was full.
+     *
+     * @return number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of machines dropped because they expired.
+     *
+     * @return number of expirations
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Returns the share of lookups which found their machine.
+     *
+     * @return hit rate from 0 to 1, 0 before the first lookup
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "MachineCache{policy=" + policy + ", size=" + size + ", capacity=" + machines.length
+                + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions
+                + ", expirations=" + expirations + '}';
+    }
+
+    /** Drops the expired machines from the head of the list. */
+    private void expire() {
+        if (policy != Policy.TTL || head == NONE)
+            return;
+        long now = clock.getAsLong();
+        while (head != NONE && now - putTimes[head] >= ttlMillis)
+            drop(head, MachineEvictionListener.Cause.EXPIRED);
+    }
+
+    private void drop(int slot, MachineEvictionListener.Cause cause) {
+        Machine machine = machines[slot];
+        release(slot);
+        if (cause == MachineEvictionListener.Cause.CAPACITY)
+            evictions++;
+        else
+            expirations++;
+        if (listener != null)
+            listener.evicted(machine, cause);
+    }
+
+    private void release(int slot) {
+        index.remove(ids[slot]);
+        unlink(slot);
+        machines[slot] = null;
+        next[slot] = free;
+        free = slot;
+        size--;
+    }
+
+    private void moveToTail(int slot) {
+        if (slot != tail) {
+            unlink(slot);
+            link(slot);
+        }
+    }
+
+    private void link(int slot) {
+        previous[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE)
+            head = slot;
+        else
+            next[tail] = slot;
+        tail = slot;
+    }
+
+    private void unlink(int slot) {
+        if (previous[slot] == NONE)
+            head = next[slot];
+        else
+            next[previous[slot]] = next[slot];
+        if (next[slot] == NONE)
+            tail = previous[slot];
+        else
+            previous[next[slot]] = previous[slot];
+    }
+}
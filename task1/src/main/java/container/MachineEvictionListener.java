@@ -0,0 +1,25 @@
+package container;
+
+import entity.Machine;
+
+/**
+ * Receives the machines a {@code MachineCache} drops on its own.
+ */
+public interface MachineEvictionListener {
+
+    /** Why a machine left the cache. */
+    enum Cause {
+        /** The cache was full and the machine was the least recently used, or the oldest. */
+        CAPACITY,
+        /** The machine was older than the time to live of the cache. */
+        EXPIRED
+    }
+
+    /**
+     * Called after the machine was dropped.
+     *
+     * @param machine dropped machine
+     * @param cause why it was dropped
+     */
+    void evicted(Machine machine, Cause cause);
+}
@@ -1,6 +1,12 @@
 package container;
 
+import constant.TypeMillingMachine;
+import entity.CncMilling;
+import entity.Lathe;
 import entity.Machine;
+import entity.MachineSink;
+import entity.UniversalMilling;
+import query.AdaptivePredicate;
 
 import java.util.*;
 import java.util.function.Predicate;
@@ -31,6 +37,24 @@ public class MachineList implements List<Machine>{
      */
     private Predicate<Machine> predicates;
 
+    /**
+     * The number of times this list has been structurally modified.
+     * Views and list iterators use it to detect concurrent modification.
+     */
+    private int modCount;
+
+    /** The number of modifications of this list, including replacements of elements. */
+    private long version;
+
+    /** Shared empty array used while nobody is listening to this list. */
+    private static final MachineListListener[] NO_LISTENERS = new MachineListListener[0];
+
+    /** Listeners notified after every modification of this list. */
+    private MachineListListener[] listeners = NO_LISTENERS;
+
+    /** Index of the identifiers of the elements, created by the first lookup by identifier. */
+    private IdIndex idIndex;
+
     /**
      * Constructs an empty list with the specified initial capacity.
      *
@@ -61,6 +85,66 @@ public class MachineList implements List<Machine>{
         this.predicates = predicates;
     }
 
+    /**
+     * Sets the conjunction of the predicates as {@code predicates}. The iterator
+     * evaluates the conjuncts in the order that is cheapest on the elements it has
+     * seen, see {@code AdaptivePredicate}.
+     *
+     * @param first first conjunct
+     * @param others further conjuncts, all of which an element must satisfy as well
+     */
+    @SafeVarargs
+    public final void setPredicates(Predicate<? super Machine> first, Predicate<? super Machine>... others) {
+        List<Predicate<? super Machine>> list = new ArrayList<>(others.length + 1);
+        list.add(first);
+        for (Predicate<? super Machine> conjunct : others)
+            list.add(conjunct);
+        this.predicates = AdaptivePredicate.of(list);
+    }
+
+    /**
+     * Returns the modification version of this list. Every {@code add}, {@code set},
+     * {@code remove} and {@code clear} changes it, so data derived from the list
+     * stays valid as long as the version is the same.
+     *
+     * @return modification version
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Registers a listener that will be notified after every modification of this list.
+     *
+     * @param listener listener to register
+     * @throws NullPointerException if the listener is null
+     */
+    public void addListener(MachineListListener listener) {
+        Objects.requireNonNull(listener, "Argument must be not null");
+        MachineListListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+        newListeners[listeners.length] = listener;
+        listeners = newListeners;
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(MachineListListener)}.
+     *
+     * @param listener listener to unregister
+     * @return {@code true} if the listener was registered
+     */
+    public boolean removeListener(MachineListListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                MachineListListener[] newListeners = new MachineListListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+                listeners = newListeners;
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Return {@code size} of container. Number objects {@code Machine} in buffer {@code arrayMachine}.
      *
@@ -115,6 +199,9 @@ public class MachineList implements List<Machine>{
         /** Whether it is possible to delete the element pointed to by the cursor. */
         boolean canDelete;
 
+        /** Index of the next element satisfying the predicate, -1 if not searched yet. */
+        int found = -1;
+
         /** Predicate */
         final Predicate<Machine> predicates;
 
@@ -130,32 +217,30 @@ public class MachineList implements List<Machine>{
 
         @Override
         public boolean hasNext() {
-            int local = cursor;
-            while (local < size){
-                if (predicates.test(machines[cursor])) {
-                    return true;
-                }
-                local++;
+            if (found < 0) {
+                int local = cursor;
+                while (local < size && !predicates.test(machines[local]))
+                    local++;
+                found = local;
             }
-            return false;
+            return found < size;
         }
 
         @Override
         public Machine next() {
-            while (cursor < size) {
-                if (predicates.test(machines[cursor])) {
-                    canDelete = true;
-                    return machines[cursor++];
-                }
-                cursor++;
-            }
-            throw new NoSuchElementException();
+            if (!hasNext())
+                throw new NoSuchElementException();
+            cursor = found + 1;
+            found = -1;
+            canDelete = true;
+            return machines[cursor - 1];
         }
 
         @Override
         public void remove() {
             if (canDelete) {
                 MachineList.this.remove(--cursor);
+                found = -1;
                 canDelete = false;
             } else throw new IllegalStateException();
         }
@@ -202,6 +287,10 @@ public class MachineList implements List<Machine>{
     public boolean add(Machine machine) {
         if (isAdded(size + 1)) {
             machines[size++] = machine;
+            modCount++;
+            version++;
+            for (MachineListListener listener : listeners)
+                listener.added(size - 1, machine);
             return true;
         }
         return false;
@@ -223,6 +312,64 @@ public class MachineList implements List<Machine>{
         return true;
     }
 
+    /**
+     * Increases the capacity of this list, if necessary, so that it can hold
+     * at least {@code minCapacity} elements without growing again.
+     *
+     * @param minCapacity the desired minimum capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > machines.length) {
+            increaseCapacity(minCapacity);
+        }
+    }
+
+    /**
+     * Returns the length of the array buffer.
+     *
+     * @return capacity of this list
+     */
+    int capacity() {
+        return machines.length;
+    }
+
+    /**
+     * Returns a sink which appends every record it receives to the end of this list.
+     * The sink creates one entity per record through its full constructor, so bulk
+     * loads neither allocate builders nor call a setter per field.
+     *
+     * @return sink appending to this list
+     */
+    public MachineSink sink() {
+        return new Sink();
+    }
+
+    /**
+     * Implementing the {@code sink}.
+     */
+    private class Sink implements MachineSink {
+        @Override
+        public void lathe(int power, int weight, String model, int maxDiameter, int maxLengthDetail,
+                          boolean thread) {
+            add(new Lathe(power, weight, model, maxDiameter, maxLengthDetail, thread));
+        }
+
+        @Override
+        public void cncMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                               int tableArea, String softwareName, int numberAix) {
+            add(new CncMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                    softwareName, numberAix));
+        }
+
+        @Override
+        public void universalMilling(int power, int weight, String model, int maxSpindleSpeed,
+                                     int maxMillingSped, int tableArea, TypeMillingMachine typeMilling,
+                                     double degreeLimb) {
+            add(new UniversalMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                    typeMilling, degreeLimb));
+        }
+    }
+
     private void increaseCapacity(int minCapacity) {
         int oldCapacity = machines.length;
         int newCapacity = oldCapacity + (oldCapacity >> 1);
@@ -246,7 +393,10 @@ public class MachineList implements List<Machine>{
         if (elementIndex == -1) {
             return false;
         }
+        Machine oldValue = machines[elementIndex];
         fastRemove(elementIndex);
+        for (MachineListListener listener : listeners)
+            listener.removed(elementIndex, oldValue);
         return true;
     }
 
@@ -256,6 +406,8 @@ public class MachineList implements List<Machine>{
             System.arraycopy(machines, index + 1, machines, index,
                     numberDeleteElement);
         machines[--size] = null;
+        modCount++;
+        version++;
     }
 
     /**
@@ -295,11 +447,38 @@ public class MachineList implements List<Machine>{
         if (isAdded(size + addedLength)) {
             System.arraycopy(array, 0, machines, size, addedLength);
             size += addedLength;
+            modCount++;
+            version++;
+            for (MachineListListener listener : listeners)
+                listener.addedAll(size - addedLength, array);
             return true;
         }
         return false;
     }
 
+    /**
+     * Appends {@code length} elements of {@code source} starting at {@code from} with one
+     * {@code System.arraycopy}. The caller reserves the capacity beforehand.
+     *
+     * @param source array holding the elements
+     * @param from index of the first element in {@code source}
+     * @param length number of elements
+     */
+    void appendRange(Machine[] source, int from, int length) {
+        if (length == 0)
+            return;
+        ensureCapacity(size + length);
+        System.arraycopy(source, from, machines, size, length);
+        size += length;
+        modCount++;
+        version++;
+        if (listeners.length > 0) {
+            Object[] added = Arrays.copyOfRange(source, from, from + length, Object[].class);
+            for (MachineListListener listener : listeners)
+                listener.addedAll(size - length, added);
+        }
+    }
+
     /**
      * Inserts all the elements in the specified collection into this
      * list at the specified position (optional operation).  Shifts the
@@ -330,6 +509,10 @@ public class MachineList implements List<Machine>{
                         numMoved);
             System.arraycopy(a, 0, machines, index, addedLength);
             size += addedLength;
+            modCount++;
+            version++;
+            for (MachineListListener listener : listeners)
+                listener.addedAll(index, a);
             return true;
         }
         return false;
@@ -362,10 +545,22 @@ public class MachineList implements List<Machine>{
         final Object[] elementData = this.machines;
         int counterMachines = 0, counterCollection = 0;
         boolean modified = false;
+        /* indexes and elements of the removed machines, in the order they would be removed one by one */
+        int[] removedIndexes = null;
+        Machine[] removedMachines = null;
+        int removedCount = 0;
+        if (listeners.length > 0) {
+            removedIndexes = new int[size];
+            removedMachines = new Machine[size];
+        }
         try {
             for (; counterMachines < size; counterMachines++)
-                if (collection.contains(elementData[counterMachines]) == complement)
+                if (collection.contains(elementData[counterMachines]) == complement) {
                     elementData[counterCollection++] = elementData[counterMachines];
+                } else if (removedIndexes != null) {
+                    removedIndexes[removedCount] = counterCollection;
+                    removedMachines[removedCount++] = (Machine) elementData[counterMachines];
+                }
         } finally {
             if (counterMachines != size) {
                 System.arraycopy(elementData, counterMachines,
@@ -377,9 +572,14 @@ public class MachineList implements List<Machine>{
                 for (int i = counterCollection; i < size; i++)
                     elementData[i] = null;
                 size = counterCollection;
+                modCount++;
+                version++;
                 modified = true;
             }
         }
+        for (int i = 0; i < removedCount; i++)
+            for (MachineListListener listener : listeners)
+                listener.removed(removedIndexes[i], removedMachines[i]);
         return modified;
     }
 
@@ -406,6 +606,10 @@ public class MachineList implements List<Machine>{
         for (int i = 0; i < size; i++)
             machines[i] = null;
         size = 0;
+        modCount++;
+        version++;
+        for (MachineListListener listener : listeners)
+            listener.cleared();
     }
 
     /**
@@ -437,6 +641,9 @@ public class MachineList implements List<Machine>{
         isIndexCorrect(index);
         Machine oldValue = machines[index];
         machines[index] = element;
+        version++;
+        for (MachineListListener listener : listeners)
+            listener.replaced(index, oldValue, element);
         return oldValue;
     }
 
@@ -458,6 +665,10 @@ public class MachineList implements List<Machine>{
                     size - index);
             machines[index] = element;
             size++;
+            modCount++;
+            version++;
+            for (MachineListListener listener : listeners)
+                listener.added(index, element);
         }
     }
 
@@ -476,6 +687,8 @@ public class MachineList implements List<Machine>{
         isIndexCorrect(index);
         Machine oldValue = machines[index];
         fastRemove(index);
+        for (MachineListListener listener : listeners)
+            listener.removed(index, oldValue);
         return oldValue;
     }
 
@@ -527,46 +740,540 @@ public class MachineList implements List<Machine>{
     }
 
     /**
-     * There is no functionality according to the terms of reference
+     * Returns the index of the element with the identifier. The first call indexes the
+     * identifiers of all elements, later calls take constant time; an insertion or
+     * removal before the element makes the next call rescan the shifted elements once.
+     * Identifiers are expected to be unique within the list.
+     *
+     * @param id identifier of the element
+     * @return the index of the element, or -1 if this list does not contain it
+     */
+    public int indexOfId(long id) {
+        if (idIndex == null) {
+            idIndex = new IdIndex(this);
+            addListener(idIndex);
+        }
+        return idIndex.indexOf(id);
+    }
+
+    /**
+     * Returns the element with the identifier.
+     *
+     * @param id identifier of the element
+     * @return the element, or {@code null} if this list does not contain it
+     * @see #indexOfId(long)
+     */
+    public Machine getById(long id) {
+        int index = indexOfId(id);
+        return index < 0 ? null : machines[index];
+    }
+
+    /**
+     * Removes the element with the identifier.
+     *
+     * @param id identifier of the element
+     * @return the removed element, or {@code null} if this list does not contain it
+     * @see #indexOfId(long)
+     */
+    public Machine removeById(long id) {
+        int index = indexOfId(id);
+        return index < 0 ? null : remove(index);
+    }
+
+    /**
+     * Replaces the element with the identifier, keeping its position.
+     *
+     * @param id identifier of the element
+     * @param machine new element
+     * @return the replaced element, or {@code null} if this list does not contain it
+     * @see #indexOfId(long)
+     */
+    public Machine replaceById(long id, Machine machine) {
+        int index = indexOfId(id);
+        return index < 0 ? null : set(index, machine);
+    }
+
+    /**
+     * Returns the element at the index without checks or notifications.
      *
-     * @return null
+     * @param index index from 0 to size - 1
+     * @return the element
+     */
+    Machine elementAt(int index) {
+        return machines[index];
+    }
+
+    /**
+     * Returns a list iterator over all the elements in this list (in proper sequence).
+     * The iterator ignores {@code predicates} and is fail-fast: a structural modification
+     * of the list not made through the iterator causes
+     * {@code ConcurrentModificationException}.
+     *
+     * @return list iterator positioned at the beginning of the list
      */
     @Override
     public ListIterator<Machine> listIterator() {
-        throw new UnsupportedOperationException();
+        return new ListItr(0);
     }
 
     /**
-     * There is no functionality according to the terms of reference
+     * Returns a list iterator over all the elements in this list (in proper sequence),
+     * starting at the specified position.
      *
-     * @return null
+     * @param index index of the first element to be returned by {@code next}
+     * @return list iterator positioned at {@code index}
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt; size()</tt>)
      */
     @Override
     public ListIterator<Machine> listIterator(int index) {
-        throw new UnsupportedOperationException();
+        isIndexCorrect(index);
+        return new ListItr(index);
+    }
+
+    /**
+     * Implementing the {@code listIterator}.
+     */
+    private class ListItr implements ListIterator<Machine> {
+        /** Index of element to be returned by subsequent call to next. */
+        int cursor;
+
+        /** Index of element returned by the last call to next or previous, -1 if none. */
+        int lastRet = -1;
+
+        /** The value of {@code modCount} this iterator expects. */
+        int expectedModCount = modCount;
+
+        ListItr(int index) {
+            cursor = index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < size;
+        }
+
+        @Override
+        public Machine next() {
+            checkForComodification();
+            if (cursor >= size)
+                throw new NoSuchElementException();
+            lastRet = cursor++;
+            return machines[lastRet];
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return cursor > 0;
+        }
+
+        @Override
+        public Machine previous() {
+            checkForComodification();
+            if (cursor <= 0)
+                throw new NoSuchElementException();
+            lastRet = --cursor;
+            return machines[lastRet];
+        }
+
+        @Override
+        public int nextIndex() {
+            return cursor;
+        }
+
+        @Override
+        public int previousIndex() {
+            return cursor - 1;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+            MachineList.this.remove(lastRet);
+            cursor = lastRet;
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public void set(Machine machine) {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            checkForComodification();
+            MachineList.this.set(lastRet, machine);
+        }
+
+        @Override
+        public void add(Machine machine) {
+            checkForComodification();
+            MachineList.this.add(cursor++, machine);
+            lastRet = -1;
+            expectedModCount = modCount;
+        }
+
+        final void checkForComodification() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
     }
 
     /**
-     * There is no functionality according to the terms of reference
+     * Returns a view of the portion of this list between the specified
+     * {@code fromIndex}, inclusive, and {@code toIndex}, exclusive.
+     * The view shares the array buffer of this list, so creating it copies nothing,
+     * and changes made through it are reflected in this list.
+     * A structural modification of this list not made through the view makes
+     * the view throw {@code ConcurrentModificationException}.
      *
-     * @return null
+     * @param fromIndex low endpoint (inclusive) of the subList
+     * @param toIndex high endpoint (exclusive) of the subList
+     * @return a view of the specified range within this list
+     * @throws IndexOutOfBoundsException if an endpoint index value is out of range
+     *         (<tt>fromIndex &lt; 0 || toIndex &gt; size</tt>)
+     * @throws IllegalArgumentException if the endpoint indices are out of order
+     *         (<tt>fromIndex &gt; toIndex</tt>)
      */
     @Override
-    public List<Machine> subList(int fromIndex, int toIndex){
-        throw new UnsupportedOperationException();
+    public List<Machine> subList(int fromIndex, int toIndex) {
+        subListRangeCheck(fromIndex, toIndex, size);
+        return new SubList(null, fromIndex, toIndex);
     }
-    
+
+    private static void subListRangeCheck(int fromIndex, int toIndex, int size) {
+        if (fromIndex < 0)
+            throw new IndexOutOfBoundsException("fromIndex = " + fromIndex);
+        if (toIndex > size)
+            throw new IndexOutOfBoundsException("toIndex = " + toIndex);
+        if (fromIndex > toIndex)
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+    }
+
+    /**
+     * Sorts this list in place according to the order induced by the comparator.
+     * The sort is stable. Listeners receive {@code replaced} for every position
+     * whose element has changed.
+     *
+     * @param c the comparator, {@code null} is not supported
+     */
+    @Override
+    public void sort(Comparator<? super Machine> c) {
+        Objects.requireNonNull(c, "Argument must be not null");
+        Machine[] old = listeners.length > 0 ? Arrays.copyOf(machines, size) : null;
+        Arrays.sort(machines, 0, size, c);
+        modCount++;
+        version++;
+        if (old != null)
+            fireReplaced(old);
+    }
+
+    /**
+     * Reorders the elements in place so that the element at index {@code order[i]}
+     * moves to index {@code i}. Every cycle of the permutation is followed once, so no
+     * second array of elements is needed. The contents of {@code order} are destroyed.
+     *
+     * @param order permutation of {@code 0 .. size - 1}
+     */
+    void permute(int[] order) {
+        if (order.length != size)
+            throw new IllegalArgumentException("Permutation length " + order.length + " != size " + size);
+        Machine[] old = listeners.length > 0 ? Arrays.copyOf(machines, size) : null;
+        for (int i = 0; i < size; i++) {
+            if (order[i] == i)
+                continue;
+            Machine first = machines[i];
+            int j = i;
+            for (;;) {
+                int k = order[j];
+                order[j] = j;
+                if (k == i) {
+                    machines[j] = first;
+                    break;
+                }
+                machines[j] = machines[k];
+                j = k;
+            }
+        }
+        modCount++;
+        version++;
+        if (old != null)
+            fireReplaced(old);
+    }
+
+    private void fireReplaced(Machine[] old) {
+        for (int i = 0; i < size; i++)
+            if (old[i] != machines[i])
+                for (MachineListListener listener : listeners)
+                    listener.replaced(i, old[i], machines[i]);
+    }
+
+    /**
+     * Removes from this list all the elements whose index is between
+     * {@code fromIndex}, inclusive, and {@code toIndex}, exclusive, with one shift of the tail.
+     *
+     * @param fromIndex index of first element to be removed
+     * @param toIndex index after last element to be removed
+     */
+    void removeRange(int fromIndex, int toIndex) {
+        if (fromIndex >= toIndex)
+            return;
+        Machine[] removed = listeners.length > 0 ? Arrays.copyOfRange(machines, fromIndex, toIndex) : null;
+        System.arraycopy(machines, toIndex, machines, fromIndex, size - toIndex);
+        int newSize = size - (toIndex - fromIndex);
+        for (int i = newSize; i < size; i++)
+            machines[i] = null;
+        size = newSize;
+        modCount++;
+        version++;
+        if (removed != null)
+            for (Machine machine : removed)
+                for (MachineListListener listener : listeners)
+                    listener.removed(fromIndex, machine);
+    }
+
+    /**
+     * Applies the edits of a {@code MachineListBatch} in one pass. The edits are checked
+     * before anything is changed. Replacements are stored in place, then the runs of kept
+     * elements between the edits are moved to their new indexes, each run once: runs moving
+     * left in ascending order, consecutive runs moving right in descending order, so no run
+     * overwrites elements not moved yet. The inserted elements fill the gaps last.
+     *
+     * @param keys sorted keys of the edits
+     * @param values elements of the edits, by sequence number
+     * @param count number of edits
+     */
+    void applyBatch(long[] keys, Machine[] values, int count) {
+        int inserts = 0;
+        int removes = 0;
+        for (int e = 0; e < count; e++) {
+            int index = MachineListBatch.index(keys[e]);
+            int kind = MachineListBatch.kind(keys[e]);
+            if (index > (kind == MachineListBatch.INSERT ? size : size - 1))
+                throw new IndexOutOfBoundsException("index must be from 0 to size");
+            if (kind == MachineListBatch.INSERT)
+                inserts++;
+            else if (kind == MachineListBatch.REMOVE)
+                removes++;
+            if (kind != MachineListBatch.INSERT && e > 0 && MachineListBatch.index(keys[e - 1]) == index
+                    && MachineListBatch.kind(keys[e - 1]) != MachineListBatch.INSERT)
+                throw new IllegalArgumentException("Index replaced or removed twice: " + index);
+        }
+        int newSize = size + inserts - removes;
+        ensureCapacity(newSize);
+        Machine[] old = listeners.length > 0 ? new Machine[count] : null;
+        // runs of kept elements [from, to) moving by shift
+        int[] from = new int[count + 1];
+        int[] to = new int[count + 1];
+        int[] shift = new int[count + 1];
+        int[] targets = new int[count];
+        int runs = 0;
+        int cursor = 0;
+        int offset = 0;
+        for (int e = 0; e < count; e++) {
+            int index = MachineListBatch.index(keys[e]);
+            int kind = MachineListBatch.kind(keys[e]);
+            if (old != null && kind != MachineListBatch.INSERT)
+                old[e] = machines[index];
+            if (kind == MachineListBatch.SET) {
+                machines[index] = values[MachineListBatch.sequence(keys[e])];
+                continue;
+            }
+            if (index > cursor) {
+                from[runs] = cursor;
+                to[runs] = index;
+                shift[runs++] = offset;
+            }
+            if (kind == MachineListBatch.INSERT) {
+                targets[e] = index + offset++;
+                cursor = index;
+            } else {
+                offset--;
+                cursor = index + 1;
+            }
+        }
+        if (size > cursor) {
+            from[runs] = cursor;
+            to[runs] = size;
+            shift[runs++] = offset;
+        }
+        for (int r = 0; r < runs; ) {
+            if (shift[r] <= 0) {
+                if (shift[r] < 0)
+                    System.arraycopy(machines, from[r], machines, from[r] + shift[r], to[r] - from[r]);
+                r++;
+                continue;
+            }
+            int end = r;
+            while (end < runs && shift[end] > 0)
+                end++;
+            for (int t = end - 1; t >= r; t--)
+                System.arraycopy(machines, from[t], machines, from[t] + shift[t], to[t] - from[t]);
+            r = end;
+        }
+        for (int e = 0; e < count; e++)
+            if (MachineListBatch.kind(keys[e]) == MachineListBatch.INSERT)
+                machines[targets[e]] = values[MachineListBatch.sequence(keys[e])];
+        for (int i = newSize; i < size; i++)
+            machines[i] = null;
+        size = newSize;
+        modCount++;
+        version++;
+        if (old != null)
+            fireBatch(keys, values, count, old);
+    }
+
+    private void fireBatch(long[] keys, Machine[] values, int count, Machine[] old) {
+        int offset = 0;
+        for (int e = 0; e < count; e++) {
+            int index = MachineListBatch.index(keys[e]) + offset;
+            Machine value = values[MachineListBatch.sequence(keys[e])];
+            switch (MachineListBatch.kind(keys[e])) {
+                case MachineListBatch.INSERT:
+                    offset++;
+                    for (MachineListListener listener : listeners)
+                        listener.added(index, value);
+                    break;
+                case MachineListBatch.SET:
+                    for (MachineListListener listener : listeners)
+                        listener.replaced(index, old[e], value);
+                    break;
+                default:
+                    offset--;
+                    for (MachineListListener listener : listeners)
+                        listener.removed(index, old[e]);
+            }
+        }
+    }
+
+    /**
+     * Implementing the {@code subList}. Indexes of the view are translated by {@code offset}
+     * into indexes of the enclosing {@code MachineList}.
+     */
+    private class SubList extends AbstractList<Machine> implements RandomAccess {
+        /** The view this view was created from, {@code null} for a view of the list itself. */
+        private final SubList parent;
+        private final int offset;
+        private int size;
+
+        SubList(SubList parent, int fromIndex, int toIndex) {
+            this.parent = parent;
+            this.offset = (parent == null ? 0 : parent.offset) + fromIndex;
+            this.size = toIndex - fromIndex;
+            this.modCount = MachineList.this.modCount;
+        }
+
+        @Override
+        public int size() {
+            checkForComodification();
+            return size;
+        }
+
+        @Override
+        public Machine get(int index) {
+            rangeCheck(index);
+            checkForComodification();
+            return machines[offset + index];
+        }
+
+        @Override
+        public Machine set(int index, Machine element) {
+            rangeCheck(index);
+            checkForComodification();
+            return MachineList.this.set(offset + index, element);
+        }
+
+        @Override
+        public void add(int index, Machine element) {
+            rangeCheckForAdd(index);
+            checkForComodification();
+            MachineList.this.add(offset + index, element);
+            updateSize(1);
+        }
+
+        @Override
+        public Machine remove(int index) {
+            rangeCheck(index);
+            checkForComodification();
+            Machine result = MachineList.this.remove(offset + index);
+            updateSize(-1);
+            return result;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            checkForComodification();
+            MachineList.this.removeRange(offset + fromIndex, offset + toIndex);
+            updateSize(fromIndex - toIndex);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends Machine> collection) {
+            return addAll(size, collection);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends Machine> collection) {
+            rangeCheckForAdd(index);
+            int addedLength = collection.size();
+            if (addedLength == 0)
+                return false;
+            checkForComodification();
+            MachineList.this.addAll(offset + index, collection);
+            updateSize(addedLength);
+            return true;
+        }
+
+        @Override
+        public List<Machine> subList(int fromIndex, int toIndex) {
+            subListRangeCheck(fromIndex, toIndex, size);
+            return new SubList(this, fromIndex, toIndex);
+        }
+
+        private void rangeCheck(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        private void rangeCheckForAdd(int index) {
+            if (index < 0 || index > size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        private void checkForComodification() {
+            if (MachineList.this.modCount != this.modCount)
+                throw new ConcurrentModificationException();
+        }
+
+        /** Applies the size change to this view and to every view it was created from. */
+        private void updateSize(int sizeChange) {
+            SubList subList = this;
+            do {
+                subList.size += sizeChange;
+                subList.modCount = MachineList.this.modCount;
+                subList = subList.parent;
+            } while (subList != null);
+        }
+    }
+
+    /**
+     * Returns the elements in square brackets, separated by {@code ", "}.
+     * The whole text is built in memory; large lists should be written
+     * with {@code format.MachineFormat} instead.
+     *
+     * @return string representation of this list
+     */
     @Override
     public  String toString() {
         if (machines == null)
             return "null";
-        if (size == -1)
+        if (size == 0)
             return "[]";
         StringBuilder b = new StringBuilder();
         b.append('[');
         for (int i = 0; ; i++) {
             b.append(machines[i]);
-            if (i == size)
+            if (i == size - 1)
                 return b.append(']').toString();
             b.append(", ");
         }
@@ -0,0 +1,145 @@
+package container;
+
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Collects positional insertions, replacements and removals and applies them to a
+ * {@code MachineList} at once.
+ *
+ * <p>All indexes refer to the list as it is before the batch is applied, so the
+ * order in which the edits are collected does not change their meaning, except that
+ * several insertions at the same index keep their order. An insertion at index
+ * {@code i} puts the machine before the element that had index {@code i}; an index
+ * may be replaced or removed only once. {@link #apply()} sorts the edits by index
+ * and moves every element of the list at most once, so a batch of {@code k} edits
+ * costs {@code O(n + k log k)} instead of the {@code O(k n)} of separate calls.
+ *
+ * <p>The batch is all or nothing: if any edit is invalid for the current size of
+ * the list, {@code apply} throws and neither the list nor the batch is changed.
+ */
+public class MachineListBatch {
+    static final int INSERT = 0;
+    static final int SET = 1;
+    static final int REMOVE = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final MachineList target;
+
+    /** Index, kind and sequence number of every edit, see {@link #key(int, int, int)}. */
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Machine[] values = new Machine[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * Creates an empty batch.
+     *
+     * @param target list the batch is applied to
+     */
+    public MachineListBatch(MachineList target) {
+        Objects.requireNonNull(target, "Argument must be not null");
+        this.target = target;
+    }
+
+    /**
+     * Inserts the machine before the element at the index.
+     *
+     * @param index index from 0 to size
+     * @param machine machine, may be null
+     * @return this batch
+     */
+    public MachineListBatch add(int index, Machine machine) {
+        return edit(index, INSERT, machine);
+    }
+
+    /**
+     * Replaces the element at the index.
+     *
+     * @param index index from 0 to size - 1
+     * @param machine machine, may be null
+     * @return this batch
+     */
+    public MachineListBatch set(int index, Machine machine) {
+        return edit(index, SET, machine);
+    }
+
+    /**
+     * Removes the element at the index.
+     *
+     * @param index index from 0 to size - 1
+     * @return this batch
+     */
+    public MachineListBatch remove(int index) {
+        return edit(index, REMOVE, null);
+    }
+
+    private MachineListBatch edit(int index, int kind, Machine machine) {
+        if (index < 0)
+            throw new IndexOutOfBoundsException("index must be from 0 to size");
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count] = machine;
+        keys[count] = key(index, kind, count);
+        count++;
+        return this;
+    }
+
+    /**
+     * Returns the number of collected edits.
+     *
+     * @return number of edits
+     */
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /** Discards the collected edits. */
+    public void clear() {
+        Arrays.fill(values, 0, count, null);
+        count = 0;
+    }
+
+    /**
+     * Applies the collected edits to the list and empties the batch.
+     *
+     * @throws IndexOutOfBoundsException if an index is out of range for the list
+     * @throws IllegalArgumentException if an index is replaced or removed more than once
+     */
+    public void apply() {
+        if (count == 0)
+            return;
+        // the order of sorted keys does not change the meaning of the batch
+        Arrays.sort(keys, 0, count);
+        target.applyBatch(keys, values, count);
+        clear();
+    }
+
+    /**
+     * Packs an edit into a key whose order is the order the edits are applied in:
+     * by index, insertions before the element at the index, then by collection order.
+     */
+    static long key(int index, int kind, int sequence) {
+        return (long) index << 33 | (long) kind << 31 | sequence;
+    }
+
+    static int index(long key) {
+        return (int) (key >>> 33);
+    }
+
+    static int kind(long key) {
+        return (int) (key >>> 31) & 3;
+    }
+
+    static int sequence(long key) {
+        return (int) key & Integer.MAX_VALUE;
+    }
+}
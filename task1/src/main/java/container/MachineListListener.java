@@ -0,0 +1,52 @@
+package container;
+
+import entity.Machine;
+
+/**
+ * Receives notifications about modifications of a {@code MachineList}.
+ * Every method is called after the modification has been applied, with the
+ * indexes the list had at that moment, so replaying the calls in order on a
+ * copy of the list reproduces the same contents.
+ */
+public interface MachineListListener {
+
+    /**
+     * Called after {@code machine} was inserted at {@code index}.
+     *
+     * @param index index of the new element
+     * @param machine inserted element
+     */
+    void added(int index, Machine machine);
+
+    /**
+     * Called after several elements were inserted starting at {@code index}.
+     * By default reports every element through {@link #added(int, Machine)}.
+     *
+     * @param index index of the first inserted element
+     * @param machines inserted elements, the array must not be modified
+     */
+    default void addedAll(int index, Object[] machines) {
+        for (int i = 0; i < machines.length; i++)
+            added(index + i, (Machine) machines[i]);
+    }
+
+    /**
+     * Called after the element at {@code index} was replaced.
+     *
+     * @param index index of the replaced element
+     * @param oldMachine element previously stored at the index
+     * @param newMachine element stored at the index now
+     */
+    void replaced(int index, Machine oldMachine, Machine newMachine);
+
+    /**
+     * Called after the element at {@code index} was removed.
+     *
+     * @param index index the element had before removal
+     * @param machine removed element
+     */
+    void removed(int index, Machine machine);
+
+    /** Called after all the elements were removed from the list. */
+    void cleared();
+}
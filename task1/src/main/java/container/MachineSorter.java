@@ -0,0 +1,154 @@
+package container;
+
+import entity.Machine;
+import entity.Milling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Sorting of a {@code MachineList} by integer keys.
+ *
+ * <p>Every key is read once per machine into a primitive array; the machines are
+ * never compared through getters. {@link #sort} orders {@code (key, position)} pairs
+ * with an LSD radix sort and {@link #parallelSort} packs every pair into one
+ * {@code long} and sorts the longs with {@code Arrays.parallelSort}. The resulting
+ * permutation is then applied to the array of the list in place.
+ *
+ * <p>Both sorts are stable. With several keys the list is ordered by the first key,
+ * then by the second and so on; this is done with one stable pass per key, starting
+ * from the last one.
+ */
+public final class MachineSorter {
+    /** Key {@code power}. */
+    public static final ToIntFunction<Machine> POWER = Machine::getPower;
+
+    /** Key {@code weight}. */
+    public static final ToIntFunction<Machine> WEIGHT = Machine::getWeight;
+
+    /** Key {@code maxSpindleSpeed}; machines without the field get {@code Integer.MIN_VALUE} and come first. */
+    public static final ToIntFunction<Machine> MAX_SPINDLE_SPEED =
+            m -> m instanceof Milling ? ((Milling) m).getMaxSpindleSpeed() : Integer.MIN_VALUE;
+
+    /** Below this size a radix pass costs more than sorting packed pairs. */
+    private static final int RADIX_THRESHOLD = 1 << 10;
+
+    private static final int RADIX_BITS = 8;
+    private static final int BUCKETS = 1 << RADIX_BITS;
+
+    private MachineSorter() {
+    }
+
+    /**
+     * Sorts the list in ascending order of the keys. The list must not contain {@code null}s.
+     *
+     * @param list list to sort
+     * @param keys keys, most significant first
+     */
+    @SafeVarargs
+    public static void sort(MachineList list, ToIntFunction<? super Machine>... keys) {
+        List<ToIntFunction<? super Machine>> keyList = new ArrayList<>(keys.length);
+        for (ToIntFunction<? super Machine> key : keys)
+            keyList.add(key);
+        sort(list, false, keyList);
+    }
+
+    /**
+     * Sorts the list in ascending order of the keys, extracting the keys and sorting
+     * in the common fork/join pool. The list must not contain {@code null}s.
+     *
+     * @param list list to sort
+     * @param keys keys, most significant first
+     */
+    @SafeVarargs
+    public static void parallelSort(MachineList list, ToIntFunction<? super Machine>... keys) {
+        List<ToIntFunction<? super Machine>> keyList = new ArrayList<>(keys.length);
+        for (ToIntFunction<? super Machine> key : keys)
+            keyList.add(key);
+        sort(list, true, keyList);
+    }
+
+    private static void sort(MachineList list, boolean parallel, List<ToIntFunction<? super Machine>> keys) {
+        Objects.requireNonNull(list, "Argument must be not null");
+        if (keys.isEmpty())
+            throw new IllegalArgumentException("No keys");
+        int size = list.size();
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++)
+            order[i] = i;
+        int[] values = new int[size];
+        for (int k = keys.size() - 1; k >= 0; k--) {
+            ToIntFunction<? super Machine> key = Objects.requireNonNull(keys.get(k), "Argument must be not null");
+            int[] current = order;
+            if (parallel)
+                IntStream.range(0, size).parallel().forEach(i -> values[i] = key.applyAsInt(list.get(current[i])));
+            else
+                for (int i = 0; i < size; i++)
+                    values[i] = key.applyAsInt(list.get(current[i]));
+            if (!parallel && size >= RADIX_THRESHOLD)
+                order = radixSort(values, order);
+            else
+                order = packedSort(values, order, parallel);
+        }
+        list.permute(order);
+    }
+
+    /**
+     * Stable sort of {@code order} by {@code values}, both in the same positions.
+     * Every pass distributes by one byte of the key with its sign bit flipped;
+     * a pass is skipped when all the keys have the same byte.
+     */
+    private static int[] radixSort(int[] values, int[] order) {
+        int size = values.length;
+        int[] values2 = new int[size];
+        int[] order2 = new int[size];
+        int[] counts = new int[BUCKETS];
+        for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            Arrays.fill(counts, 0);
+            for (int value : values)
+                counts[((value ^ Integer.MIN_VALUE) >>> shift) & (BUCKETS - 1)]++;
+            if (counts[((values[0] ^ Integer.MIN_VALUE) >>> shift) & (BUCKETS - 1)] == size)
+                continue;
+            for (int b = 0, start = 0; b < BUCKETS; b++) {
+                int count = counts[b];
+                counts[b] = start;
+                start += count;
+            }
+            for (int i = 0; i < size; i++) {
+                int target = counts[((values[i] ^ Integer.MIN_VALUE) >>> shift) & (BUCKETS - 1)]++;
+                values2[target] = values[i];
+                order2[target] = order[i];
+            }
+            int[] swap = values;
+            values = values2;
+            values2 = swap;
+            swap = order;
+            order = order2;
+            order2 = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Stable sort of {@code order} by {@code values}: every key is packed with its
+     * position, so equal keys stay in the order of their positions.
+     */
+    private static int[] packedSort(int[] values, int[] order, boolean parallel) {
+        int size = values.length;
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++)
+            packed[i] = (long) values[i] << 32 | i;
+        if (parallel)
+            Arrays.parallelSort(packed);
+        else
+            Arrays.sort(packed);
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++)
+            sorted[i] = order[(int) packed[i]];
+        return sorted;
+    }
+}
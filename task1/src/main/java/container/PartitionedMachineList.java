@@ -0,0 +1,350 @@
+package container;
+
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.UniversalMilling;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * List of machines which keeps a separate array for every concrete machine class.
+ *
+ * <p>{@code Lathe}, {@code CncMilling} and {@code UniversalMilling} objects are stored
+ * in their own typed arrays, everything else (subclasses and {@code null}) in a common one.
+ * The order of the list is kept by two parallel arrays: the kind of every element and
+ * its slot in the array of its kind. Inside every array the elements keep the order of
+ * the list, so type-restricted queries such as {@link #findLathes(Predicate)} scan only
+ * one array, return the machines in list order and call the predicate with a single
+ * receiver type, which keeps the call site monomorphic.
+ *
+ * <p>Appending is O(1); inserting or removing in the middle is O(n), like an array list.
+ */
+public class PartitionedMachineList extends AbstractList<Machine> implements RandomAccess {
+    private static final byte LATHE = 0;
+    private static final byte CNC_MILLING = 1;
+    private static final byte UNIVERSAL_MILLING = 2;
+    private static final byte OTHER = 3;
+
+    /** Number of elements in the list. */
+    private int size;
+
+    /** Kind of every element of the list. */
+    private byte[] kinds;
+
+    /** Index of every element of the list in the array of its kind. */
+    private int[] slots;
+
+    private Lathe[] lathes = new Lathe[0];
+    private CncMilling[] cncMillings = new CncMilling[0];
+    private UniversalMilling[] universalMillings = new UniversalMilling[0];
+    private Machine[] others = new Machine[0];
+
+    /** Number of elements of every kind. */
+    private final int[] counts = new int[4];
+
+    /**
+     * Constructs an empty list with the specified initial capacity.
+     *
+     * @param initialCapacity the initial capacity of the list
+     * @throws IllegalArgumentException if the specified initial capacity is negative
+     */
+    public PartitionedMachineList(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        kinds = new byte[initialCapacity];
+        slots = new int[initialCapacity];
+    }
+
+    /** Constructs an empty list with an initial capacity of ten. */
+    public PartitionedMachineList() {
+        this(10);
+    }
+
+    /**
+     * Constructs a list containing the elements of the specified collection.
+     *
+     * @param collection the collection whose elements are to be placed into this list
+     */
+    public PartitionedMachineList(Collection<? extends Machine> collection) {
+        this(collection.size());
+        addAll(collection);
+    }
+
+    private static byte kindOf(Machine machine) {
+        if (machine == null)
+            return OTHER;
+        Class<?> type = machine.getClass();
+        if (type == Lathe.class)
+            return LATHE;
+        if (type == CncMilling.class)
+            return CNC_MILLING;
+        if (type == UniversalMilling.class)
+            return UNIVERSAL_MILLING;
+        return OTHER;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Machine get(int index) {
+        checkIndex(index);
+        int slot = slots[index];
+        switch (kinds[index]) {
+            case LATHE:
+                return lathes[slot];
+            case CNC_MILLING:
+                return cncMillings[slot];
+            case UNIVERSAL_MILLING:
+                return universalMillings[slot];
+            default:
+                return others[slot];
+        }
+    }
+
+    @Override
+    public Machine set(int index, Machine element) {
+        checkIndex(index);
+        byte kind = kindOf(element);
+        if (kind != kinds[index]) {
+            Machine oldValue = remove(index);
+            add(index, element);
+            return oldValue;
+        }
+        int slot = slots[index];
+        Machine oldValue;
+        switch (kind) {
+            case LATHE:
+                oldValue = lathes[slot];
+                lathes[slot] = (Lathe) element;
+                break;
+            case CNC_MILLING:
+                oldValue = cncMillings[slot];
+                cncMillings[slot] = (CncMilling) element;
+                break;
+            case UNIVERSAL_MILLING:
+                oldValue = universalMillings[slot];
+                universalMillings[slot] = (UniversalMilling) element;
+                break;
+            default:
+                oldValue = others[slot];
+                others[slot] = element;
+        }
+        return oldValue;
+    }
+
+    @Override
+    public void add(int index, Machine element) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("index must be from 0 to size");
+        byte kind = kindOf(element);
+        if (size == kinds.length) {
+            int newCapacity = Math.max(size + (size >> 1), size + 1);
+            kinds = Arrays.copyOf(kinds, newCapacity);
+            slots = Arrays.copyOf(slots, newCapacity);
+        }
+        int slot = counts[kind];
+        if (index < size) {
+            /* the new element goes before every later element of the same kind */
+            for (int i = index; i < size; i++) {
+                if (kinds[i] == kind) {
+                    if (slot == counts[kind])
+                        slot = slots[i];
+                    slots[i]++;
+                }
+            }
+            System.arraycopy(kinds, index, kinds, index + 1, size - index);
+            System.arraycopy(slots, index, slots, index + 1, size - index);
+        }
+        switch (kind) {
+            case LATHE:
+                lathes = insert(lathes, counts[kind], slot, (Lathe) element);
+                break;
+            case CNC_MILLING:
+                cncMillings = insert(cncMillings, counts[kind], slot, (CncMilling) element);
+                break;
+            case UNIVERSAL_MILLING:
+                universalMillings = insert(universalMillings, counts[kind], slot, (UniversalMilling) element);
+                break;
+            default:
+                others = insert(others, counts[kind], slot, element);
+        }
+        counts[kind]++;
+        kinds[index] = kind;
+        slots[index] = slot;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Machine remove(int index) {
+        checkIndex(index);
+        byte kind = kinds[index];
+        int slot = slots[index];
+        Machine oldValue = get(index);
+        switch (kind) {
+            case LATHE:
+                delete(lathes, counts[kind], slot);
+                break;
+            case CNC_MILLING:
+                delete(cncMillings, counts[kind], slot);
+                break;
+            case UNIVERSAL_MILLING:
+                delete(universalMillings, counts[kind], slot);
+                break;
+            default:
+                delete(others, counts[kind], slot);
+        }
+        counts[kind]--;
+        for (int i = index + 1; i < size; i++)
+            if (kinds[i] == kind)
+                slots[i]--;
+        System.arraycopy(kinds, index + 1, kinds, index, size - index - 1);
+        System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+        size--;
+        modCount++;
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(lathes, 0, counts[LATHE], null);
+        Arrays.fill(cncMillings, 0, counts[CNC_MILLING], null);
+        Arrays.fill(universalMillings, 0, counts[UNIVERSAL_MILLING], null);
+        Arrays.fill(others, 0, counts[OTHER], null);
+        Arrays.fill(counts, 0);
+        size = 0;
+        modCount++;
+    }
+
+    private static <T> T[] insert(T[] array, int length, int position, T element) {
+        if (length == array.length)
+            array = Arrays.copyOf(array, Math.max(length + (length >> 1), length + 1));
+        System.arraycopy(array, position, array, position + 1, length - position);
+        array[position] = element;
+        return array;
+    }
+
+    private static void delete(Object[] array, int length, int position) {
+        System.arraycopy(array, position + 1, array, position, length - position - 1);
+        array[length - 1] = null;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("index must be from 0 to size - 1");
+    }
+
+    /**
+     * Returns the number of elements whose class is exactly {@code type}.
+     *
+     * @param type {@code Lathe}, {@code CncMilling} or {@code UniversalMilling}
+     * @return number of elements of the class
+     * @throws IllegalArgumentException if the class has no partition of its own
+     */
+    public int count(Class<? extends Machine> type) {
+        if (type == Lathe.class)
+            return counts[LATHE];
+        if (type == CncMilling.class)
+            return counts[CNC_MILLING];
+        if (type == UniversalMilling.class)
+            return counts[UNIVERSAL_MILLING];
+        throw new IllegalArgumentException("No partition for " + type.getName());
+    }
+
+    /**
+     * Returns the lathes matching {@code predicate} in list order, scanning only the lathes.
+     *
+     * @param predicate condition for lathes
+     * @return matching lathes
+     */
+    public List<Lathe> findLathes(Predicate<? super Lathe> predicate) {
+        Lathe[] array = lathes;
+        int length = counts[LATHE];
+        List<Lathe> result = new ArrayList<>();
+        for (int i = 0; i < length; i++)
+            if (predicate.test(array[i]))
+                result.add(array[i]);
+        return result;
+    }
+
+    /**
+     * Returns the cnc milling machines matching {@code predicate} in list order,
+     * scanning only the cnc milling machines.
+     *
+     * @param predicate condition for cnc milling machines
+     * @return matching machines
+     */
+    public List<CncMilling> findCncMillings(Predicate<? super CncMilling> predicate) {
+        CncMilling[] array = cncMillings;
+        int length = counts[CNC_MILLING];
+        List<CncMilling> result = new ArrayList<>();
+        for (int i = 0; i < length; i++)
+            if (predicate.test(array[i]))
+                result.add(array[i]);
+        return result;
+    }
+
+    /**
+     * Returns the universal milling machines matching {@code predicate} in list order,
+     * scanning only the universal milling machines.
+     *
+     * @param predicate condition for universal milling machines
+     * @return matching machines
+     */
+    public List<UniversalMilling> findUniversalMillings(Predicate<? super UniversalMilling> predicate) {
+        UniversalMilling[] array = universalMillings;
+        int length = counts[UNIVERSAL_MILLING];
+        List<UniversalMilling> result = new ArrayList<>();
+        for (int i = 0; i < length; i++)
+            if (predicate.test(array[i]))
+                result.add(array[i]);
+        return result;
+    }
+
+    /**
+     * Performs {@code action} for every lathe in list order.
+     *
+     * @param action action for lathes
+     */
+    public void forEachLathe(Consumer<? super Lathe> action) {
+        Lathe[] array = lathes;
+        int length = counts[LATHE];
+        for (int i = 0; i < length; i++)
+            action.accept(array[i]);
+    }
+
+    /**
+     * Performs {@code action} for every cnc milling machine in list order.
+     *
+     * @param action action for cnc milling machines
+     */
+    public void forEachCncMilling(Consumer<? super CncMilling> action) {
+        CncMilling[] array = cncMillings;
+        int length = counts[CNC_MILLING];
+        for (int i = 0; i < length; i++)
+            action.accept(array[i]);
+    }
+
+    /**
+     * Performs {@code action} for every universal milling machine in list order.
+     *
+     * @param action action for universal milling machines
+     */
+    public void forEachUniversalMilling(Consumer<? super UniversalMilling> action) {
+        UniversalMilling[] array = universalMillings;
+        int length = counts[UNIVERSAL_MILLING];
+        for (int i = 0; i < length; i++)
+            action.accept(array[i]);
+    }
+}
@@ -0,0 +1,534 @@
+package container;
+
+import entity.Machine;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * List of machines keeping immutable versions, so readers never block and never see
+ * a half-done modification.
+ *
+ * <p>A version stores the machines in chunks of up to {@value #MAX_CHUNK} elements and
+ * the cumulative end index of every chunk. Every modification creates the next version
+ * by copying only the chunk it changes and the small arrays of chunk references and
+ * ends; all the other chunks are shared with the previous version. Modifications are
+ * serialized by the lock of the list, reads take the current version from a volatile
+ * field and do not lock at all. Bulk modifications, such as {@code addAll},
+ * {@code removeIf} or {@code subList(from, to).clear()}, create a single version.
+ *
+ * <p>Single reads, such as {@code get}, use the current version. A reader which needs
+ * a consistent view over many reads pins a version with {@link #snapshot()} and reads
+ * the {@code Snapshot} as long as it likes, while writers go on creating new versions.
+ * Pinned versions are registered by number, so {@link #snapshot(long)} can pin the same
+ * version again, e.g. for the next page of a report; when the last pin of a version is
+ * released the version is dropped from the registry, and the memory of its chunks is
+ * reclaimed by the garbage collector as soon as no newer version shares them.
+ */
+public class VersionedMachineList extends AbstractList<Machine> implements RandomAccess {
+    /** Chunks are split when they grow beyond this size. */
+    static final int MAX_CHUNK = 256;
+
+    private static final Version EMPTY = new Version(0, new Machine[0][], new int[0], 0);
+
+    /** Immutable state of the list. */
+    static final class Version {
+        final long number;
+        final Machine[][] chunks;
+        final int[] ends;
+        final int size;
+
+        /** Number of open snapshots, changed only inside the registry. */
+        int pins;
+
+        Version(long number, Machine[][] chunks, int[] ends, int size) {
+            this.number = number;
+            this.chunks = chunks;
+            this.ends = ends;
+            this.size = size;
+        }
+
+        /** Returns the chunk holding the index. */
+        int chunk(int index) {
+            int low = 0;
+            int high = ends.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (ends[middle] > index)
+                    high = middle;
+                else
+                    low = middle + 1;
+            }
+            return low;
+        }
+
+        int start(int chunk) {
+            return chunk == 0 ? 0 : ends[chunk - 1];
+        }
+
+        Machine get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("index must be from 0 to size");
+            int chunk = chunk(index);
+            return chunks[chunk][index - start(chunk)];
+        }
+    }
+
+    private volatile Version current = EMPTY;
+
+    /** Pinned versions by number. */
+    private final ConcurrentHashMap<Long, Version> pinned = new ConcurrentHashMap<>();
+
+    /** Constructs an empty list. */
+    public VersionedMachineList() {
+    }
+
+    /**
+     * Constructs a list holding the machines of the collection as its first version.
+     *
+     * @param collection machines
+     */
+    public VersionedMachineList(Collection<? extends Machine> collection) {
+        addAll(collection);
+    }
+
+    /**
+     * Returns the number of the current version. Every modification increments it.
+     *
+     * @return version number
+     */
+    public long version() {
+        return current.number;
+    }
+
+    @Override
+    public int size() {
+        return current.size;
+    }
+
+    @Override
+    public Machine get(int index) {
+        return current.get(index);
+    }
+
+    /**
+     * Returns an iterator over the version current when the iterator is created.
+     * The iterator is not affected by later modifications and does not support {@code remove}.
+     *
+     * @return iterator
+     */
+    @Override
+    public Iterator<Machine> iterator() {
+        return new ChunkIterator(current);
+    }
+
+    @Override
+    public synchronized Machine set(int index, Machine element) {
+        Version v = current;
+        Machine old = v.get(index);
+        int chunk = v.chunk(index);
+        Machine[] copy = v.chunks[chunk].clone();
+        copy[index - v.start(chunk)] = element;
+        Machine[][] chunks = v.chunks.clone();
+        chunks[chunk] = copy;
+        publish(new Version(v.number + 1, chunks, v.ends, v.size));
+        return old;
+    }
+
+    @Override
+    public boolean add(Machine machine) {
+        add(size(), machine);
+        return true;
+    }
+
+    @Override
+    public synchronized void add(int index, Machine element) {
+        Version v = current;
+        if (index < 0 || index > v.size)
+            throw new IndexOutOfBoundsException("index must be from 0 to size");
+        if (v.chunks.length == 0) {
+            publish(new Version(v.number + 1, new Machine[][]{{element}}, new int[]{1}, 1));
+            return;
+        }
+        int chunk = index == v.size ? v.chunks.length - 1 : v.chunk(index);
+        Machine[] old = v.chunks[chunk];
+        int offset = index - v.start(chunk);
+        Machine[] grown = new Machine[old.length + 1];
+        System.arraycopy(old, 0, grown, 0, offset);
+        grown[offset] = element;
+        System.arraycopy(old, offset, grown, offset + 1, old.length - offset);
+        if (grown.length <= MAX_CHUNK) {
+            Machine[][] chunks = v.chunks.clone();
+            chunks[chunk] = grown;
+            int[] ends = v.ends.clone();
+            for (int c = chunk; c < ends.length; c++)
+                ends[c]++;
+            publish(new Version(v.number + 1, chunks, ends, v.size + 1));
+            return;
+        }
+        // split the full chunk in two halves
+        int half = grown.length / 2;
+        Machine[][] chunks = new Machine[v.chunks.length + 1][];
+        int[] ends = new int[chunks.length];
+        System.arraycopy(v.chunks, 0, chunks, 0, chunk);
+        System.arraycopy(v.ends, 0, ends, 0, chunk);
+        chunks[chunk] = Arrays.copyOfRange(grown, 0, half);
+        chunks[chunk + 1] = Arrays.copyOfRange(grown, half, grown.length);
+        ends[chunk] = v.start(chunk) + half;
+        ends[chunk + 1] = v.ends[chunk] + 1;
+        System.arraycopy(v.chunks, chunk + 1, chunks, chunk + 2, v.chunks.length - chunk - 1);
+        for (int c = chunk + 1; c < v.ends.length; c++)
+            ends[c + 1] = v.ends[c] + 1;
+        publish(new Version(v.number + 1, chunks, ends, v.size + 1));
+    }
+
+    /**
+     * Appends all machines of the collection as one new version.
+     *
+     * @param collection machines
+     * @return {@code true} if the list changed
+     */
+    @Override
+    public synchronized boolean addAll(Collection<? extends Machine> collection) {
+        Objects.requireNonNull(collection, "Argument must be not null");
+        Object[] added = collection.toArray();
+        if (added.length == 0)
+            return false;
+        Version v = current;
+        int newChunks = (added.length + MAX_CHUNK - 1) / MAX_CHUNK;
+        Machine[][] chunks = Arrays.copyOf(v.chunks, v.chunks.length + newChunks);
+        int[] ends = Arrays.copyOf(v.ends, chunks.length);
+        for (int c = 0, from = 0; c < newChunks; c++, from += MAX_CHUNK) {
+            int to = Math.min(from + MAX_CHUNK, added.length);
+            chunks[v.chunks.length + c] = Arrays.copyOfRange(added, from, to, Machine[].class);
+            ends[v.chunks.length + c] = v.size + to;
+        }
+        publish(new Version(v.number + 1, chunks, ends, v.size + added.length));
+        return true;
+    }
+
+    /**
+     * Inserts all machines of the collection at the index as one new version.
+     *
+     * @param index index of the first inserted machine
+     * @param collection machines
+     * @return {@code true} if the list changed
+     */
+    @Override
+    public synchronized boolean addAll(int index, Collection<? extends Machine> collection) {
+        Objects.requireNonNull(collection, "Argument must be not null");
+        Version v = current;
+        if (index < 0 || index > v.size)
+            throw new IndexOutOfBoundsException("index must be from 0 to size");
+        Object[] added = collection.toArray();
+        if (added.length == 0)
+            return false;
+        publish(splice(v, index, index, added));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        int index = indexOf(o);
+        if (index < 0)
+            return false;
+        remove(index);
+        return true;
+    }
+
+    /**
+     * Removes the machines satisfying the filter as one new version.
+     *
+     * @param filter predicate for the machines to remove
+     * @return {@code true} if any machine was removed
+     */
+    @Override
+    public synchronized boolean removeIf(Predicate<? super Machine> filter) {
+        Objects.requireNonNull(filter, "Argument must be not null");
+        return removeWhere(filter);
+    }
+
+    @Override
+    public synchronized boolean removeAll(Collection<?> collection) {
+        Objects.requireNonNull(collection, "Argument must be not null");
+        return removeWhere(collection::contains);
+    }
+
+    @Override
+    public synchronized boolean retainAll(Collection<?> collection) {
+        Objects.requireNonNull(collection, "Argument must be not null");
+        return removeWhere(machine -> !collection.contains(machine));
+    }
+
+    @Override
+    protected synchronized void removeRange(int fromIndex, int toIndex) {
+        Version v = current;
+        if (fromIndex < 0 || fromIndex > toIndex || toIndex > v.size)
+            throw new IndexOutOfBoundsException("index must be from 0 to size");
+        if (fromIndex < toIndex)
+            publish(splice(v, fromIndex, toIndex, new Object[0]));
+    }
+
+    /** Publishes the version without the machines satisfying the filter; unchanged chunks are shared. */
+    private boolean removeWhere(Predicate<? super Machine> filter) {
+        Version v = current;
+        Machine[][] chunks = new Machine[v.chunks.length][];
+        int[] ends = new int[v.chunks.length];
+        int count = 0;
+        int size = 0;
+        for (Machine[] chunk : v.chunks) {
+            Machine[] kept = new Machine[chunk.length];
+            int length = 0;
+            for (Machine machine : chunk)
+                if (!filter.test(machine))
+                    kept[length++] = machine;
+            if (length == 0)
+                continue;
+            size += length;
+            chunks[count] = length == chunk.length ? chunk : Arrays.copyOf(kept, length);
+            ends[count++] = size;
+        }
+        if (size == v.size)
+            return false;
+        publish(new Version(v.number + 1, Arrays.copyOf(chunks, count), Arrays.copyOf(ends, count), size));
+        return true;
+    }
+
+    /**
+     * Returns the next version with the machines from {@code from} to {@code to} replaced
+     * by {@code inserted}. Only the chunks holding the range are copied.
+     */
+    private static Version splice(Version v, int from, int to, Object[] inserted) {
+        int first;
+        int last;
+        if (v.chunks.length == 0) {
+            first = 0;
+            last = -1;
+        } else {
+            first = from < v.size ? v.chunk(from) : v.chunks.length - 1;
+            last = to > from ? v.chunk(to - 1) : first;
+        }
+        int start = first < v.chunks.length ? v.start(first) : 0;
+        int head = from - start;
+        int tail = last >= 0 ? v.ends[last] - to : 0;
+        Object[] middle = new Object[head + inserted.length + tail];
+        if (head > 0)
+            System.arraycopy(v.chunks[first], 0, middle, 0, head);
+        System.arraycopy(inserted, 0, middle, head, inserted.length);
+        if (tail > 0)
+            System.arraycopy(v.chunks[last], v.chunks[last].length - tail, middle, head + inserted.length, tail);
+        int pieces = (middle.length + MAX_CHUNK - 1) / MAX_CHUNK;
+        int after = v.chunks.length - last - 1;
+        Machine[][] chunks = new Machine[first + pieces + after][];
+        int[] ends = new int[chunks.length];
+        System.arraycopy(v.chunks, 0, chunks, 0, first);
+        System.arraycopy(v.ends, 0, ends, 0, first);
+        for (int c = 0, offset = 0; c < pieces; c++, offset += MAX_CHUNK) {
+            int end = Math.min(offset + MAX_CHUNK, middle.length);
+            chunks[first + c] = Arrays.copyOfRange(middle, offset, end, Machine[].class);
+            ends[first + c] = start + end;
+        }
+        int delta = inserted.length - (to - from);
+        System.arraycopy(v.chunks, last + 1, chunks, first + pieces, after);
+        for (int c = 0; c < after; c++)
+            ends[first + pieces + c] = v.ends[last + 1 + c] + delta;
+        return new Version(v.number + 1, chunks, ends, v.size + delta);
+    }
+
+    @Override
+    public synchronized Machine remove(int index) {
+        Version v = current;
+        Machine removed = v.get(index);
+        int chunk = v.chunk(index);
+        Machine[] old = v.chunks[chunk];
+        if (old.length == 1) {
+            Machine[][] chunks = new Machine[v.chunks.length - 1][];
+            int[] ends = new int[chunks.length];
+            System.arraycopy(v.chunks, 0, chunks, 0, chunk);
+            System.arraycopy(v.chunks, chunk + 1, chunks, chunk, chunks.length - chunk);
+            System.arraycopy(v.ends, 0, ends, 0, chunk);
+            for (int c = chunk; c < ends.length; c++)
+                ends[c] = v.ends[c + 1] - 1;
+            publish(new Version(v.number + 1, chunks, ends, v.size - 1));
+            return removed;
+        }
+        int offset = index - v.start(chunk);
+        Machine[] shrunk = new Machine[old.length - 1];
+        System.arraycopy(old, 0, shrunk, 0, offset);
+        System.arraycopy(old, offset + 1, shrunk, offset, shrunk.length - offset);
+        Machine[][] chunks = v.chunks.clone();
+        chunks[chunk] = shrunk;
+        int[] ends = v.ends.clone();
+        for (int c = chunk; c < ends.length; c++)
+            ends[c]--;
+        publish(new Version(v.number + 1, chunks, ends, v.size - 1));
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Version v = current;
+        publish(new Version(v.number + 1, EMPTY.chunks, EMPTY.ends, 0));
+    }
+
+    private void publish(Version version) {
+        current = version;
+        modCount++;
+    }
+
+    /**
+     * Pins the current version.
+     *
+     * @return snapshot of the current version, to be closed when the reader is done
+     */
+    public Snapshot snapshot() {
+        Version v = current;
+        pin(v);
+        return new Snapshot(v);
+    }
+
+    /**
+     * Pins a version which is current or still pinned by another snapshot.
+     *
+     * @param number version number
+     * @return snapshot of the version, to be closed when the reader is done
+     * @throws IllegalStateException if the version is neither current nor pinned
+     */
+    public Snapshot snapshot(long number) {
+        Version v = pinned.computeIfPresent(number, (key, version) -> {
+            version.pins++;
+            return version;
+        });
+        if (v == null) {
+            v = current;
+            if (v.number != number)
+                throw new IllegalStateException("Version " + number + " is not retained");
+            pin(v);
+        }
+        return new Snapshot(v);
+    }
+
+    private void pin(Version v) {
+        pinned.compute(v.number, (key, version) -> {
+            v.pins++;
+            return v;
+        });
+    }
+
+    private void unpin(Version v) {
+        pinned.computeIfPresent(v.number, (key, version) -> --version.pins == 0 ? null : version);
+    }
+
+    /**
+     * Returns the number of versions pinned by open snapshots.
+     *
+     * @return number of pinned versions
+     */
+    public int getPinnedVersions() {
+        return pinned.size();
+    }
+
+    /**
+     * Returns the oldest version pinned by an open snapshot.
+     *
+     * @return version number, -1 if no version is pinned
+     */
+    public long getOldestPinnedVersion() {
+        long oldest = -1;
+        for (Long number : pinned.keySet())
+            if (oldest < 0 || number < oldest)
+                oldest = number;
+        return oldest;
+    }
+
+    /**
+     * One version of a {@code VersionedMachineList}. The snapshot never changes; it is
+     * read without locks from any number of threads. Closing it releases the pin.
+     */
+    public final class Snapshot extends AbstractList<Machine> implements RandomAccess, AutoCloseable {
+        private final Version version;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Snapshot(Version version) {
+            this.version = version;
+        }
+
+        /**
+         * Returns the number of the pinned version.
+         *
+         * @return version number
+         */
+        public long version() {
+            return version.number;
+        }
+
+        @Override
+        public int size() {
+            return version.size;
+        }
+
+        @Override
+        public Machine get(int index) {
+            return version.get(index);
+        }
+
+        @Override
+        public Iterator<Machine> iterator() {
+            return new ChunkIterator(version);
+        }
+
+        /**
+         * Copies the snapshot into a new {@code MachineList}.
+         *
+         * @return new list
+         */
+        public MachineList toMachineList() {
+            MachineList list = new MachineList(version.size);
+            for (Machine[] chunk : version.chunks)
+                list.appendRange(chunk, 0, chunk.length);
+            return list;
+        }
+
+        /** Releases the pin of the version; closing again does nothing. */
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true))
+                unpin(version);
+        }
+    }
+
+    /** Walks the chunks of a version. */
+    private static final class ChunkIterator implements Iterator<Machine> {
+        private final Machine[][] chunks;
+        private int chunk;
+        private int offset;
+
+        ChunkIterator(Version version) {
+            chunks = version.chunks;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (chunk < chunks.length && offset == chunks[chunk].length) {
+                chunk++;
+                offset = 0;
+            }
+            return chunk < chunks.length;
+        }
+
+        @Override
+        public Machine next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return chunks[chunk][offset++];
+        }
+    }
+}
@@ -51,58 +51,89 @@ public class CncMilling extends Milling {
     }
 
     /**
-     * Pattern builder
+     * Pattern builder. The builder keeps the fields itself, so one builder can be
+     * reused for many machines: {@link #build()} creates a cnc milling machine each time,
+     * {@link #to(MachineSink)} passes the fields to a sink without creating anything,
+     * {@link #reset()} returns the fields to their defaults.
      */
     public static class Builder{
-
-        private CncMilling newCncMilling;
+        private int power;
+        private int weight;
+        private String model;
+        private int maxSpindleSpeed;
+        private int maxMillingSped;
+        private int tableArea;
+        private String softwareName;
+        private int numberAix;
 
         public Builder() {
-            newCncMilling = new CncMilling();
         }
 
         public Builder power(int power) {
-            newCncMilling.setPower(power);
+            this.power = power;
             return this;
         }
 
         public Builder weight(int weight) {
-            newCncMilling.setWeight(weight);
+            this.weight = weight;
             return this;
         }
 
         public Builder model(String model) {
-            newCncMilling.setModel(model);
+            this.model = model;
             return this;
         }
 
         public Builder maxSpindleSpeed(int maxSpindleSpeed) {
-            newCncMilling.setMaxSpindleSpeed(maxSpindleSpeed);
+            this.maxSpindleSpeed = maxSpindleSpeed;
             return this;
         }
 
         public Builder maxMillingSped(int maxMillingSped) {
-            newCncMilling.setMaxMillingSped(maxMillingSped);
+            this.maxMillingSped = maxMillingSped;
             return this;
         }
 
         public Builder tableArea(int tableArea) {
-            newCncMilling.setTableArea(tableArea);
+            this.tableArea = tableArea;
             return this;
         }
 
         public Builder softwareName(String softwareName) {
-            newCncMilling.setSoftwareName(softwareName);
+            this.softwareName = softwareName;
             return this;
         }
 
         public Builder numberAix(int numberAix) {
-            newCncMilling.setNumberAix(numberAix);
+            this.numberAix = numberAix;
+            return this;
+        }
+
+        public Builder reset() {
+            power = 0;
+            weight = 0;
+            model = null;
+            maxSpindleSpeed = 0;
+            maxMillingSped = 0;
+            tableArea = 0;
+            softwareName = null;
+            numberAix = 0;
             return this;
         }
 
         public CncMilling build() {
-            return newCncMilling;
+            return new CncMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                    softwareName, numberAix);
+        }
+
+        /**
+         * Passes the fields of the builder to {@code sink}.
+         *
+         * @param sink receiver of the fields
+         */
+        public void to(MachineSink sink) {
+            sink.cncMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                    softwareName, numberAix);
         }
     }
 
@@ -58,47 +58,73 @@ public class Lathe extends Machine {
     }
 
     /**
-     * Pattern builder
+     * Pattern builder. The builder keeps the fields itself, so one builder can be
+     * reused for many machines: {@link #build()} creates a new lathe each time,
+     * {@link #to(MachineSink)} passes the fields to a sink without creating anything,
+     * {@link #reset()} returns the fields to their defaults.
      */
     public static class Builder{
-        private Lathe newLathe;
+        private int power;
+        private int weight;
+        private String model;
+        private int maxDiameter;
+        private int maxLengthDetail;
+        private boolean thread;
 
         public Builder() {
-            newLathe = new Lathe();
         }
 
         public Builder power(int power) {
-            newLathe.setPower(power);
+            this.power = power;
             return this;
         }
 
         public Builder weight(int weight) {
-            newLathe.setWeight(weight);
+            this.weight = weight;
             return this;
         }
 
         public Builder model(String model) {
-            newLathe.setModel(model);
+            this.model = model;
             return this;
         }
 
         public Builder maxDiameter(int maxDiameter) {
-            newLathe.setMaxDiameter(maxDiameter);
+            this.maxDiameter = maxDiameter;
             return this;
         }
 
         public Builder maxLengthDetail(int maxLengthDetail) {
-            newLathe.setMaxLengthDetail(maxLengthDetail);
+            this.maxLengthDetail = maxLengthDetail;
             return this;
         }
 
         public Builder thread(boolean thread) {
-            newLathe.setThread(thread);
+            this.thread = thread;
+            return this;
+        }
+
+        public Builder reset() {
+            power = 0;
+            weight = 0;
+            model = null;
+            maxDiameter = 0;
+            maxLengthDetail = 0;
+            thread = false;
             return this;
         }
 
         public Lathe build() {
-            return newLathe;
+            return new Lathe(power, weight, model, maxDiameter, maxLengthDetail, thread);
+        }
+
+        /**
+         * Passes the fields of the builder to {@code sink}.
+         *
+         * @param sink receiver of the fields
+         */
+        public void to(MachineSink sink) {
+            sink.lathe(power, weight, model, maxDiameter, maxLengthDetail, thread);
         }
     }
 
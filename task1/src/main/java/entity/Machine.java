@@ -7,6 +7,12 @@ import java.util.Objects;
  * Contain fields describing the characteristics of the machine.
  */
 public abstract class Machine {
+    /** Value of {@link #getId()} of a machine without identifier. */
+    public static final long NO_ID = 0;
+
+    /** The variable describing identifier of machine, it is not compared by {@code equals}. */
+    private long id = NO_ID;
+
     /** The variable describing power of machine. */
     private int power;
 
@@ -32,6 +38,25 @@ public abstract class Machine {
     public Machine() {
     }
 
+    /**
+     * Returns the identifier of the machine.
+     *
+     * @return identifier, {@link #NO_ID} if the machine has none
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the identifier of the machine. The identifier must not be changed while the
+     * machine is in a {@code MachineList} which looked up machines by identifier.
+     *
+     * @param id identifier, {@link #NO_ID} to remove it
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public int getWeight() {
         return weight;
     }
@@ -0,0 +1,55 @@
+package entity;
+
+import constant.TypeMillingMachine;
+
+/**
+ * Receives the fields of machines one record at a time.
+ * A sink decides itself how to store a record: a list of objects creates one
+ * entity through its full constructor, a columnar store writes the values straight
+ * into its arrays. Builders and loaders which write to a sink therefore do not
+ * allocate anything of their own.
+ */
+public interface MachineSink {
+
+    /**
+     * Receives the fields of a lathe.
+     *
+     * @param power power of machine
+     * @param weight weight of machine
+     * @param model model of machine
+     * @param maxDiameter maximum workpiece diameter
+     * @param maxLengthDetail maximum workpiece length
+     * @param thread abilities cutting thread
+     */
+    void lathe(int power, int weight, String model, int maxDiameter, int maxLengthDetail, boolean thread);
+
+    /**
+     * Receives the fields of a cnc milling machine.
+     *
+     * @param power power of milling machine
+     * @param weight weight of milling machine
+     * @param model model of milling machine
+     * @param maxSpindleSpeed maximum spindle speed of milling machine
+     * @param maxMillingSped maximum milling speed of milling machine
+     * @param tableArea working area of the table of milling machine
+     * @param softwareName software name
+     * @param numberAix number of axles
+     */
+    void cncMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                    int tableArea, String softwareName, int numberAix);
+
+    /**
+     * Receives the fields of a universal milling machine.
+     *
+     * @param power power of milling machine
+     * @param weight weight of milling machine
+     * @param model model of milling machine
+     * @param maxSpindleSpeed maximum spindle speed of milling machine
+     * @param maxMillingSped maximum milling speed of milling machine
+     * @param tableArea working area of the table of milling machine
+     * @param typeMilling type of milling machine
+     * @param degreeLimb minimum step of the machine
+     */
+    void universalMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                          int tableArea, TypeMillingMachine typeMilling, double degreeLimb);
+}
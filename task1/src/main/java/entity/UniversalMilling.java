@@ -52,58 +52,89 @@ public class UniversalMilling extends Milling{
     }
 
     /**
-     * Pattern builder
+     * Pattern builder. The builder keeps the fields itself, so one builder can be
+     * reused for many machines: {@link #build()} creates a universal milling machine each time,
+     * {@link #to(MachineSink)} passes the fields to a sink without creating anything,
+     * {@link #reset()} returns the fields to their defaults.
      */
     public static class Builder{
-
-        private UniversalMilling newUniversalMilling;
+        private int power;
+        private int weight;
+        private String model;
+        private int maxSpindleSpeed;
+        private int maxMillingSped;
+        private int tableArea;
+        private TypeMillingMachine typeMilling;
+        private double degreeLimb;
 
         public Builder() {
-            newUniversalMilling = new UniversalMilling();
         }
 
         public Builder power(int power) {
-            newUniversalMilling.setPower(power);
+            this.power = power;
             return this;
         }
 
         public Builder weight(int weight) {
-            newUniversalMilling.setWeight(weight);
+            this.weight = weight;
             return this;
         }
 
         public Builder model(String model) {
-            newUniversalMilling.setModel(model);
+            this.model = model;
             return this;
         }
 
         public Builder maxSpindleSpeed(int maxSpindleSpeed) {
-            newUniversalMilling.setMaxSpindleSpeed(maxSpindleSpeed);
+            this.maxSpindleSpeed = maxSpindleSpeed;
             return this;
         }
 
         public Builder maxMillingSped(int maxMillingSped) {
-            newUniversalMilling.setMaxMillingSped(maxMillingSped);
+            this.maxMillingSped = maxMillingSped;
             return this;
         }
 
         public Builder tableArea(int tableArea) {
-            newUniversalMilling.setTableArea(tableArea);
+            this.tableArea = tableArea;
             return this;
         }
 
         public Builder typeMillingM(TypeMillingMachine typeMilling) {
-            newUniversalMilling.setTypeMilling(typeMilling);
+            this.typeMilling = typeMilling;
             return this;
         }
 
         public Builder degreeLimb(double degreeLimb) {
-            newUniversalMilling.setDegreeLimb(degreeLimb);
+            this.degreeLimb = degreeLimb;
+            return this;
+        }
+
+        public Builder reset() {
+            power = 0;
+            weight = 0;
+            model = null;
+            maxSpindleSpeed = 0;
+            maxMillingSped = 0;
+            tableArea = 0;
+            typeMilling = null;
+            degreeLimb = 0;
             return this;
         }
 
         public UniversalMilling build() {
-            return newUniversalMilling;
+            return new UniversalMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                    typeMilling, degreeLimb);
+        }
+
+        /**
+         * Passes the fields of the builder to {@code sink}.
+         *
+         * @param sink receiver of the fields
+         */
+        public void to(MachineSink sink) {
+            sink.universalMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                    typeMilling, degreeLimb);
         }
     }
 
@@ -0,0 +1,295 @@
+package format;
+
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.Milling;
+import entity.UniversalMilling;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Objects;
+
+/**
+ * Text formats of machines, written straight to an {@code Appendable}.
+ *
+ * <p>Fields are read through the getters of the entity classes and appended
+ * character by character: integers are written digit by digit and strings are
+ * escaped while being copied, so writing a list allocates no per-machine or
+ * per-field objects except for {@code degreeLimb}. Lists are walked with their
+ * list iterator, so the {@code predicates} of a {@code MachineList} do not apply.
+ */
+public enum MachineFormat {
+    /**
+     * A JSON array of objects. Every object has the {@code type} member and the
+     * members of its class; {@code null} strings are written as {@code null}.
+     */
+    JSON {
+        @Override
+        void begin(Appendable out) throws IOException {
+            out.append('[');
+        }
+
+        @Override
+        void machine(Appendable out, Machine machine, boolean first) throws IOException {
+            if (!first)
+                out.append(',');
+            if (machine == null) {
+                out.append("null");
+                return;
+            }
+            out.append("{\"type\":");
+            string(out, type(machine));
+            out.append(",\"power\":");
+            integer(out, machine.getPower());
+            out.append(",\"weight\":");
+            integer(out, machine.getWeight());
+            out.append(",\"model\":");
+            string(out, machine.getModel());
+            if (machine instanceof Lathe) {
+                Lathe lathe = (Lathe) machine;
+                out.append(",\"maxDiameter\":");
+                integer(out, lathe.getMaxDiameter());
+                out.append(",\"maxLengthDetail\":");
+                integer(out, lathe.getMaxLengthDetail());
+                out.append(",\"thread\":").append(lathe.isThread() ? "true" : "false");
+            }
+            if (machine instanceof Milling) {
+                Milling milling = (Milling) machine;
+                out.append(",\"maxSpindleSpeed\":");
+                integer(out, milling.getMaxSpindleSpeed());
+                out.append(",\"maxMillingSped\":");
+                integer(out, milling.getMaxMillingSped());
+                out.append(",\"tableArea\":");
+                integer(out, milling.getTableArea());
+            }
+            if (machine instanceof CncMilling) {
+                CncMilling cnc = (CncMilling) machine;
+                out.append(",\"softwareName\":");
+                string(out, cnc.getSoftwareName());
+                out.append(",\"numberAix\":");
+                integer(out, cnc.getNumberAix());
+            }
+            if (machine instanceof UniversalMilling) {
+                UniversalMilling universal = (UniversalMilling) machine;
+                out.append(",\"typeMilling\":");
+                string(out, universal.getTypeMilling() == null ? null : universal.getTypeMilling().name());
+                out.append(",\"degreeLimb\":");
+                double degreeLimb = universal.getDegreeLimb();
+                if (Double.isNaN(degreeLimb) || Double.isInfinite(degreeLimb))
+                    out.append("null");
+                else
+                    out.append(Double.toString(degreeLimb));
+            }
+            out.append('}');
+        }
+
+        @Override
+        void end(Appendable out) throws IOException {
+            out.append(']');
+        }
+
+        private void string(Appendable out, String value) throws IOException {
+            if (value == null) {
+                out.append("null");
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    out.append('\\').append(c);
+                } else if (c < 0x20) {
+                    out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                } else {
+                    out.append(c);
+                }
+            }
+            out.append('"');
+        }
+    },
+
+    /**
+     * RFC 4180 CSV with a header line. Every class has the columns of all classes;
+     * columns a class does not have, and {@code null} values, are left empty.
+     */
+    CSV {
+        private static final String HEADER = "type,power,weight,model,maxDiameter,maxLengthDetail,thread,"
+                + "maxSpindleSpeed,maxMillingSped,tableArea,softwareName,numberAix,typeMilling,degreeLimb\r\n";
+
+        @Override
+        void begin(Appendable out) throws IOException {
+            out.append(HEADER);
+        }
+
+        @Override
+        void machine(Appendable out, Machine machine, boolean first) throws IOException {
+            if (machine == null) {
+                out.append(",,,,,,,,,,,,,\r\n");
+                return;
+            }
+            out.append(type(machine)).append(',');
+            integer(out, machine.getPower());
+            out.append(',');
+            integer(out, machine.getWeight());
+            out.append(',');
+            string(out, machine.getModel());
+            out.append(',');
+            if (machine instanceof Lathe) {
+                Lathe lathe = (Lathe) machine;
+                integer(out, lathe.getMaxDiameter());
+                out.append(',');
+                integer(out, lathe.getMaxLengthDetail());
+                out.append(',').append(lathe.isThread() ? "true" : "false").append(',');
+            } else {
+                out.append(",,,");
+            }
+            if (machine instanceof Milling) {
+                Milling milling = (Milling) machine;
+                integer(out, milling.getMaxSpindleSpeed());
+                out.append(',');
+                integer(out, milling.getMaxMillingSped());
+                out.append(',');
+                integer(out, milling.getTableArea());
+                out.append(',');
+            } else {
+                out.append(",,,");
+            }
+            if (machine instanceof CncMilling) {
+                CncMilling cnc = (CncMilling) machine;
+                string(out, cnc.getSoftwareName());
+                out.append(',');
+                integer(out, cnc.getNumberAix());
+                out.append(',');
+            } else {
+                out.append(",,");
+            }
+            if (machine instanceof UniversalMilling) {
+                UniversalMilling universal = (UniversalMilling) machine;
+                if (universal.getTypeMilling() != null)
+                    out.append(universal.getTypeMilling().name());
+                out.append(',').append(Double.toString(universal.getDegreeLimb()));
+            } else {
+                out.append(',');
+            }
+            out.append("\r\n");
+        }
+
+        @Override
+        void end(Appendable out) {
+        }
+
+        /** Quotes the value only if it contains a separator, a quote or a line break. */
+        private void string(Appendable out, String value) throws IOException {
+            if (value == null)
+                return;
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                out.append(value);
+                return;
+            }
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"')
+                    out.append('"');
+                out.append(c);
+            }
+            out.append('"');
+        }
+    };
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Decimal digits of {@code Integer.MIN_VALUE} without the sign, which can not be negated. */
+    private static final String MIN_VALUE_DIGITS = "2147483648";
+
+    abstract void begin(Appendable out) throws IOException;
+
+    abstract void machine(Appendable out, Machine machine, boolean first) throws IOException;
+
+    abstract void end(Appendable out) throws IOException;
+
+    /**
+     * Writes one machine as a complete document: a JSON array or a CSV file with
+     * a single element.
+     *
+     * @param machine machine, may be null
+     * @param out destination
+     * @throws IOException if the destination fails
+     */
+    public void write(Machine machine, Appendable out) throws IOException {
+        Objects.requireNonNull(out, "Argument must be not null");
+        begin(out);
+        machine(out, machine, true);
+        end(out);
+    }
+
+    /**
+     * Writes all the machines of the list.
+     *
+     * @param machines machines
+     * @param out destination
+     * @throws IOException if the destination fails
+     */
+    public void write(List<? extends Machine> machines, Appendable out) throws IOException {
+        Objects.requireNonNull(machines, "Argument must be not null");
+        Objects.requireNonNull(out, "Argument must be not null");
+        begin(out);
+        boolean first = true;
+        for (ListIterator<? extends Machine> iterator = machines.listIterator(); iterator.hasNext(); first = false)
+            machine(out, iterator.next(), first);
+        end(out);
+    }
+
+    /**
+     * Writes all the machines of the list in UTF-8. The stream is flushed, not closed.
+     *
+     * @param machines machines
+     * @param out destination
+     * @throws IOException if the destination fails
+     */
+    public void write(List<? extends Machine> machines, OutputStream out) throws IOException {
+        Objects.requireNonNull(out, "Argument must be not null");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        write(machines, writer);
+        writer.flush();
+    }
+
+    static String type(Machine machine) {
+        if (machine instanceof CncMilling)
+            return "CncMilling";
+        if (machine instanceof UniversalMilling)
+            return "UniversalMilling";
+        if (machine instanceof Lathe)
+            return "Lathe";
+        return "Machine";
+    }
+
+    /** Appends the decimal digits of {@code value} without creating a string. */
+    static void integer(Appendable out, int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            out.append('-').append(MIN_VALUE_DIGITS);
+            return;
+        }
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        int divisor = 1;
+        while (value / divisor >= 10)
+            divisor *= 10;
+        for (; divisor > 0; divisor /= 10)
+            out.append((char) ('0' + value / divisor % 10));
+    }
+}
@@ -0,0 +1,245 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Conjunction of predicates which changes the order of its conjuncts to the
+ * cheapest one observed.
+ *
+ * <p>Every {@code sampleInterval}-th test evaluates all the conjuncts and measures
+ * the time and the result of each. After {@code samplesPerReorder} samples the
+ * conjuncts are sorted by {@code cost / (1 - passRate)}: a conjunct goes earlier
+ * the cheaper it is and the more elements it rejects, which is the order with the
+ * smallest expected cost for independent conjuncts. The statistics are then halved,
+ * so the order follows changes of the data. All other tests stop at the first
+ * conjunct that fails, like {@code Predicate.and}.
+ *
+ * <p>{@code Predicate.and} compositions are opaque, so the conjuncts have to be given
+ * separately: {@code AdaptivePredicate.of(p1).and(p2).and(p3)} gives the same results
+ * as {@code p1.and(p2).and(p3)}. The conjuncts must be free of side effects, because
+ * the order they run in changes and sampled tests run all of them. Statistics are
+ * updated without synchronization; races between threads only make them less precise.
+ *
+ * @param <T> type of the input
+ */
+public final class AdaptivePredicate<T> implements Predicate<T> {
+    /** Default number of tests per sample. */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    /** Default number of samples between reorderings. */
+    public static final int DEFAULT_SAMPLES_PER_REORDER = 32;
+
+    private final int sampleInterval;
+    private final int samplesPerReorder;
+
+    /** Conjuncts in evaluation order. Replaced as a whole on reordering. */
+    private volatile Conjunct<T>[] order;
+    private int tests;
+    private int samples;
+
+    private AdaptivePredicate(Conjunct<T>[] order, int sampleInterval, int samplesPerReorder) {
+        this.order = order;
+        this.sampleInterval = sampleInterval;
+        this.samplesPerReorder = samplesPerReorder;
+    }
+
+    /**
+     * Creates the conjunction of the predicates with the default sampling.
+     *
+     * @param conjuncts predicates
+     * @param <T> type of the input
+     * @return conjunction
+     */
+    @SafeVarargs
+    public static <T> AdaptivePredicate<T> of(Predicate<? super T>... conjuncts) {
+        List<Predicate<? super T>> list = new ArrayList<>(conjuncts.length);
+        for (Predicate<? super T> conjunct : conjuncts)
+            list.add(conjunct);
+        return create(DEFAULT_SAMPLE_INTERVAL, DEFAULT_SAMPLES_PER_REORDER, list);
+    }
+
+    /**
+     * Creates the conjunction of the predicates of a list with the default sampling.
+     *
+     * @param conjuncts predicates
+     * @param <T> type of the input
+     * @return conjunction
+     * @throws IllegalArgumentException if there are no conjuncts
+     */
+    public static <T> AdaptivePredicate<T> of(List<? extends Predicate<? super T>> conjuncts) {
+        Objects.requireNonNull(conjuncts, "Argument must be not null");
+        return create(DEFAULT_SAMPLE_INTERVAL, DEFAULT_SAMPLES_PER_REORDER, conjuncts);
+    }
+
+    /**
+     * Creates the conjunction of the predicates.
+     *
+     * @param sampleInterval number of tests per sample
+     * @param samplesPerReorder number of samples between reorderings
+     * @param conjuncts predicates
+     * @param <T> type of the input
+     * @return conjunction
+     * @throws IllegalArgumentException if an interval is not positive or there are no conjuncts
+     */
+    @SafeVarargs
+    public static <T> AdaptivePredicate<T> of(int sampleInterval, int samplesPerReorder,
+                                              Predicate<? super T>... conjuncts) {
+        List<Predicate<? super T>> list = new ArrayList<>(conjuncts.length);
+        for (Predicate<? super T> conjunct : conjuncts)
+            list.add(conjunct);
+        return create(sampleInterval, samplesPerReorder, list);
+    }
+
+    private static <T> AdaptivePredicate<T> create(int sampleInterval, int samplesPerReorder,
+                                                   List<? extends Predicate<? super T>> conjuncts) {
+        if (sampleInterval <= 0)
+            throw new IllegalArgumentException("Illegal sample interval: " + sampleInterval);
+        if (samplesPerReorder <= 0)
+            throw new IllegalArgumentException("Illegal samples per reorder: " + samplesPerReorder);
+        if (conjuncts.isEmpty())
+            throw new IllegalArgumentException("No conjuncts");
+        Conjunct<T>[] order = newArray(conjuncts.size());
+        for (int i = 0; i < order.length; i++)
+            order[i] = new Conjunct<>(Objects.requireNonNull(conjuncts.get(i), "Argument must be not null"));
+        return new AdaptivePredicate<>(order, sampleInterval, samplesPerReorder);
+    }
+
+    /**
+     * Returns a conjunction of the conjuncts of this predicate and {@code other},
+     * starting with copies of the statistics gathered so far. The two predicates
+     * gather their statistics separately afterwards.
+     *
+     * @param other additional conjunct
+     * @return new conjunction
+     */
+    @Override
+    public AdaptivePredicate<T> and(Predicate<? super T> other) {
+        Objects.requireNonNull(other, "Argument must be not null");
+        Conjunct<T>[] current = order;
+        Conjunct<T>[] extended = newArray(current.length + 1);
+        for (int i = 0; i < current.length; i++)
+            extended[i] = current[i].copy();
+        extended[current.length] = new Conjunct<>(other);
+        return new AdaptivePredicate<>(extended, sampleInterval, samplesPerReorder);
+    }
+
+    private static <T> Conjunct<T>[] newArray(int length) {
+        @SuppressWarnings("unchecked")
+        Conjunct<T>[] array = (Conjunct<T>[]) new Conjunct<?>[length];
+        return array;
+    }
+
+    @Override
+    public boolean test(T t) {
+        Conjunct<T>[] conjuncts = order;
+        if (++tests >= sampleInterval) {
+            tests = 0;
+            return sample(conjuncts, t);
+        }
+        for (Conjunct<T> conjunct : conjuncts)
+            if (!conjunct.predicate.test(t))
+                return false;
+        return true;
+    }
+
+    private boolean sample(Conjunct<T>[] conjuncts, T t) {
+        boolean result = true;
+        for (Conjunct<T> conjunct : conjuncts) {
+            long start = System.nanoTime();
+            boolean passed = conjunct.predicate.test(t);
+            conjunct.nanos += System.nanoTime() - start;
+            conjunct.evaluated++;
+            if (passed)
+                conjunct.passed++;
+            else
+                result = false;
+        }
+        if (++samples >= samplesPerReorder) {
+            samples = 0;
+            reorder(conjuncts);
+        }
+        return result;
+    }
+
+    private void reorder(Conjunct<T>[] conjuncts) {
+        Conjunct<T>[] sorted = conjuncts.clone();
+        for (Conjunct<T> conjunct : sorted)
+            conjunct.rank = conjunct.rank();
+        Arrays.sort(sorted, (a, b) -> Double.compare(a.rank, b.rank));
+        for (Conjunct<T> conjunct : sorted)
+            conjunct.decay();
+        order = sorted;
+    }
+
+    /**
+     * Returns the conjuncts in their current evaluation order.
+     *
+     * @return conjuncts
+     */
+    public List<Predicate<? super T>> getOrder() {
+        List<Predicate<? super T>> result = new ArrayList<>();
+        for (Conjunct<T> conjunct : order)
+            result.add(conjunct.predicate);
+        return Collections.unmodifiableList(result);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder("AdaptivePredicate[");
+        Conjunct<T>[] conjuncts = order;
+        for (int i = 0; i < conjuncts.length; i++) {
+            if (i > 0)
+                b.append(", ");
+            b.append(conjuncts[i]);
+        }
+        return b.append(']').toString();
+    }
+
+    /** A conjunct with its sampled statistics. */
+    private static final class Conjunct<T> {
+        final Predicate<? super T> predicate;
+        long evaluated;
+        long passed;
+        long nanos;
+        double rank;
+
+        Conjunct(Predicate<? super T> predicate) {
+            this.predicate = predicate;
+        }
+
+        /** Expected cost of rejecting one element; infinite for a conjunct that never rejects. */
+        double rank() {
+            if (evaluated == 0)
+                return 0;
+            double cost = (double) nanos / evaluated;
+            double rejectRate = 1 - (double) passed / evaluated;
+            return rejectRate == 0 ? Double.POSITIVE_INFINITY : cost / rejectRate;
+        }
+
+        Conjunct<T> copy() {
+            Conjunct<T> copy = new Conjunct<>(predicate);
+            copy.evaluated = evaluated;
+            copy.passed = passed;
+            copy.nanos = nanos;
+            copy.rank = rank;
+            return copy;
+        }
+
+        void decay() {
+            evaluated >>= 1;
+            passed >>= 1;
+            nanos >>= 1;
+        }
+
+        @Override
+        public String toString() {
+            return predicate + "{evaluated=" + evaluated + ", passed=" + passed
+                    + ", nanos=" + nanos + '}';
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package query;
+
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Joins batches of workpieces with the machines able to take them.
+ *
+ * <p>A workpiece is given by its requirements in primitive arrays, one entry per
+ * workpiece. The machines of the needed class are read once into arrays of keys, which
+ * are sorted ascending by packing every key with its index into a {@code long} and
+ * sorting the longs in parallel. The machines with a key of at least the requirement
+ * are then a suffix of the sorted keys, found by binary search.
+ *
+ * <p>For lathes both the diameter and the length must suffice. The join takes the
+ * shorter of the two suffixes, a band of candidates which all satisfy one condition,
+ * and checks the other condition on them, so no workpiece costs more than the smaller
+ * of its two candidate sets. Workpieces are joined in chunks of {@value #CHUNK} on the
+ * common fork/join pool. For cnc milling machines every workpiece matches a whole
+ * suffix of the machines sorted by the number of axes, so all the workpieces share one
+ * array of positions.
+ */
+public final class CapabilityJoin {
+    /** Workpieces per parallel task. */
+    static final int CHUNK = 1024;
+
+    private CapabilityJoin() {
+    }
+
+    /**
+     * Matching machines of every workpiece of a join, as positions in the joined list.
+     */
+    public static final class Matches {
+        private final int[] positions;
+        private final int[] from;
+        private final int[] to;
+
+        Matches(int[] positions, int[] from, int[] to) {
+            this.positions = positions;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Returns the number of workpieces.
+         *
+         * @return number of workpieces
+         */
+        public int workpieces() {
+            return from.length;
+        }
+
+        /**
+         * Returns the number of machines matching a workpiece.
+         *
+         * @param workpiece index of the workpiece
+         * @return number of machines
+         */
+        public int count(int workpiece) {
+            return to[workpiece] - from[workpiece];
+        }
+
+        /**
+         * Returns a machine matching a workpiece.
+         *
+         * @param workpiece index of the workpiece
+         * @param k index of the match, from 0 to {@code count(workpiece) - 1}
+         * @return position of the machine in the list
+         * @throws IndexOutOfBoundsException if {@code k} is out of range
+         */
+        public int get(int workpiece, int k) {
+            if (k < 0 || k >= count(workpiece))
+                throw new IndexOutOfBoundsException("index must be from 0 to size");
+            return positions[from[workpiece] + k];
+        }
+
+        /**
+         * Returns the machines matching a workpiece in no particular order.
+         *
+         * @param workpiece index of the workpiece
+         * @return new array of positions in the list
+         */
+        public int[] positions(int workpiece) {
+            return Arrays.copyOfRange(positions, from[workpiece], to[workpiece]);
+        }
+
+        /**
+         * Returns the number of matches of all the workpieces.
+         *
+         * @return number of matches
+         */
+        public long total() {
+            long total = 0;
+            for (int w = 0; w < from.length; w++)
+                total += to[w] - from[w];
+            return total;
+        }
+    }
+
+    /**
+     * Finds for every workpiece the lathes with {@code maxDiameter >= diameters[w]} and
+     * {@code maxLengthDetail >= lengths[w]}.
+     *
+     * @param machines machines, only lathes are joined
+     * @param diameters diameters of the workpieces
+     * @param lengths lengths of the workpieces
+     * @return matches
+     * @throws IllegalArgumentException if the arrays have different lengths
+     * @throws IllegalStateException if there are more than {@code Integer.MAX_VALUE} matches
+     */
+    public static Matches lathes(MachineList machines, int[] diameters, int[] lengths) {
+        Objects.requireNonNull(machines, "Argument must be not null");
+        if (diameters.length != lengths.length)
+            throw new IllegalArgumentException("Requirements of " + diameters.length + " and "
+                    + lengths.length + " workpieces");
+        int size = machines.size();
+        int[] positions = new int[size];
+        int[] maxDiameters = new int[size];
+        int[] maxLengths = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Machine machine = machines.get(i);
+            if (machine instanceof Lathe) {
+                positions[count] = i;
+                maxDiameters[count] = ((Lathe) machine).getMaxDiameter();
+                maxLengths[count] = ((Lathe) machine).getMaxLengthDetail();
+                count++;
+            }
+        }
+        SortedKeys byDiameter = new SortedKeys(maxDiameters, count);
+        SortedKeys byLength = new SortedKeys(maxLengths, count);
+        int lathes = count;
+
+        int workpieces = diameters.length;
+        int chunks = (workpieces + CHUNK - 1) / CHUNK;
+        int[][] chunkPositions = new int[chunks][];
+        int[] ends = new int[workpieces];
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int[] found = new int[16];
+            int length = 0;
+            for (int w = c * CHUNK, end = Math.min(w + CHUNK, workpieces); w < end; w++) {
+                int d = diameters[w];
+                int l = lengths[w];
+                int diameterFrom = byDiameter.from(d);
+                int lengthFrom = byLength.from(l);
+                boolean scanDiameters = diameterFrom >= lengthFrom;
+                SortedKeys band = scanDiameters ? byDiameter : byLength;
+                for (int i = scanDiameters ? diameterFrom : lengthFrom; i < lathes; i++) {
+                    int lathe = band.order[i];
+                    if (scanDiameters ? maxLengths[lathe] >= l : maxDiameters[lathe] >= d) {
+                        if (length == found.length)
+                            found = Arrays.copyOf(found, length * 2);
+                        found[length++] = positions[lathe];
+                    }
+                }
+                ends[w] = length;
+            }
+            chunkPositions[c] = Arrays.copyOf(found, length);
+        });
+
+        long total = 0;
+        for (int[] chunk : chunkPositions)
+            total += chunk.length;
+        if (total > Integer.MAX_VALUE)
+            throw new IllegalStateException("Join has " + total + " matches");
+        int[] all = new int[(int) total];
+        int[] from = new int[workpieces];
+        int[] to = new int[workpieces];
+        int offset = 0;
+        for (int c = 0; c < chunks; c++) {
+            System.arraycopy(chunkPositions[c], 0, all, offset, chunkPositions[c].length);
+            for (int w = c * CHUNK, end = Math.min(w + CHUNK, workpieces); w < end; w++) {
+                from[w] = w == c * CHUNK ? offset : to[w - 1];
+                to[w] = offset + ends[w];
+            }
+            offset += chunkPositions[c].length;
+        }
+        return new Matches(all, from, to);
+    }
+
+    /**
+     * Finds for every workpiece the cnc milling machines with {@code numberAix >= axes[w]}.
+     *
+     * @param machines machines, only cnc milling machines are joined
+     * @param axes numbers of axes the workpieces need
+     * @return matches sharing one array of positions
+     */
+    public static Matches cncMillings(MachineList machines, int[] axes) {
+        Objects.requireNonNull(machines, "Argument must be not null");
+        int size = machines.size();
+        int[] positions = new int[size];
+        int[] numbers = new int[size];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Machine machine = machines.get(i);
+            if (machine instanceof CncMilling) {
+                positions[count] = i;
+                numbers[count] = ((CncMilling) machine).getNumberAix();
+                count++;
+            }
+        }
+        SortedKeys byAxes = new SortedKeys(numbers, count);
+        int[] sorted = new int[count];
+        for (int i = 0; i < count; i++)
+            sorted[i] = positions[byAxes.order[i]];
+        int[] from = new int[axes.length];
+        int[] to = new int[axes.length];
+        Arrays.parallelSetAll(from, w -> byAxes.from(axes[w]));
+        Arrays.fill(to, count);
+        return new Matches(sorted, from, to);
+    }
+
+    /** Keys in ascending order with the indexes they had. */
+    static final class SortedKeys {
+        final int[] values;
+        final int[] order;
+
+        SortedKeys(int[] keys, int count) {
+            long[] packed = new long[count];
+            for (int i = 0; i < count; i++)
+                packed[i] = (long) keys[i] << 32 | i;
+            Arrays.parallelSort(packed);
+            values = new int[count];
+            order = new int[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = (int) (packed[i] >> 32);
+                order[i] = (int) packed[i];
+            }
+        }
+
+        /** Returns the first index whose key is at least {@code min}. */
+        int from(int min) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle] < min)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package query;
+
+import entity.Machine;
+
+import java.util.Objects;
+
+/**
+ * Condition of a query on one field: equality to a value or, for integer fields,
+ * {@code from <= value <= to}. Machines the field does not apply to never match.
+ * Conditions are immutable and comparable, so equal queries have equal canonical forms.
+ */
+public final class Condition implements Comparable<Condition> {
+    private final MachineField field;
+    private final Object value;
+    private final int from;
+    private final int to;
+    private final boolean range;
+
+    private Condition(MachineField field, Object value, int from, int to, boolean range) {
+        this.field = field;
+        this.value = value;
+        this.from = from;
+        this.to = to;
+        this.range = range;
+    }
+
+    /**
+     * Creates the condition {@code field == value}.
+     *
+     * @param field field
+     * @param value value, may be null
+     * @return condition
+     */
+    public static Condition eq(MachineField field, Object value) {
+        Objects.requireNonNull(field, "Argument must be not null");
+        return new Condition(field, value, 0, 0, false);
+    }
+
+    /**
+     * Creates the condition {@code from <= field <= to}.
+     *
+     * @param field integer field
+     * @param from minimum value, inclusive
+     * @param to maximum value, inclusive
+     * @return condition
+     * @throws IllegalArgumentException if the field is not an integer field
+     */
+    public static Condition between(MachineField field, int from, int to) {
+        Objects.requireNonNull(field, "Argument must be not null");
+        if (!field.isInteger())
+            throw new IllegalArgumentException("Not an integer field: " + field);
+        return new Condition(field, null, from, to, true);
+    }
+
+    public MachineField getField() {
+        return field;
+    }
+
+    public boolean isRange() {
+        return range;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    /**
+     * Returns {@code true} if the machine satisfies the condition.
+     *
+     * @param machine machine, may be null
+     * @return {@code true} if the machine matches
+     */
+    public boolean test(Machine machine) {
+        if (!field.appliesTo(machine))
+            return false;
+        if (range) {
+            int v = field.intValue(machine);
+            return v >= from && v <= to;
+        }
+        return Objects.equals(field.value(machine), value);
+    }
+
+    @Override
+    public int compareTo(Condition o) {
+        int result = field.compareTo(o.field);
+        if (result == 0)
+            result = Boolean.compare(range, o.range);
+        if (result == 0 && range)
+            result = from != o.from ? Integer.compare(from, o.from) : Integer.compare(to, o.to);
+        if (result == 0 && !range)
+            result = String.valueOf(value).compareTo(String.valueOf(o.value));
+        if (result == 0 && !range && value != null && o.value != null)
+            result = value.getClass().getName().compareTo(o.value.getClass().getName());
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof Condition))
+            return false;
+        Condition ob = (Condition) obj;
+        return field == ob.field && range == ob.range && from == ob.from && to == ob.to
+                && Objects.equals(value, ob.value);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = field.hashCode();
+        result = 31 * result + (range ? 1 : 0);
+        result = 31 * result + from;
+        result = 31 * result + to;
+        return 31 * result + Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        if (range)
+            return from + " <= " + field + " <= " + to;
+        return field + " = " + (value instanceof String ? "'" + value + "'" : value);
+    }
+}
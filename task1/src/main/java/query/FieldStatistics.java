@@ -0,0 +1,115 @@
+package query;
+
+import container.MachineList;
+import entity.Machine;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Cardinality statistics of one field of a {@code MachineList}, gathered in one pass.
+ */
+public final class FieldStatistics {
+    private final MachineField field;
+    private final int size;
+    private final int rows;
+    private final int distinct;
+    private final int min;
+    private final int max;
+
+    private FieldStatistics(MachineField field, int size, int rows, int distinct, int min, int max) {
+        this.field = field;
+        this.size = size;
+        this.rows = rows;
+        this.distinct = distinct;
+        this.min = min;
+        this.max = max;
+    }
+
+    static FieldStatistics of(MachineField field, MachineList list) {
+        Set<Object> values = new HashSet<>();
+        int rows = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < list.size(); i++) {
+            Machine machine = list.get(i);
+            if (!field.appliesTo(machine))
+                continue;
+            rows++;
+            Object value = field.value(machine);
+            values.add(value);
+            if (field.isInteger()) {
+                min = Math.min(min, (Integer) value);
+                max = Math.max(max, (Integer) value);
+            }
+        }
+        return new FieldStatistics(field, list.size(), rows, values.size(), min, max);
+    }
+
+    public MachineField getField() {
+        return field;
+    }
+
+    /**
+     * Returns the number of machines having the field.
+     *
+     * @return number of machines
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of distinct values of the field.
+     *
+     * @return number of distinct values
+     */
+    public int getDistinct() {
+        return distinct;
+    }
+
+    /**
+     * Returns the minimum value of an integer field, {@code Integer.MAX_VALUE} if there are no rows.
+     *
+     * @return minimum value
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum value of an integer field, {@code Integer.MIN_VALUE} if there are no rows.
+     *
+     * @return maximum value
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Estimates the fraction of the list satisfying the condition, assuming that the
+     * values are distributed uniformly: {@code 1 / distinct} of the rows having the
+     * field for an equality, the overlap of the ranges for a range.
+     *
+     * @param condition condition on this field
+     * @return estimated fraction from 0 to 1
+     */
+    public double selectivity(Condition condition) {
+        if (size == 0 || rows == 0)
+            return 0;
+        double present = (double) rows / size;
+        if (!condition.isRange())
+            return present / distinct;
+        long from = Math.max(condition.getFrom(), min);
+        long to = Math.min(condition.getTo(), max);
+        if (from > to)
+            return 0;
+        return present * (to - from + 1) / ((long) max - min + 1);
+    }
+
+    @Override
+    public String toString() {
+        return field + "{rows=" + rows + ", distinct=" + distinct
+                + (field.isInteger() && rows > 0 ? ", min=" + min + ", max=" + max : "") + '}';
+    }
+}
@@ -0,0 +1,161 @@
+package query;
+
+import container.MachineList;
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Access path to the positions of the machines satisfying a condition on one field.
+ * An index is built from the whole list and rebuilt on first use after the version
+ * of the list has changed.
+ */
+abstract class Index {
+    final MachineField field;
+    private final MachineList list;
+    private long builtVersion = -1;
+
+    Index(MachineField field, MachineList list) {
+        this.field = field;
+        this.list = list;
+    }
+
+    /** Rebuilds the index if the list has changed since it was built. */
+    final void refresh() {
+        if (builtVersion != list.version()) {
+            build(list);
+            builtVersion = list.version();
+        }
+    }
+
+    /** Returns {@code true} if the index can answer the condition. */
+    abstract boolean supports(Condition condition);
+
+    /** Returns the exact number of positions satisfying the condition. */
+    abstract int count(Condition condition);
+
+    /** Sets the bits of the positions satisfying the condition. */
+    abstract void select(Condition condition, BitSet positions);
+
+    abstract String name();
+
+    abstract void build(MachineList list);
+
+    /** Equality index: a map from every value to the ascending positions having it. */
+    static final class Hash extends Index {
+        private Map<Object, int[]> postings = new HashMap<>();
+
+        Hash(MachineField field, MachineList list) {
+            super(field, list);
+        }
+
+        @Override
+        boolean supports(Condition condition) {
+            return !condition.isRange();
+        }
+
+        @Override
+        int count(Condition condition) {
+            int[] posting = postings.get(condition.getValue());
+            return posting == null ? 0 : posting[0];
+        }
+
+        @Override
+        void select(Condition condition, BitSet positions) {
+            int[] posting = postings.get(condition.getValue());
+            if (posting != null)
+                for (int i = 1; i <= posting[0]; i++)
+                    positions.set(posting[i]);
+        }
+
+        @Override
+        String name() {
+            return field == MachineField.TYPE ? "type partition" : "hash index";
+        }
+
+        /** Every posting keeps its length in element 0. */
+        @Override
+        void build(MachineList list) {
+            Map<Object, int[]> built = new HashMap<>();
+            for (int i = 0; i < list.size(); i++) {
+                Machine machine = list.get(i);
+                if (!field.appliesTo(machine))
+                    continue;
+                Object value = field.value(machine);
+                int[] posting = built.get(value);
+                if (posting == null) {
+                    posting = new int[4];
+                    built.put(value, posting);
+                } else if (posting[0] + 1 == posting.length) {
+                    posting = Arrays.copyOf(posting, posting.length * 2);
+                    built.put(value, posting);
+                }
+                posting[++posting[0]] = i;
+            }
+            postings = built;
+        }
+    }
+
+    /**
+     * Range index over an integer field: {@code (value, position)} pairs packed into
+     * sorted longs, so a range is found with two binary searches.
+     */
+    static final class Range extends Index {
+        private long[] entries = new long[0];
+
+        Range(MachineField field, MachineList list) {
+            super(field, list);
+        }
+
+        @Override
+        boolean supports(Condition condition) {
+            return condition.isRange() || condition.getValue() instanceof Integer;
+        }
+
+        @Override
+        int count(Condition condition) {
+            return Math.max(0, upper(condition) - lower(condition));
+        }
+
+        @Override
+        void select(Condition condition, BitSet positions) {
+            for (int i = lower(condition), upper = upper(condition); i < upper; i++)
+                positions.set((int) entries[i]);
+        }
+
+        private int lower(Condition condition) {
+            long key = (long) (condition.isRange() ? condition.getFrom() : (Integer) condition.getValue()) << 32;
+            int index = Arrays.binarySearch(entries, key);
+            return index < 0 ? -index - 1 : index;
+        }
+
+        private int upper(Condition condition) {
+            long key = (long) (condition.isRange() ? condition.getTo() : (Integer) condition.getValue()) << 32
+                    | 0xFFFFFFFFL;
+            int index = Arrays.binarySearch(entries, key);
+            return index < 0 ? -index - 1 : index + 1;
+        }
+
+        @Override
+        String name() {
+            return "range index";
+        }
+
+        @Override
+        void build(MachineList list) {
+            long[] built = new long[list.size()];
+            int length = 0;
+            for (int i = 0; i < list.size(); i++) {
+                Machine machine = list.get(i);
+                if (field.appliesTo(machine))
+                    built[length++] = (long) field.intValue(machine) << 32 | i;
+            }
+            built = Arrays.copyOf(built, length);
+            Arrays.sort(built);
+            entries = built;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package query;
+
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.Milling;
+import entity.UniversalMilling;
+
+import java.util.function.Function;
+
+/**
+ * Fields of machines that queries can refer to. A field applies only to the
+ * classes which have it; other machines never satisfy a condition on it.
+ */
+public enum MachineField {
+    /** Class of the machine: {@code "Lathe"}, {@code "CncMilling"} or {@code "UniversalMilling"}. */
+    TYPE(Machine.class, false, MachineField::type),
+    POWER(Machine.class, true, Machine::getPower),
+    WEIGHT(Machine.class, true, Machine::getWeight),
+    MODEL(Machine.class, false, Machine::getModel),
+    MAX_DIAMETER(Lathe.class, true, m -> ((Lathe) m).getMaxDiameter()),
+    MAX_LENGTH_DETAIL(Lathe.class, true, m -> ((Lathe) m).getMaxLengthDetail()),
+    THREAD(Lathe.class, false, m -> ((Lathe) m).isThread()),
+    MAX_SPINDLE_SPEED(Milling.class, true, m -> ((Milling) m).getMaxSpindleSpeed()),
+    MAX_MILLING_SPED(Milling.class, true, m -> ((Milling) m).getMaxMillingSped()),
+    TABLE_AREA(Milling.class, true, m -> ((Milling) m).getTableArea()),
+    SOFTWARE_NAME(CncMilling.class, false, m -> ((CncMilling) m).getSoftwareName()),
+    NUMBER_AIX(CncMilling.class, true, m -> ((CncMilling) m).getNumberAix()),
+    TYPE_MILLING(UniversalMilling.class, false, m -> ((UniversalMilling) m).getTypeMilling()),
+    DEGREE_LIMB(UniversalMilling.class, false, m -> ((UniversalMilling) m).getDegreeLimb());
+
+    private final Class<? extends Machine> owner;
+    private final boolean integer;
+    private final Function<Machine, Object> getter;
+
+    MachineField(Class<? extends Machine> owner, boolean integer, Function<Machine, Object> getter) {
+        this.owner = owner;
+        this.integer = integer;
+        this.getter = getter;
+    }
+
+    /**
+     * Returns {@code true} if the machine has this field.
+     *
+     * @param machine machine, may be null
+     * @return {@code true} if the field applies to the machine
+     */
+    public boolean appliesTo(Machine machine) {
+        return owner.isInstance(machine);
+    }
+
+    /**
+     * Returns {@code true} if the values of this field are {@code Integer}s,
+     * which makes range conditions and range indexes possible.
+     *
+     * @return {@code true} for integer fields
+     */
+    public boolean isInteger() {
+        return integer;
+    }
+
+    /**
+     * Returns the value of this field. The field must apply to the machine.
+     *
+     * @param machine machine
+     * @return value, may be null
+     */
+    public Object value(Machine machine) {
+        return getter.apply(machine);
+    }
+
+    /**
+     * Returns the value of an integer field. The field must apply to the machine.
+     *
+     * @param machine machine
+     * @return value
+     */
+    public int intValue(Machine machine) {
+        return (Integer) getter.apply(machine);
+    }
+
+    private static String type(Machine machine) {
+        if (machine instanceof CncMilling)
+            return "CncMilling";
+        if (machine instanceof UniversalMilling)
+            return "UniversalMilling";
+        if (machine instanceof Lathe)
+            return "Lathe";
+        return "Machine";
+    }
+}
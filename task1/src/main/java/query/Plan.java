@@ -0,0 +1,108 @@
+package query;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plan chosen by {@code QueryEngine} for a query: either a scan of the whole list or
+ * an intersection of index lookups, followed in both cases by filters evaluating the
+ * remaining conditions, most selective first.
+ */
+public final class Plan {
+    private final Query query;
+    private final List<Lookup> lookups;
+    private final List<Filter> filters;
+    private final double estimatedRows;
+    private final double cost;
+
+    Plan(Query query, List<Lookup> lookups, List<Filter> filters, double estimatedRows, double cost) {
+        this.query = query;
+        this.lookups = lookups;
+        this.filters = filters;
+        this.estimatedRows = estimatedRows;
+        this.cost = cost;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    /**
+     * Returns {@code true} if the plan reads the whole list.
+     *
+     * @return {@code true} for a scan
+     */
+    public boolean isScan() {
+        return lookups.isEmpty();
+    }
+
+    /**
+     * Returns the estimated number of matching machines.
+     *
+     * @return estimated number of rows
+     */
+    public double getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    /**
+     * Returns the estimated cost in units of one row read by a scan.
+     *
+     * @return estimated cost
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    List<Lookup> lookups() {
+        return Collections.unmodifiableList(lookups);
+    }
+
+    List<Filter> filters() {
+        return Collections.unmodifiableList(filters);
+    }
+
+    /**
+     * Returns the description of the plan, one step per line.
+     *
+     * @return description of the plan
+     */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder();
+        b.append(isScan() ? "Scan" : lookups.size() == 1 ? "Index lookup" : "Index intersection");
+        b.append(String.format(Locale.ROOT, " (estimated rows %.1f, cost %.1f)", estimatedRows, cost));
+        for (Lookup lookup : lookups)
+            b.append("\n  ").append(lookup.index.name()).append(": ").append(lookup.condition)
+                    .append(" (rows ").append(lookup.rows).append(')');
+        for (Filter filter : filters)
+            b.append("\n  filter: ").append(filter.condition)
+                    .append(String.format(Locale.ROOT, " (selectivity %.3f)", filter.selectivity));
+        return b.toString();
+    }
+
+    /** Lookup of the positions satisfying a condition in an index. */
+    static final class Lookup {
+        final Index index;
+        final Condition condition;
+        final int rows;
+
+        Lookup(Index index, Condition condition, int rows) {
+            this.index = index;
+            this.condition = condition;
+            this.rows = rows;
+        }
+    }
+
+    /** Condition evaluated on every candidate row. */
+    static final class Filter {
+        final Condition condition;
+        final double selectivity;
+
+        Filter(Condition condition, double selectivity) {
+            this.condition = condition;
+            this.selectivity = selectivity;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package query;
+
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Conjunction of conditions. The conditions are kept sorted and without duplicates,
+ * so queries written with the conditions in a different order are equal and have
+ * the same {@code toString}, which makes a query usable as a cache key.
+ */
+public final class Query implements Predicate<Machine> {
+    private final Condition[] conditions;
+
+    private Query(Condition[] conditions) {
+        this.conditions = conditions;
+    }
+
+    /**
+     * Creates the conjunction of the conditions. Without conditions every machine matches.
+     *
+     * @param conditions conditions
+     * @return query
+     */
+    public static Query where(Condition... conditions) {
+        Condition[] sorted = conditions.clone();
+        for (Condition condition : sorted)
+            Objects.requireNonNull(condition, "Argument must be not null");
+        Arrays.sort(sorted);
+        int length = 0;
+        for (int i = 0; i < sorted.length; i++)
+            if (i == 0 || !sorted[i].equals(sorted[length - 1]))
+                sorted[length++] = sorted[i];
+        return new Query(Arrays.copyOf(sorted, length));
+    }
+
+    /**
+     * Returns the conditions in canonical order.
+     *
+     * @return conditions
+     */
+    public List<Condition> getConditions() {
+        return Collections.unmodifiableList(Arrays.asList(conditions));
+    }
+
+    @Override
+    public boolean test(Machine machine) {
+        for (Condition condition : conditions)
+            if (!condition.test(machine))
+                return false;
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj || obj instanceof Query && Arrays.equals(conditions, ((Query) obj).conditions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(conditions);
+    }
+
+    @Override
+    public String toString() {
+        if (conditions.length == 0)
+            return "true";
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < conditions.length; i++) {
+            if (i > 0)
+                b.append(" AND ");
+            b.append(conditions[i]);
+        }
+        return b.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package query;
+
+import container.MachineList;
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cache of query results over a {@code QueryEngine}.
+ *
+ * <p>Results are keyed by the canonical {@code Query}, so the same conditions written
+ * in another order hit the same entry. The cache remembers the {@code version()} of
+ * the list its entries were computed for; any modification of the list changes the
+ * version and the next access drops all the entries. When the cache holds
+ * {@code maxEntries} results the least recently used one is evicted.
+ * All methods are synchronized.
+ */
+public class QueryCache {
+    private final QueryEngine engine;
+    private final MachineList list;
+    private final int maxEntries;
+    private final LinkedHashMap<Query, List<Machine>> entries;
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param engine engine computing the results
+     * @param maxEntries maximum number of cached results
+     * @throws IllegalArgumentException if {@code maxEntries} is not positive
+     */
+    public QueryCache(QueryEngine engine, int maxEntries) {
+        Objects.requireNonNull(engine, "Argument must be not null");
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + maxEntries);
+        this.engine = engine;
+        this.list = engine.list();
+        this.maxEntries = maxEntries;
+        this.version = list.version();
+        this.entries = new LinkedHashMap<Query, List<Machine>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Query, List<Machine>> eldest) {
+                if (size() <= QueryCache.this.maxEntries)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the machines satisfying the query, computing them only if the cache
+     * has no result for the current version of the list.
+     *
+     * @param query query
+     * @return unmodifiable list of the matching machines, in the order of the list
+     */
+    public synchronized List<Machine> get(Query query) {
+        Objects.requireNonNull(query, "Argument must be not null");
+        if (version != list.version()) {
+            if (!entries.isEmpty())
+                invalidations++;
+            entries.clear();
+            version = list.version();
+        }
+        List<Machine> result = entries.get(query);
+        if (result != null) {
+            hits++;
+            return result;
+        }
+        misses++;
+        Machine[] machines = engine.execute(query).toArray();
+        result = Collections.unmodifiableList(Arrays.asList(machines));
+        entries.put(query, result);
+        return result;
+    }
+
+    /** Removes all the cached results. The statistics are kept. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of results evicted because the cache was full.
+     *
+     * @return number of evicted results
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of times the cached results were dropped because the list changed.
+     *
+     * @return number of invalidations
+     */
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    /**
+     * Returns the fraction of the requests answered from the cache.
+     *
+     * @return hit rate from 0 to 1, 0 if there were no requests
+     */
+    public synchronized double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "QueryCache{size=" + entries.size() + ", hits=" + hits + ", misses=" + misses
+                + ", evictions=" + evictions + ", invalidations=" + invalidations + '}';
+    }
+}
@@ -0,0 +1,218 @@
+package query;
+
+import container.MachineList;
+import entity.Machine;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Cost-based execution of queries over a {@code MachineList}.
+ *
+ * <p>The access paths are a scan of the whole list, hash indexes for equality, range
+ * indexes over integer fields, and the type partition, a hash index on
+ * {@code MachineField.TYPE} which always exists. Indexes and statistics are built
+ * from the list and rebuilt on first use after its {@code version()} has changed.
+ *
+ * <p>Conditions with an index are estimated exactly from the index, the others from
+ * the statistics of their field. Index lookups are taken greedily, smallest first,
+ * for as long as reading another posting list costs less than filtering the current
+ * candidates; the result is compared with the cost of a scan. A scan costs one unit
+ * per row, an index costs {@link #INDEX_ROW_COST} per position it returns plus one
+ * per candidate fetched. Conditions are assumed to be independent.
+ */
+public class QueryEngine {
+    /** Cost of taking one position from an index relative to scanning one row. */
+    public static final double INDEX_ROW_COST = 2;
+
+    private final MachineList list;
+    private final Map<MachineField, Index> indexes = new EnumMap<>(MachineField.class);
+    private final Map<MachineField, FieldStatistics> statistics = new EnumMap<>(MachineField.class);
+    private long statisticsVersion = -1;
+
+    /**
+     * Creates the engine with only the type partition.
+     *
+     * @param list queried list
+     */
+    public QueryEngine(MachineList list) {
+        Objects.requireNonNull(list, "Argument must be not null");
+        this.list = list;
+        indexes.put(MachineField.TYPE, new Index.Hash(MachineField.TYPE, list));
+    }
+
+    MachineList list() {
+        return list;
+    }
+
+    /**
+     * Creates a hash index for equality conditions on the field, replacing its current index.
+     *
+     * @param field field
+     */
+    public void createHashIndex(MachineField field) {
+        Objects.requireNonNull(field, "Argument must be not null");
+        indexes.put(field, new Index.Hash(field, list));
+    }
+
+    /**
+     * Creates a range index for the field, replacing its current index.
+     *
+     * @param field integer field
+     * @throws IllegalArgumentException if the field is not an integer field
+     */
+    public void createRangeIndex(MachineField field) {
+        Objects.requireNonNull(field, "Argument must be not null");
+        if (!field.isInteger())
+            throw new IllegalArgumentException("Not an integer field: " + field);
+        indexes.put(field, new Index.Range(field, list));
+    }
+
+    /**
+     * Drops the index of the field.
+     *
+     * @param field field
+     * @return {@code true} if the field had an index
+     */
+    public boolean dropIndex(MachineField field) {
+        return indexes.remove(field) != null;
+    }
+
+    /**
+     * Returns the statistics of the field for the current version of the list.
+     *
+     * @param field field
+     * @return statistics
+     */
+    public FieldStatistics statistics(MachineField field) {
+        if (statisticsVersion != list.version()) {
+            statistics.clear();
+            statisticsVersion = list.version();
+        }
+        FieldStatistics result = statistics.get(field);
+        if (result == null) {
+            result = FieldStatistics.of(field, list);
+            statistics.put(field, result);
+        }
+        return result;
+    }
+
+    /**
+     * Chooses the cheapest plan for the query.
+     *
+     * @param query query
+     * @return plan
+     */
+    public Plan plan(Query query) {
+        Objects.requireNonNull(query, "Argument must be not null");
+        int size = list.size();
+        List<Plan.Lookup> lookups = new ArrayList<>();
+        List<Condition> residual = new ArrayList<>();
+        double estimatedRows = size;
+        for (Condition condition : query.getConditions()) {
+            Index index = indexes.get(condition.getField());
+            if (index != null && index.supports(condition)) {
+                index.refresh();
+                Plan.Lookup lookup = new Plan.Lookup(index, condition, index.count(condition));
+                lookups.add(lookup);
+                estimatedRows *= size == 0 ? 0 : (double) lookup.rows / size;
+            } else {
+                residual.add(condition);
+                estimatedRows *= statistics(condition.getField()).selectivity(condition);
+            }
+        }
+        lookups.sort((a, b) -> Integer.compare(a.rows, b.rows));
+
+        List<Plan.Lookup> chosen = new ArrayList<>();
+        double candidates = size;
+        double cost = 0;
+        for (Plan.Lookup lookup : lookups) {
+            double nextCandidates = chosen.isEmpty() ? lookup.rows
+                    : size == 0 ? 0 : candidates * lookup.rows / size;
+            double nextCost = cost - (chosen.isEmpty() ? 0 : candidates)
+                    + INDEX_ROW_COST * lookup.rows + nextCandidates;
+            if (chosen.isEmpty() || nextCost < cost) {
+                chosen.add(lookup);
+                candidates = nextCandidates;
+                cost = nextCost;
+            } else {
+                residual.add(lookup.condition);
+            }
+        }
+        if (chosen.isEmpty() || cost >= size) {
+            for (Plan.Lookup lookup : chosen)
+                residual.add(lookup.condition);
+            chosen.clear();
+            cost = size;
+        }
+
+        List<Plan.Filter> filters = new ArrayList<>();
+        for (Condition condition : residual)
+            filters.add(new Plan.Filter(condition, selectivity(condition, size)));
+        filters.sort((a, b) -> Double.compare(a.selectivity, b.selectivity));
+        return new Plan(query, chosen, filters, estimatedRows, cost);
+    }
+
+    private double selectivity(Condition condition, int size) {
+        Index index = indexes.get(condition.getField());
+        if (index != null && index.supports(condition))
+            return size == 0 ? 0 : (double) index.count(condition) / size;
+        return statistics(condition.getField()).selectivity(condition);
+    }
+
+    /**
+     * Returns the description of the plan chosen for the query.
+     *
+     * @param query query
+     * @return description of the plan
+     */
+    public String explain(Query query) {
+        return plan(query).toString();
+    }
+
+    /**
+     * Returns the machines satisfying the query, in the order of the list.
+     *
+     * @param query query
+     * @return new list of the matching machines
+     */
+    public MachineList execute(Query query) {
+        Plan plan = plan(query);
+        List<Plan.Filter> filters = plan.filters();
+        MachineList result = new MachineList();
+        if (plan.isScan()) {
+            for (int i = 0; i < list.size(); i++) {
+                Machine machine = list.get(i);
+                if (matches(machine, filters))
+                    result.add(machine);
+            }
+            return result;
+        }
+        BitSet positions = null;
+        for (Plan.Lookup lookup : plan.lookups()) {
+            BitSet selected = new BitSet(list.size());
+            lookup.index.select(lookup.condition, selected);
+            if (positions == null)
+                positions = selected;
+            else
+                positions.and(selected);
+        }
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            Machine machine = list.get(i);
+            if (matches(machine, filters))
+                result.add(machine);
+        }
+        return result;
+    }
+
+    private static boolean matches(Machine machine, List<Plan.Filter> filters) {
+        for (Plan.Filter filter : filters)
+            if (!filter.condition.test(machine))
+                return false;
+        return true;
+    }
+}
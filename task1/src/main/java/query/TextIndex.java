@@ -0,0 +1,231 @@
+package query;
+
+import container.MachineList;
+import container.MachineListListener;
+import entity.Machine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Prefix and substring index over a string field of the machines of a {@code MachineList}.
+ *
+ * <p>The index keeps a dictionary of the distinct values in lower case. Every entry of
+ * the dictionary knows the machines having the value; the entries are sorted for prefix
+ * lookups, and an inverted index from every trigram of a value to its entries answers
+ * substring lookups: only the entries of the rarest trigram of the searched text are
+ * checked. Texts shorter than three characters are checked against every entry of the
+ * dictionary. The cost of a lookup thus depends on the number of distinct values
+ * involved and the number of matches, not on the size of the list.
+ *
+ * <p>The index listens to the list and follows every modification. Machines are
+ * treated as immutable: the index relies on a machine keeping its value while it is
+ * in the list. Lookups return the machines in no particular order, a machine stored
+ * in the list several times appears several times.
+ */
+public class TextIndex implements MachineListListener {
+    private final MachineList list;
+    private final MachineField field;
+    private final TreeMap<String, Entry> dictionary = new TreeMap<>();
+    private final Map<Long, Set<Entry>> trigrams = new HashMap<>();
+
+    /**
+     * Indexes the list and starts following its modifications.
+     *
+     * @param list indexed list
+     * @param field {@code MODEL} or {@code SOFTWARE_NAME}
+     * @throws IllegalArgumentException if the field is not a text field
+     */
+    public TextIndex(MachineList list, MachineField field) {
+        Objects.requireNonNull(list, "Argument must be not null");
+        Objects.requireNonNull(field, "Argument must be not null");
+        if (field != MachineField.MODEL && field != MachineField.SOFTWARE_NAME)
+            throw new IllegalArgumentException("Not a text field: " + field);
+        this.list = list;
+        this.field = field;
+        for (int i = 0; i < list.size(); i++)
+            index(list.get(i));
+        list.addListener(this);
+    }
+
+    /** Stops following the list. The index keeps its contents. */
+    public void detach() {
+        list.removeListener(this);
+    }
+
+    /**
+     * Returns the number of distinct values, ignoring case.
+     *
+     * @return size of the dictionary
+     */
+    public int getDistinctValues() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns the machines whose value starts with the prefix.
+     *
+     * @param prefix prefix
+     * @param ignoreCase whether to ignore case
+     * @return matching machines
+     */
+    public List<Machine> startsWith(String prefix, boolean ignoreCase) {
+        Objects.requireNonNull(prefix, "Argument must be not null");
+        String key = lower(prefix);
+        SortedMap<String, Entry> range = dictionary.subMap(key, key + Character.MAX_VALUE);
+        List<Machine> result = new ArrayList<>();
+        for (Entry entry : range.values())
+            collect(entry, result, ignoreCase ? null : m -> value(m).startsWith(prefix));
+        return result;
+    }
+
+    /**
+     * Returns the machines whose value contains the text.
+     *
+     * @param text text to search
+     * @param ignoreCase whether to ignore case
+     * @return matching machines
+     */
+    public List<Machine> contains(String text, boolean ignoreCase) {
+        Objects.requireNonNull(text, "Argument must be not null");
+        String key = lower(text);
+        Iterable<Entry> candidates = dictionary.values();
+        if (key.length() >= 3) {
+            Set<Entry> rarest = null;
+            for (int i = 0; i + 3 <= key.length(); i++) {
+                Set<Entry> entries = trigrams.get(trigram(key, i));
+                if (entries == null)
+                    return new ArrayList<>();
+                if (rarest == null || entries.size() < rarest.size())
+                    rarest = entries;
+            }
+            candidates = rarest;
+        }
+        List<Machine> result = new ArrayList<>();
+        for (Entry entry : candidates)
+            if (entry.key.contains(key))
+                collect(entry, result, ignoreCase ? null : m -> value(m).contains(text));
+        return result;
+    }
+
+    /**
+     * Returns the machines whose value equals the text, ignoring case.
+     *
+     * @param text text
+     * @return matching machines
+     */
+    public List<Machine> equalsIgnoreCase(String text) {
+        Objects.requireNonNull(text, "Argument must be not null");
+        Entry entry = dictionary.get(lower(text));
+        List<Machine> result = new ArrayList<>();
+        if (entry != null)
+            collect(entry, result, null);
+        return result;
+    }
+
+    private static void collect(Entry entry, List<Machine> result, Predicate<Machine> check) {
+        for (Map.Entry<Machine, int[]> machine : entry.machines.entrySet())
+            if (check == null || check.test(machine.getKey()))
+                for (int i = 0; i < machine.getValue()[0]; i++)
+                    result.add(machine.getKey());
+    }
+
+    private String value(Machine machine) {
+        return (String) field.value(machine);
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /** Packs three characters into one key. */
+    private static long trigram(String key, int index) {
+        return (long) key.charAt(index) << 32 | (long) key.charAt(index + 1) << 16 | key.charAt(index + 2);
+    }
+
+    private void index(Machine machine) {
+        if (!field.appliesTo(machine) || value(machine) == null)
+            return;
+        String key = lower(value(machine));
+        Entry entry = dictionary.get(key);
+        if (entry == null) {
+            entry = new Entry(key);
+            dictionary.put(key, entry);
+            for (int i = 0; i + 3 <= key.length(); i++)
+                trigrams.computeIfAbsent(trigram(key, i),
+                        k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(entry);
+        }
+        int[] count = entry.machines.get(machine);
+        if (count == null)
+            entry.machines.put(machine, new int[]{1});
+        else
+            count[0]++;
+    }
+
+    private void unindex(Machine machine) {
+        if (!field.appliesTo(machine) || value(machine) == null)
+            return;
+        String key = lower(value(machine));
+        Entry entry = dictionary.get(key);
+        if (entry == null)
+            return;
+        int[] count = entry.machines.get(machine);
+        if (count == null)
+            return;
+        if (--count[0] == 0)
+            entry.machines.remove(machine);
+        if (!entry.machines.isEmpty())
+            return;
+        dictionary.remove(key);
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            Long gram = trigram(key, i);
+            Set<Entry> entries = trigrams.get(gram);
+            if (entries != null && entries.remove(entry) && entries.isEmpty())
+                trigrams.remove(gram);
+        }
+    }
+
+    @Override
+    public void added(int index, Machine machine) {
+        index(machine);
+    }
+
+    @Override
+    public void replaced(int index, Machine oldMachine, Machine newMachine) {
+        if (oldMachine != newMachine) {
+            unindex(oldMachine);
+            index(newMachine);
+        }
+    }
+
+    @Override
+    public void removed(int index, Machine machine) {
+        unindex(machine);
+    }
+
+    @Override
+    public void cleared() {
+        dictionary.clear();
+        trigrams.clear();
+    }
+
+    /** Distinct value in lower case with the number of times every machine having it is in the list. */
+    private static final class Entry {
+        final String key;
+        final Map<Machine, int[]> machines = new IdentityHashMap<>();
+
+        Entry(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package reactive;
+
+/**
+ * Interfaces of demand-driven streams with the same contract as
+ * {@code java.util.concurrent.Flow}, which is not available on Java 8.
+ * A subscriber receives at most as many items as it has requested, so a slow
+ * subscriber never has to buffer what it can not handle yet.
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * Producer of items received by subscribers.
+     *
+     * @param <T> type of the items
+     */
+    public interface Publisher<T> {
+        /**
+         * Adds the subscriber. The publisher calls {@code onSubscribe} first and then
+         * emits items only on demand.
+         *
+         * @param subscriber receiver of the items
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receiver of items. For every subscription the methods are called sequentially,
+     * {@code onNext} never more times than requested, and at most one of
+     * {@code onError} and {@code onComplete} ends the stream.
+     *
+     * @param <T> type of the items
+     */
+    public interface Subscriber<T> {
+        /**
+         * Called before any other method of the subscription.
+         *
+         * @param subscription subscription used to request items or cancel
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Called with the next item.
+         *
+         * @param item item
+         */
+        void onNext(T item);
+
+        /**
+         * Called when the stream failed. No more calls follow.
+         *
+         * @param throwable cause of the failure
+         */
+        void onError(Throwable throwable);
+
+        /** Called when all the items have been emitted. No more calls follow. */
+        void onComplete();
+    }
+
+    /**
+     * Link between a publisher and a subscriber.
+     */
+    public interface Subscription {
+        /**
+         * Adds {@code n} to the number of items the subscriber is ready to receive.
+         * A non-positive {@code n} ends the stream with {@code IllegalArgumentException}.
+         *
+         * @param n number of additional items
+         */
+        void request(long n);
+
+        /** Stops the stream. Some items already on the way may still be delivered. */
+        void cancel();
+    }
+}
@@ -0,0 +1,223 @@
+package reactive;
+
+import container.MachineList;
+import entity.Machine;
+
+import java.util.ListIterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Publishes the machines of a {@code MachineList} which satisfy a filter.
+ *
+ * <p>Every subscriber gets its own scan of the list. The scan moves forward only
+ * while the subscriber has outstanding demand and never copies the list, so memory
+ * stays the same whatever the size of the result. Items are emitted on the executor
+ * in batches of at most {@code batchSize}; after a full batch the scan gives the
+ * executor thread back and continues in a new task. A structural modification of the
+ * list during the scan ends the stream with {@code ConcurrentModificationException}.
+ *
+ * <p>The scan looks one match ahead, so the stream completes as soon as the list is
+ * exhausted, also when the subscriber has requested exactly the remaining items.
+ * {@code null} elements of the list are skipped: {@code onNext} never gets {@code null}.
+ */
+public class MachinePublisher implements Flow.Publisher<Machine> {
+    /** Default maximum number of items emitted in one task. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final MachineList list;
+    private final Predicate<? super Machine> filter;
+    private final Executor executor;
+    private final int batchSize;
+
+    /** No match has been looked up ahead. */
+    private static final Object NONE = new Object();
+
+    /** The list is exhausted. */
+    private static final Object END = new Object();
+
+    /**
+     * Creates the publisher of all the machines, emitting on the common pool.
+     *
+     * @param list source list
+     */
+    public MachinePublisher(MachineList list) {
+        this(list, machine -> true);
+    }
+
+    /**
+     * Creates the publisher emitting on the common pool.
+     *
+     * @param list source list
+     * @param filter condition the published machines satisfy
+     */
+    public MachinePublisher(MachineList list, Predicate<? super Machine> filter) {
+        this(list, filter, ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates the publisher.
+     *
+     * @param list source list
+     * @param filter condition the published machines satisfy
+     * @param executor executor the items are emitted on
+     * @param batchSize maximum number of items emitted in one task
+     * @throws IllegalArgumentException if {@code batchSize} is not positive
+     */
+    public MachinePublisher(MachineList list, Predicate<? super Machine> filter, Executor executor, int batchSize) {
+        Objects.requireNonNull(list, "Argument must be not null");
+        Objects.requireNonNull(filter, "Argument must be not null");
+        Objects.requireNonNull(executor, "Argument must be not null");
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        this.list = list;
+        this.filter = filter;
+        this.executor = executor;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Machine> subscriber) {
+        Objects.requireNonNull(subscriber, "Argument must be not null");
+        MachineSubscription subscription = new MachineSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Scan of the list for one subscriber. {@code wip} counts the signals (requests
+     * and the error of an illegal request) not yet seen by the emitting task; only the
+     * caller which raises it from zero schedules the task, so the subscriber is never
+     * called from two threads at once.
+     */
+    private final class MachineSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super Machine> subscriber;
+        private final ListIterator<Machine> iterator;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+
+        /** Next match found ahead of demand, {@code NONE} or {@code END}; touched only by the emitting task. */
+        private Object pending = NONE;
+
+        MachineSubscription(Flow.Subscriber<? super Machine> subscriber) {
+            this.subscriber = subscriber;
+            this.iterator = list.listIterator();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Non-positive request: " + n);
+            } else {
+                long current;
+                long next;
+                do {
+                    current = requested.get();
+                    next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!requested.compareAndSet(current, next));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0)
+                execute();
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                cancelled = true;
+                subscriber.onError(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            for (;;) {
+                if (cancelled)
+                    return;
+                if (error != null) {
+                    cancelled = true;
+                    subscriber.onError(error);
+                    return;
+                }
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && emitted < batchSize) {
+                    if (cancelled)
+                        return;
+                    Object next = lookAhead();
+                    if (next == null)
+                        return;
+                    if (next == END) {
+                        complete();
+                        return;
+                    }
+                    pending = NONE;
+                    subscriber.onNext((Machine) next);
+                    emitted++;
+                }
+                // complete without waiting for a request the subscriber need not make
+                if (!cancelled) {
+                    Object next = lookAhead();
+                    if (next == null)
+                        return;
+                    if (next == END) {
+                        complete();
+                        return;
+                    }
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE)
+                    demand = requested.addAndGet(-emitted);
+                if (emitted == batchSize && demand != 0) {
+                    execute();
+                    return;
+                }
+                missed = wip.addAndGet(-missed);
+                if (missed == 0)
+                    return;
+            }
+        }
+
+        /**
+         * Returns the pending match, looking it up if there is none yet.
+         *
+         * @return machine, {@code END} at the end of the list, or {@code null} if the
+         *         scan failed and the subscriber got the error
+         */
+        private Object lookAhead() {
+            if (pending != NONE)
+                return pending;
+            try {
+                while (iterator.hasNext()) {
+                    Machine machine = iterator.next();
+                    if (machine != null && filter.test(machine))
+                        return pending = machine;
+                }
+            } catch (RuntimeException e) {
+                cancelled = true;
+                subscriber.onError(e);
+                return null;
+            }
+            return pending = END;
+        }
+
+        private void complete() {
+            cancelled = true;
+            subscriber.onComplete();
+        }
+    }
+}
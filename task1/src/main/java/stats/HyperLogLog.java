@@ -0,0 +1,129 @@
+package stats;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the number of distinct values from their 64-bit hashes in a fixed
+ * amount of memory.
+ *
+ * <p>The sketch keeps {@code 2^precision} one-byte registers. The top {@code precision}
+ * bits of a hash select a register, which keeps the largest position of the first set
+ * bit seen among the other bits. The relative standard error of the estimate is about
+ * {@code 1.04 / sqrt(2^precision)}, 0.8% for the default precision of 14, which takes
+ * 16 KB. Small counts are estimated by linear counting of the empty registers, so they
+ * are close to exact.
+ *
+ * <p>Sketches of the same precision merge by taking the larger of every two registers;
+ * the result is the sketch of the union of both streams. The sketch is not synchronized.
+ */
+public final class HyperLogLog {
+    /** Precision giving an error of about 0.8%. */
+    public static final int DEFAULT_PRECISION = 14;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /** Creates an empty sketch of the default precision. */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param precision number of bits selecting a register, from 4 to 18
+     * @throws IllegalArgumentException if the precision is out of range
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18)
+            throw new IllegalArgumentException("Illegal precision: " + precision);
+        this.precision = precision;
+        registers = new byte[1 << precision];
+    }
+
+    /**
+     * Returns a copy of the sketch.
+     *
+     * @return new sketch
+     */
+    public HyperLogLog copy() {
+        HyperLogLog copy = new HyperLogLog(precision);
+        System.arraycopy(registers, 0, copy.registers, 0, registers.length);
+        return copy;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Adds a value by its hash. The hash must spread the values over all 64 bits.
+     *
+     * @param hash hash of the value
+     */
+    public void add(long hash) {
+        int register = (int) (hash >>> (64 - precision));
+        // the guard bit bounds the rank when the remaining bits are all zero
+        long rest = hash << precision | 1L << (precision - 1);
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[register])
+            registers[register] = rank;
+    }
+
+    /**
+     * Adds all the values of another sketch.
+     *
+     * @param other sketch of the same precision
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision)
+            throw new IllegalArgumentException("Precision " + other.precision + " differs from " + precision);
+        for (int i = 0; i < registers.length; i++)
+            if (other.registers[i] > registers[i])
+                registers[i] = other.registers[i];
+    }
+
+    /**
+     * Returns the estimated number of distinct values added.
+     *
+     * @return estimate
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Double.longBitsToDouble((long) (1023 - register) << 52);
+            if (register == 0)
+                zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0)
+            estimate = m * Math.log((double) m / zeros);
+        return Math.round(estimate);
+    }
+
+    /** Removes all the values. */
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{precision=" + precision + ", estimate=" + estimate() + '}';
+    }
+}
@@ -0,0 +1,316 @@
+package stats;
+
+import java.util.Arrays;
+
+/**
+ * Estimates quantiles of a stream of numbers in a fixed amount of memory (the KLL
+ * sketch of Karnin, Lang and Liberty).
+ *
+ * <p>The sketch is a stack of compactors. Level {@code h} keeps values which stand for
+ * {@code 2^h} values of the stream each. New values enter level 0; when a level reaches
+ * its capacity it is sorted and every second value, starting at a random one of the
+ * first two, is moved one level up, so the level is emptied and the total weight stays
+ * the same. The capacities shrink by a factor of 2/3 from the top level down to a
+ * minimum of {@value #MIN_CAPACITY}, so the sketch keeps about {@code 3k} values
+ * however long the stream is. The rank error is about {@code 1.7 / k}, below 1% for
+ * the default {@code k} of 200.
+ *
+ * <p>Two sketches merge by joining their levels and compacting again; the result is a
+ * sketch of both streams with the same error bound. The random choices come from a
+ * fixed seed, so the same stream always gives the same sketch. The sketch is not
+ * synchronized.
+ */
+public final class KllSketch {
+    /** Capacity parameter giving a rank error below 1%. */
+    public static final int DEFAULT_K = 200;
+
+    /** Smallest capacity of a level. */
+    static final int MIN_CAPACITY = 8;
+
+    private final int k;
+    private double[][] levels = new double[1][MIN_CAPACITY];
+    private int[] sizes = new int[1];
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private long random = 0x9E3779B97F4A7C15L;
+
+    /** Values and cumulative weights of all levels in order, null when out of date. */
+    private double[] sortedValues;
+    private long[] sortedWeights;
+
+    /** Creates an empty sketch with the default {@code k}. */
+    public KllSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates an empty sketch.
+     *
+     * @param k capacity of the top level, at least {@value #MIN_CAPACITY}
+     * @throws IllegalArgumentException if {@code k} is too small
+     */
+    public KllSketch(int k) {
+        if (k < MIN_CAPACITY)
+            throw new IllegalArgumentException("Illegal Capacity: " + k);
+        this.k = k;
+    }
+
+    /**
+     * Returns a copy of the sketch.
+     *
+     * @return new sketch
+     */
+    public KllSketch copy() {
+        KllSketch copy = new KllSketch(k);
+        copy.levels = new double[levels.length][];
+        for (int h = 0; h < levels.length; h++)
+            copy.levels[h] = levels[h].clone();
+        copy.sizes = sizes.clone();
+        copy.count = count;
+        copy.min = min;
+        copy.max = max;
+        copy.random = random;
+        return copy;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Returns the number of values added.
+     *
+     * @return number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value added, which the sketch keeps exactly.
+     *
+     * @return smallest value, NaN if the sketch is empty
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the largest value added, which the sketch keeps exactly.
+     *
+     * @return largest value, NaN if the sketch is empty
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the number of values the sketch keeps.
+     *
+     * @return number of kept values
+     */
+    public int getRetained() {
+        int retained = 0;
+        for (int size : sizes)
+            retained += size;
+        return retained;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value value
+     * @throws IllegalArgumentException if the value is NaN
+     */
+    public void add(double value) {
+        if (Double.isNaN(value))
+            throw new IllegalArgumentException("Value is NaN");
+        if (count++ == 0) {
+            min = value;
+            max = value;
+        } else if (value < min) {
+            min = value;
+        } else if (value > max) {
+            max = value;
+        }
+        append(0, value);
+        sortedValues = null;
+        if (sizes[0] >= capacity(0))
+            compress();
+    }
+
+    /**
+     * Adds all the values of another sketch.
+     *
+     * @param other sketch with the same {@code k}
+     * @throws IllegalArgumentException if {@code k} differs
+     */
+    public void merge(KllSketch other) {
+        if (other.k != k)
+            throw new IllegalArgumentException("K " + other.k + " differs from " + k);
+        if (other.count == 0)
+            return;
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+        for (int h = 0; h < other.levels.length; h++)
+            for (int i = 0; i < other.sizes[h]; i++)
+                append(h, other.levels[h][i]);
+        sortedValues = null;
+        compress();
+    }
+
+    /**
+     * Returns the estimated quantile: a value such that about the fraction {@code q}
+     * of the values added are not greater than it.
+     *
+     * @param q fraction from 0 to 1; 0 gives the minimum and 1 the maximum
+     * @return estimated quantile, NaN if the sketch is empty
+     * @throws IllegalArgumentException if {@code q} is out of range
+     */
+    public double quantile(double q) {
+        if (!(q >= 0 && q <= 1))
+            throw new IllegalArgumentException("Illegal fraction: " + q);
+        if (count == 0)
+            return Double.NaN;
+        if (q == 0)
+            return min;
+        if (q == 1)
+            return max;
+        sort();
+        long target = (long) Math.ceil(q * count);
+        int low = 0;
+        int high = sortedWeights.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedWeights[middle] >= target)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return sortedValues[low];
+    }
+
+    /**
+     * Returns the estimated fraction of the values added which are not greater than the value.
+     *
+     * @param value value
+     * @return fraction from 0 to 1, NaN if the sketch is empty
+     */
+    public double rank(double value) {
+        if (count == 0)
+            return Double.NaN;
+        sort();
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low == 0 ? 0 : (double) sortedWeights[low - 1] / count;
+    }
+
+    /** Removes all the values. */
+    public void clear() {
+        levels = new double[1][MIN_CAPACITY];
+        sizes = new int[1];
+        count = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+        sortedValues = null;
+    }
+
+    /** Returns the capacity of the level with the current number of levels. */
+    int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(2.0 / 3, depth)));
+    }
+
+    private void append(int level, double value) {
+        if (level >= levels.length) {
+            int height = levels.length;
+            levels = Arrays.copyOf(levels, level + 1);
+            for (int h = height; h <= level; h++)
+                levels[h] = new double[MIN_CAPACITY];
+            sizes = Arrays.copyOf(sizes, level + 1);
+        }
+        if (sizes[level] == levels[level].length)
+            levels[level] = Arrays.copyOf(levels[level], levels[level].length * 2);
+        levels[level][sizes[level]++] = value;
+    }
+
+    /** Compacts the levels from the bottom up until none is over its capacity. */
+    private void compress() {
+        boolean compacted = true;
+        while (compacted) {
+            compacted = false;
+            for (int h = 0; h < levels.length; h++)
+                if (sizes[h] >= capacity(h)) {
+                    compact(h);
+                    compacted = true;
+                }
+        }
+    }
+
+    /** Moves every second value of the level one level up, keeping one if their number is odd. */
+    private void compact(int level) {
+        double[] values = levels[level];
+        int size = sizes[level];
+        Arrays.sort(values, 0, size);
+        int keep = size & 1;
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        int offset = (int) (random & 1);
+        for (int i = keep + offset; i < size; i += 2)
+            append(level + 1, values[i]);
+        // append may have replaced the array of the next level only
+        sizes[level] = keep;
+    }
+
+    /** Merges the sorted levels into one list of values with cumulative weights. */
+    private void sort() {
+        if (sortedValues != null)
+            return;
+        double[] values = new double[0];
+        long[] weights = new long[0];
+        for (int h = 0; h < levels.length; h++) {
+            double[] level = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(level);
+            long weight = 1L << h;
+            double[] mergedValues = new double[values.length + level.length];
+            long[] mergedWeights = new long[mergedValues.length];
+            int i = 0;
+            int j = 0;
+            for (int m = 0; m < mergedValues.length; m++)
+                if (j == level.length || i < values.length && values[i] <= level[j]) {
+                    mergedValues[m] = values[i];
+                    mergedWeights[m] = weights[i++];
+                } else {
+                    mergedValues[m] = level[j++];
+                    mergedWeights[m] = weight;
+                }
+            values = mergedValues;
+            weights = mergedWeights;
+        }
+        for (int i = 1; i < weights.length; i++)
+            weights[i] += weights[i - 1];
+        sortedValues = values;
+        sortedWeights = weights;
+    }
+
+    @Override
+    public String toString() {
+        return "KllSketch{k=" + k + ", count=" + count + ", retained=" + getRetained()
+                + ", levels=" + levels.length + '}';
+    }
+}
@@ -0,0 +1,241 @@
+package stats;
+
+import container.MachineList;
+import container.MachineListListener;
+import entity.Machine;
+import query.MachineField;
+import sync.MachineHash;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate statistics of machines in a few kilobytes: the number of distinct
+ * models in a {@code HyperLogLog} and the quantiles of the power, the weight and the
+ * maximum spindle speed in {@code KllSketch}es.
+ *
+ * <p>{@link #of(Collection)} computes the sketches in one parallel pass: every chunk of
+ * {@value #CHUNK} machines fills its own sketches, and the partial sketches are merged.
+ * Sketches of separate lists merge the same way with {@link #merge(MachineSketches)},
+ * e.g. for statistics over all the shops of a plant.
+ *
+ * <p>{@link #attach(MachineList)} keeps the sketches of a list up to date as a
+ * {@code MachineListListener}. Sketches can not forget a value, so removed and
+ * replaced machines are counted as stale; once the stale machines exceed
+ * {@code 1/}{@value #STALE_DIVISOR} of the list, the next read recomputes the sketches
+ * from the list. Clearing the list clears the sketches at once.
+ *
+ * <p>The sketches are not synchronized, like {@code MachineList}.
+ */
+public final class MachineSketches implements MachineListListener {
+    /** Machines per task of the parallel pass. */
+    static final int CHUNK = 4096;
+
+    /** The sketches are recomputed when more than this part of the list is stale. */
+    static final int STALE_DIVISOR = 4;
+
+    /** Fields having quantile sketches. */
+    private static final MachineField[] FIELDS = {
+            MachineField.POWER, MachineField.WEIGHT, MachineField.MAX_SPINDLE_SPEED};
+
+    private final HyperLogLog models = new HyperLogLog();
+    private final KllSketch[] quantiles = new KllSketch[FIELDS.length];
+    private long count;
+    private MachineList source;
+    private int stale;
+
+    /** Creates empty sketches. */
+    public MachineSketches() {
+        for (int f = 0; f < FIELDS.length; f++)
+            quantiles[f] = new KllSketch();
+    }
+
+    /**
+     * Computes the sketches of the machines in one parallel pass.
+     *
+     * @param machines machines, null elements are skipped
+     * @return new sketches
+     */
+    public static MachineSketches of(Collection<? extends Machine> machines) {
+        Objects.requireNonNull(machines, "Argument must be not null");
+        Object[] array = machines.toArray();
+        int chunks = (array.length + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    MachineSketches part = new MachineSketches();
+                    for (int i = c * CHUNK, end = Math.min(i + CHUNK, array.length); i < end; i++)
+                        part.add((Machine) array[i]);
+                    return part;
+                })
+                .reduce((a, b) -> {
+                    a.merge(b);
+                    return a;
+                })
+                .orElseGet(MachineSketches::new);
+    }
+
+    /**
+     * Computes the sketches of the list and registers them as its listener.
+     *
+     * @param list list
+     * @return sketches following the list until {@link #detach()}
+     */
+    public static MachineSketches attach(MachineList list) {
+        MachineSketches sketches = of(list);
+        sketches.source = list;
+        list.addListener(sketches);
+        return sketches;
+    }
+
+    /** Stops following the attached list; the sketches keep their values. */
+    public void detach() {
+        if (source != null) {
+            source.removeListener(this);
+            source = null;
+        }
+    }
+
+    /**
+     * Adds a machine.
+     *
+     * @param machine machine, null is skipped
+     */
+    public void add(Machine machine) {
+        if (machine == null)
+            return;
+        count++;
+        models.add(MachineHash.hash(machine.getModel()));
+        for (int f = 0; f < FIELDS.length; f++)
+            if (FIELDS[f].appliesTo(machine))
+                quantiles[f].add(FIELDS[f].intValue(machine));
+    }
+
+    /**
+     * Adds all the machines of other sketches.
+     *
+     * @param other sketches
+     */
+    public void merge(MachineSketches other) {
+        other.refresh();
+        refresh();
+        count += other.count;
+        models.merge(other.models);
+        for (int f = 0; f < FIELDS.length; f++)
+            quantiles[f].merge(other.quantiles[f]);
+    }
+
+    /**
+     * Returns the number of machines in the sketches, stale ones included.
+     *
+     * @return number of machines
+     */
+    public long getCount() {
+        refresh();
+        return count;
+    }
+
+    /**
+     * Returns the estimated number of distinct models, with an error of about 0.8%.
+     *
+     * @return number of distinct models
+     */
+    public long getDistinctModels() {
+        refresh();
+        return count == 0 ? 0 : models.estimate();
+    }
+
+    /**
+     * Returns the estimated quantile of a field among the machines having it.
+     *
+     * @param field {@code POWER}, {@code WEIGHT} or {@code MAX_SPINDLE_SPEED}
+     * @param q fraction from 0 to 1; 0.5 gives the median
+     * @return estimated quantile, NaN if no machine has the field
+     * @throws IllegalArgumentException if the field has no sketch or {@code q} is out of range
+     */
+    public double quantile(MachineField field, double q) {
+        return sketch(field).quantile(q);
+    }
+
+    /**
+     * Returns the estimated fraction of the machines having a field whose value is not
+     * greater than the value.
+     *
+     * @param field {@code POWER}, {@code WEIGHT} or {@code MAX_SPINDLE_SPEED}
+     * @param value value
+     * @return fraction from 0 to 1, NaN if no machine has the field
+     * @throws IllegalArgumentException if the field has no sketch
+     */
+    public double rank(MachineField field, double value) {
+        return sketch(field).rank(value);
+    }
+
+    /**
+     * Returns the number of removed or replaced machines still counted by the sketches.
+     *
+     * @return number of stale machines
+     */
+    public int getStale() {
+        return stale;
+    }
+
+    private KllSketch sketch(MachineField field) {
+        refresh();
+        for (int f = 0; f < FIELDS.length; f++)
+            if (FIELDS[f] == field)
+                return quantiles[f];
+        throw new IllegalArgumentException("No sketch for " + field);
+    }
+
+    /** Recomputes the sketches from the attached list if too many machines are stale. */
+    private void refresh() {
+        if (source == null || stale == 0 || stale <= source.size() / STALE_DIVISOR)
+            return;
+        MachineSketches fresh = of(source);
+        reset();
+        merge(fresh);
+    }
+
+    private void reset() {
+        count = 0;
+        stale = 0;
+        models.clear();
+        for (KllSketch sketch : quantiles)
+            sketch.clear();
+    }
+
+    @Override
+    public void added(int index, Machine machine) {
+        add(machine);
+    }
+
+    @Override
+    public void addedAll(int index, Object[] machines) {
+        for (Object machine : machines)
+            add((Machine) machine);
+    }
+
+    @Override
+    public void replaced(int index, Machine oldMachine, Machine newMachine) {
+        if (oldMachine != null)
+            stale++;
+        add(newMachine);
+    }
+
+    @Override
+    public void removed(int index, Machine machine) {
+        if (machine != null)
+            stale++;
+    }
+
+    @Override
+    public void cleared() {
+        reset();
+    }
+
+    @Override
+    public String toString() {
+        return "MachineSketches{count=" + count + ", distinctModels=" + getDistinctModels()
+                + ", stale=" + stale + '}';
+    }
+}
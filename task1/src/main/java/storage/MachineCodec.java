@@ -0,0 +1,202 @@
+package storage;
+
+import constant.TypeMillingMachine;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.Milling;
+import entity.UniversalMilling;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary form of {@code Machine} objects.
+ * Every machine starts with a tag byte naming its class, followed by the fields
+ * of the class. Integer fields are written as zig-zag variable length numbers,
+ * so the small values machines usually have take one or two bytes. A machine with
+ * an identifier has {@link #ID_FLAG} set in its tag and the identifier as a long
+ * after it; machines without identifier are written as before the flag existed.
+ */
+public final class MachineCodec {
+    /** Tag of the {@code null} element. */
+    static final byte NULL = 0;
+
+    /** Tag of {@code Lathe}. */
+    static final byte LATHE = 1;
+
+    /** Tag of {@code CncMilling}. */
+    static final byte CNC_MILLING = 2;
+
+    /** Tag of {@code UniversalMilling}. */
+    static final byte UNIVERSAL_MILLING = 3;
+
+    /** Bit of the tag marking that the identifier of the machine follows the tag. */
+    static final byte ID_FLAG = 0x40;
+
+    private static final TypeMillingMachine[] TYPES = TypeMillingMachine.values();
+
+    private MachineCodec() {
+    }
+
+    /**
+     * Writes {@code machine} to {@code out}.
+     *
+     * @param out destination
+     * @param machine machine to write, may be null
+     * @throws IOException if the destination fails
+     * @throws IllegalArgumentException if the class of the machine is unknown
+     */
+    public static void write(DataOutput out, Machine machine) throws IOException {
+        if (machine == null) {
+            out.writeByte(NULL);
+        } else if (machine instanceof Lathe) {
+            Lathe lathe = (Lathe) machine;
+            writeTag(out, LATHE, lathe);
+            writeMachine(out, lathe);
+            writeVarInt(out, lathe.getMaxDiameter());
+            writeVarInt(out, lathe.getMaxLengthDetail());
+            out.writeBoolean(lathe.isThread());
+        } else if (machine instanceof CncMilling) {
+            CncMilling cnc = (CncMilling) machine;
+            writeTag(out, CNC_MILLING, cnc);
+            writeMilling(out, cnc);
+            writeString(out, cnc.getSoftwareName());
+            writeVarInt(out, cnc.getNumberAix());
+        } else if (machine instanceof UniversalMilling) {
+            UniversalMilling universal = (UniversalMilling) machine;
+            writeTag(out, UNIVERSAL_MILLING, universal);
+            writeMilling(out, universal);
+            TypeMillingMachine type = universal.getTypeMilling();
+            out.writeByte(type == null ? -1 : type.ordinal());
+            out.writeDouble(universal.getDegreeLimb());
+        } else {
+            throw new IllegalArgumentException("Unknown machine class: " + machine.getClass().getName());
+        }
+    }
+
+    /**
+     * Reads a machine written by {@link #write(DataOutput, Machine)}.
+     *
+     * @param in source
+     * @return machine, may be null
+     * @throws IOException if the source fails or contains an unknown tag
+     */
+    public static Machine read(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        if ((tag & ID_FLAG) == 0)
+            return readFields(in, tag);
+        long id = in.readLong();
+        Machine machine = readFields(in, (byte) (tag & ~ID_FLAG));
+        if (machine == null)
+            throw new IOException("Identifier of a null machine");
+        machine.setId(id);
+        return machine;
+    }
+
+    private static Machine readFields(DataInput in, byte tag) throws IOException {
+        switch (tag) {
+            case NULL:
+                return null;
+            case LATHE:
+                return new Lathe(readVarInt(in), readVarInt(in), readString(in),
+                        readVarInt(in), readVarInt(in), in.readBoolean());
+            case CNC_MILLING:
+                return new CncMilling(readVarInt(in), readVarInt(in), readString(in),
+                        readVarInt(in), readVarInt(in), readVarInt(in), readString(in), readVarInt(in));
+            case UNIVERSAL_MILLING:
+                int power = readVarInt(in);
+                int weight = readVarInt(in);
+                String model = readString(in);
+                int maxSpindleSpeed = readVarInt(in);
+                int maxMillingSped = readVarInt(in);
+                int tableArea = readVarInt(in);
+                byte type = in.readByte();
+                return new UniversalMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                        type < 0 ? null : TYPES[type], in.readDouble());
+            default:
+                throw new IOException("Unknown machine tag: " + tag);
+        }
+    }
+
+    private static void writeTag(DataOutput out, byte tag, Machine machine) throws IOException {
+        if (machine.getId() == Machine.NO_ID) {
+            out.writeByte(tag);
+        } else {
+            out.writeByte(tag | ID_FLAG);
+            out.writeLong(machine.getId());
+        }
+    }
+
+    private static void writeMachine(DataOutput out, Machine machine) throws IOException {
+        writeVarInt(out, machine.getPower());
+        writeVarInt(out, machine.getWeight());
+        writeString(out, machine.getModel());
+    }
+
+    private static void writeMilling(DataOutput out, Milling milling) throws IOException {
+        writeMachine(out, milling);
+        writeVarInt(out, milling.getMaxSpindleSpeed());
+        writeVarInt(out, milling.getMaxMillingSped());
+        writeVarInt(out, milling.getTableArea());
+    }
+
+    /**
+     * Writes a string which may be null.
+     *
+     * @param out destination
+     * @param value string to write
+     * @throws IOException if the destination fails
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutput, String)}.
+     *
+     * @param in source
+     * @return string, may be null
+     * @throws IOException if the source fails
+     */
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes {@code value} as a zig-zag variable length number (1 to 5 bytes).
+     *
+     * @param out destination
+     * @param value number to write
+     * @throws IOException if the destination fails
+     */
+    public static void writeVarInt(DataOutput out, int value) throws IOException {
+        int zigZag = (value << 1) ^ (value >> 31);
+        while ((zigZag & ~0x7F) != 0) {
+            out.writeByte((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        out.writeByte(zigZag);
+    }
+
+    /**
+     * Reads a number written by {@link #writeVarInt(DataOutput, int)}.
+     *
+     * @param in source
+     * @return the number
+     * @throws IOException if the source fails or the number is malformed
+     */
+    public static int readVarInt(DataInput in) throws IOException {
+        int zigZag = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            zigZag |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+        throw new IOException("Malformed variable length number");
+    }
+}
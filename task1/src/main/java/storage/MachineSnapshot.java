@@ -0,0 +1,81 @@
+package storage;
+
+import container.MachineList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Full copy of a {@code MachineList} stored in a file.
+ * Besides the machines a snapshot keeps the sequence number of the first
+ * {@code MutationLog} record which is not included in it, so recovery knows
+ * which part of the log must be replayed on top of the snapshot.
+ */
+public final class MachineSnapshot {
+    /** First bytes of every snapshot file. */
+    private static final int MAGIC = 0x4D534E50;
+
+    /** Version of the file format. */
+    private static final int VERSION = 1;
+
+    private MachineSnapshot() {
+    }
+
+    /**
+     * Writes the contents of {@code list} to {@code file}.
+     * The snapshot is written to a temporary file which is synced and then
+     * atomically renamed, so a crash never leaves a half-written snapshot.
+     *
+     * @param file snapshot file
+     * @param list list to store
+     * @param nextSequence sequence number of the first log record not included in the snapshot
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Path file, MachineList list, long nextSequence) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(nextSequence);
+            int size = list.size();
+            out.writeInt(size);
+            for (int i = 0; i < size; i++)
+                MachineCodec.write(out, list.get(i));
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the snapshot stored in {@code file} and appends its machines to {@code list}.
+     *
+     * @param file snapshot file
+     * @param list list receiving the machines
+     * @return sequence number of the first log record not included in the snapshot
+     * @throws IOException if the file can not be read or is not a snapshot
+     */
+    public static long read(Path file, MachineList list) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a machine snapshot: " + file);
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported snapshot version: " + version);
+            long nextSequence = in.readLong();
+            int size = in.readInt();
+            list.ensureCapacity(list.size() + size);
+            for (int i = 0; i < size; i++)
+                list.add(MachineCodec.read(in));
+            return nextSequence;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package storage;
+
+import container.MachineList;
+import container.MachineListListener;
+import entity.Machine;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of the modifications of a {@code MachineList}.
+ *
+ * <p>The log listens to the list and encodes every modification into an in-memory
+ * buffer. A background thread writes the buffer to the file and syncs it either
+ * every {@code commitIntervalMillis} or as soon as {@code maxBatchBytes} are
+ * pending, so many modifications share one {@code fsync} (group commit).
+ * Modifications are therefore durable only after the next commit;
+ * {@link #sync()} waits for it explicitly.
+ *
+ * <p>Every record is framed as {@code [length][crc32][sequence][operation]}.
+ * On {@link #open(Path, Path, MachineList, long, int) open} the snapshot is loaded,
+ * the records following it are replayed and a torn tail left by a crash is cut off.
+ * {@link #checkpoint()} writes a new snapshot and empties the log.
+ */
+public class MutationLog implements MachineListListener, Closeable {
+    /** Element inserted at an index. */
+    private static final byte ADD = 1;
+
+    /** Element replaced at an index. */
+    private static final byte REPLACE = 2;
+
+    /** Element removed at an index. */
+    private static final byte REMOVE = 3;
+
+    /** Several elements inserted starting at an index. */
+    private static final byte ADD_ALL = 4;
+
+    /** All elements removed. */
+    private static final byte CLEAR = 5;
+
+    /** Size of the record frame: length, checksum and sequence number. */
+    private static final int FRAME_SIZE = 16;
+
+    /** Default delay between group commits. */
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 10;
+
+    /** Default amount of pending bytes which triggers an early commit. */
+    public static final int DEFAULT_MAX_BATCH_BYTES = 1 << 20;
+
+    private final Path snapshotFile;
+    private final MachineList list;
+    private final FileChannel channel;
+    private final long commitIntervalMillis;
+    private final int maxBatchBytes;
+
+    /** Guards the buffers and the sequence numbers. */
+    private final Object lock = new Object();
+
+    /** Encodes one operation before it is framed. */
+    private final Buffer record = new Buffer();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final CRC32 crc = new CRC32();
+
+    /** Records waiting for the next commit. */
+    private Buffer pending = new Buffer();
+    private DataOutputStream pendingOut = new DataOutputStream(pending);
+
+    /** Records being written by the commit thread. */
+    private Buffer committing = new Buffer();
+    private DataOutputStream committingOut = new DataOutputStream(committing);
+
+    /** Sequence number of the next record. */
+    private long nextSequence;
+
+    /** All records with smaller sequence numbers are on disk. */
+    private long durableSequence;
+
+    private boolean syncRequested;
+    private boolean closed;
+    private IOException failure;
+
+    private final Thread committer;
+
+    private MutationLog(Path snapshotFile, MachineList list, FileChannel channel, long nextSequence,
+                        long commitIntervalMillis, int maxBatchBytes) {
+        this.snapshotFile = snapshotFile;
+        this.list = list;
+        this.channel = channel;
+        this.nextSequence = nextSequence;
+        this.durableSequence = nextSequence;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.maxBatchBytes = maxBatchBytes;
+        committer = new Thread(this::commitLoop, "machine-log-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Opens the log with the default commit settings.
+     *
+     * @see #open(Path, Path, MachineList, long, int)
+     */
+    public static MutationLog open(Path snapshotFile, Path logFile, MachineList list) throws IOException {
+        return open(snapshotFile, logFile, list, DEFAULT_COMMIT_INTERVAL_MILLIS, DEFAULT_MAX_BATCH_BYTES);
+    }
+
+    /**
+     * Recovers {@code list} from the snapshot and the log and starts logging its modifications.
+     *
+     * @param snapshotFile snapshot file, it may not exist yet
+     * @param logFile log file, it may not exist yet
+     * @param list empty list receiving the recovered machines
+     * @param commitIntervalMillis maximum delay between group commits
+     * @param maxBatchBytes amount of pending bytes which triggers an early commit
+     * @return the log attached to {@code list}
+     * @throws IOException if the files can not be read or are corrupted
+     * @throws IllegalArgumentException if the list is not empty or the settings are not positive
+     */
+    public static MutationLog open(Path snapshotFile, Path logFile, MachineList list,
+                                   long commitIntervalMillis, int maxBatchBytes) throws IOException {
+        if (!list.isEmpty())
+            throw new IllegalArgumentException("List must be empty");
+        if (commitIntervalMillis <= 0 || maxBatchBytes <= 0)
+            throw new IllegalArgumentException("Commit settings must be positive");
+        long snapshotSequence = Files.exists(snapshotFile) ? MachineSnapshot.read(snapshotFile, list) : 0;
+        FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long nextSequence = replay(channel, snapshotSequence, list);
+            MutationLog log = new MutationLog(snapshotFile, list, channel, nextSequence,
+                    commitIntervalMillis, maxBatchBytes);
+            list.addListener(log);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Applies the records of the log which are not included in the snapshot and
+     * truncates the file after the last complete record.
+     *
+     * @return sequence number of the next record
+     */
+    private static long replay(FileChannel channel, long snapshotSequence, MachineList list) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        CRC32 crc = new CRC32();
+        long fileSize = channel.size();
+        long position = 0;
+        long nextSequence = snapshotSequence;
+        byte[] payload = new byte[64];
+        while (fileSize - position >= FRAME_SIZE) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            long sequence = in.readLong();
+            if (length < 0 || length > fileSize - position - FRAME_SIZE)
+                break;
+            if (payload.length < length)
+                payload = new byte[Math.max(length, payload.length * 2)];
+            in.readFully(payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum)
+                break;
+            if (sequence >= snapshotSequence) {
+                if (sequence != nextSequence)
+                    throw new IOException("Missing log records before sequence " + sequence);
+                apply(new DataInputStream(new ByteArrayInputStream(payload, 0, length)), list);
+                nextSequence++;
+            }
+            position += FRAME_SIZE + length;
+        }
+        channel.truncate(position);
+        channel.position(position);
+        return nextSequence;
+    }
+
+    private static void apply(DataInputStream in, MachineList list) throws IOException {
+        byte operation = in.readByte();
+        switch (operation) {
+            case ADD:
+                list.add(MachineCodec.readVarInt(in), MachineCodec.read(in));
+                break;
+            case REPLACE:
+                list.set(MachineCodec.readVarInt(in), MachineCodec.read(in));
+                break;
+            case REMOVE:
+                list.remove(MachineCodec.readVarInt(in));
+                break;
+            case ADD_ALL:
+                int index = MachineCodec.readVarInt(in);
+                Machine[] machines = new Machine[MachineCodec.readVarInt(in)];
+                for (int i = 0; i < machines.length; i++)
+                    machines[i] = MachineCodec.read(in);
+                list.addAll(index, Arrays.asList(machines));
+                break;
+            case CLEAR:
+                list.clear();
+                break;
+            default:
+                throw new IOException("Unknown log operation: " + operation);
+        }
+    }
+
+    @Override
+    public void added(int index, Machine machine) {
+        try {
+            recordOut.writeByte(ADD);
+            MachineCodec.writeVarInt(recordOut, index);
+            MachineCodec.write(recordOut, machine);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append();
+    }
+
+    @Override
+    public void addedAll(int index, Object[] machines) {
+        try {
+            recordOut.writeByte(ADD_ALL);
+            MachineCodec.writeVarInt(recordOut, index);
+            MachineCodec.writeVarInt(recordOut, machines.length);
+            for (Object machine : machines)
+                MachineCodec.write(recordOut, (Machine) machine);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append();
+    }
+
+    @Override
+    public void replaced(int index, Machine oldMachine, Machine newMachine) {
+        try {
+            recordOut.writeByte(REPLACE);
+            MachineCodec.writeVarInt(recordOut, index);
+            MachineCodec.write(recordOut, newMachine);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append();
+    }
+
+    @Override
+    public void removed(int index, Machine machine) {
+        try {
+            recordOut.writeByte(REMOVE);
+            MachineCodec.writeVarInt(recordOut, index);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        append();
+    }
+
+    @Override
+    public void cleared() {
+        record.write(CLEAR);
+        append();
+    }
+
+    /**
+     * Frames the operation encoded in {@code record} and moves it to the pending buffer.
+     * Buffers are in memory, so {@code IOException} can not actually happen here.
+     */
+    private void append() {
+        crc.reset();
+        crc.update(record.array(), 0, record.size());
+        synchronized (lock) {
+            try {
+                checkState();
+                pendingOut.writeInt(record.size());
+                pendingOut.writeInt((int) crc.getValue());
+                pendingOut.writeLong(nextSequence++);
+                record.writeTo(pendingOut);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                record.reset();
+            }
+            if (pending.size() >= maxBatchBytes)
+                lock.notifyAll();
+        }
+    }
+
+    private void checkState() {
+        if (closed)
+            throw new IllegalStateException("Log is closed");
+        if (failure != null)
+            throw new IllegalStateException("Log failed", failure);
+    }
+
+    /**
+     * Body of the commit thread: waits for a full batch, the commit interval or
+     * an explicit request, then writes and syncs everything pending.
+     */
+    private void commitLoop() {
+        while (true) {
+            long upTo;
+            synchronized (lock) {
+                try {
+                    if (!closed && !syncRequested && pending.size() < maxBatchBytes)
+                        lock.wait(commitIntervalMillis);
+                } catch (InterruptedException e) {
+                    failure = new InterruptedIOException("Committer interrupted");
+                    lock.notifyAll();
+                    return;
+                }
+                if (pending.size() == 0) {
+                    if (closed)
+                        return;
+                    continue;
+                }
+                Buffer full = pending;
+                DataOutputStream fullOut = pendingOut;
+                pending = committing;
+                pendingOut = committingOut;
+                committing = full;
+                committingOut = fullOut;
+                upTo = nextSequence;
+            }
+            try {
+                ByteBuffer bytes = ByteBuffer.wrap(committing.array(), 0, committing.size());
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+                channel.force(false);
+                committing.reset();
+                synchronized (lock) {
+                    durableSequence = upTo;
+                    lock.notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Waits until every modification made so far is on disk.
+     *
+     * @throws IOException if the log could not be written
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            long target = nextSequence;
+            while (durableSequence < target) {
+                if (failure != null)
+                    throw failure;
+                if (!committer.isAlive())
+                    throw new IOException("Log is closed");
+                syncRequested = true;
+                lock.notifyAll();
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+            syncRequested = false;
+            if (failure != null)
+                throw failure;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the list and empties the log.
+     * Must be called from the thread modifying the list.
+     *
+     * @throws IOException if the snapshot or the log could not be written
+     */
+    public void checkpoint() throws IOException {
+        sync();
+        synchronized (lock) {
+            checkState();
+            MachineSnapshot.write(snapshotFile, list, nextSequence);
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Returns the sequence number the next record will get.
+     *
+     * @return sequence number
+     */
+    public long nextSequence() {
+        synchronized (lock) {
+            return nextSequence;
+        }
+    }
+
+    /**
+     * Detaches the log from the list, commits pending records and closes the file.
+     *
+     * @throws IOException if pending records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed)
+                return;
+            list.removeListener(this);
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                committer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /** Byte buffer which exposes its array to avoid copying. */
+    private static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package sync;
+
+import entity.Machine;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Changes turning one list of machines into another.
+ * The edits are ordered by position; the position of an edit refers to the list with
+ * all previous edits already applied.
+ */
+public final class Delta {
+
+    /** Kind of an edit. */
+    public enum Kind {
+        /** The machine is inserted at the position. */
+        INSERT,
+        /** The machine at the position is removed. */
+        REMOVE,
+        /** The machine at the position is replaced. */
+        CHANGE
+    }
+
+    /** One change of one position. */
+    public static final class Edit {
+        private final Kind kind;
+        private final int position;
+        private final Machine machine;
+
+        Edit(Kind kind, int position, Machine machine) {
+            this.kind = kind;
+            this.position = position;
+            this.machine = machine;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * Returns the inserted or new machine.
+         *
+         * @return machine, null for {@code REMOVE}
+         */
+        public Machine getMachine() {
+            return machine;
+        }
+
+        @Override
+        public String toString() {
+            return kind + "@" + position + (kind == Kind.REMOVE ? "" : " " + machine);
+        }
+    }
+
+    private final List<Edit> edits;
+    private final int comparedNodes;
+    private final int[] counts = new int[Kind.values().length];
+
+    Delta(List<Edit> edits, int comparedNodes) {
+        this.edits = Collections.unmodifiableList(edits);
+        this.comparedNodes = comparedNodes;
+        for (Edit edit : edits)
+            counts[edit.kind.ordinal()]++;
+    }
+
+    public List<Edit> getEdits() {
+        return edits;
+    }
+
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    public int getInserted() {
+        return counts[Kind.INSERT.ordinal()];
+    }
+
+    public int getRemoved() {
+        return counts[Kind.REMOVE.ordinal()];
+    }
+
+    public int getChanged() {
+        return counts[Kind.CHANGE.ordinal()];
+    }
+
+    /**
+     * Returns the number of nodes and machine hashes the comparison looked at,
+     * a measure of its cost.
+     *
+     * @return number of compared nodes and hashes
+     */
+    public int getComparedNodes() {
+        return comparedNodes;
+    }
+
+    /**
+     * Applies the edits to the list.
+     *
+     * @param list list equal to the one the delta was computed from
+     */
+    public void apply(List<Machine> list) {
+        Objects.requireNonNull(list, "Argument must be not null");
+        for (Edit edit : edits)
+            switch (edit.kind) {
+                case INSERT:
+                    list.add(edit.position, edit.machine);
+                    break;
+                case REMOVE:
+                    list.remove(edit.position);
+                    break;
+                default:
+                    list.set(edit.position, edit.machine);
+            }
+    }
+
+    @Override
+    public String toString() {
+        return "Delta{inserted=" + getInserted() + ", removed=" + getRemoved() + ", changed=" + getChanged()
+                + ", comparedNodes=" + comparedNodes + '}';
+    }
+}
@@ -0,0 +1,117 @@
+package sync;
+
+import constant.TypeMillingMachine;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.Milling;
+import entity.UniversalMilling;
+
+/**
+ * 64-bit hash of the fields of a machine.
+ * Machines equal by {@code equals} have the same hash; the hash is computed straight
+ * from the fields, strings are read char by char, so it does not allocate anything.
+ * Unlike {@code hashCode} the value does not depend on the JVM and can be compared
+ * between processes.
+ */
+public final class MachineHash {
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+    private static final long MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+    private static final long NULL = 0x165667B19E3779F9L;
+
+    private MachineHash() {
+    }
+
+    /**
+     * Returns the hash of the machine.
+     *
+     * @param machine machine, may be null
+     * @return hash
+     */
+    public static long hash(Machine machine) {
+        if (machine == null)
+            return NULL;
+        long h = SEED;
+        h = mix(h, machine.getPower());
+        h = mix(h, machine.getWeight());
+        h = mix(h, machine.getModel());
+        if (machine instanceof Lathe) {
+            Lathe lathe = (Lathe) machine;
+            h = mix(h, 1);
+            h = mix(h, lathe.getMaxDiameter());
+            h = mix(h, lathe.getMaxLengthDetail());
+            h = mix(h, lathe.isThread() ? 1 : 0);
+        } else if (machine instanceof Milling) {
+            Milling milling = (Milling) machine;
+            h = mix(h, milling.getMaxSpindleSpeed());
+            h = mix(h, milling.getMaxMillingSped());
+            h = mix(h, milling.getTableArea());
+            if (machine instanceof CncMilling) {
+                CncMilling cnc = (CncMilling) machine;
+                h = mix(h, 2);
+                h = mix(h, cnc.getSoftwareName());
+                h = mix(h, cnc.getNumberAix());
+            } else if (machine instanceof UniversalMilling) {
+                UniversalMilling universal = (UniversalMilling) machine;
+                TypeMillingMachine type = universal.getTypeMilling();
+                double degreeLimb = universal.getDegreeLimb();
+                h = mix(h, 3);
+                h = mix(h, type == null ? -1 : type.ordinal());
+                // 0.0 and -0.0 are equal for equals
+                h = mix(h, degreeLimb == 0 ? 0 : Double.doubleToLongBits(degreeLimb));
+            }
+        }
+        return finish(h);
+    }
+
+    /**
+     * Returns the hash of a string, e.g. of a model name.
+     *
+     * @param value string, may be null
+     * @return hash
+     */
+    public static long hash(String value) {
+        return finish(mix(SEED, value));
+    }
+
+    /**
+     * Combines a value into a running hash.
+     *
+     * @param h running hash
+     * @param value value
+     * @return new running hash
+     */
+    static long mix(long h, long value) {
+        h ^= value * MULTIPLIER;
+        h = Long.rotateLeft(h, 27) * SEED;
+        return h + 0x52DCE729;
+    }
+
+    private static long mix(long h, String value) {
+        if (value == null)
+            return mix(h, NULL);
+        int length = value.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4)
+            h = mix(h, (long) value.charAt(i) | (long) value.charAt(i + 1) << 16
+                    | (long) value.charAt(i + 2) << 32 | (long) value.charAt(i + 3) << 48);
+        long tail = 0;
+        for (; i < length; i++)
+            tail = tail << 16 | value.charAt(i);
+        return mix(mix(h, tail), length);
+    }
+
+    /**
+     * Spreads the bits of a running hash over the whole value.
+     *
+     * @param h running hash
+     * @return final hash
+     */
+    static long finish(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ h >>> 33;
+    }
+}
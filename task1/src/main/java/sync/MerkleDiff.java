@@ -0,0 +1,292 @@
+package sync;
+
+import entity.Machine;
+import sync.MerkleTree.Node;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares two trees level by level.
+ *
+ * <p>The hashes of two sequences of nodes are matched with the Myers difference
+ * algorithm; matched nodes hold equal machines and are skipped as a whole, the runs
+ * of unmatched nodes between them are replaced by their children and compared again.
+ * At the leaves the same is done with the hashes of the machines, and the unmatched
+ * runs become changes, removals and insertions.
+ */
+final class MerkleDiff {
+    /** Edit distance beyond which two sequences are taken as entirely different. */
+    static final int MAX_DISTANCE = 4096;
+
+    private final TreeView source;
+    private final TreeView target;
+    private final List<Delta.Edit> edits = new ArrayList<>();
+
+    /** Position in the source list with the edits made so far applied. */
+    private int position;
+    private int compared;
+
+    private MerkleDiff(TreeView source, TreeView target) {
+        this.source = source;
+        this.target = target;
+    }
+
+    /**
+     * Computes the changes which turn the source list into the target list.
+     *
+     * @param source nodes of the source tree
+     * @param sourceRoot root of the source tree
+     * @param target nodes of the target tree
+     * @param targetRoot root of the target tree
+     * @return changes
+     * @throws IOException if a remote tree can not be read
+     */
+    static Delta diff(TreeView source, Node sourceRoot, TreeView target, Node targetRoot) throws IOException {
+        MerkleDiff diff = new MerkleDiff(source, target);
+        List<Node> a = new ArrayList<>();
+        List<Node> b = new ArrayList<>();
+        a.add(sourceRoot);
+        b.add(targetRoot);
+        while (a.get(0).level > b.get(0).level)
+            a = expand(source, a, 0, a.size());
+        while (b.get(0).level > a.get(0).level)
+            b = expand(target, b, 0, b.size());
+        diff.align(a, b);
+        return new Delta(diff.edits, diff.compared);
+    }
+
+    /** Aligns two non-empty sequences of nodes of the same level. */
+    private void align(List<Node> a, List<Node> b) throws IOException {
+        long[] ha = new long[a.size()];
+        long[] hb = new long[b.size()];
+        for (int i = 0; i < ha.length; i++)
+            ha[i] = a.get(i).hash;
+        for (int j = 0; j < hb.length; j++)
+            hb[j] = b.get(j).hash;
+        compared += ha.length + hb.length;
+        int[] matches = match(ha, hb);
+        int i = 0;
+        int j = 0;
+        for (int m = 0; m <= matches.length; m += 2) {
+            int mi = m < matches.length ? matches[m] : a.size();
+            int mj = m < matches.length ? matches[m + 1] : b.size();
+            if (mi > i && mj > j) {
+                if (a.get(0).level > 0)
+                    align(expand(source, a, i, mi), expand(target, b, j, mj));
+                else
+                    alignLeaves(a.subList(i, mi), b.subList(j, mj));
+            } else if (mi > i) {
+                remove(count(a, i, mi));
+            } else if (mj > j) {
+                insert(b, j, mj);
+            }
+            if (m < matches.length)
+                position += a.get(mi).count;
+            i = mi + 1;
+            j = mj + 1;
+        }
+    }
+
+    /** Aligns the machines of two non-empty sequences of leaves. */
+    private void alignLeaves(List<Node> a, List<Node> b) throws IOException {
+        long[] ha = concat(source, a);
+        long[] hb = concat(target, b);
+        compared += ha.length + hb.length;
+        int[] matches = match(ha, hb);
+        // positions of the edits and the machines of the target they need
+        Delta.Kind[] kinds = new Delta.Kind[ha.length + hb.length];
+        int[] positions = new int[kinds.length];
+        int[] needed = new int[hb.length];
+        int edits = 0;
+        int wanted = 0;
+        int i = 0;
+        int j = 0;
+        for (int m = 0; m <= matches.length; m += 2) {
+            int mi = m < matches.length ? matches[m] : ha.length;
+            int mj = m < matches.length ? matches[m + 1] : hb.length;
+            int common = Math.min(mi - i, mj - j);
+            for (int k = 0; k < common; k++) {
+                kinds[edits] = Delta.Kind.CHANGE;
+                positions[edits++] = position++;
+                needed[wanted++] = j + k;
+            }
+            for (int k = common; k < mi - i; k++) {
+                kinds[edits] = Delta.Kind.REMOVE;
+                positions[edits++] = position;
+            }
+            for (int k = common; k < mj - j; k++) {
+                kinds[edits] = Delta.Kind.INSERT;
+                positions[edits++] = position++;
+                needed[wanted++] = j + k;
+            }
+            if (m < matches.length)
+                position++;
+            i = mi + 1;
+            j = mj + 1;
+        }
+        Machine[] machines = fetch(b, needed, wanted);
+        for (int e = 0, w = 0; e < edits; e++)
+            this.edits.add(new Delta.Edit(kinds[e], positions[e], kinds[e] == Delta.Kind.REMOVE ? null : machines[w++]));
+    }
+
+    private void remove(int count) {
+        for (int k = 0; k < count; k++)
+            edits.add(new Delta.Edit(Delta.Kind.REMOVE, position, null));
+    }
+
+    /** Inserts all machines of the nodes {@code b[from, to)}. */
+    private void insert(List<Node> b, int from, int to) throws IOException {
+        List<Node> leaves = b.subList(from, to);
+        while (leaves.get(0).level > 0)
+            leaves = expand(target, leaves, 0, leaves.size());
+        int total = count(leaves, 0, leaves.size());
+        int[] all = new int[total];
+        for (int k = 0; k < total; k++)
+            all[k] = k;
+        for (Machine machine : fetch(leaves, all, total))
+            edits.add(new Delta.Edit(Delta.Kind.INSERT, position++, machine));
+    }
+
+    /**
+     * Fetches machines of a sequence of leaves, one request per leaf.
+     *
+     * @param leaves leaves
+     * @param indexes ascending positions within the concatenated leaves
+     * @param count number of positions used
+     * @return machines
+     */
+    private Machine[] fetch(List<Node> leaves, int[] indexes, int count) throws IOException {
+        Machine[] result = new Machine[count];
+        int[] offsets = new int[count];
+        int start = 0;
+        int done = 0;
+        for (Node leaf : leaves) {
+            int n = 0;
+            while (done + n < count && indexes[done + n] < start + leaf.count) {
+                offsets[n] = indexes[done + n] - start;
+                n++;
+            }
+            if (n > 0) {
+                System.arraycopy(target.machines(leaf, offsets, n), 0, result, done, n);
+                done += n;
+            }
+            start += leaf.count;
+        }
+        return result;
+    }
+
+    private static List<Node> expand(TreeView view, List<Node> nodes, int from, int to) throws IOException {
+        List<Node> children = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            children.addAll(Arrays.asList(view.children(nodes.get(i))));
+        return children;
+    }
+
+    private static long[] concat(TreeView view, List<Node> leaves) throws IOException {
+        long[] result = new long[count(leaves, 0, leaves.size())];
+        int length = 0;
+        for (Node leaf : leaves) {
+            long[] hashes = view.hashes(leaf);
+            System.arraycopy(hashes, 0, result, length, hashes.length);
+            length += hashes.length;
+        }
+        return result;
+    }
+
+    private static int count(List<Node> nodes, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++)
+            count += nodes.get(i).count;
+        return count;
+    }
+
+    /**
+     * Matches equal elements of two sequences keeping their order, so that as few
+     * elements as possible stay unmatched.
+     *
+     * @param a first sequence
+     * @param b second sequence
+     * @return ascending pairs of indexes {@code i0, j0, i1, j1, ...} with {@code a[i] == b[j]}
+     */
+    static int[] match(long[] a, long[] b) {
+        int n = a.length;
+        int m = b.length;
+        int prefix = 0;
+        while (prefix < n && prefix < m && a[prefix] == b[prefix])
+            prefix++;
+        int suffix = 0;
+        while (suffix < n - prefix && suffix < m - prefix && a[n - 1 - suffix] == b[m - 1 - suffix])
+            suffix++;
+        int[] middle = myers(a, prefix, n - suffix, b, prefix, m - suffix);
+        int[] result = new int[2 * (prefix + suffix) + middle.length];
+        int r = 0;
+        for (int k = 0; k < prefix; k++) {
+            result[r++] = k;
+            result[r++] = k;
+        }
+        System.arraycopy(middle, 0, result, r, middle.length);
+        r += middle.length;
+        for (int k = 0; k < suffix; k++) {
+            result[r++] = n - suffix + k;
+            result[r++] = m - suffix + k;
+        }
+        return result;
+    }
+
+    private static int[] myers(long[] a, int aFrom, int aTo, long[] b, int bFrom, int bTo) {
+        int n = aTo - aFrom;
+        int m = bTo - bFrom;
+        if (n == 0 || m == 0)
+            return new int[0];
+        int max = Math.min(n + m, MAX_DISTANCE);
+        int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        // trace[d] holds v[-d..d] after round d
+        List<int[]> trace = new ArrayList<>();
+        int distance = -1;
+        for (int d = 0; d <= max && distance < 0; d++) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[aFrom + x] == b[bFrom + y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    distance = d;
+                    break;
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+        if (distance < 0)
+            return new int[0];
+        int[] result = new int[2 * Math.min(n, m)];
+        int r = result.length;
+        int x = n;
+        int y = m;
+        for (int d = distance; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            int prevK = k == -d || (k != d && previous[k - 1 + d - 1] < previous[k + 1 + d - 1]) ? k + 1 : k - 1;
+            int prevX = previous[prevK + d - 1];
+            int prevY = prevX - prevK;
+            while (x > prevX && y > prevY) {
+                result[--r] = bFrom + --y;
+                result[--r] = aFrom + --x;
+            }
+            x = prevX;
+            y = prevY;
+        }
+        while (x > 0 && y > 0) {
+            result[--r] = bFrom + --y;
+            result[--r] = aFrom + --x;
+        }
+        return Arrays.copyOfRange(result, r, result.length);
+    }
+}
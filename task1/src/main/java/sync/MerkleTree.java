@@ -0,0 +1,219 @@
+package sync;
+
+import entity.Machine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Hierarchical hash summary of a list of machines.
+ *
+ * <p>The leaves are runs of consecutive machines, the inner nodes runs of consecutive
+ * nodes of the level below, and every node is identified by the hash of its content.
+ * Where a run ends is decided by the content, not by the position: a run ends after an
+ * element whose hash has the low bits zero, so a run holds {@value #AVERAGE_FANOUT}
+ * elements on average and at most {@value #MAX_FANOUT}. An insertion or removal
+ * therefore changes only the nodes around it, the nodes after it keep their hashes, and
+ * two trees can be compared in time proportional to the number of differences.
+ *
+ * <p>The tree is a snapshot: it keeps the machines the list held when it was built and
+ * is not changed by later modifications of the list.
+ */
+public final class MerkleTree {
+    /** Average number of children of a node. */
+    static final int AVERAGE_FANOUT = 32;
+
+    /** Maximum number of children of a node. */
+    static final int MAX_FANOUT = 256;
+
+    private static final long[] NO_HASHES = new long[0];
+    private static final Machine[] NO_MACHINES = new Machine[0];
+
+    /** Reads the nodes of a local tree. */
+    static final TreeView LOCAL = new TreeView() {
+        @Override
+        public Node[] children(Node node) {
+            return node.children;
+        }
+
+        @Override
+        public long[] hashes(Node leaf) {
+            return leaf.hashes;
+        }
+
+        @Override
+        public Machine[] machines(Node leaf, int[] offsets, int count) {
+            Machine[] result = new Machine[count];
+            for (int i = 0; i < count; i++)
+                result[i] = leaf.machines[offsets[i]];
+            return result;
+        }
+    };
+
+    /**
+     * Node of a tree. The content of a node of a remote tree is loaded when it is
+     * first needed.
+     */
+    static final class Node {
+        final long hash;
+        final int count;
+        final int level;
+        Node[] children;
+        long[] hashes;
+        Machine[] machines;
+
+        Node(long hash, int count, int level) {
+            this.hash = hash;
+            this.count = count;
+            this.level = level;
+        }
+    }
+
+    private final Node root;
+    private Map<Long, Node> nodes;
+
+    private MerkleTree(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Builds the tree of the machines of the list.
+     *
+     * @param list list of machines
+     * @return tree
+     */
+    public static MerkleTree build(List<Machine> list) {
+        Objects.requireNonNull(list, "Argument must be not null");
+        Machine[] machines = list.toArray(NO_MACHINES);
+        long[] hashes = new long[machines.length];
+        for (int i = 0; i < machines.length; i++)
+            hashes[i] = MachineHash.hash(machines[i]);
+        List<Node> level = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < machines.length; i++)
+            if (isBoundary(hashes[i], 0) || i + 1 - start == MAX_FANOUT || i == machines.length - 1) {
+                level.add(leaf(Arrays.copyOfRange(machines, start, i + 1), Arrays.copyOfRange(hashes, start, i + 1)));
+                start = i + 1;
+            }
+        if (level.isEmpty())
+            level.add(leaf(NO_MACHINES, NO_HASHES));
+        for (int height = 1; level.size() > 1; height++) {
+            List<Node> next = group(level, height, false);
+            // rare: every node ended a run, the level would never shrink
+            if (next.size() == level.size())
+                next = group(level, height, true);
+            level = next;
+        }
+        return new MerkleTree(level.get(0));
+    }
+
+    private static Node leaf(Machine[] machines, long[] hashes) {
+        long h = 0;
+        for (long hash : hashes)
+            h = MachineHash.mix(h, hash);
+        Node leaf = new Node(MachineHash.finish(MachineHash.mix(h, hashes.length)), hashes.length, 0);
+        leaf.machines = machines;
+        leaf.hashes = hashes;
+        return leaf;
+    }
+
+    private static List<Node> group(List<Node> level, int height, boolean fixed) {
+        List<Node> next = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < level.size(); i++)
+            if ((!fixed && isBoundary(level.get(i).hash, height)) || i + 1 - start == MAX_FANOUT
+                    || i == level.size() - 1) {
+                Node[] children = level.subList(start, i + 1).toArray(new Node[0]);
+                long h = height;
+                int count = 0;
+                for (Node child : children) {
+                    h = MachineHash.mix(h, child.hash);
+                    count += child.count;
+                }
+                Node node = new Node(MachineHash.finish(MachineHash.mix(h, children.length)), count, height);
+                node.children = children;
+                next.add(node);
+                start = i + 1;
+            }
+        return next;
+    }
+
+    private static boolean isBoundary(long hash, int level) {
+        return (MachineHash.finish(hash + level) & (AVERAGE_FANOUT - 1)) == 0;
+    }
+
+    /**
+     * Returns the hash of the whole list. Lists with equal machines in the same order
+     * have the same root hash.
+     *
+     * @return root hash
+     */
+    public long getRootHash() {
+        return root.hash;
+    }
+
+    /**
+     * Returns the number of machines.
+     *
+     * @return number of machines
+     */
+    public int size() {
+        return root.count;
+    }
+
+    /**
+     * Returns the number of levels of nodes.
+     *
+     * @return height of the tree
+     */
+    public int getHeight() {
+        return root.level + 1;
+    }
+
+    /**
+     * Computes the changes which turn the list of this tree into the list of {@code other}.
+     *
+     * @param other tree of the wanted list
+     * @return changes
+     */
+    public Delta diff(MerkleTree other) {
+        Objects.requireNonNull(other, "Argument must be not null");
+        try {
+            return MerkleDiff.diff(LOCAL, root, LOCAL, other.root);
+        } catch (IOException e) {
+            // local trees do not read anything
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * Finds a node by its hash.
+     *
+     * @param hash hash of the node
+     * @return node, null if the tree has no such node
+     */
+    synchronized Node node(long hash) {
+        if (nodes == null) {
+            nodes = new HashMap<>();
+            index(root);
+        }
+        return nodes.get(hash);
+    }
+
+    private void index(Node node) {
+        nodes.put(node.hash, node);
+        if (node.children != null)
+            for (Node child : node.children)
+                index(child);
+    }
+}
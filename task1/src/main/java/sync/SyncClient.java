@@ -0,0 +1,139 @@
+package sync;
+
+import entity.Machine;
+import storage.MachineCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Brings a local list up to date with the tree of a {@code SyncServer}.
+ * Only the nodes which differ are requested, and only the machines which are inserted
+ * or changed are transferred.
+ */
+public class SyncClient implements Closeable {
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private int requests;
+
+    /** Reads the nodes of the remote tree, caching them in the nodes. */
+    private final TreeView remote = new TreeView() {
+        @Override
+        public MerkleTree.Node[] children(MerkleTree.Node node) throws IOException {
+            if (node.children == null) {
+                request(SyncServer.CHILDREN, node);
+                out.flush();
+                expectOk(node);
+                MerkleTree.Node[] children = new MerkleTree.Node[MachineCodec.readVarInt(in)];
+                for (int i = 0; i < children.length; i++)
+                    children[i] = SyncServer.readNode(in);
+                node.children = children;
+            }
+            return node.children;
+        }
+
+        @Override
+        public long[] hashes(MerkleTree.Node leaf) throws IOException {
+            if (leaf.hashes == null) {
+                request(SyncServer.HASHES, leaf);
+                out.flush();
+                expectOk(leaf);
+                long[] hashes = new long[MachineCodec.readVarInt(in)];
+                for (int i = 0; i < hashes.length; i++)
+                    hashes[i] = in.readLong();
+                leaf.hashes = hashes;
+            }
+            return leaf.hashes;
+        }
+
+        @Override
+        public Machine[] machines(MerkleTree.Node leaf, int[] offsets, int count) throws IOException {
+            request(SyncServer.MACHINES, leaf);
+            MachineCodec.writeVarInt(out, count);
+            for (int i = 0; i < count; i++)
+                MachineCodec.writeVarInt(out, offsets[i]);
+            out.flush();
+            expectOk(leaf);
+            Machine[] machines = new Machine[count];
+            for (int i = 0; i < count; i++)
+                machines[i] = MachineCodec.read(in);
+            return machines;
+        }
+    };
+
+    /**
+     * Connects to a server on the loopback address.
+     *
+     * @param port port of the server
+     * @throws IOException if the server can not be reached
+     */
+    public SyncClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Computes the changes which turn the list of the local tree into the list of the server.
+     *
+     * @param local tree of the local list
+     * @return changes
+     * @throws IOException if the server fails or does not answer as expected
+     */
+    public Delta diff(MerkleTree local) throws IOException {
+        Objects.requireNonNull(local, "Argument must be not null");
+        out.writeByte(SyncServer.ROOT);
+        out.flush();
+        requests++;
+        if (in.readByte() != SyncServer.OK)
+            throw new IOException("Server has no tree");
+        return MerkleDiff.diff(MerkleTree.LOCAL, local.root(), remote, SyncServer.readNode(in));
+    }
+
+    /**
+     * Makes the list equal to the list of the server.
+     *
+     * @param list local list
+     * @return applied changes
+     * @throws IOException if the server fails or does not answer as expected
+     */
+    public Delta sync(List<Machine> list) throws IOException {
+        Delta delta = diff(MerkleTree.build(list));
+        delta.apply(list);
+        return delta;
+    }
+
+    /**
+     * Returns the number of requests sent so far.
+     *
+     * @return number of requests
+     */
+    public int getRequests() {
+        return requests;
+    }
+
+    private void request(byte request, MerkleTree.Node node) throws IOException {
+        out.writeByte(request);
+        out.writeLong(node.hash);
+        requests++;
+    }
+
+    private void expectOk(MerkleTree.Node node) throws IOException {
+        if (in.readByte() != SyncServer.OK)
+            throw new IOException("Server does not know node " + Long.toHexString(node.hash));
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
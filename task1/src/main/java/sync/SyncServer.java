@@ -0,0 +1,206 @@
+package sync;
+
+import storage.MachineCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves the nodes of a tree to {@code SyncClient}s on a loopback socket.
+ *
+ * <p>A client sends requests and reads the answers on one connection:
+ * <ul>
+ *     <li>{@code ROOT}: the root node;</li>
+ *     <li>{@code CHILDREN hash}: the children of an inner node;</li>
+ *     <li>{@code HASHES hash}: the hashes of the machines of a leaf;</li>
+ *     <li>{@code MACHINES hash k offset...}: {@code k} machines of a leaf.</li>
+ * </ul>
+ * A node is written as its hash, its number of machines as a varint and its level;
+ * machines are written with {@code MachineCodec}. Every answer starts with a status
+ * byte. A connection sees the tree that was published when it was accepted.
+ * Every connection is served by its own daemon thread, so an idle client does not
+ * hold up the others; {@link #close()} closes the open connections as well.
+ */
+public class SyncServer implements Closeable {
+    static final byte ROOT = 0;
+    static final byte CHILDREN = 1;
+    static final byte HASHES = 2;
+    static final byte MACHINES = 3;
+
+    static final byte OK = 0;
+    static final byte UNKNOWN_NODE = 1;
+
+    private final ServerSocket server;
+    private final Thread acceptor;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile MerkleTree tree;
+
+    /**
+     * Starts serving the tree.
+     *
+     * @param tree tree to serve
+     * @param port loopback port, 0 for any free port
+     * @throws IOException if the port can not be bound
+     */
+    public SyncServer(MerkleTree tree, int port) throws IOException {
+        Objects.requireNonNull(tree, "Argument must be not null");
+        this.tree = tree;
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "machine-sync-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Replaces the served tree. Open connections keep the previous one.
+     *
+     * @param tree tree to serve
+     */
+    public void publish(MerkleTree tree) {
+        Objects.requireNonNull(tree, "Argument must be not null");
+        this.tree = tree;
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                continue;
+            }
+            connections.add(socket);
+            if (server.isClosed()) {
+                closeQuietly(socket);
+                return;
+            }
+            MerkleTree served = tree;
+            Thread connection = new Thread(() -> {
+                try (Socket s = socket) {
+                    serve(s, served);
+                } catch (IOException e) {
+                    // the client went away or the server was closed
+                } finally {
+                    connections.remove(socket);
+                }
+            }, "machine-sync-connection");
+            connection.setDaemon(true);
+            connection.start();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing to do
+        }
+    }
+
+    private static void serve(Socket socket, MerkleTree tree) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        while (true) {
+            int request = in.read();
+            if (request < 0)
+                return;
+            if (request > MACHINES)
+                throw new IOException("Unknown request: " + request);
+            if (request == ROOT) {
+                out.writeByte(OK);
+                writeNode(out, tree.root());
+            } else {
+                MerkleTree.Node node = tree.node(in.readLong());
+                if (request == MACHINES)
+                    answerMachines(in, out, node);
+                else if (node == null || (request == CHILDREN) != (node.level > 0))
+                    out.writeByte(UNKNOWN_NODE);
+                else if (request == CHILDREN)
+                    answerChildren(out, node);
+                else
+                    answerHashes(out, node);
+            }
+            out.flush();
+        }
+    }
+
+    private static void answerChildren(DataOutputStream out, MerkleTree.Node node) throws IOException {
+        out.writeByte(OK);
+        MachineCodec.writeVarInt(out, node.children.length);
+        for (MerkleTree.Node child : node.children)
+            writeNode(out, child);
+    }
+
+    private static void answerHashes(DataOutputStream out, MerkleTree.Node leaf) throws IOException {
+        out.writeByte(OK);
+        MachineCodec.writeVarInt(out, leaf.hashes.length);
+        for (long hash : leaf.hashes)
+            out.writeLong(hash);
+    }
+
+    private static void answerMachines(DataInputStream in, DataOutputStream out, MerkleTree.Node leaf)
+            throws IOException {
+        int count = MachineCodec.readVarInt(in);
+        int[] offsets = new int[Math.max(count, 0)];
+        for (int i = 0; i < offsets.length; i++)
+            offsets[i] = MachineCodec.readVarInt(in);
+        if (leaf == null || leaf.level > 0) {
+            out.writeByte(UNKNOWN_NODE);
+            return;
+        }
+        for (int offset : offsets)
+            if (offset < 0 || offset >= leaf.count) {
+                out.writeByte(UNKNOWN_NODE);
+                return;
+            }
+        out.writeByte(OK);
+        for (int offset : offsets)
+            MachineCodec.write(out, leaf.machines[offset]);
+    }
+
+    static void writeNode(DataOutputStream out, MerkleTree.Node node) throws IOException {
+        out.writeLong(node.hash);
+        MachineCodec.writeVarInt(out, node.count);
+        out.writeByte(node.level);
+    }
+
+    static MerkleTree.Node readNode(DataInputStream in) throws IOException {
+        long hash = in.readLong();
+        int count = MachineCodec.readVarInt(in);
+        int level = in.readUnsignedByte();
+        if (count < 0)
+            throw new IOException("Malformed node");
+        return new MerkleTree.Node(hash, count, level);
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     *
+     * @throws IOException if the socket can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        for (Socket socket : connections)
+            closeQuietly(socket);
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
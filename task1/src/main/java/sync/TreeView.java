@@ -0,0 +1,40 @@
+package sync;
+
+import entity.Machine;
+
+import java.io.IOException;
+
+/**
+ * Access to the content of the nodes of a tree, local or remote.
+ */
+interface TreeView {
+
+    /**
+     * Returns the children of an inner node.
+     *
+     * @param node inner node
+     * @return children in order
+     * @throws IOException if a remote tree can not be read
+     */
+    MerkleTree.Node[] children(MerkleTree.Node node) throws IOException;
+
+    /**
+     * Returns the hashes of the machines of a leaf.
+     *
+     * @param leaf leaf
+     * @return hashes in order
+     * @throws IOException if a remote tree can not be read
+     */
+    long[] hashes(MerkleTree.Node leaf) throws IOException;
+
+    /**
+     * Returns machines of a leaf.
+     *
+     * @param leaf leaf
+     * @param offsets ascending positions of the machines within the leaf
+     * @param count number of positions used in {@code offsets}
+     * @return machines at the positions
+     * @throws IOException if a remote tree can not be read
+     */
+    Machine[] machines(MerkleTree.Node leaf, int[] offsets, int count) throws IOException;
+}
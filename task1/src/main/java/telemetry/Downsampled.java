@@ -0,0 +1,88 @@
+package telemetry;
+
+import java.util.Arrays;
+
+/**
+ * Result of downsampling: minimum, maximum and average of every non-empty bucket.
+ * The arrays grow when needed and are reused by later calls, so downsampling
+ * into the same object again does not allocate.
+ */
+public final class Downsampled {
+    private long[] bucketStarts = new long[0];
+    private double[] min = new double[0];
+    private double[] max = new double[0];
+    private double[] sum = new double[0];
+    private int[] counts = new int[0];
+    private int size;
+
+    /**
+     * Returns the number of non-empty buckets.
+     *
+     * @return number of buckets
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the start time of the bucket.
+     *
+     * @param bucket index of a non-empty bucket
+     * @return start time in milliseconds, inclusive
+     */
+    public long getBucketStart(int bucket) {
+        return bucketStarts[check(bucket)];
+    }
+
+    public double getMin(int bucket) {
+        return min[check(bucket)];
+    }
+
+    public double getMax(int bucket) {
+        return max[check(bucket)];
+    }
+
+    public double getAverage(int bucket) {
+        return sum[check(bucket)] / counts[bucket];
+    }
+
+    public int getCount(int bucket) {
+        return counts[check(bucket)];
+    }
+
+    private int check(int bucket) {
+        if (bucket < 0 || bucket >= size)
+            throw new IndexOutOfBoundsException("Bucket: " + bucket + ", Size: " + size);
+        return bucket;
+    }
+
+    void reset() {
+        size = 0;
+    }
+
+    /** Adds the value to the bucket starting at {@code bucketStart}, which is never before the last one. */
+    void add(long bucketStart, double value) {
+        if (size > 0 && bucketStarts[size - 1] == bucketStart) {
+            int last = size - 1;
+            min[last] = Math.min(min[last], value);
+            max[last] = Math.max(max[last], value);
+            sum[last] += value;
+            counts[last]++;
+            return;
+        }
+        if (size == bucketStarts.length) {
+            int capacity = Math.max(16, size * 2);
+            bucketStarts = Arrays.copyOf(bucketStarts, capacity);
+            min = Arrays.copyOf(min, capacity);
+            max = Arrays.copyOf(max, capacity);
+            sum = Arrays.copyOf(sum, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        bucketStarts[size] = bucketStart;
+        min[size] = value;
+        max[size] = value;
+        sum[size] = value;
+        counts[size] = 1;
+        size++;
+    }
+}
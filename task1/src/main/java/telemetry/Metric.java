@@ -0,0 +1,13 @@
+package telemetry;
+
+/**
+ * Readings reported by a machine with every telemetry sample.
+ */
+public enum Metric {
+    /** Spindle speed, revolutions per minute. */
+    SPINDLE_SPEED,
+    /** Spindle load, percent. */
+    LOAD,
+    /** Temperature, degrees Celsius. */
+    TEMPERATURE
+}
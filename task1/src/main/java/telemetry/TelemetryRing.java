@@ -0,0 +1,223 @@
+package telemetry;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Fixed-size ring of telemetry samples of one machine.
+ *
+ * <p>Samples are kept in primitive arrays, one for the timestamps and one per metric,
+ * so appending never allocates. When the ring is full a new sample overwrites the
+ * oldest one. There must be only one writer; readers run concurrently with it without
+ * locks. The writer stores a sample and then publishes it through the volatile counter
+ * of written samples; a reader takes the counter, reads the samples and takes the
+ * counter again to drop the samples the writer may have overwritten meanwhile. A load
+ * fence keeps the reads of the samples before the second read of the counter, which a
+ * volatile read alone does not. The
+ * slot of the oldest sample is the one the next append overwrites, so reads never see
+ * it and a ring of {@code capacity} slots keeps {@code capacity - 1} samples.
+ *
+ * <p>Timestamps must not decrease, which lets range reads find their first sample
+ * with a binary search.
+ */
+public final class TelemetryRing {
+    private static final int METRICS = Metric.values().length;
+
+    /** Reads retried because of the writer before giving up the oldest samples. */
+    private static final int READ_ATTEMPTS = 4;
+
+    /** {@code VarHandle.acquireFence} on Java 9 and later, {@code Unsafe.loadFence} on Java 8. */
+    private static final MethodHandle LOAD_FENCE = findLoadFence();
+
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final double[][] values;
+
+    /** Number of samples ever written; slot of sample {@code n} is {@code n & mask}. */
+    private volatile long written;
+
+    /**
+     * Creates an empty ring.
+     *
+     * @param capacity minimum number of kept samples, the ring takes the next power of
+     *                 two of slots above it
+     * @throws IllegalArgumentException if the capacity is not positive or too large
+     */
+    public TelemetryRing(int capacity) {
+        if (capacity <= 0 || capacity >= 1 << 30)
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        this.capacity = Integer.highestOneBit(capacity) << 1;
+        this.mask = this.capacity - 1;
+        this.timestamps = new long[this.capacity];
+        this.values = new double[METRICS][this.capacity];
+    }
+
+    /**
+     * Returns the number of slots, one more than the number of kept samples.
+     *
+     * @return number of slots
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of samples currently kept.
+     *
+     * @return number of samples
+     */
+    public int size() {
+        return (int) Math.min(written, capacity - 1);
+    }
+
+    /**
+     * Appends a sample. Must be called by the single writer only.
+     *
+     * @param timestamp time of the sample in milliseconds, not before the previous one
+     * @param spindleSpeed spindle speed
+     * @param load spindle load
+     * @param temperature temperature
+     * @throws IllegalArgumentException if the timestamp is before the previous one
+     */
+    public void append(long timestamp, double spindleSpeed, double load, double temperature) {
+        long n = written;
+        if (n > 0 && timestamp < timestamps[(int) (n - 1) & mask])
+            throw new IllegalArgumentException("Timestamp goes back: " + timestamp);
+        int slot = (int) n & mask;
+        timestamps[slot] = timestamp;
+        values[Metric.SPINDLE_SPEED.ordinal()][slot] = spindleSpeed;
+        values[Metric.LOAD.ordinal()][slot] = load;
+        values[Metric.TEMPERATURE.ordinal()][slot] = temperature;
+        written = n + 1;
+    }
+
+    /**
+     * Copies the samples with {@code from <= timestamp < to} into the arrays, oldest first.
+     * At most the length of the shorter array is copied.
+     *
+     * @param metric metric to read
+     * @param from start time, inclusive
+     * @param to end time, exclusive
+     * @param timestampsOut receives the timestamps
+     * @param valuesOut receives the values
+     * @return number of copied samples
+     */
+    public int read(Metric metric, long from, long to, long[] timestampsOut, double[] valuesOut) {
+        double[] metricValues = values[metric.ordinal()];
+        int limit = Math.min(timestampsOut.length, valuesOut.length);
+        for (int attempt = 1; ; attempt++) {
+            long end = written;
+            long first = first(from, end);
+            int count = 0;
+            for (long n = first; n < end && count < limit; n++) {
+                int slot = (int) n & mask;
+                long timestamp = timestamps[slot];
+                if (timestamp >= to)
+                    break;
+                timestampsOut[count] = timestamp;
+                valuesOut[count] = metricValues[slot];
+                count++;
+            }
+            loadFence();
+            long overwritten = written - capacity - first + 1;
+            if (overwritten <= 0)
+                return count;
+            if (attempt == READ_ATTEMPTS) {
+                int kept = (int) Math.max(0, count - overwritten);
+                System.arraycopy(timestampsOut, count - kept, timestampsOut, 0, kept);
+                System.arraycopy(valuesOut, count - kept, valuesOut, 0, kept);
+                return kept;
+            }
+        }
+    }
+
+    /**
+     * Aggregates the samples with {@code from <= timestamp < to} into buckets of
+     * {@code bucketMillis} starting at {@code from}. Empty buckets are left out. If the
+     * writer keeps overwriting the samples being read, the last attempt checks every
+     * sample before adding it and leaves out the overwritten ones.
+     *
+     * @param metric metric to aggregate
+     * @param from start time, inclusive
+     * @param to end time, exclusive
+     * @param bucketMillis length of a bucket
+     * @param out receives the buckets, its previous contents are discarded
+     * @return number of non-empty buckets
+     * @throws IllegalArgumentException if the bucket length is not positive
+     */
+    public int downsample(Metric metric, long from, long to, long bucketMillis, Downsampled out) {
+        if (bucketMillis <= 0)
+            throw new IllegalArgumentException("Illegal bucket length: " + bucketMillis);
+        double[] metricValues = values[metric.ordinal()];
+        for (int attempt = 1; ; attempt++) {
+            out.reset();
+            long end = written;
+            long first = first(from, end);
+            boolean last = attempt == READ_ATTEMPTS;
+            if (last)
+                first = Math.max(first, end - capacity / 2);
+            for (long n = first; n < end; n++) {
+                int slot = (int) n & mask;
+                long timestamp = timestamps[slot];
+                double value = metricValues[slot];
+                if (last) {
+                    loadFence();
+                    if (written - capacity >= n)
+                        continue;
+                }
+                if (timestamp >= to)
+                    break;
+                out.add(from + (timestamp - from) / bucketMillis * bucketMillis, value);
+            }
+            if (last)
+                return out.size();
+            loadFence();
+            if (written - capacity < first)
+                return out.size();
+        }
+    }
+
+    private static void loadFence() {
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle findLoadFence() {
+        MethodType type = MethodType.methodType(void.class);
+        try {
+            return MethodHandles.publicLookup().findStatic(Class.forName("java.lang.invoke.VarHandle"),
+                    "acquireFence", type);
+        } catch (ReflectiveOperationException e) {
+            /* Java 8 has no VarHandle */
+        }
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.publicLookup().findVirtual(unsafeClass, "loadFence", type)
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** Returns the number of the first kept sample with {@code timestamp >= from}. */
+    private long first(long from, long end) {
+        long low = Math.max(0, end - capacity + 1);
+        long high = end;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (timestamps[(int) middle & mask] < from)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,84 @@
+package telemetry;
+
+import entity.Machine;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Telemetry rings of the machines of a shop, one ring per physical machine.
+ *
+ * <p>Machines are keyed by identity: two equal machine objects describe the same
+ * model, not the same physical machine. Looking a ring up takes no lock; registering
+ * and removing copy the map, which is fine because they are rare. A writer should look
+ * its ring up once and keep appending to it.
+ */
+public class TelemetryStore {
+    private final int capacityPerMachine;
+    private volatile Map<Machine, TelemetryRing> rings = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty store.
+     *
+     * @param capacityPerMachine number of samples kept per machine
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public TelemetryStore(int capacityPerMachine) {
+        if (capacityPerMachine <= 0)
+            throw new IllegalArgumentException("Illegal Capacity: " + capacityPerMachine);
+        this.capacityPerMachine = capacityPerMachine;
+    }
+
+    /**
+     * Returns the ring of the machine, creating it if the machine has none.
+     *
+     * @param machine machine
+     * @return ring of the machine
+     */
+    public synchronized TelemetryRing register(Machine machine) {
+        Objects.requireNonNull(machine, "Argument must be not null");
+        TelemetryRing ring = rings.get(machine);
+        if (ring == null) {
+            ring = new TelemetryRing(capacityPerMachine);
+            Map<Machine, TelemetryRing> copy = new IdentityHashMap<>(rings);
+            copy.put(machine, ring);
+            rings = copy;
+        }
+        return ring;
+    }
+
+    /**
+     * Returns the ring of the machine.
+     *
+     * @param machine machine
+     * @return ring of the machine, {@code null} if it is not registered
+     */
+    public TelemetryRing get(Machine machine) {
+        return rings.get(machine);
+    }
+
+    /**
+     * Removes the ring of the machine.
+     *
+     * @param machine machine
+     * @return removed ring, {@code null} if the machine was not registered
+     */
+    public synchronized TelemetryRing remove(Machine machine) {
+        if (!rings.containsKey(machine))
+            return null;
+        Map<Machine, TelemetryRing> copy = new IdentityHashMap<>(rings);
+        TelemetryRing ring = copy.remove(machine);
+        rings = copy;
+        return ring;
+    }
+
+    /**
+     * Returns the number of registered machines.
+     *
+     * @return number of machines
+     */
+    public int size() {
+        return rings.size();
+    }
+}
@@ -0,0 +1,75 @@
+package trace;
+
+/**
+ * Operations recorded in a trace, with the arguments each record carries.
+ */
+public enum TraceOp {
+    /** {@code add(machine)}: machine. */
+    ADD(false, true, false),
+    /** {@code add(index, machine)}: index and machine. */
+    INSERT(true, true, false),
+    /** {@code get(index)}: index. */
+    GET(true, false, false),
+    /** {@code set(index, machine)}: index and machine. */
+    SET(true, true, false),
+    /** {@code indexOf(machine)}: machine. */
+    INDEX_OF(false, true, false),
+    /** {@code remove(index)}: index. */
+    REMOVE(true, false, false),
+    /** {@code remove(machine)}: machine. */
+    REMOVE_OBJECT(false, true, false),
+    /** A complete pass of an iterator: the number of elements it scanned. */
+    ITERATE(true, false, false),
+    /** {@code clear()}: no arguments. */
+    CLEAR(false, false, false),
+    /** {@code addAll(collection)}: count and the machines. */
+    ADD_ALL(false, false, true),
+    /** {@code addAll(index, collection)}: index, count and the machines. */
+    INSERT_ALL(true, false, true);
+
+    private static final TraceOp[] VALUES = values();
+
+    private final boolean hasIndex;
+    private final boolean hasMachine;
+    private final boolean hasMachines;
+
+    TraceOp(boolean hasIndex, boolean hasMachine, boolean hasMachines) {
+        this.hasIndex = hasIndex;
+        this.hasMachine = hasMachine;
+        this.hasMachines = hasMachines;
+    }
+
+    /**
+     * Returns {@code true} if records of the operation carry an index or a count.
+     *
+     * @return {@code true} if there is an index
+     */
+    public boolean hasIndex() {
+        return hasIndex;
+    }
+
+    /**
+     * Returns {@code true} if records of the operation carry a machine.
+     *
+     * @return {@code true} if there is a machine
+     */
+    public boolean hasMachine() {
+        return hasMachine;
+    }
+
+    /**
+     * Returns {@code true} if records of the operation carry a count of machines and
+     * the machines.
+     *
+     * @return {@code true} if there are machines
+     */
+    public boolean hasMachines() {
+        return hasMachines;
+    }
+
+    static TraceOp of(int code) {
+        if (code < 0 || code >= VALUES.length)
+            throw new IllegalArgumentException("Unknown operation: " + code);
+        return VALUES[code];
+    }
+}
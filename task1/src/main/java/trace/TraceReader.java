@@ -0,0 +1,145 @@
+package trace;
+
+import entity.Machine;
+import storage.MachineCodec;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reads traces written by {@code TraceRecorder}, one record at a time. The fields
+ * of the current record are valid until the next call of {@link #next()}. A machine
+ * referred to by several records is the same object every time.
+ */
+public class TraceReader implements Closeable {
+    private final DataInputStream in;
+    private final List<Machine> machines = new ArrayList<>();
+    private TraceOp op;
+    private int micros;
+    private int index;
+    private Machine machine;
+    private List<Machine> bulk = Collections.emptyList();
+
+    /**
+     * Opens the trace on the stream and checks its header.
+     *
+     * @param stream source, closed by {@link #close()}
+     * @throws IOException if the stream fails or does not hold a trace
+     */
+    public TraceReader(InputStream stream) throws IOException {
+        Objects.requireNonNull(stream, "Argument must be not null");
+        in = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+        if (in.readInt() != TraceRecorder.MAGIC)
+            throw new IOException("Not a trace");
+        int version = in.readInt();
+        if (version != TraceRecorder.VERSION)
+            throw new IOException("Unsupported trace version: " + version);
+    }
+
+    /**
+     * Opens the trace file.
+     *
+     * @param path trace file
+     * @return reader
+     * @throws IOException if the file can not be read or does not hold a trace
+     */
+    public static TraceReader open(Path path) throws IOException {
+        return new TraceReader(Files.newInputStream(path));
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return {@code false} at the end of the trace
+     * @throws IOException if the stream fails or the record is malformed
+     */
+    public boolean next() throws IOException {
+        int code = in.read();
+        if (code < 0)
+            return false;
+        try {
+            op = TraceOp.of(code);
+            micros = MachineCodec.readVarInt(in);
+            index = op.hasIndex() ? MachineCodec.readVarInt(in) : 0;
+            machine = op.hasMachine() ? readMachine() : null;
+            bulk = op.hasMachines() ? readMachines() : Collections.<Machine>emptyList();
+        } catch (EOFException e) {
+            throw new IOException("Trace ends inside a record", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return true;
+    }
+
+    private List<Machine> readMachines() throws IOException {
+        int count = MachineCodec.readVarInt(in);
+        if (count < 0)
+            throw new IOException("Illegal count: " + count);
+        Machine[] read = new Machine[count];
+        for (int i = 0; i < count; i++)
+            read[i] = readMachine();
+        return Collections.unmodifiableList(Arrays.asList(read));
+    }
+
+    private Machine readMachine() throws IOException {
+        int number = MachineCodec.readVarInt(in);
+        if (number == 0)
+            return null;
+        if (number == machines.size() + 1)
+            machines.add(MachineCodec.read(in));
+        else if (number < 0 || number > machines.size())
+            throw new IOException("Unknown machine: " + number);
+        return machines.get(number - 1);
+    }
+
+    public TraceOp getOp() {
+        return op;
+    }
+
+    /**
+     * Returns the time between the previous record and this one.
+     *
+     * @return microseconds
+     */
+    public int getMicros() {
+        return micros;
+    }
+
+    /**
+     * Returns the index, or the count of an {@code ITERATE} record.
+     *
+     * @return index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Machine getMachine() {
+        return machine;
+    }
+
+    /**
+     * Returns the machines of a bulk record.
+     *
+     * @return unmodifiable list of the machines, empty for other records
+     */
+    public List<Machine> getMachines() {
+        return bulk;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,156 @@
+package trace;
+
+import entity.Machine;
+import storage.MachineCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes a binary trace of list operations.
+ *
+ * <p>The trace starts with {@link #MAGIC} and {@link #VERSION}. Every record is the
+ * ordinal of the {@code TraceOp}, the microseconds since the previous record as a
+ * varint, then the index as a varint and the machine reference if the operation has
+ * them. Bulk operations write the number of machines as a varint and the machine
+ * references after the index. A machine is written in full with {@code MachineCodec} the first time it
+ * appears and gets the next number; later records refer to it by that number, and
+ * {@code 0} stands for {@code null}. A machine reference is the number as a varint,
+ * followed by the machine when the number is new.
+ *
+ * <p>Recording is not synchronized, like the {@code MachineList} it records.
+ * Write errors are thrown as {@code UncheckedIOException}.
+ */
+public class TraceRecorder implements Closeable {
+    /** First four bytes of a trace. */
+    public static final int MAGIC = 0x4D54524B;
+
+    /** Format version of the trace. */
+    public static final int VERSION = 2;
+
+    private final DataOutputStream out;
+    private final Map<Machine, Integer> machines = new IdentityHashMap<>();
+    private long last = System.nanoTime();
+    private long records;
+
+    /**
+     * Starts a trace on the stream.
+     *
+     * @param stream destination, closed by {@link #close()}
+     * @throws IOException if the header can not be written
+     */
+    public TraceRecorder(OutputStream stream) throws IOException {
+        Objects.requireNonNull(stream, "Argument must be not null");
+        out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * Starts a trace in a new file.
+     *
+     * @param path trace file, replaced if it exists
+     * @return recorder
+     * @throws IOException if the file can not be written
+     */
+    public static TraceRecorder open(Path path) throws IOException {
+        return new TraceRecorder(Files.newOutputStream(path));
+    }
+
+    /**
+     * Returns the number of records written.
+     *
+     * @return number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param op operation
+     * @param index index or count, ignored if the operation has none
+     * @param machine machine, ignored if the operation has none
+     */
+    public void record(TraceOp op, int index, Machine machine) {
+        long now = System.nanoTime();
+        long micros = Math.min((now - last) / 1000, Integer.MAX_VALUE);
+        last = now;
+        try {
+            out.writeByte(op.ordinal());
+            MachineCodec.writeVarInt(out, (int) micros);
+            if (op.hasIndex())
+                MachineCodec.writeVarInt(out, index);
+            if (op.hasMachine())
+                writeMachine(machine);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        records++;
+    }
+
+    /**
+     * Writes a record of a bulk operation.
+     *
+     * @param op operation carrying machines
+     * @param index index, ignored if the operation has none
+     * @param machines machines of the operation
+     */
+    public void record(TraceOp op, int index, Machine[] machines) {
+        long now = System.nanoTime();
+        long micros = Math.min((now - last) / 1000, Integer.MAX_VALUE);
+        last = now;
+        try {
+            out.writeByte(op.ordinal());
+            MachineCodec.writeVarInt(out, (int) micros);
+            if (op.hasIndex())
+                MachineCodec.writeVarInt(out, index);
+            MachineCodec.writeVarInt(out, machines.length);
+            for (Machine machine : machines)
+                writeMachine(machine);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        records++;
+    }
+
+    private void writeMachine(Machine machine) throws IOException {
+        if (machine == null) {
+            MachineCodec.writeVarInt(out, 0);
+            return;
+        }
+        Integer number = machines.get(machine);
+        if (number != null) {
+            MachineCodec.writeVarInt(out, number);
+            return;
+        }
+        number = machines.size() + 1;
+        machines.put(machine, number);
+        MachineCodec.writeVarInt(out, number);
+        MachineCodec.write(out, machine);
+    }
+
+    /**
+     * Writes the buffered records to the stream.
+     *
+     * @throws IOException if the stream fails
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,207 @@
+package trace;
+
+import container.MachineList;
+import entity.Machine;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * {@code MachineList} recording its operations to a {@code TraceRecorder}.
+ *
+ * <p>The list can be used wherever a {@code MachineList} is, so recording is switched
+ * on by creating this class instead. Recorded are {@code add}, insertion, {@code get},
+ * {@code set}, {@code indexOf}, both {@code remove}s, {@code clear}, both
+ * {@code addAll}s and iterations. An iteration is recorded when its iterator reports
+ * that there are no more elements, with the number of elements it scanned, which is
+ * the size of the list then; the iterator may skip elements not satisfying the
+ * predicates of the list, but it still reads them. Iterations abandoned earlier are
+ * not recorded.
+ * Operations other classes implement through these methods are recorded as well, but
+ * calls the list makes to itself while executing a recorded operation are not.
+ */
+public class TracedMachineList extends MachineList {
+    private final TraceRecorder recorder;
+
+    /** Depth of calls of overridden methods, records are written only at depth 0. */
+    private int nesting;
+
+    /**
+     * Creates an empty list.
+     *
+     * @param recorder destination of the records
+     */
+    public TracedMachineList(TraceRecorder recorder) {
+        Objects.requireNonNull(recorder, "Argument must be not null");
+        this.recorder = recorder;
+    }
+
+    @Override
+    public boolean add(Machine machine) {
+        boolean result;
+        nesting++;
+        try {
+            result = super.add(machine);
+        } finally {
+            nesting--;
+        }
+        record(TraceOp.ADD, 0, machine);
+        return result;
+    }
+
+    @Override
+    public void add(int index, Machine element) {
+        nesting++;
+        try {
+            super.add(index, element);
+        } finally {
+            nesting--;
+        }
+        record(TraceOp.INSERT, index, element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Machine> collection) {
+        Objects.requireNonNull(collection, "Argument must be not null");
+        Machine[] machines = collection.toArray(new Machine[0]);
+        boolean result;
+        nesting++;
+        try {
+            result = super.addAll(Arrays.asList(machines));
+        } finally {
+            nesting--;
+        }
+        if (nesting == 0)
+            recorder.record(TraceOp.ADD_ALL, 0, machines);
+        return result;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Machine> collection) {
+        Objects.requireNonNull(collection, "Argument must be not null");
+        Machine[] machines = collection.toArray(new Machine[0]);
+        boolean result;
+        nesting++;
+        try {
+            result = super.addAll(index, Arrays.asList(machines));
+        } finally {
+            nesting--;
+        }
+        if (nesting == 0)
+            recorder.record(TraceOp.INSERT_ALL, index, machines);
+        return result;
+    }
+
+    @Override
+    public Machine get(int index) {
+        Machine result;
+        nesting++;
+        try {
+            result = super.get(index);
+        } finally {
+            nesting--;
+        }
+        record(TraceOp.GET, index, null);
+        return result;
+    }
+
+    @Override
+    public Machine set(int index, Machine element) {
+        Machine result;
+        nesting++;
+        try {
+            result = super.set(index, element);
+        } finally {
+            nesting--;
+        }
+        record(TraceOp.SET, index, element);
+        return result;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        int result;
+        nesting++;
+        try {
+            result = super.indexOf(o);
+        } finally {
+            nesting--;
+        }
+        if (o == null || o instanceof Machine)
+            record(TraceOp.INDEX_OF, 0, (Machine) o);
+        return result;
+    }
+
+    @Override
+    public Machine remove(int index) {
+        Machine result;
+        nesting++;
+        try {
+            result = super.remove(index);
+        } finally {
+            nesting--;
+        }
+        record(TraceOp.REMOVE, index, null);
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        boolean result;
+        nesting++;
+        try {
+            result = super.remove(object);
+        } finally {
+            nesting--;
+        }
+        if (object == null || object instanceof Machine)
+            record(TraceOp.REMOVE_OBJECT, 0, (Machine) object);
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        nesting++;
+        try {
+            super.clear();
+        } finally {
+            nesting--;
+        }
+        record(TraceOp.CLEAR, 0, null);
+    }
+
+    @Override
+    public Iterator<Machine> iterator() {
+        Iterator<Machine> iterator = super.iterator();
+        return new Iterator<Machine>() {
+            private boolean recorded;
+
+            @Override
+            public boolean hasNext() {
+                boolean result = iterator.hasNext();
+                if (!result && !recorded) {
+                    recorded = true;
+                    record(TraceOp.ITERATE, size(), null);
+                }
+                return result;
+            }
+
+            @Override
+            public Machine next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    private void record(TraceOp op, int index, Machine machine) {
+        if (nesting == 0)
+            recorder.record(op, index, machine);
+    }
+}
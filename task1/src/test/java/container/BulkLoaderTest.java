@@ -0,0 +1,89 @@
+package container;
+
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BulkLoaderTest {
+
+    private static final int THREADS = 4;
+    private static final int PER_THREAD = 1000;
+
+    private static void produce(BulkLoader loader, boolean sequenced) throws InterruptedException {
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    int number = first + i * THREADS;
+                    Machine machine = new Lathe(number, 0, "Dip " + number, 300, 4000, true);
+                    if (sequenced)
+                        loader.add(number, machine);
+                    else
+                        loader.add(machine);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+    }
+
+    @Test
+    public void orderedLoaderAppendsInSequenceOrder() throws InterruptedException {
+        MachineList listM = new MachineList();
+        listM.add(new Lathe(-1, 0, "first", 1, 1, false));
+        BulkLoader loader = new BulkLoader(listM, true);
+        produce(loader, true);
+        Assert.assertEquals(loader.publish(), THREADS * PER_THREAD);
+        Assert.assertEquals(listM.size(), THREADS * PER_THREAD + 1);
+        for (int i = 0; i < listM.size(); i++)
+            Assert.assertEquals(listM.get(i).getPower(), i - 1);
+    }
+
+    @Test
+    public void publishDuringProductionKeepsSequenceOrder() throws InterruptedException {
+        MachineList listM = new MachineList();
+        BulkLoader loader = new BulkLoader(listM, true);
+        Object lock = new Object();
+        int[] next = new int[1];
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < PER_THREAD; i++) {
+                    synchronized (lock) {
+                        int number = next[0]++;
+                        loader.add(number, new Lathe(number, 0, "Dip " + number, 300, 4000, true));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread thread : threads)
+                running |= thread.isAlive();
+            loader.publish();
+        }
+        loader.publish();
+        Assert.assertEquals(listM.size(), THREADS * PER_THREAD);
+        for (int i = 0; i < listM.size(); i++)
+            Assert.assertEquals(listM.get(i).getPower(), i);
+    }
+
+    @Test
+    public void unorderedLoaderAppendsEverything() throws InterruptedException {
+        MachineList listM = new MachineList();
+        BulkLoader loader = new BulkLoader(listM);
+        produce(loader, false);
+        Assert.assertEquals(loader.publish(), THREADS * PER_THREAD);
+        Assert.assertEquals(loader.publish(), 0);
+        boolean[] seen = new boolean[THREADS * PER_THREAD];
+        for (int i = 0; i < listM.size(); i++)
+            seen[listM.get(i).getPower()] = true;
+        for (boolean b : seen)
+            Assert.assertTrue(b);
+    }
+}
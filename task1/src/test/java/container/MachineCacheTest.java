@@ -0,0 +1,76 @@
+package container;
+
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MachineCacheTest {
+
+    private static Machine lathe(long id) {
+        Machine machine = new Lathe((int) id, 0, "Dip " + id, 300, 4000, true);
+        machine.setId(id);
+        return machine;
+    }
+
+    @Test
+    public void lruEvictsLeastRecentlyUsed() {
+        MachineCache cache = MachineCache.lru(3);
+        List<Machine> evicted = new ArrayList<>();
+        cache.setEvictionListener((machine, cause) -> {
+            Assert.assertEquals(cause, MachineEvictionListener.Cause.CAPACITY);
+            evicted.add(machine);
+        });
+        for (long id = 1; id <= 3; id++)
+            cache.put(lathe(id));
+        Assert.assertNotNull(cache.get(1));
+        cache.put(lathe(4));
+        Assert.assertEquals(evicted.size(), 1);
+        Assert.assertEquals(evicted.get(0).getId(), 2);
+        Assert.assertNull(cache.get(2));
+        Assert.assertEquals(cache.get(5, MachineCacheTest::lathe).getId(), 5);
+        Assert.assertEquals(evicted.get(1).getId(), 3);
+        Assert.assertEquals(cache.size(), 3);
+        Assert.assertEquals(cache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 2);
+        Assert.assertEquals(cache.getEvictions(), 2);
+        Assert.assertEquals(cache.getHitRate(), 1 / 3.0, 1e-9);
+        long[] order = new long[3];
+        int i = 0;
+        for (Machine machine : cache.toList())
+            order[i++] = machine.getId();
+        Assert.assertArrayEquals(order, new long[]{1, 4, 5});
+    }
+
+    @Test
+    public void ttlExpiresLazily() {
+        long[] now = {0};
+        MachineCache cache = new MachineCache(100, MachineCache.Policy.TTL, 100, () -> now[0]);
+        List<Machine> expired = new ArrayList<>();
+        cache.setEvictionListener((machine, cause) -> {
+            if (cause == MachineEvictionListener.Cause.EXPIRED)
+                expired.add(machine);
+        });
+        for (long id = 1; id <= 50; id++) {
+            now[0] = id;
+            cache.put(lathe(id));
+        }
+        now[0] = 120;
+        Assert.assertNull(cache.get(5));
+        Assert.assertNotNull(cache.get(25));
+        Assert.assertEquals(expired.size(), 20);
+        Assert.assertEquals(cache.size(), 30);
+        now[0] = 1000;
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.getExpirations(), 50);
+        for (long id = 1; id <= 500; id++)
+            cache.put(lathe(id));
+        Assert.assertEquals(cache.size(), 100);
+        Assert.assertEquals(cache.getEvictions(), 400);
+        Assert.assertEquals(cache.remove(500).getId(), 500);
+        Assert.assertNull(cache.get(500));
+    }
+}
@@ -0,0 +1,114 @@
+package container;
+
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MachineListBatchTest {
+
+    private static Machine lathe(int number) {
+        return new Lathe(number, 0, "Dip " + number, 300, 4000, true);
+    }
+
+    @Test
+    public void batchMatchesSeparateEdits() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int size = random.nextInt(50);
+            MachineList listM = new MachineList();
+            for (int i = 0; i < size; i++)
+                listM.add(lathe(i));
+            List<Machine> copy = new ArrayList<>();
+            listM.addListener(new MachineListListener() {
+                @Override
+                public void added(int index, Machine machine) {
+                    copy.add(index, machine);
+                }
+
+                @Override
+                public void replaced(int index, Machine oldMachine, Machine newMachine) {
+                    Assert.assertSame(copy.set(index, newMachine), oldMachine);
+                }
+
+                @Override
+                public void removed(int index, Machine machine) {
+                    Assert.assertSame(copy.remove(index), machine);
+                }
+
+                @Override
+                public void cleared() {
+                    copy.clear();
+                }
+            });
+            copy.addAll(listM);
+            // expected contents: inserts before each original slot, then the slot itself
+            List<List<Machine>> before = new ArrayList<>();
+            List<Machine> slots = new ArrayList<>();
+            for (int i = 0; i <= size; i++) {
+                before.add(new ArrayList<>());
+                slots.add(i < size ? listM.get(i) : null);
+            }
+            boolean[] touched = new boolean[size];
+            MachineListBatch batch = new MachineListBatch(listM);
+            for (int k = random.nextInt(20); k > 0; k--) {
+                int index = random.nextInt(size + 1);
+                Machine machine = lathe(1000 + k);
+                if (index == size || touched[index] || random.nextBoolean()) {
+                    batch.add(index, machine);
+                    before.get(index).add(machine);
+                } else {
+                    touched[index] = true;
+                    if (random.nextBoolean()) {
+                        batch.set(index, machine);
+                        slots.set(index, machine);
+                    } else {
+                        batch.remove(index);
+                        slots.set(index, null);
+                    }
+                }
+            }
+            List<Machine> expected = new ArrayList<>();
+            for (int i = 0; i <= size; i++) {
+                expected.addAll(before.get(i));
+                if (slots.get(i) != null)
+                    expected.add(slots.get(i));
+            }
+            batch.apply();
+            Assert.assertTrue(batch.isEmpty());
+            Assert.assertArrayEquals(expected.toArray(), listM.toArray());
+            Assert.assertArrayEquals(expected.toArray(), copy.toArray());
+        }
+    }
+
+    @Test
+    public void invalidBatchChangesNothing() {
+        MachineList listM = new MachineList();
+        for (int i = 0; i < 5; i++)
+            listM.add(lathe(i));
+        Object[] original = listM.toArray();
+        long version = listM.version();
+        MachineListBatch batch = new MachineListBatch(listM).add(0, lathe(10)).remove(2).remove(2);
+        try {
+            batch.apply();
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            // removed twice
+        }
+        batch.clear();
+        batch.add(5, lathe(11)).set(5, lathe(12));
+        try {
+            batch.apply();
+            Assert.fail();
+        } catch (IndexOutOfBoundsException expected) {
+            // set after the last element
+        }
+        Assert.assertEquals(2, batch.size());
+        Assert.assertArrayEquals(original, listM.toArray());
+        Assert.assertEquals(version, listM.version());
+    }
+}
@@ -7,8 +7,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.function.Predicate;
 
 public class MachineListTest {
@@ -221,7 +225,7 @@ public class MachineListTest {
     public void iteratorPredicateHasNextFalse() {
         listM.setPredicates(predicates);
         Iterator<Machine> itr = listM.iterator();
-        itr.hasNext();
+        itr.next();
         Assert.assertFalse(itr.hasNext());
     }
 
@@ -229,7 +233,7 @@ public class MachineListTest {
     public void iteratorPredicateHasNextFalseOverBound() {
         listM.setPredicates(predicates);
         Iterator<Machine> itr = listM.iterator();
-        itr.hasNext();
+        itr.next();
         itr.hasNext();
         itr.hasNext();
         Assert.assertFalse(itr.hasNext());
@@ -239,7 +243,7 @@ public class MachineListTest {
     public void iteratorPredicateHasNextTrue() {
         listM.setPredicates(predicates);
         Iterator<Machine> itr = listM.iterator();
-        Assert.assertFalse(itr.hasNext());
+        Assert.assertTrue(itr.hasNext());
     }
 
     @Test(expected = NoSuchElementException.class)
@@ -249,4 +253,147 @@ public class MachineListTest {
         itr.next();
         itr.next();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void sinkAppendsBuilderFields() {
+        Lathe.Builder builder = new Lathe.Builder();
+        builder.power(2).weight(2).model("Dip 200").maxDiameter(200).maxLengthDetail(2000).to(listM.sink());
+        builder.reset().model("1k62").to(listM.sink());
+        Assert.assertEquals(listM.size(), 4);
+        Assert.assertEquals(listM.get(2), machine2);
+        Assert.assertEquals(listM.get(3), new Lathe(0, 0, "1k62", 0, 0, false));
+    }
+
+    @Test
+    public void compactStoreKeepsMachines() {
+        CompactMachineStore store = new CompactMachineStore(1);
+        machine1.setId(42);
+        for (Machine m : listM)
+            store.add(m);
+        store.add(machine2);
+        Assert.assertEquals(store.size(), 3);
+        Assert.assertEquals(store.getId(0), Machine.NO_ID);
+        Assert.assertEquals(store.get(1).getId(), 42);
+        Assert.assertEquals(store.getId(2), Machine.NO_ID);
+        Assert.assertEquals(store.get(2), machine2);
+        Assert.assertEquals(store.getModel(1), "1k62");
+        Assert.assertArrayEquals(store.toMachineList().toArray(), new Machine[]{machine, machine1, machine2});
+    }
+
+    @Test
+    public void footprintCountsSharedStringsOnce() {
+        listM.add(machine);
+        FootprintAnalyzer.Report report = FootprintAnalyzer.COMPRESSED_OOPS.analyze(listM);
+        Assert.assertEquals(report.getClasses().get(Lathe.class).getCount(), 2);
+        Assert.assertEquals(report.getTotalBytes(),
+                report.getContainerBytes() + report.getClasses().get(Lathe.class).getRetainedBytes());
+
+        MachineList lathes = new MachineList();
+        CompactMachineStore store = new CompactMachineStore();
+        String[] models = {"1k62", "16k20", "Dip 300"};
+        for (int i = 0; i < 1000; i++) {
+            Machine lathe = new Lathe(i, i, models[i % 3], 200 + i, 2000, i % 2 == 0);
+            lathes.add(lathe);
+            store.add(lathe);
+        }
+        long listBytes = FootprintAnalyzer.COMPRESSED_OOPS.analyze(lathes).getTotalBytes();
+        long storeBytes = FootprintAnalyzer.COMPRESSED_OOPS.analyze(store).getTotalBytes();
+        Assert.assertTrue(storeBytes * 3 < listBytes * 2);
+    }
+
+    @Test
+    public void subListClearRemovesOnlyThePage() {
+        listM.add(machine2);
+        listM.add(machine);
+        listM.subList(1, 3).clear();
+        Assert.assertEquals(listM.size(), 2);
+        Assert.assertEquals(listM.get(0), machine);
+        Assert.assertEquals(listM.get(1), machine);
+    }
+
+    @Test
+    public void nestedSubListWritesThrough() {
+        listM.add(machine2);
+        List<Machine> page = listM.subList(1, 3);
+        List<Machine> inner = page.subList(1, 2);
+        inner.add(0, machine);
+        Assert.assertEquals(page.size(), 3);
+        Assert.assertEquals(listM.size(), 4);
+        Assert.assertEquals(listM.get(2), machine);
+        Assert.assertEquals(page.remove(0), machine1);
+        Assert.assertEquals(listM.size(), 3);
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void subListDetectsModificationOfList() {
+        List<Machine> page = listM.subList(0, 1);
+        listM.add(machine2);
+        page.get(0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void subListChecksRange() {
+        listM.subList(0, 3);
+    }
+
+    @Test
+    public void listIteratorMovesBothWays() {
+        listM.add(machine2);
+        ListIterator<Machine> iterator = listM.listIterator(1);
+        Assert.assertEquals(iterator.next(), machine1);
+        iterator.remove();
+        iterator.add(machine);
+        Assert.assertEquals(iterator.previous(), machine);
+        Assert.assertEquals(iterator.previousIndex(), 0);
+        Assert.assertArrayEquals(listM.toArray(), new Machine[]{machine, machine, machine2});
+    }
+
+    @Test
+    public void idLookupFollowsShifts() {
+        Random random = new Random(5);
+        MachineList list = new MachineList();
+        List<Machine> reference = new ArrayList<>();
+        long nextId = 1;
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(6);
+            if (op < 2 || reference.isEmpty()) {
+                Machine lathe = new Lathe(step, 0, "Dip", 300, 4000, true);
+                lathe.setId(nextId++);
+                int index = random.nextInt(reference.size() + 1);
+                list.add(index, lathe);
+                reference.add(index, lathe);
+            } else if (op == 2) {
+                long id = reference.get(random.nextInt(reference.size())).getId();
+                Assert.assertSame(list.removeById(id), reference.remove(indexOfId(reference, id)));
+            } else if (op == 3) {
+                Machine lathe = new Lathe(step, 1, "1k62", 250, 2500, false);
+                lathe.setId(nextId++);
+                long id = reference.get(random.nextInt(reference.size())).getId();
+                Assert.assertSame(list.replaceById(id, lathe), reference.set(indexOfId(reference, id), lathe));
+            } else {
+                long id = 1 + random.nextInt((int) nextId);
+                Assert.assertEquals(list.indexOfId(id), indexOfId(reference, id));
+            }
+        }
+        for (Machine lathe : reference)
+            Assert.assertSame(list.getById(lathe.getId()), lathe);
+        list.clear();
+        Assert.assertNull(list.getById(1));
+    }
+
+    private static int indexOfId(List<Machine> machines, long id) {
+        for (int i = 0; i < machines.size(); i++)
+            if (machines.get(i).getId() == id)
+                return i;
+        return -1;
+    }
+
+    @Test
+    public void machinesWithoutIdAreNotIndexed() {
+        machine.setId(7);
+        Assert.assertEquals(listM.indexOfId(7), 0);
+        listM.sort((a, b) -> Integer.compare(b.getPower(), a.getPower()));
+        Assert.assertEquals(listM.indexOfId(7), 1);
+        Assert.assertNull(listM.getById(Machine.NO_ID));
+    }
+}
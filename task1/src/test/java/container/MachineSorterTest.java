@@ -0,0 +1,57 @@
+package container;
+
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class MachineSorterTest {
+
+    private MachineList listM;
+    private List<Machine> expected;
+
+    @Before
+    public void init() {
+        listM = new MachineList();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            if (random.nextBoolean())
+                listM.add(new Lathe(random.nextInt(50) - 25, random.nextInt(10), "Dip " + i, 300, 4000, true));
+            else
+                listM.add(new CncMilling(random.nextInt(50) - 25, random.nextInt(10), "6P13 " + i,
+                        random.nextInt(3000), 500, 4, "Fanuc", 3));
+        }
+        expected = new ArrayList<>(listM.subList(0, listM.size()));
+    }
+
+    @Test
+    public void radixSortIsStableOverSeveralKeys() {
+        MachineSorter.sort(listM, MachineSorter.WEIGHT, MachineSorter.POWER);
+        expected.sort(Comparator.comparingInt(Machine::getWeight).thenComparingInt(Machine::getPower));
+        Assert.assertArrayEquals(listM.toArray(), expected.toArray());
+    }
+
+    @Test
+    public void parallelSortMatchesComparatorSort() {
+        MachineSorter.parallelSort(listM, MachineSorter.MAX_SPINDLE_SPEED);
+        expected.sort(Comparator.comparingInt(MachineSorter.MAX_SPINDLE_SPEED));
+        Assert.assertArrayEquals(listM.toArray(), expected.toArray());
+    }
+
+    @Test
+    public void smallListsAreSortedToo() {
+        MachineList small = new MachineList();
+        small.addAll(expected.subList(0, 10));
+        MachineSorter.sort(small, MachineSorter.POWER);
+        List<Machine> sorted = new ArrayList<>(expected.subList(0, 10));
+        sorted.sort(Comparator.comparingInt(Machine::getPower));
+        Assert.assertArrayEquals(small.toArray(), sorted.toArray());
+    }
+}
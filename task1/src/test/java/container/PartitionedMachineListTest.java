@@ -0,0 +1,60 @@
+package container;
+
+import constant.TypeMillingMachine;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.UniversalMilling;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class PartitionedMachineListTest {
+
+    private Lathe lathe = new Lathe(1, 1, "1k62", 250, 2500, true);
+    private Lathe lathe1 = new Lathe(2, 2, "Dip 300", 300, 4000, true);
+    private CncMilling cnc = new CncMilling(15, 3000, "DMU 50", 14000, 5000, 2, "Heidenhain", 5);
+    private UniversalMilling universal = new UniversalMilling(7, 2100, "6P82", 1600, 1250, 1,
+            TypeMillingMachine.HORIZONTAL, 0.05);
+    private PartitionedMachineList listM;
+
+    @Before
+    public void init() {
+        listM = new PartitionedMachineList(Arrays.asList(lathe, cnc, universal));
+    }
+
+    @Test
+    public void addByIndexKeepsGlobalOrder() {
+        listM.add(1, lathe1);
+        listM.add(0, null);
+        Assert.assertEquals(listM, Arrays.asList(null, lathe, lathe1, cnc, universal));
+        Assert.assertEquals(listM.findLathes(l -> true), Arrays.asList(lathe, lathe1));
+    }
+
+    @Test
+    public void insertBeforeSameKindKeepsPartitionOrder() {
+        listM.add(0, lathe1);
+        Assert.assertEquals(listM.findLathes(l -> true), Arrays.asList(lathe1, lathe));
+        Assert.assertEquals(listM.get(1), lathe);
+    }
+
+    @Test
+    public void removeAndSetAcrossPartitions() {
+        listM.add(lathe1);
+        Assert.assertEquals(listM.remove(1), cnc);
+        Assert.assertEquals(listM.set(0, universal), lathe);
+        Assert.assertEquals(listM, Arrays.asList(universal, universal, lathe1));
+        Assert.assertEquals(listM.findLathes(l -> l.isThread()), Collections.singletonList(lathe1));
+        Assert.assertEquals(listM.count(CncMilling.class), 0);
+        Assert.assertEquals(listM.findUniversalMillings(u -> u.getDegreeLimb() > 0).size(), 2);
+    }
+
+    @Test
+    public void findScansOnlyOneType() {
+        Assert.assertEquals(listM.findCncMillings(c -> c.getNumberAix() == 5), Collections.singletonList(cnc));
+        Assert.assertEquals(listM.findLathes(l -> l.getMaxDiameter() > 300), Collections.<Machine>emptyList());
+    }
+}
@@ -0,0 +1,154 @@
+package container;
+
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class VersionedMachineListTest {
+
+    private static Machine lathe(int number) {
+        return new Lathe(number, 0, "Dip " + number, 300, 4000, true);
+    }
+
+    @Test
+    public void modificationsMatchArrayList() {
+        Random random = new Random(17);
+        VersionedMachineList list = new VersionedMachineList();
+        List<Machine> reference = new ArrayList<>();
+        for (int step = 0; step < 20000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5 || reference.isEmpty()) {
+                int index = random.nextInt(reference.size() + 1);
+                list.add(index, lathe(step));
+                reference.add(index, lathe(step));
+            } else if (op < 7) {
+                int index = random.nextInt(reference.size());
+                Assert.assertEquals(list.remove(index), reference.remove(index));
+            } else {
+                int index = random.nextInt(reference.size());
+                Assert.assertEquals(list.set(index, lathe(-step)), reference.set(index, lathe(-step)));
+            }
+        }
+        Assert.assertEquals(list.version(), 20000);
+        Assert.assertEquals(list, reference);
+        Assert.assertArrayEquals(list.snapshot().toMachineList().toArray(), reference.toArray());
+    }
+
+    @Test
+    public void bulkModificationsPublishOneVersion() {
+        Random random = new Random(23);
+        VersionedMachineList list = new VersionedMachineList();
+        List<Machine> reference = new ArrayList<>();
+        for (int step = 0; step < 300; step++) {
+            List<Machine> batch = new ArrayList<>();
+            for (int i = random.nextInt(600); i > 0; i--)
+                batch.add(lathe(random.nextInt(1000)));
+            long version = list.version();
+            int op = random.nextInt(5);
+            boolean changed;
+            if (op == 0) {
+                int index = random.nextInt(reference.size() + 1);
+                changed = list.addAll(index, batch);
+                Assert.assertEquals(changed, reference.addAll(index, batch));
+            } else if (op == 1) {
+                int power = random.nextInt(1000);
+                changed = list.removeIf(m -> m.getPower() % 7 == power % 7);
+                Assert.assertEquals(changed, reference.removeIf(m -> m.getPower() % 7 == power % 7));
+            } else if (op == 2) {
+                changed = list.removeAll(batch.subList(0, Math.min(3, batch.size())));
+                Assert.assertEquals(changed, reference.removeAll(batch.subList(0, Math.min(3, batch.size()))));
+            } else if (op == 3 && !reference.isEmpty()) {
+                Machine machine = reference.get(random.nextInt(reference.size()));
+                changed = list.remove(machine);
+                Assert.assertEquals(changed, reference.remove(machine));
+            } else {
+                int from = random.nextInt(reference.size() + 1);
+                int to = from + random.nextInt(reference.size() - from + 1);
+                changed = from < to;
+                list.subList(from, to).clear();
+                reference.subList(from, to).clear();
+            }
+            Assert.assertEquals(list.version(), changed ? version + 1 : version);
+            Assert.assertEquals(list, reference);
+        }
+        Assert.assertTrue(list.retainAll(reference.subList(0, reference.size() / 2)));
+        Assert.assertTrue(reference.retainAll(new ArrayList<>(reference.subList(0, reference.size() / 2))));
+        Assert.assertEquals(list, reference);
+    }
+
+    @Test
+    public void snapshotKeepsItsVersion() {
+        VersionedMachineList list = new VersionedMachineList();
+        for (int i = 0; i < 1000; i++)
+            list.add(lathe(i));
+        VersionedMachineList.Snapshot snapshot = list.snapshot();
+        list.remove(0);
+        list.set(10, lathe(-1));
+        list.clear();
+        Assert.assertEquals(list.size(), 0);
+        Assert.assertEquals(snapshot.size(), 1000);
+        int i = 0;
+        for (Machine machine : snapshot)
+            Assert.assertEquals(machine.getPower(), i++);
+        Assert.assertEquals(list.getPinnedVersions(), 1);
+        Assert.assertEquals(list.getOldestPinnedVersion(), 1000);
+        try (VersionedMachineList.Snapshot again = list.snapshot(1000)) {
+            Assert.assertEquals(again.get(999).getPower(), 999);
+            snapshot.close();
+            Assert.assertEquals(list.getPinnedVersions(), 1);
+        }
+        Assert.assertEquals(list.getPinnedVersions(), 0);
+        try {
+            list.snapshot(1000);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+            // released
+        }
+    }
+
+    @Test
+    public void readersSeeConsistentVersions() throws InterruptedException {
+        VersionedMachineList list = new VersionedMachineList();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> failure = new AtomicReference<>();
+        Thread[] readers = new Thread[3];
+        for (int r = 0; r < readers.length; r++) {
+            readers[r] = new Thread(() -> {
+                while (!done.get()) {
+                    try (VersionedMachineList.Snapshot snapshot = list.snapshot()) {
+                        int i = 0;
+                        for (Machine machine : snapshot)
+                            if (machine.getPower() != i++)
+                                failure.set("torn version " + snapshot.version());
+                        if (i != snapshot.size())
+                            failure.set("wrong size " + snapshot.version());
+                    }
+                }
+            });
+            readers[r].start();
+        }
+        Random random = new Random(1);
+        for (int step = 0; step < 20000; step++) {
+            if (list.isEmpty() || random.nextInt(3) > 0)
+                list.add(lathe(list.size()));
+            else if (random.nextBoolean())
+                list.remove(list.size() - 1);
+            else {
+                int index = random.nextInt(list.size());
+                list.set(index, lathe(index));
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers)
+            reader.join();
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(list.getPinnedVersions(), 0);
+    }
+}
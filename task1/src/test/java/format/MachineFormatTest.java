@@ -0,0 +1,60 @@
+package format;
+
+import constant.TypeMillingMachine;
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.UniversalMilling;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class MachineFormatTest {
+
+    private MachineList listM;
+
+    @Before
+    public void init() {
+        listM = new MachineList();
+        listM.add(new Lathe(-5, 10, "Dip \"300\"", 300, 4000, true));
+        listM.add(new CncMilling(1, 2, "6P13, F3", 2000, 500, 4, null, 3));
+        listM.add(new UniversalMilling(0, Integer.MIN_VALUE, null, 1, 2, 3, TypeMillingMachine.BORING, 0.5));
+    }
+
+    @Test
+    public void writesJson() throws IOException {
+        StringBuilder out = new StringBuilder();
+        MachineFormat.JSON.write(listM, out);
+        Assert.assertEquals(out.toString(), "["
+                + "{\"type\":\"Lathe\",\"power\":-5,\"weight\":10,\"model\":\"Dip \\\"300\\\"\","
+                + "\"maxDiameter\":300,\"maxLengthDetail\":4000,\"thread\":true},"
+                + "{\"type\":\"CncMilling\",\"power\":1,\"weight\":2,\"model\":\"6P13, F3\",\"maxSpindleSpeed\":2000,"
+                + "\"maxMillingSped\":500,\"tableArea\":4,\"softwareName\":null,\"numberAix\":3},"
+                + "{\"type\":\"UniversalMilling\",\"power\":0,\"weight\":-2147483648,\"model\":null,"
+                + "\"maxSpindleSpeed\":1,\"maxMillingSped\":2,\"tableArea\":3,\"typeMilling\":\"BORING\","
+                + "\"degreeLimb\":0.5}]");
+    }
+
+    @Test
+    public void writesCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MachineFormat.CSV.write(listM, out);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        Assert.assertEquals(lines.length, 4);
+        Assert.assertEquals(lines[1], "Lathe,-5,10,\"Dip \"\"300\"\"\",300,4000,true,,,,,,,");
+        Assert.assertEquals(lines[2], "CncMilling,1,2,\"6P13, F3\",,,,2000,500,4,,3,,");
+        Assert.assertEquals(lines[3], "UniversalMilling,0,-2147483648,,,,,1,2,3,,,BORING,0.5");
+    }
+
+    @Test
+    public void toStringStopsAtLastElement() {
+        Assert.assertEquals(new MachineList().toString(), "[]");
+        MachineList one = new MachineList();
+        one.add(listM.get(0));
+        Assert.assertEquals(one.toString(), "[" + listM.get(0) + "]");
+    }
+}
@@ -0,0 +1,82 @@
+package query;
+
+import container.MachineList;
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+public class AdaptivePredicateTest {
+
+    @Test
+    public void selectiveConjunctMovesFirst() {
+        Predicate<Machine> model = m -> m.getModel().startsWith("Dip");
+        Predicate<Machine> power = m -> m.getPower() == 7;
+        AdaptivePredicate<Machine> predicate = AdaptivePredicate.<Machine>of(4, 8, model).and(power);
+        MachineList listM = new MachineList();
+        for (int i = 0; i < 1000; i++)
+            listM.add(new Lathe(i % 10, i, "Dip " + i, 300, 4000, true));
+        listM.setPredicates(predicate);
+        int matches = 0;
+        for (Machine m : listM) {
+            Assert.assertEquals(m.getPower(), 7);
+            matches++;
+        }
+        Assert.assertEquals(matches, 100);
+        Assert.assertSame(predicate.getOrder().get(0), power);
+    }
+
+    @Test
+    public void filtersLikePredicateAnd() {
+        MachineList listM = new MachineList();
+        for (int i = 0; i < 200; i++)
+            listM.add(new Lathe(i % 3, i % 5, "1k62", 300, 4000, true));
+        Predicate<Machine> first = m -> m.getPower() > 0;
+        Predicate<Machine> second = m -> m.getWeight() == 1;
+        List<Machine> expected = new ArrayList<>();
+        for (Machine m : listM)
+            if (first.and(second).test(m))
+                expected.add(m);
+        listM.setPredicates(first, second);
+        List<Machine> actual = new ArrayList<>();
+        for (Machine m : listM)
+            actual.add(m);
+        Assert.assertEquals(actual, expected);
+    }
+
+    @Test
+    public void iteratorTestsEveryElementOnce() {
+        MachineList listM = new MachineList();
+        for (int i = 0; i < 6; i++)
+            listM.add(new Lathe(i, i, "1k62", 300, 4000, true));
+        AtomicInteger calls = new AtomicInteger();
+        listM.setPredicates(m -> calls.incrementAndGet() > 0 && m.getPower() % 2 == 1, m -> true);
+        int matches = 0;
+        for (Machine m : listM) {
+            Assert.assertEquals(m.getPower() % 2, 1);
+            matches++;
+        }
+        Assert.assertEquals(matches, 3);
+        Assert.assertEquals(calls.get(), 6);
+    }
+
+    @Test
+    public void andCopiesStatistics() {
+        Predicate<Machine> model = m -> m.getModel().startsWith("Dip");
+        AdaptivePredicate<Machine> base = AdaptivePredicate.of(1, 1000, model);
+        Machine lathe = new Lathe(7, 1, "Dip 1", 300, 4000, true);
+        for (int i = 0; i < 5; i++)
+            base.test(lathe);
+        AdaptivePredicate<Machine> extended = base.and(m -> m.getPower() == 7);
+        Assert.assertTrue(extended.toString(), extended.toString().contains("evaluated=5"));
+        for (int i = 0; i < 5; i++)
+            extended.test(lathe);
+        Assert.assertTrue(base.toString(), base.toString().contains("evaluated=5"));
+        Assert.assertTrue(extended.toString(), extended.toString().contains("evaluated=10"));
+    }
+}
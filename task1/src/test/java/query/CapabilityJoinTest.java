@@ -0,0 +1,88 @@
+package query;
+
+import constant.TypeMillingMachine;
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.UniversalMilling;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CapabilityJoinTest {
+
+    private static MachineList machines(Random random) {
+        MachineList list = new MachineList();
+        for (int i = 0; i < 3000; i++) {
+            switch (i % 3) {
+                case 0:
+                    list.add(new Lathe(i, i, "1k62", 100 + random.nextInt(400), 500 + random.nextInt(3000), true));
+                    break;
+                case 1:
+                    list.add(new CncMilling(i, i, "DMU", 14000, 5000, 2, "Fanuc", 3 + random.nextInt(3)));
+                    break;
+                default:
+                    list.add(new UniversalMilling(i, i, "6P82", 1600, 1250, 1, TypeMillingMachine.VERTICAL, 1));
+            }
+        }
+        return list;
+    }
+
+    @Test
+    public void latheJoinMatchesNestedLoop() {
+        Random random = new Random(3);
+        MachineList list = machines(random);
+        int[] diameters = new int[5000];
+        int[] lengths = new int[5000];
+        for (int w = 0; w < diameters.length; w++) {
+            diameters[w] = 50 + random.nextInt(500);
+            lengths[w] = random.nextInt(4000);
+        }
+        CapabilityJoin.Matches matches = CapabilityJoin.lathes(list, diameters, lengths);
+        Assert.assertEquals(matches.workpieces(), 5000);
+        long total = 0;
+        for (int w = 0; w < diameters.length; w++) {
+            int[] expected = new int[list.size()];
+            int count = 0;
+            for (int i = 0; i < list.size(); i++) {
+                Machine machine = list.get(i);
+                if (machine instanceof Lathe && ((Lathe) machine).getMaxDiameter() >= diameters[w]
+                        && ((Lathe) machine).getMaxLengthDetail() >= lengths[w])
+                    expected[count++] = i;
+            }
+            int[] actual = matches.positions(w);
+            Arrays.sort(actual);
+            Assert.assertArrayEquals(actual, Arrays.copyOf(expected, count));
+            total += count;
+        }
+        Assert.assertEquals(matches.total(), total);
+        Assert.assertTrue(total > 0);
+    }
+
+    @Test
+    public void cncJoinSharesSuffixes() {
+        MachineList list = machines(new Random(5));
+        int[] axes = {3, 4, 5, 6, 0};
+        CapabilityJoin.Matches matches = CapabilityJoin.cncMillings(list, axes);
+        for (int w = 0; w < axes.length; w++) {
+            int count = 0;
+            for (Machine machine : list)
+                if (machine instanceof CncMilling && ((CncMilling) machine).getNumberAix() >= axes[w])
+                    count++;
+            Assert.assertEquals(matches.count(w), count);
+            for (int k = 0; k < matches.count(w); k++)
+                Assert.assertTrue(((CncMilling) list.get(matches.get(w, k))).getNumberAix() >= axes[w]);
+        }
+        Assert.assertEquals(matches.count(0), 1000);
+        Assert.assertEquals(matches.count(3), 0);
+        try {
+            matches.get(3, 0);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException expected) {
+            // no match
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package query;
+
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryEngineTest {
+
+    private MachineList listM;
+    private QueryEngine engine;
+
+    @Before
+    public void init() {
+        listM = new MachineList();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 4 == 0)
+                listM.add(new CncMilling(i % 100, i, "6P13 " + i % 50, 2000, 500, 4, "Fanuc", 3));
+            else
+                listM.add(new Lathe(i % 100, i, "Dip " + i % 50, 300, 4000, true));
+        }
+        engine = new QueryEngine(listM);
+        engine.createHashIndex(MachineField.MODEL);
+        engine.createRangeIndex(MachineField.POWER);
+    }
+
+    private MachineList scan(Query query) {
+        MachineList result = new MachineList();
+        for (int i = 0; i < listM.size(); i++)
+            if (query.test(listM.get(i)))
+                result.add(listM.get(i));
+        return result;
+    }
+
+    @Test
+    public void selectiveQueriesUseIndexes() {
+        Query query = Query.where(Condition.between(MachineField.WEIGHT, 0, 500),
+                Condition.eq(MachineField.MODEL, "Dip 7"), Condition.between(MachineField.POWER, 0, 10));
+        Plan plan = engine.plan(query);
+        Assert.assertFalse(plan.isScan());
+        Assert.assertTrue(engine.explain(query), engine.explain(query).contains("hash index: MODEL = 'Dip 7' (rows 20)"));
+        Assert.assertArrayEquals(engine.execute(query).toArray(), scan(query).toArray());
+    }
+
+    @Test
+    public void unselectiveQueriesScan() {
+        Query query = Query.where(Condition.between(MachineField.POWER, 0, 90),
+                Condition.eq(MachineField.TYPE, "Lathe"));
+        Assert.assertTrue(engine.plan(query).isScan());
+        Assert.assertArrayEquals(engine.execute(query).toArray(), scan(query).toArray());
+    }
+
+    @Test
+    public void indexesFollowModifications() {
+        Query query = Query.where(Condition.eq(MachineField.MODEL, "new"));
+        Assert.assertEquals(engine.execute(query).size(), 0);
+        Machine machine = new Lathe(1, 1, "new", 1, 1, false);
+        listM.add(0, machine);
+        listM.set(500, machine);
+        Assert.assertArrayEquals(engine.execute(query).toArray(), new Machine[]{machine, machine});
+        Assert.assertEquals(Query.where(Condition.eq(MachineField.MODEL, "new"), Condition.eq(MachineField.MODEL, "new")),
+                query);
+    }
+
+    @Test
+    public void cacheHitsUntilListChanges() {
+        QueryCache cache = new QueryCache(engine, 1);
+        Query query = Query.where(Condition.eq(MachineField.MODEL, "Dip 7"),
+                Condition.between(MachineField.POWER, 0, 10));
+        Query sameQuery = Query.where(Condition.between(MachineField.POWER, 0, 10),
+                Condition.eq(MachineField.MODEL, "Dip 7"));
+        Assert.assertEquals(cache.get(query), scan(query));
+        Assert.assertSame(cache.get(sameQuery), cache.get(query));
+        Assert.assertEquals(cache.getHits(), 2);
+        listM.set(7, new Lathe(0, 0, "Dip 7", 1, 1, false));
+        Assert.assertEquals(cache.get(query).size(), scan(query).size());
+        Assert.assertEquals(cache.getInvalidations(), 1);
+        cache.get(Query.where());
+        Assert.assertEquals(cache.getEvictions(), 1);
+        Assert.assertEquals(cache.getMisses(), 3);
+    }
+}
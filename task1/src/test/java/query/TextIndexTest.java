@@ -0,0 +1,53 @@
+package query;
+
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextIndexTest {
+
+    private MachineList listM;
+    private Machine dip = new Lathe(0, 0, "Dip 300", 300, 4000, true);
+    private Machine k62 = new Lathe(1, 1, "1k62", 250, 2500, true);
+    private Machine k625 = new Lathe(2, 2, "1K625", 250, 2500, true);
+    private Machine cnc = new CncMilling(3, 3, "6P13F3", 2000, 500, 4, "Fanuc 0i", 3);
+
+    @Before
+    public void init() {
+        listM = new MachineList();
+        listM.add(dip);
+        listM.add(k62);
+        listM.add(cnc);
+    }
+
+    @Test
+    public void findsPrefixesAndSubstrings() {
+        TextIndex index = new TextIndex(listM, MachineField.MODEL);
+        listM.add(k625);
+        Assert.assertEquals(index.startsWith("1k6", true).size(), 2);
+        Assert.assertEquals(index.startsWith("1k6", false).size(), 1);
+        Assert.assertEquals(index.contains("IP 3", true).get(0), dip);
+        Assert.assertEquals(index.contains("k", true).size(), 2);
+        Assert.assertEquals(index.contains("p13f", true).get(0), cnc);
+        Assert.assertTrue(index.contains("xyz", true).isEmpty());
+    }
+
+    @Test
+    public void followsModifications() {
+        TextIndex index = new TextIndex(listM, MachineField.SOFTWARE_NAME);
+        Assert.assertEquals(index.contains("anuc", false).size(), 1);
+        listM.remove(2);
+        Assert.assertTrue(index.contains("anuc", false).isEmpty());
+        Assert.assertEquals(index.getDistinctValues(), 0);
+        listM.add(cnc);
+        listM.add(cnc);
+        listM.set(0, cnc);
+        Assert.assertEquals(index.equalsIgnoreCase("FANUC 0I").size(), 3);
+        listM.clear();
+        Assert.assertTrue(index.startsWith("", true).isEmpty());
+    }
+}
@@ -0,0 +1,109 @@
+package reactive;
+
+import container.MachineList;
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MachinePublisherTest {
+
+    private MachineList listM;
+
+    @Before
+    public void init() {
+        listM = new MachineList();
+        for (int i = 0; i < 10; i++)
+            listM.add(new Lathe(i, i, "Dip " + i, 300, 4000, true));
+    }
+
+    @Test
+    public void emitsOnlyRequestedItems() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new MachinePublisher(listM, m -> m.getPower() % 2 == 0, Runnable::run, 2).subscribe(subscriber);
+        subscriber.subscription.request(3);
+        Assert.assertEquals(subscriber.items.size(), 3);
+        Assert.assertEquals(subscriber.items.get(2).getPower(), 4);
+        Assert.assertFalse(subscriber.completed);
+        subscriber.subscription.request(10);
+        Assert.assertEquals(subscriber.items.size(), 5);
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void completesWithExactDemand() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new MachinePublisher(listM, m -> m.getPower() % 2 == 0, Runnable::run, 2).subscribe(subscriber);
+        subscriber.subscription.request(5);
+        Assert.assertEquals(subscriber.items.size(), 5);
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void skipsNullElements() {
+        MachineList list = new MachineList();
+        list.add(listM.get(0));
+        list.add(null);
+        list.add(listM.get(1));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new MachinePublisher(list, m -> true, Runnable::run, 4).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Assert.assertEquals(subscriber.items.size(), 2);
+        Assert.assertSame(subscriber.items.get(1), listM.get(1));
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void cancelStopsStream() {
+        RecordingSubscriber subscriber = new RecordingSubscriber() {
+            @Override
+            public void onNext(Machine item) {
+                super.onNext(item);
+                subscription.cancel();
+            }
+        };
+        new MachinePublisher(listM, m -> true, Runnable::run, 4).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        Assert.assertEquals(subscriber.items.size(), 1);
+        Assert.assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void nonPositiveRequestFails() {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new MachinePublisher(listM, m -> true, Runnable::run, 4).subscribe(subscriber);
+        subscriber.subscription.request(0);
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<Machine> {
+        Flow.Subscription subscription;
+        final List<Machine> items = new ArrayList<>();
+        boolean completed;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Machine item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
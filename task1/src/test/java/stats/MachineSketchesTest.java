@@ -0,0 +1,118 @@
+package stats;
+
+import constant.TypeMillingMachine;
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.UniversalMilling;
+import org.junit.Assert;
+import org.junit.Test;
+import query.MachineField;
+import sync.MachineHash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class MachineSketchesTest {
+
+    private static Machine machine(int i) {
+        String model = "Model " + i % 300;
+        switch (i % 3) {
+            case 0:
+                return new Lathe(i % 1000, 2000 + i % 500, model, 300, 4000, true);
+            case 1:
+                return new CncMilling(i % 1000, 2000 + i % 500, model, i % 8000, 3000, 400, "Fanuc", 5);
+            default:
+                return new UniversalMilling(i % 1000, 2000 + i % 500, model, i % 8000, 3000, 400,
+                        TypeMillingMachine.VERTICAL, 45);
+        }
+    }
+
+    @Test
+    public void sketchesEstimateAndMerge() {
+        HyperLogLog small = new HyperLogLog();
+        for (long i = 0; i < 100; i++)
+            small.add(MachineHash.hash("Model " + i));
+        Assert.assertEquals(small.estimate(), 100);
+
+        Random random = new Random(7);
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        KllSketch low = new KllSketch();
+        KllSketch high = new KllSketch();
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 200_000; i++)
+            values.add(i);
+        Collections.shuffle(values, random);
+        for (int i = 0; i < values.size(); i++) {
+            int value = values.get(i);
+            (i % 2 == 0 ? left : right).add(random.nextLong());
+            (value < 100_000 ? low : high).add(value);
+        }
+        left.merge(right);
+        Assert.assertEquals(left.estimate(), 200_000, 200_000 * 0.03);
+        Assert.assertTrue(low.getRetained() < 3 * KllSketch.DEFAULT_K + 64);
+        Assert.assertEquals(low.quantile(0.5), 50_000, 100_000 * 0.01);
+        low.merge(high);
+        Assert.assertEquals(low.getCount(), 200_000);
+        Assert.assertEquals(low.getMin(), 0, 0);
+        Assert.assertEquals(low.getMax(), 199_999, 0);
+        for (double q = 0.1; q < 1; q += 0.1)
+            Assert.assertEquals(low.quantile(q), q * 200_000, 200_000 * 0.01);
+        Assert.assertEquals(low.rank(150_000), 0.75, 0.01);
+    }
+
+    @Test
+    public void machineSketchesFollowTheList() {
+        MachineList list = new MachineList();
+        for (int i = 0; i < 30_000; i++)
+            list.add(machine(i));
+        MachineSketches sketches = MachineSketches.attach(list);
+        Assert.assertEquals(sketches.getCount(), 30_000);
+        Assert.assertEquals(sketches.getDistinctModels(), 300, 3);
+        Assert.assertEquals(sketches.quantile(MachineField.POWER, 0.5), 500, 10);
+        Assert.assertEquals(sketches.quantile(MachineField.WEIGHT, 1), 2499, 0);
+        double speed = sketches.quantile(MachineField.MAX_SPINDLE_SPEED, 0.25);
+        int below = 0;
+        for (Machine machine : list)
+            if (MachineField.MAX_SPINDLE_SPEED.appliesTo(machine)
+                    && MachineField.MAX_SPINDLE_SPEED.intValue(machine) <= speed)
+                below++;
+        Assert.assertEquals(below / 20_000.0, 0.25, 0.01);
+
+        for (int i = 30_000; i < 31_000; i++)
+            list.add(machine(i));
+        Assert.assertEquals(sketches.getCount(), 31_000);
+
+        // replace the heavy half: stale machines beyond a quarter force a recount
+        for (int i = 0; i < list.size(); i++)
+            if (list.get(i).getWeight() >= 2250)
+                list.set(i, new Lathe(5, 1000, "Replacement", 300, 4000, false));
+        Assert.assertEquals(sketches.getStale(), 15_500);
+        Assert.assertEquals(sketches.getCount(), 31_000);
+        Assert.assertEquals(sketches.getStale(), 0);
+        Assert.assertEquals(sketches.getDistinctModels(), 301, 3);
+        Assert.assertEquals(sketches.quantile(MachineField.WEIGHT, 0.4), 1000, 0);
+        Assert.assertEquals(sketches.quantile(MachineField.WEIGHT, 1), 2249, 0);
+
+        list.clear();
+        Assert.assertEquals(sketches.getCount(), 0);
+        Assert.assertEquals(sketches.getDistinctModels(), 0);
+        Assert.assertTrue(Double.isNaN(sketches.quantile(MachineField.POWER, 0.5)));
+        sketches.detach();
+        list.add(machine(1));
+        Assert.assertEquals(sketches.getCount(), 0);
+
+        MachineList other = new MachineList();
+        for (int i = 0; i < 3_000; i++)
+            other.add(new Lathe(i, i, "Other " + i % 100, 300, 4000, true));
+        MachineSketches merged = MachineSketches.of(list);
+        merged.merge(MachineSketches.of(other));
+        Assert.assertEquals(merged.getCount(), 3_001);
+        Assert.assertEquals(merged.getDistinctModels(), 101, 2);
+        Assert.assertEquals(merged.quantile(MachineField.MAX_SPINDLE_SPEED, 1), 1, 0);
+    }
+}
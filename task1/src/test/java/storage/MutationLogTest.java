@@ -0,0 +1,146 @@
+package storage;
+
+import constant.TypeMillingMachine;
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.UniversalMilling;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class MutationLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Machine lathe = new Lathe.Builder()
+            .power(10)
+            .weight(1200)
+            .model("1k62")
+            .maxDiameter(250)
+            .maxLengthDetail(2500)
+            .thread(true).build();
+    private Machine cnc = new CncMilling.Builder()
+            .power(15)
+            .weight(3000)
+            .model("DMU 50")
+            .maxSpindleSpeed(14000)
+            .maxMillingSped(5000)
+            .tableArea(2)
+            .softwareName("Heidenhain")
+            .numberAix(5).build();
+    private Machine universal = new UniversalMilling.Builder()
+            .power(7)
+            .weight(2100)
+            .model("6P82")
+            .maxSpindleSpeed(1600)
+            .maxMillingSped(1250)
+            .tableArea(1)
+            .typeMillingM(TypeMillingMachine.HORIZONTAL)
+            .degreeLimb(0.05).build();
+    private Path snapshot;
+    private Path logFile;
+    private MachineList list;
+    private MutationLog log;
+
+    @Before
+    public void init() throws IOException {
+        snapshot = folder.getRoot().toPath().resolve("machines.snapshot");
+        logFile = folder.getRoot().toPath().resolve("machines.log");
+        list = new MachineList();
+        log = MutationLog.open(snapshot, logFile, list);
+    }
+
+    @After
+    public void close() throws IOException {
+        log.close();
+    }
+
+    private MachineList recover() throws IOException {
+        MachineList recovered = new MachineList();
+        MutationLog.open(snapshot, logFile, recovered).close();
+        return recovered;
+    }
+
+    @Test
+    public void recoverReplaysAllOperations() throws IOException {
+        list.add(lathe);
+        list.add(0, cnc);
+        list.addAll(1, Arrays.asList(universal, lathe));
+        list.set(3, universal);
+        list.remove(0);
+        list.remove(lathe);
+        log.sync();
+        Assert.assertArrayEquals(list.toArray(), recover().toArray());
+    }
+
+    @Test
+    public void recoverAfterRemoveAllAndClear() throws IOException {
+        list.addAll(Arrays.asList(lathe, cnc, lathe, universal));
+        list.removeAll(Arrays.asList(lathe));
+        log.sync();
+        Assert.assertArrayEquals(new Machine[]{cnc, universal}, recover().toArray());
+        list.clear();
+        list.add(lathe);
+        log.sync();
+        Assert.assertArrayEquals(new Machine[]{lathe}, recover().toArray());
+    }
+
+    @Test
+    public void recoverFromCheckpointAndLogTail() throws IOException {
+        list.add(lathe);
+        list.add(cnc);
+        log.checkpoint();
+        list.remove(0);
+        list.add(universal);
+        log.sync();
+        Assert.assertArrayEquals(new Machine[]{cnc, universal}, recover().toArray());
+    }
+
+    @Test
+    public void recoverKeepsIdentifiers() throws IOException {
+        lathe.setId(101);
+        cnc.setId(102);
+        list.add(lathe);
+        list.add(universal);
+        log.checkpoint();
+        list.add(cnc);
+        log.sync();
+        MachineList recovered = recover();
+        Assert.assertArrayEquals(new Machine[]{lathe, universal, cnc}, recovered.toArray());
+        Assert.assertEquals(101, recovered.get(0).getId());
+        Assert.assertEquals(Machine.NO_ID, recovered.get(1).getId());
+        Assert.assertEquals(cnc, recovered.getById(102));
+        Assert.assertEquals(lathe, recovered.removeById(101));
+        Assert.assertEquals(-1, recovered.indexOfId(101));
+    }
+
+    @Test
+    public void recoverIgnoresTornTail() throws IOException {
+        list.add(lathe);
+        list.add(cnc);
+        log.sync();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        Assert.assertArrayEquals(new Machine[]{lathe}, recover().toArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void openIfListIsNotEmpty() throws IOException {
+        MachineList listM = new MachineList();
+        listM.add(lathe);
+        MutationLog.open(snapshot, logFile, listM);
+    }
+}
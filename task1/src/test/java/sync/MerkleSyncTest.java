@@ -0,0 +1,120 @@
+package sync;
+
+import constant.TypeMillingMachine;
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.UniversalMilling;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class MerkleSyncTest {
+
+    private static Machine machine(int i) {
+        switch (Math.floorMod(i, 3)) {
+            case 0:
+                return new Lathe(i, 1000 + i, "1k6" + i % 5, 200 + i % 300, 2000 + i, i % 2 == 0);
+            case 1:
+                return new CncMilling(i, 3000, "DMU " + i % 7, 14000, 5000, 2, "Fanuc", 3 + i % 3);
+            default:
+                return new UniversalMilling(i, 2100, "6P82", 1600, 1250, 1,
+                        TypeMillingMachine.values()[Math.floorMod(i, 3)], i % 4 / 100.0);
+        }
+    }
+
+    private static MachineList catalog(int size) {
+        MachineList list = new MachineList();
+        for (int i = 0; i < size; i++)
+            list.add(machine(i));
+        return list;
+    }
+
+    @Test
+    public void hashFollowsEquals() {
+        Assert.assertEquals(MachineHash.hash(machine(7)), MachineHash.hash(machine(7)));
+        Assert.assertNotEquals(MachineHash.hash(machine(7)), MachineHash.hash(machine(8)));
+        Assert.assertEquals(MachineHash.hash(new UniversalMilling(1, 2, "m", 3, 4, 5, TypeMillingMachine.values()[0], 0.0)),
+                MachineHash.hash(new UniversalMilling(1, 2, "m", 3, 4, 5, TypeMillingMachine.values()[0], -0.0)));
+        Assert.assertNotEquals(MachineHash.hash(new Lathe(1, 2, "m", 3, 4, true)),
+                MachineHash.hash(new Lathe(1, 2, "m", 3, 4, false)));
+    }
+
+    @Test
+    public void diffIsProportionalToChanges() {
+        MachineList source = catalog(20000);
+        MachineList target = catalog(20000);
+        target.add(100, machine(-1));
+        target.remove(10000);
+        target.set(15000, machine(-2));
+        Delta delta = MerkleTree.build(source).diff(MerkleTree.build(target));
+        Assert.assertEquals(1, delta.getInserted());
+        Assert.assertEquals(1, delta.getRemoved());
+        Assert.assertEquals(1, delta.getChanged());
+        Assert.assertTrue(delta.toString(), delta.getComparedNodes() < 2000);
+        delta.apply(source);
+        Assert.assertArrayEquals(target.toArray(), source.toArray());
+        Assert.assertTrue(MerkleTree.build(source).diff(MerkleTree.build(target)).isEmpty());
+    }
+
+    @Test
+    public void randomEditsAreReproduced() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            List<Machine> source = catalog(random.nextInt(3000));
+            List<Machine> target = new ArrayList<>(source);
+            for (int k = random.nextInt(60); k > 0; k--) {
+                int position = random.nextInt(target.size() + 1);
+                int op = random.nextInt(3);
+                if (op == 0 || target.isEmpty())
+                    target.add(position, machine(-random.nextInt(1000)));
+                else if (op == 1)
+                    target.remove(Math.min(position, target.size() - 1));
+                else
+                    target.set(Math.min(position, target.size() - 1), machine(-random.nextInt(1000)));
+            }
+            MerkleTree.build(source).diff(MerkleTree.build(target)).apply(source);
+            Assert.assertArrayEquals(target.toArray(), source.toArray());
+        }
+    }
+
+    @Test
+    public void syncOverSocket() throws IOException {
+        MachineList plant = catalog(5000);
+        MachineList replica = catalog(5000);
+        for (int i = 0; i < 5; i++)
+            plant.add(1000 * i, machine(-i));
+        plant.remove(4321);
+        try (SyncServer server = new SyncServer(MerkleTree.build(plant), 0);
+             SyncClient client = new SyncClient(server.getPort())) {
+            Delta delta = client.sync(replica);
+            Assert.assertArrayEquals(plant.toArray(), replica.toArray());
+            Assert.assertTrue(delta.toString(), delta.getInserted() + delta.getChanged() + delta.getRemoved() <= 7);
+            int requests = client.getRequests();
+            Assert.assertTrue(client.sync(replica).isEmpty());
+            Assert.assertEquals(1, client.getRequests() - requests);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void idleClientBlocksNeitherOthersNorClose() throws IOException {
+        MachineList plant = catalog(500);
+        MachineList replica = new MachineList();
+        SyncServer server = new SyncServer(MerkleTree.build(plant), 0);
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            try (SyncClient client = new SyncClient(server.getPort())) {
+                client.sync(replica);
+            }
+            Assert.assertArrayEquals(plant.toArray(), replica.toArray());
+            server.close();
+            Assert.assertEquals(-1, idle.getInputStream().read());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package telemetry;
+
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TelemetryRingTest {
+
+    @Test
+    public void keepsNewestSamplesAndReadsRanges() {
+        TelemetryRing ring = new TelemetryRing(100);
+        Assert.assertEquals(ring.getCapacity(), 128);
+        for (int i = 0; i < 1000; i++)
+            ring.append(i * 100L, i, i % 10, 20 + i % 3);
+        Assert.assertEquals(ring.size(), 127);
+        long[] timestamps = new long[16];
+        double[] values = new double[16];
+        Assert.assertEquals(ring.read(Metric.SPINDLE_SPEED, 0, 87350, timestamps, values), 1);
+        Assert.assertEquals(values[0], 873, 0);
+        Assert.assertEquals(ring.read(Metric.LOAD, 95000, 96000, timestamps, values), 10);
+        Assert.assertEquals(timestamps[9], 95900);
+        Assert.assertEquals(values[9], 9, 0);
+    }
+
+    @Test
+    public void downsamplesIntoBuckets() {
+        TelemetryStore store = new TelemetryStore(64);
+        Machine machine = new Lathe(0, 0, "Dip 300", 300, 4000, true);
+        TelemetryRing ring = store.register(machine);
+        Assert.assertSame(store.register(machine), ring);
+        Assert.assertNull(store.get(new Lathe(0, 0, "Dip 300", 300, 4000, true)));
+        for (int i = 0; i < 40; i++)
+            ring.append(i * 100L, 0, 0, i);
+        Downsampled out = new Downsampled();
+        Assert.assertEquals(ring.downsample(Metric.TEMPERATURE, 500, 4000, 1000, out), 4);
+        Assert.assertEquals(out.getBucketStart(0), 500);
+        Assert.assertEquals(out.getCount(0), 10);
+        Assert.assertEquals(out.getMin(0), 5, 0);
+        Assert.assertEquals(out.getMax(0), 14, 0);
+        Assert.assertEquals(out.getAverage(0), 9.5, 1e-9);
+        Assert.assertEquals(out.getCount(3), 5);
+    }
+
+    @Test
+    public void readsNoTornSamplesWhileWriting() throws InterruptedException {
+        TelemetryRing ring = new TelemetryRing(16);
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2_000_000; i++)
+                ring.append(i, i, i, i);
+        }, "machine-telemetry-writer");
+        writer.start();
+        long[] timestamps = new long[16];
+        double[] values = new double[16];
+        Downsampled out = new Downsampled();
+        while (writer.isAlive()) {
+            int count = ring.read(Metric.TEMPERATURE, 0, Long.MAX_VALUE, timestamps, values);
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(values[i], timestamps[i], 0);
+                if (i > 0)
+                    Assert.assertEquals(timestamps[i], timestamps[i - 1] + 1);
+            }
+            count = ring.downsample(Metric.LOAD, 0, Long.MAX_VALUE, 1, out);
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(out.getCount(i), 1);
+                Assert.assertEquals(out.getMin(i), out.getBucketStart(i), 0);
+            }
+        }
+        writer.join();
+    }
+}
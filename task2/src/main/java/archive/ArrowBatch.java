@@ -0,0 +1,330 @@
+package archive;
+
+import constant.TypeMillingMachine;
+import container.MachineList;
+import entity.Machine;
+import entity.MachineSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Record batch of an Arrow IPC file written by {@code ArrowExporter}, mapped into memory.
+ * The schema in the footer must have the fields of {@link Column} in their order and
+ * layouts. Buffers are handed out as read-only little-endian views of the mapping, so
+ * tools can wrap them as Arrow arrays without copying; the accessors read single values
+ * for checks and small jobs.
+ */
+public final class ArrowBatch implements Closeable {
+    private static final Column[] COLUMNS = Column.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer body;
+    private final int rows;
+    private final long[] nullCounts = new long[COLUMNS.length];
+    private final int[][] offsets = new int[COLUMNS.length][];
+    private final int[][] lengths = new int[COLUMNS.length][];
+
+    private ArrowBatch(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        int magic = ArrowExporter.MAGIC.length;
+        if (size < 8 + 4 + magic || size > Integer.MAX_VALUE)
+            throw new IOException("Not an Arrow file");
+        body = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < magic; i++)
+            if (body.get(i) != ArrowExporter.MAGIC[i] || body.get((int) size - magic + i) != ArrowExporter.MAGIC[i])
+                throw new IOException("Not an Arrow file");
+        try {
+            int footerEnd = (int) size - magic - 4;
+            int footer = FlatBuffers.root(body, footerEnd - body.getInt(footerEnd));
+            checkSchema(FlatBuffers.child(body, footer, 1));
+
+            int batchBlock = firstBlock(FlatBuffers.child(body, footer, 3));
+            int batch = header(batchBlock, ArrowExporter.HEADER_RECORD_BATCH);
+            rows = (int) FlatBuffers.getLong(body, batch, 0, 0);
+            int nodes = FlatBuffers.child(body, batch, 1);
+            int buffers = FlatBuffers.child(body, batch, 2);
+            if (FlatBuffers.length(body, nodes) != COLUMNS.length)
+                throw new IOException("Unexpected number of columns");
+            int buffer = 0;
+            for (Column column : COLUMNS) {
+                int c = column.ordinal();
+                ArrowType type = ArrowType.of(column);
+                nullCounts[c] = body.getLong(FlatBuffers.struct(nodes, c, 16) + 8);
+                offsets[c] = new int[type.getBufferCount()];
+                lengths[c] = new int[type.getBufferCount()];
+                int count = type == ArrowType.DICTIONARY ? 2 : type.getBufferCount();
+                for (int b = 0; b < count; b++)
+                    place(column, b, batchBlock, FlatBuffers.struct(buffers, buffer++, 16));
+            }
+
+            int dictionaryBlock = firstBlock(FlatBuffers.child(body, footer, 2));
+            int dictionary = header(dictionaryBlock, ArrowExporter.HEADER_DICTIONARY_BATCH);
+            if (FlatBuffers.getLong(body, dictionary, 0, 0) != ArrowExporter.DICTIONARY_ID)
+                throw new IOException("Unexpected dictionary");
+            int names = FlatBuffers.child(body, FlatBuffers.child(body, dictionary, 1), 2);
+            for (int b = 1; b < 3; b++)
+                place(Column.TYPE_MILLING, b + 1, dictionaryBlock, FlatBuffers.struct(names, b, 16));
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Not an Arrow file", e);
+        }
+    }
+
+    /** Checks that the fields of the schema are the columns in their order and layouts. */
+    private void checkSchema(int schema) throws IOException {
+        int fields = FlatBuffers.child(body, schema, 1);
+        if (FlatBuffers.length(body, fields) != COLUMNS.length)
+            throw new IOException("Unexpected number of columns");
+        for (Column column : COLUMNS) {
+            int field = FlatBuffers.table(body, fields, column.ordinal());
+            int type = FlatBuffers.getByte(body, field, 2, 0);
+            ArrowType layout = ArrowType.of(column);
+            int expected = layout == ArrowType.BOOL ? ArrowExporter.TYPE_BOOL
+                    : layout == ArrowType.UTF8 || layout == ArrowType.DICTIONARY ? ArrowExporter.TYPE_UTF8
+                    : layout == ArrowType.FLOAT64 ? ArrowExporter.TYPE_FLOATING_POINT : ArrowExporter.TYPE_INT;
+            if (!FlatBuffers.string(body, FlatBuffers.child(body, field, 0)).equals(column.name()) || type != expected
+                    || (layout == ArrowType.DICTIONARY) != (FlatBuffers.child(body, field, 4) >= 0))
+                throw new IOException("Unexpected column " + column);
+        }
+    }
+
+    /** Returns the first {@code Block} struct of a vector of blocks. */
+    private int firstBlock(int blocks) throws IOException {
+        if (FlatBuffers.length(body, blocks) < 1)
+            throw new IOException("Arrow file has no batch");
+        return FlatBuffers.struct(blocks, 0, 24);
+    }
+
+    /** Returns the header of the message a block points to. */
+    private int header(int block, int headerType) throws IOException {
+        int offset = (int) body.getLong(block);
+        if (body.getInt(offset) != ArrowExporter.CONTINUATION)
+            throw new IOException("Unexpected message at " + offset);
+        int message = FlatBuffers.root(body, offset + 8);
+        if (FlatBuffers.getByte(body, message, 1, 0) != headerType)
+            throw new IOException("Unexpected message at " + offset);
+        return FlatBuffers.child(body, message, 2);
+    }
+
+    /** Sets buffer {@code index} of the column from a {@code Buffer} struct of the batch of a block. */
+    private void place(Column column, int index, int block, int buffer) throws IOException {
+        long offset = body.getLong(buffer);
+        long length = body.getLong(buffer + 8);
+        if (offset < 0 || length < 0 || offset + length > body.getLong(block + 16))
+            throw new IOException("Buffer " + index + " of " + column + " is out of the body");
+        /* the body follows the metadata of the message */
+        offsets[column.ordinal()][index] = (int) (body.getLong(block) + body.getInt(block + 8) + offset);
+        lengths[column.ordinal()][index] = (int) length;
+    }
+
+    /**
+     * Maps an export.
+     *
+     * @param path file written by {@code ArrowExporter}
+     * @return batch
+     * @throws IOException if the file can not be read or is not an export
+     */
+    public static ArrowBatch open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new ArrowBatch(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getRowCount() {
+        return rows;
+    }
+
+    public long getNullCount(Column column) {
+        return nullCounts[column.ordinal()];
+    }
+
+    /**
+     * Returns a buffer of a column in the order of {@link ArrowType}.
+     *
+     * @param column column
+     * @param index index of the buffer
+     * @return read-only little-endian view of the buffer
+     * @throws IndexOutOfBoundsException if the column has no such buffer
+     */
+    public ByteBuffer getBuffer(Column column, int index) {
+        int c = column.ordinal();
+        if (index < 0 || index >= offsets[c].length)
+            throw new IndexOutOfBoundsException("index must be from 0 to " + offsets[c].length);
+        ByteBuffer view = body.asReadOnlyBuffer();
+        ((Buffer) view).limit(offsets[c][index] + lengths[c][index]);
+        ((Buffer) view).position(offsets[c][index]);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the {@code KIND} of a row, as in {@link Column#KIND_LATHE} and the others.
+     *
+     * @param row row
+     * @return kind
+     * @throws IndexOutOfBoundsException if the row is out of range
+     */
+    public int getKind(int row) {
+        checkRow(row);
+        return body.get(offset(Column.KIND, 1, row, 1));
+    }
+
+    /**
+     * Returns {@code true} if the value of the column is null in the row.
+     *
+     * @param column column
+     * @param row row
+     * @return {@code true} for null
+     * @throws IndexOutOfBoundsException if the row is out of range
+     */
+    public boolean isNull(Column column, int row) {
+        checkRow(row);
+        if (column == Column.KIND || nullCounts[column.ordinal()] == 0)
+            return false;
+        return !bit(offset(column, 0, row >>> 3, 1), row);
+    }
+
+    /**
+     * Returns an integer value, 0 for null.
+     *
+     * @param column {@code INT32} column
+     * @param row row
+     * @return value
+     */
+    public int getInt(Column column, int row) {
+        return isNull(column, row) ? 0 : body.getInt(offset(column, 1, row, 4));
+    }
+
+    /**
+     * Returns a long value, 0 for null.
+     *
+     * @param column {@code INT64} column
+     * @param row row
+     * @return value
+     */
+    public long getLong(Column column, int row) {
+        return isNull(column, row) ? 0 : body.getLong(offset(column, 1, row, 8));
+    }
+
+    /**
+     * Returns a boolean value, {@code false} for null.
+     *
+     * @param column {@code BOOL} column
+     * @param row row
+     * @return value
+     */
+    public boolean getBoolean(Column column, int row) {
+        return !isNull(column, row) && bit(offset(column, 1, row >>> 3, 1), row);
+    }
+
+    /**
+     * Returns a double value, 0 for null.
+     *
+     * @param column {@code FLOAT64} column
+     * @param row row
+     * @return value
+     */
+    public double getDouble(Column column, int row) {
+        return isNull(column, row) ? 0 : body.getDouble(offset(column, 1, row, 8));
+    }
+
+    /**
+     * Returns a string value or, for a dictionary column, the dictionary entry of the row.
+     *
+     * @param column {@code UTF8} or {@code DICTIONARY} column
+     * @param row row
+     * @return value, null for null
+     */
+    public String getString(Column column, int row) {
+        if (isNull(column, row))
+            return null;
+        int c = column.ordinal();
+        if (ArrowType.of(column) == ArrowType.DICTIONARY)
+            return utf8(offsets[c][2], offsets[c][3], body.get(offset(column, 1, row, 1)));
+        return utf8(offsets[c][1], offsets[c][2], row);
+    }
+
+    /**
+     * Passes every row to the sink, without the identifier.
+     *
+     * @param sink receiver of the machines
+     */
+    public void read(MachineSink sink) {
+        for (int row = 0; row < rows; row++) {
+            int power = getInt(Column.POWER, row);
+            int weight = getInt(Column.WEIGHT, row);
+            String model = getString(Column.MODEL, row);
+            int maxSpindleSpeed = getInt(Column.MAX_SPINDLE_SPEED, row);
+            int maxMillingSped = getInt(Column.MAX_MILLING_SPED, row);
+            int tableArea = getInt(Column.TABLE_AREA, row);
+            switch (getKind(row)) {
+                case Column.KIND_LATHE:
+                    sink.lathe(power, weight, model, getInt(Column.MAX_DIAMETER, row),
+                            getInt(Column.MAX_LENGTH_DETAIL, row), getBoolean(Column.THREAD, row));
+                    break;
+                case Column.KIND_CNC_MILLING:
+                    sink.cncMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                            getString(Column.SOFTWARE_NAME, row), getInt(Column.NUMBER_AIX, row));
+                    break;
+                default:
+                    String type = getString(Column.TYPE_MILLING, row);
+                    sink.universalMilling(power, weight, model, maxSpindleSpeed, maxMillingSped, tableArea,
+                            type == null ? null : TypeMillingMachine.valueOf(type), getDouble(Column.DEGREE_LIMB, row));
+            }
+        }
+    }
+
+    /**
+     * Reads all the rows into a new list, with the identifiers the machines had.
+     *
+     * @return list of the machines
+     */
+    public MachineList toMachineList() {
+        MachineList list = new MachineList(rows);
+        read(list.sink());
+        for (int row = 0; row < rows; row++) {
+            long id = getLong(Column.ID, row);
+            if (id != Machine.NO_ID)
+                list.get(row).setId(id);
+        }
+        return list;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rows)
+            throw new IndexOutOfBoundsException("index must be from 0 to size");
+    }
+
+    private int offset(Column column, int buffer, int index, int width) {
+        return offsets[column.ordinal()][buffer] + index * width;
+    }
+
+    private boolean bit(int position, int row) {
+        return (body.get(position) & 1 << (row & 7)) != 0;
+    }
+
+    private String utf8(int offsetsAt, int data, int index) {
+        int from = body.getInt(offsetsAt + 4 * index);
+        int to = body.getInt(offsetsAt + 4 * index + 4);
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = body.get(data + from + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,491 @@
+package archive;
+
+import constant.TypeMillingMachine;
+import entity.Machine;
+import entity.MachineSink;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Exports machines as an Arrow IPC file with one record batch, which Arrow tools such as
+ * {@code pyarrow.ipc.open_file} read and map without parsing the values.
+ *
+ * <p>Every {@link Column} becomes one field with the layout {@link ArrowType#of(Column)}.
+ * {@code KIND} is an 8-bit integer field holding the kind of the row, the other fields
+ * have a row for every machine and are null where the class of the machine does not
+ * have the field. Strings are UTF-8 with 32-bit offsets and {@code TYPE_MILLING} is
+ * dictionary-encoded with 8-bit indices into the names of {@code TypeMillingMachine}.
+ * Buffers are little-endian and start at multiples of {@value #ALIGNMENT} bytes, as
+ * Arrow recommends.
+ *
+ * <p>The export takes two passes over the machines. The first one counts nulls and
+ * UTF-8 bytes, which fixes the place of every buffer; the second one maps the body of
+ * the record batch and writes every value straight into its buffer, encoding strings
+ * char by char, so nothing is allocated per row. The body must fit into 2 GB.
+ *
+ * <p>File layout, as in the Arrow IPC file format: {@code ARROW1} padded to 8 bytes, the
+ * schema message, the dictionary batch of {@code TYPE_MILLING} and its body, the record
+ * batch message and its body, then the footer with the schema and the places of the
+ * batches, the length of the footer and {@code ARROW1}. Every message is the
+ * continuation marker {@code 0xFFFFFFFF}, the length of its metadata and the metadata
+ * as a FlatBuffer. The column set is fixed, so the FlatBuffers are written by hand
+ * (see {@code FlatBuffers}) and no Arrow library is needed.
+ */
+public final class ArrowExporter {
+    static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+    /** Alignment of the buffers in bytes. */
+    public static final int ALIGNMENT = 64;
+
+    /** {@code MetadataVersion.V5}. */
+    static final int METADATA_VERSION = 4;
+    static final int CONTINUATION = -1;
+    static final long DICTIONARY_ID = 0;
+
+    /* members of the MessageHeader union */
+    static final int HEADER_SCHEMA = 1;
+    static final int HEADER_DICTIONARY_BATCH = 2;
+    static final int HEADER_RECORD_BATCH = 3;
+
+    /* members of the Type union */
+    static final int TYPE_INT = 2;
+    static final int TYPE_FLOATING_POINT = 3;
+    static final int TYPE_UTF8 = 5;
+    static final int TYPE_BOOL = 6;
+
+    private static final int PRECISION_DOUBLE = 2;
+
+    private static final Column[] COLUMNS = Column.values();
+    private static final TypeMillingMachine[] TYPES = TypeMillingMachine.values();
+
+    /** Position of the UTF-8 bytes of the names in the body of the dictionary batch. */
+    private static final int DICTIONARY_DATA = (4 * (TYPES.length + 1) + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+
+    private ArrowExporter() {
+    }
+
+    /**
+     * Exports the machines to a new file.
+     *
+     * @param machines machines to export
+     * @param path file to create or replace
+     * @return number of exported rows
+     * @throws IOException if the file can not be written
+     */
+    public static int export(Collection<? extends Machine> machines, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(machines, channel);
+        }
+    }
+
+    /**
+     * Exports the machines to a channel, replacing its contents. The channel stays open.
+     *
+     * @param machines machines to export, not modified during the export
+     * @param channel channel opened for reading and writing
+     * @return number of exported rows
+     * @throws IOException if the channel can not be written
+     * @throws IllegalArgumentException if a machine has an unknown class or the body exceeds 2 GB
+     * @throws ConcurrentModificationException if the number of machines changed during the export
+     */
+    public static int export(Collection<? extends Machine> machines, FileChannel channel) throws IOException {
+        Objects.requireNonNull(machines, "Argument must be not null");
+        Objects.requireNonNull(channel, "Argument must be not null");
+        Batch batch = new Batch();
+        for (Machine machine : machines)
+            ColumnarArchiveWriter.toSink(Objects.requireNonNull(machine, "Argument must be not null"), batch);
+        batch.place();
+
+        channel.truncate(0);
+        long position = write(channel, 0, ByteBuffer.wrap(Arrays.copyOf(MAGIC, 8)));
+        FlatBuffers.Table schema = schema();
+        position += writeMessage(channel, position, HEADER_SCHEMA, schema, 0);
+
+        ByteBuffer dictionary = dictionaryBody();
+        long dictionaryOffset = position;
+        int dictionaryMetadata = writeMessage(channel, position, HEADER_DICTIONARY_BATCH,
+                dictionaryBatch(), dictionary.remaining());
+        position += dictionaryMetadata;
+        long dictionaryLength = write(channel, position, dictionary);
+        position += dictionaryLength;
+
+        long batchOffset = position;
+        int batchMetadata = writeMessage(channel, position, HEADER_RECORD_BATCH, batch.recordBatch(),
+                batch.bodyLength);
+        position += batchMetadata;
+        MappedByteBuffer body = channel.map(FileChannel.MapMode.READ_WRITE, position, batch.bodyLength);
+        batch.body = body.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        for (Machine machine : machines) {
+            batch.id = machine.getId();
+            ColumnarArchiveWriter.toSink(machine, batch);
+        }
+        if (batch.row != batch.rows)
+            throw new ConcurrentModificationException();
+        body.force();
+        position += batch.bodyLength;
+
+        byte[] footer = FlatBuffers.encode(new FlatBuffers.Table()
+                .addShort(0, METADATA_VERSION)
+                .add(1, schema)
+                .add(2, FlatBuffers.structs(3, dictionaryOffset, dictionaryMetadata, dictionaryLength))
+                .add(3, FlatBuffers.structs(3, batchOffset, batchMetadata, batch.bodyLength)));
+        ByteBuffer tail = ByteBuffer.allocate(footer.length + 4 + MAGIC.length).order(ByteOrder.LITTLE_ENDIAN);
+        tail.put(footer).putInt(footer.length).put(MAGIC);
+        ((Buffer) tail).flip();
+        write(channel, position, tail);
+        channel.force(true);
+        return batch.rows;
+    }
+
+    /** Writes all of the buffer at the position and returns the number of written bytes. */
+    private static int write(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        while (buffer.hasRemaining())
+            channel.write(buffer, position + length - buffer.remaining());
+        return length;
+    }
+
+    /**
+     * Writes an encapsulated message: the continuation marker, the length of the
+     * metadata and the {@code Message} FlatBuffer, padded so that the body after it
+     * starts at a multiple of {@value #ALIGNMENT}.
+     *
+     * @return length of the message without the body, the {@code metaDataLength} of its block
+     */
+    private static int writeMessage(FileChannel channel, long position, int headerType, FlatBuffers.Table header,
+                                    long bodyLength) throws IOException {
+        byte[] metadata = FlatBuffers.encode(new FlatBuffers.Table()
+                .addShort(0, METADATA_VERSION)
+                .addByte(1, headerType)
+                .add(2, header)
+                .addLong(3, bodyLength));
+        long end = (position + 8 + metadata.length + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+        ByteBuffer message = ByteBuffer.allocate((int) (end - position)).order(ByteOrder.LITTLE_ENDIAN);
+        message.putInt(CONTINUATION).putInt(message.capacity() - 8).put(metadata);
+        ((Buffer) message).clear();
+        return write(channel, position, message);
+    }
+
+    private static FlatBuffers.Table schema() {
+        List<FlatBuffers.Table> fields = new ArrayList<>(COLUMNS.length);
+        for (Column column : COLUMNS)
+            fields.add(field(column));
+        /* endianness 0 is little-endian */
+        return new FlatBuffers.Table().addShort(0, 0).add(1, FlatBuffers.tables(fields));
+    }
+
+    private static FlatBuffers.Table field(Column column) {
+        FlatBuffers.Table field = new FlatBuffers.Table()
+                .add(0, FlatBuffers.string(column.name()))
+                .addBoolean(1, column != Column.KIND)
+                .add(5, FlatBuffers.tables(Collections.<FlatBuffers.Table>emptyList()));
+        switch (ArrowType.of(column)) {
+            case INT8:
+                return field.addByte(2, TYPE_INT).add(3, intType(8));
+            case INT32:
+                return field.addByte(2, TYPE_INT).add(3, intType(32));
+            case INT64:
+                return field.addByte(2, TYPE_INT).add(3, intType(64));
+            case BOOL:
+                return field.addByte(2, TYPE_BOOL).add(3, new FlatBuffers.Table());
+            case UTF8:
+                return field.addByte(2, TYPE_UTF8).add(3, new FlatBuffers.Table());
+            case DICTIONARY:
+                return field.addByte(2, TYPE_UTF8).add(3, new FlatBuffers.Table())
+                        .add(4, new FlatBuffers.Table().addLong(0, DICTIONARY_ID).add(1, intType(8)));
+            default:
+                return field.addByte(2, TYPE_FLOATING_POINT)
+                        .add(3, new FlatBuffers.Table().addShort(0, PRECISION_DOUBLE));
+        }
+    }
+
+    private static FlatBuffers.Table intType(int bitWidth) {
+        return new FlatBuffers.Table().addInt(0, bitWidth).addBoolean(1, true);
+    }
+
+    /** Dictionary batch of the names of {@code TypeMillingMachine}, see {@link #dictionaryBody()}. */
+    private static FlatBuffers.Table dictionaryBatch() {
+        FlatBuffers.Table data = new FlatBuffers.Table()
+                .addLong(0, TYPES.length)
+                .add(1, FlatBuffers.structs(2, TYPES.length, 0))
+                .add(2, FlatBuffers.structs(2, 0, 0, 0, 4L * (TYPES.length + 1), DICTIONARY_DATA, namesLength()));
+        return new FlatBuffers.Table().addLong(0, DICTIONARY_ID).add(1, data);
+    }
+
+    /** Offsets of the names at 0 and their UTF-8 bytes at {@link #DICTIONARY_DATA}. */
+    private static ByteBuffer dictionaryBody() {
+        ByteBuffer body = ByteBuffer.allocate((DICTIONARY_DATA + namesLength() + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        int cursor = 0;
+        for (int t = 0; t < TYPES.length; t++) {
+            body.putInt(4 * t, cursor);
+            cursor = encodeUtf8(body, DICTIONARY_DATA + cursor, TYPES[t].name()) - DICTIONARY_DATA;
+        }
+        body.putInt(4 * TYPES.length, cursor);
+        return body;
+    }
+
+    private static int namesLength() {
+        int length = 0;
+        for (TypeMillingMachine type : TYPES)
+            length += utf8Length(type.name());
+        return length;
+    }
+
+    /** Number of UTF-8 bytes of a string; unpaired surrogates become {@code '?'}. */
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80)
+                length++;
+            else if (c < 0x800)
+                length += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c))
+                length++;
+            else
+                length += 3;
+        }
+        return length;
+    }
+
+    /** Writes the UTF-8 bytes of a string at the position and returns the position after them. */
+    static int encodeUtf8(ByteBuffer buffer, int position, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put(position++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(position++, (byte) (0xC0 | c >> 6));
+                buffer.put(position++, (byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put(position++, (byte) (0xF0 | code >> 18));
+                buffer.put(position++, (byte) (0x80 | code >> 12 & 0x3F));
+                buffer.put(position++, (byte) (0x80 | code >> 6 & 0x3F));
+                buffer.put(position++, (byte) (0x80 | code & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put(position++, (byte) '?');
+            } else {
+                buffer.put(position++, (byte) (0xE0 | c >> 12));
+                buffer.put(position++, (byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put(position++, (byte) (0x80 | c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Receives the machines twice: while {@code body} is null it sizes the columns,
+     * afterwards it writes the values of row {@code row} into the buffers.
+     */
+    private static final class Batch implements MachineSink {
+        final long[] nullCounts = new long[COLUMNS.length];
+        final long[] dataLengths = new long[COLUMNS.length];
+        final long[][] offsets = new long[COLUMNS.length][];
+        final long[][] lengths = new long[COLUMNS.length][];
+        /** Next free byte in the data buffer of every string column. */
+        final int[] cursors = new int[COLUMNS.length];
+        int rows;
+        int row;
+        long id;
+        int bodyLength;
+        ByteBuffer body;
+
+        /** Places the buffers of all the columns in the body of the record batch. */
+        void place() {
+            long position = 0;
+            long bitmap = (rows + 7) / 8;
+            for (Column column : COLUMNS) {
+                int c = column.ordinal();
+                long validity = nullCounts[c] > 0 ? bitmap : 0;
+                long[] sizes;
+                switch (ArrowType.of(column)) {
+                    case INT8:
+                    case DICTIONARY:
+                        sizes = new long[]{validity, rows};
+                        break;
+                    case INT32:
+                        sizes = new long[]{validity, 4L * rows};
+                        break;
+                    case BOOL:
+                        sizes = new long[]{validity, bitmap};
+                        break;
+                    case UTF8:
+                        if (dataLengths[c] > Integer.MAX_VALUE)
+                            throw new IllegalArgumentException("Strings of " + column + " exceed 2 GB");
+                        sizes = new long[]{validity, 4L * (rows + 1), dataLengths[c]};
+                        break;
+                    default:
+                        sizes = new long[]{validity, 8L * rows};
+                }
+                offsets[c] = new long[sizes.length];
+                for (int b = 0; b < sizes.length; b++) {
+                    offsets[c][b] = position;
+                    position += (sizes[b] + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+                }
+                lengths[c] = sizes;
+            }
+            if (position > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Export of " + rows + " rows exceeds 2 GB");
+            bodyLength = (int) position;
+        }
+
+        /** Returns the {@code RecordBatch} with the field nodes and the buffers of the columns. */
+        FlatBuffers.Table recordBatch() {
+            long[] nodes = new long[2 * COLUMNS.length];
+            List<Long> buffers = new ArrayList<>();
+            for (Column column : COLUMNS) {
+                int c = column.ordinal();
+                nodes[2 * c] = rows;
+                nodes[2 * c + 1] = nullCounts[c];
+                for (int b = 0; b < offsets[c].length; b++) {
+                    buffers.add(offsets[c][b]);
+                    buffers.add(lengths[c][b]);
+                }
+            }
+            long[] words = new long[buffers.size()];
+            for (int i = 0; i < words.length; i++)
+                words[i] = buffers.get(i);
+            return new FlatBuffers.Table()
+                    .addLong(0, rows)
+                    .add(1, FlatBuffers.structs(2, nodes))
+                    .add(2, FlatBuffers.structs(2, words));
+        }
+
+        @Override
+        public void lathe(int power, int weight, String model, int maxDiameter, int maxLengthDetail,
+                          boolean thread) {
+            start(Column.KIND_LATHE, power, weight, model);
+            putInt(Column.MAX_DIAMETER, maxDiameter);
+            putInt(Column.MAX_LENGTH_DETAIL, maxLengthDetail);
+            if (body != null) {
+                setValid(Column.THREAD);
+                if (thread)
+                    setBit(offsets[Column.THREAD.ordinal()][1]);
+            }
+            end(Column.KIND_LATHE);
+        }
+
+        @Override
+        public void cncMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                               int tableArea, String softwareName, int numberAix) {
+            start(Column.KIND_CNC_MILLING, power, weight, model);
+            milling(maxSpindleSpeed, maxMillingSped, tableArea);
+            putString(Column.SOFTWARE_NAME, softwareName);
+            putInt(Column.NUMBER_AIX, numberAix);
+            end(Column.KIND_CNC_MILLING);
+        }
+
+        @Override
+        public void universalMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                                     int tableArea, TypeMillingMachine typeMilling, double degreeLimb) {
+            start(Column.KIND_UNIVERSAL_MILLING, power, weight, model);
+            milling(maxSpindleSpeed, maxMillingSped, tableArea);
+            int c = Column.TYPE_MILLING.ordinal();
+            if (typeMilling == null) {
+                if (body == null)
+                    nullCounts[c]++;
+            } else if (body != null) {
+                setValid(Column.TYPE_MILLING);
+                body.put((int) offsets[c][1] + row, (byte) typeMilling.ordinal());
+            }
+            if (body != null) {
+                setValid(Column.DEGREE_LIMB);
+                body.putDouble((int) offsets[Column.DEGREE_LIMB.ordinal()][1] + 8 * row, degreeLimb);
+            }
+            end(Column.KIND_UNIVERSAL_MILLING);
+        }
+
+        private void milling(int maxSpindleSpeed, int maxMillingSped, int tableArea) {
+            putInt(Column.MAX_SPINDLE_SPEED, maxSpindleSpeed);
+            putInt(Column.MAX_MILLING_SPED, maxMillingSped);
+            putInt(Column.TABLE_AREA, tableArea);
+        }
+
+        private void start(int kind, int power, int weight, String model) {
+            if (body != null) {
+                if (row == rows)
+                    throw new ConcurrentModificationException();
+                body.put((int) offsets[Column.KIND.ordinal()][1] + row, (byte) kind);
+            }
+            putInt(Column.POWER, power);
+            putInt(Column.WEIGHT, weight);
+            putString(Column.MODEL, model);
+            if (body != null) {
+                setValid(Column.ID);
+                body.putLong((int) offsets[Column.ID.ordinal()][1] + 8 * row, id);
+            }
+        }
+
+        /** Counts the nulls of the fields the kind does not have and ends the string offsets. */
+        private void end(int kind) {
+            for (Column column : COLUMNS) {
+                int c = column.ordinal();
+                if (body == null) {
+                    if (!column.appliesTo(kind))
+                        nullCounts[c]++;
+                } else if (column.getType() == Column.Type.STRING) {
+                    body.putInt((int) offsets[c][1] + 4 * (row + 1), cursors[c]);
+                }
+            }
+            if (body == null)
+                rows++;
+            else
+                row++;
+        }
+
+        private void putInt(Column column, int value) {
+            if (body != null) {
+                setValid(column);
+                body.putInt((int) offsets[column.ordinal()][1] + 4 * row, value);
+            }
+        }
+
+        private void putString(Column column, String value) {
+            int c = column.ordinal();
+            if (body == null) {
+                if (value == null)
+                    nullCounts[c]++;
+                else
+                    dataLengths[c] += utf8Length(value);
+            } else if (value != null) {
+                setValid(column);
+                int data = (int) offsets[c][2];
+                cursors[c] = encodeUtf8(body, data + cursors[c], value) - data;
+            }
+        }
+
+        private void setValid(Column column) {
+            int c = column.ordinal();
+            if (lengths[c][0] > 0)
+                setBit(offsets[c][0]);
+        }
+
+        private void setBit(long bitmap) {
+            int position = (int) bitmap + (row >>> 3);
+            body.put(position, (byte) (body.get(position) | 1 << (row & 7)));
+        }
+    }
+}
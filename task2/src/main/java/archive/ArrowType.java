@@ -0,0 +1,65 @@
+package archive;
+
+/**
+ * Arrow layouts of the columns written by {@code ArrowExporter}. Every layout lists
+ * its buffers in the order of the Arrow columnar format; a validity bitmap of length
+ * zero means the column has no nulls.
+ */
+public enum ArrowType {
+    /** Validity bitmap and 8-bit integers. */
+    INT8(2),
+    /** Validity bitmap and 32-bit little-endian integers. */
+    INT32(2),
+    /** Validity bitmap and a bitmap of the values. */
+    BOOL(2),
+    /** Validity bitmap, {@code rows + 1} 32-bit offsets and the UTF-8 bytes of the values. */
+    UTF8(3),
+    /**
+     * Validity bitmap and one byte index per row into a dictionary of UTF-8 strings,
+     * followed by the offsets and the bytes of the dictionary, which the dictionary
+     * batch carries.
+     */
+    DICTIONARY(4),
+    /** Validity bitmap and 64-bit little-endian doubles. */
+    FLOAT64(2),
+    /** Validity bitmap and 64-bit little-endian integers. */
+    INT64(2);
+
+    private final int buffers;
+
+    ArrowType(int buffers) {
+        this.buffers = buffers;
+    }
+
+    public int getBufferCount() {
+        return buffers;
+    }
+
+    /**
+     * Returns the layout of a column of the archive.
+     *
+     * @param column column
+     * @return layout
+     */
+    public static ArrowType of(Column column) {
+        switch (column) {
+            case KIND:
+                return INT8;
+            case THREAD:
+                return BOOL;
+            case TYPE_MILLING:
+                return DICTIONARY;
+            default:
+                switch (column.getType()) {
+                    case INT:
+                        return INT32;
+                    case STRING:
+                        return UTF8;
+                    case LONG:
+                        return INT64;
+                    default:
+                        return FLOAT64;
+                }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package archive;
+
+/**
+ * Columns of the machine archive. Every field of every machine class has its own
+ * column; a column holds a value for every row, rows of classes which do not have
+ * the field store zero or {@code null} there and are ignored by the statistics.
+ */
+public enum Column {
+    /** Class of the machine: 1 - lathe, 2 - cnc milling, 3 - universal milling. */
+    KIND(Type.INT, Column.ALL),
+    POWER(Type.INT, Column.ALL),
+    WEIGHT(Type.INT, Column.ALL),
+    MODEL(Type.STRING, Column.ALL),
+    MAX_DIAMETER(Type.INT, Column.LATHE),
+    MAX_LENGTH_DETAIL(Type.INT, Column.LATHE),
+    /** 1 if the lathe can cut threads, 0 otherwise. */
+    THREAD(Type.INT, Column.LATHE),
+    MAX_SPINDLE_SPEED(Type.INT, Column.MILLING),
+    MAX_MILLING_SPED(Type.INT, Column.MILLING),
+    TABLE_AREA(Type.INT, Column.MILLING),
+    SOFTWARE_NAME(Type.STRING, Column.CNC_MILLING),
+    NUMBER_AIX(Type.INT, Column.CNC_MILLING),
+    /** Ordinal of {@code TypeMillingMachine} plus one, 0 for {@code null}. */
+    TYPE_MILLING(Type.INT, Column.UNIVERSAL_MILLING),
+    DEGREE_LIMB(Type.DOUBLE, Column.UNIVERSAL_MILLING),
+    /** Identifier of the machine, {@code Machine.NO_ID} if it has none. */
+    ID(Type.LONG, Column.ALL);
+
+    /** Value of the {@code KIND} column for lathes. */
+    public static final int KIND_LATHE = 1;
+
+    /** Value of the {@code KIND} column for cnc milling machines. */
+    public static final int KIND_CNC_MILLING = 2;
+
+    /** Value of the {@code KIND} column for universal milling machines. */
+    public static final int KIND_UNIVERSAL_MILLING = 3;
+
+    private static final int LATHE = 1 << KIND_LATHE;
+    private static final int CNC_MILLING = 1 << KIND_CNC_MILLING;
+    private static final int UNIVERSAL_MILLING = 1 << KIND_UNIVERSAL_MILLING;
+    private static final int MILLING = CNC_MILLING | UNIVERSAL_MILLING;
+    private static final int ALL = LATHE | MILLING;
+
+    /** Physical type of a column. */
+    public enum Type {
+        /** Bit-packed integers with frame of reference, delta or dictionary encoding. */
+        INT,
+        /** Dictionary-encoded strings. */
+        STRING,
+        /** Dictionary-encoded doubles. */
+        DOUBLE,
+        /** Differences to the previous value as zig-zag variable length numbers. */
+        LONG
+    }
+
+    private final Type type;
+    private final int kinds;
+
+    Column(Type type, int kinds) {
+        this.type = type;
+        this.kinds = kinds;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns {@code true} if machines of the specified kind have this field.
+     *
+     * @param kind value of the {@code KIND} column
+     * @return {@code true} if the field applies to the kind
+     */
+    public boolean appliesTo(int kind) {
+        return (kinds & 1 << kind) != 0;
+    }
+}
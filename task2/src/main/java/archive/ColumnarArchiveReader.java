@@ -0,0 +1,285 @@
+package archive;
+
+import container.MachineList;
+import entity.Machine;
+import entity.MachineSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads archives written by {@code ColumnarArchiveWriter}.
+ *
+ * <p>Only the footer is read on opening. A scan loads, for every row group, only the
+ * chunks of the requested columns and of the columns used in conditions, and does not
+ * touch a row group at all when the statistics of the footer show that no row can
+ * satisfy the conditions.
+ */
+public class ColumnarArchiveReader implements Closeable {
+    private static final int TRAILER_SIZE = 12;
+
+    private final FileChannel channel;
+    private final List<ColumnarArchiveWriter.RowGroupMeta> rowGroups;
+    private int skippedRowGroups;
+
+    /**
+     * Opens the archive and reads its footer.
+     *
+     * @param path archive file
+     * @throws IOException if the file can not be read or is not an archive
+     */
+    public ColumnarArchiveReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 8 + TRAILER_SIZE)
+                throw new IOException("Not a machine archive: " + path);
+            DataInputStream header = read(0, 8);
+            if (header.readInt() != ColumnarArchiveWriter.MAGIC)
+                throw new IOException("Not a machine archive: " + path);
+            int version = header.readInt();
+            if (version != ColumnarArchiveWriter.VERSION)
+                throw new IOException("Unsupported archive version: " + version);
+            DataInputStream trailer = read(size - TRAILER_SIZE, TRAILER_SIZE);
+            long footerPosition = trailer.readLong();
+            if (trailer.readInt() != ColumnarArchiveWriter.MAGIC)
+                throw new IOException("Archive is incomplete: " + path);
+            DataInputStream footer = read(footerPosition, (int) (size - TRAILER_SIZE - footerPosition));
+            int count = footer.readInt();
+            List<ColumnarArchiveWriter.RowGroupMeta> groups = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                groups.add(ColumnarArchiveWriter.RowGroupMeta.read(footer));
+            rowGroups = Collections.unmodifiableList(groups);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private DataInputStream read(long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IOException("Unexpected end of archive");
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * Returns the number of row groups in the archive.
+     *
+     * @return number of row groups
+     */
+    public int getRowGroupCount() {
+        return rowGroups.size();
+    }
+
+    /**
+     * Returns the number of machines in the archive.
+     *
+     * @return number of machines
+     */
+    public long getRowCount() {
+        long count = 0;
+        for (ColumnarArchiveWriter.RowGroupMeta meta : rowGroups)
+            count += meta.rowCount;
+        return count;
+    }
+
+    /**
+     * Returns the number of row groups the last scan skipped thanks to the statistics.
+     *
+     * @return number of skipped row groups
+     */
+    public int getSkippedRowGroups() {
+        return skippedRowGroups;
+    }
+
+    /**
+     * Visits every row satisfying all the conditions.
+     *
+     * @param columns columns the visitor needs
+     * @param visitor receiver of the matching rows
+     * @param conditions conditions the rows must satisfy
+     * @return number of matching rows
+     * @throws IOException if the archive can not be read
+     */
+    public long scan(Set<Column> columns, RowVisitor visitor, Range... conditions) throws IOException {
+        Set<Column> load = columns.isEmpty() ? EnumSet.noneOf(Column.class) : EnumSet.copyOf(columns);
+        for (Range condition : conditions)
+            load.add(condition.getColumn());
+        if (conditions.length > 0)
+            load.add(Column.KIND);
+        skippedRowGroups = 0;
+        long matches = 0;
+        for (ColumnarArchiveWriter.RowGroupMeta meta : rowGroups) {
+            if (!mayMatch(meta, conditions)) {
+                skippedRowGroups++;
+                continue;
+            }
+            RowGroup group = load(meta, load);
+            for (int row = 0; row < meta.rowCount; row++) {
+                if (matches(group, row, conditions)) {
+                    matches++;
+                    visitor.visit(group, row);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Passes every machine satisfying all the conditions to {@code sink}. The sink does
+     * not receive identifiers; {@link #readMachines(Range...)} sets them.
+     *
+     * @param sink receiver of the machines
+     * @param conditions conditions the machines must satisfy
+     * @return number of machines
+     * @throws IOException if the archive can not be read
+     */
+    public long read(MachineSink sink, Range... conditions) throws IOException {
+        return scan(EnumSet.allOf(Column.class), (group, row) -> group.to(row, sink), conditions);
+    }
+
+    /**
+     * Reads every machine satisfying all the conditions into a new list, with the
+     * identifiers they had.
+     *
+     * @param conditions conditions the machines must satisfy
+     * @return list of the machines
+     * @throws IOException if the archive can not be read
+     */
+    public MachineList readMachines(Range... conditions) throws IOException {
+        MachineList list = new MachineList();
+        if (conditions.length == 0)
+            list.ensureCapacity((int) Math.min(getRowCount(), Integer.MAX_VALUE));
+        MachineSink sink = list.sink();
+        scan(EnumSet.allOf(Column.class), (group, row) -> {
+            group.to(row, sink);
+            long id = group.getId(row);
+            if (id != Machine.NO_ID)
+                list.get(list.size() - 1).setId(id);
+        }, conditions);
+        return list;
+    }
+
+    private static boolean mayMatch(ColumnarArchiveWriter.RowGroupMeta meta, Range[] conditions) {
+        for (Range condition : conditions)
+            if (!condition.mayMatch(meta))
+                return false;
+        return true;
+    }
+
+    private static boolean matches(RowGroup group, int row, Range[] conditions) {
+        if (conditions.length == 0)
+            return true;
+        int kind = group.getInt(Column.KIND, row);
+        for (Range condition : conditions)
+            if (!condition.test(group, row, kind))
+                return false;
+        return true;
+    }
+
+    private RowGroup load(ColumnarArchiveWriter.RowGroupMeta meta, Set<Column> columns) throws IOException {
+        RowGroup group = new RowGroup(meta.rowCount);
+        int[] kinds = null;
+        for (Column column : columns) {
+            if (!column.appliesTo(Column.KIND_LATHE) || !column.appliesTo(Column.KIND_CNC_MILLING)
+                    || !column.appliesTo(Column.KIND_UNIVERSAL_MILLING)) {
+                DataInputStream in = chunk(meta, Column.KIND);
+                kinds = new int[in.readInt()];
+                IntCodec.read(in, kinds, kinds.length);
+                break;
+            }
+        }
+        for (Column column : columns) {
+            int c = column.ordinal();
+            DataInputStream in = chunk(meta, column);
+            int count = in.readInt();
+            switch (column.getType()) {
+                case INT:
+                    int[] ints = new int[meta.rowCount];
+                    IntCodec.read(in, ints, count);
+                    group.ints[c] = spread(ints, kinds, column, count);
+                    break;
+                case STRING:
+                    String[] dictionary = new String[in.readInt() + 1];
+                    for (int i = 1; i < dictionary.length; i++)
+                        dictionary[i] = in.readUTF();
+                    int[] codes = new int[meta.rowCount];
+                    IntCodec.read(in, codes, count);
+                    spread(codes, kinds, column, count);
+                    String[] values = new String[meta.rowCount];
+                    for (int i = 0; i < values.length; i++)
+                        values[i] = dictionary[codes[i]];
+                    group.strings[c] = values;
+                    break;
+                case LONG:
+                    if (count != meta.rowCount)
+                        throw new IOException("Column " + column + " misses rows");
+                    group.ids = new long[count];
+                    IntCodec.readLongs(in, group.ids, count);
+                    break;
+                default:
+                    double[] distinct = new double[in.readInt()];
+                    for (int i = 0; i < distinct.length; i++)
+                        distinct[i] = Double.longBitsToDouble(in.readLong());
+                    int[] doubleCodes = new int[meta.rowCount];
+                    IntCodec.read(in, doubleCodes, count);
+                    double[] doubles = new double[meta.rowCount];
+                    for (int i = count - 1, row = meta.rowCount - 1; row >= 0; row--)
+                        if (column.appliesTo(kinds[row]))
+                            doubles[row] = distinct[doubleCodes[i--]];
+                    group.doubles = doubles;
+            }
+        }
+        return group;
+    }
+
+    private DataInputStream chunk(ColumnarArchiveWriter.RowGroupMeta meta, Column column) throws IOException {
+        return read(meta.offsets[column.ordinal()], meta.lengths[column.ordinal()]);
+    }
+
+    /**
+     * Moves the {@code count} values stored for the rows having the field to the
+     * positions of these rows, filling the other rows with zero. Works in place
+     * from the end, because a value never moves to a lower position.
+     */
+    private static int[] spread(int[] values, int[] kinds, Column column, int count) {
+        if (count == values.length)
+            return values;
+        for (int i = count - 1, row = values.length - 1; row >= 0; row--)
+            values[row] = column.appliesTo(kinds[row]) ? values[i--] : 0;
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Receives the rows of a scan.
+     */
+    public interface RowVisitor {
+        /**
+         * Called for every matching row.
+         *
+         * @param group decoded columns of the row group
+         * @param row row inside the group
+         */
+        void visit(RowGroup group, int row);
+    }
+}
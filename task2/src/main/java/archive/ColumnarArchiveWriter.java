@@ -0,0 +1,483 @@
+package archive;
+
+import constant.TypeMillingMachine;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.MachineSink;
+import entity.UniversalMilling;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes machines to a columnar archive file.
+ *
+ * <p>Rows are collected into row groups of {@code rowGroupSize} machines. Every row group
+ * stores each {@link Column} as a separate chunk holding the values of the rows whose
+ * class has the field, the {@code KIND} chunk tells which rows these are. Integers are
+ * bit-packed with frame of reference, delta or dictionary encoding (see {@code IntCodec}),
+ * strings and doubles are dictionary-encoded, identifiers are delta-encoded. Machines
+ * passed to the writer as a {@code MachineSink} have no identifier.
+ * The footer at the end of the file holds the position, the length and the minimum and
+ * maximum value of every chunk, lexicographic for strings and without nulls and
+ * {@code NaN}, so readers can load only the columns they need and skip row groups whose
+ * values can not match.
+ *
+ * <p>File layout: {@code MAGIC VERSION chunk* footer footerPosition MAGIC}.
+ */
+public class ColumnarArchiveWriter implements MachineSink, Closeable {
+    static final int MAGIC = 0x4D434152;
+    static final int VERSION = 3;
+
+    /** Default number of rows in a row group. */
+    public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+    private static final Column[] COLUMNS = Column.values();
+
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private final int rowGroupSize;
+
+    /** Values of the current row group, indexed by column ordinal. */
+    private final int[][] ints = new int[COLUMNS.length][];
+    private final String[][] strings = new String[COLUMNS.length][];
+    private final double[] doubles;
+    private final long[] ids;
+    private int rows;
+
+    /** Identifier of the machine {@link #write(Machine)} passes to the sink methods. */
+    private long id = Machine.NO_ID;
+
+    /** Values of the rows having the field of the column being flushed. */
+    private final int[] scratchInts;
+    private final String[] scratchStrings;
+    private final double[] scratchDoubles;
+    private final long[] scratchLongs;
+
+    /** Bytes written so far, the position of the next chunk. */
+    private long position;
+
+    private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+    private final DataOutputStream chunkOut = new DataOutputStream(chunk);
+    private boolean closed;
+
+    /**
+     * Creates the archive file with the default row group size.
+     *
+     * @param path file to create
+     * @throws IOException if the file can not be created
+     */
+    public ColumnarArchiveWriter(Path path) throws IOException {
+        this(path, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Creates the archive file.
+     *
+     * @param path file to create
+     * @param rowGroupSize number of rows in a row group
+     * @throws IOException if the file can not be created
+     * @throws IllegalArgumentException if the row group size is not positive
+     */
+    public ColumnarArchiveWriter(Path path, int rowGroupSize) throws IOException {
+        if (rowGroupSize <= 0)
+            throw new IllegalArgumentException("Row group size must be positive");
+        this.rowGroupSize = rowGroupSize;
+        for (Column column : COLUMNS) {
+            if (column.getType() == Column.Type.INT)
+                ints[column.ordinal()] = new int[rowGroupSize];
+            else if (column.getType() == Column.Type.STRING)
+                strings[column.ordinal()] = new String[rowGroupSize];
+        }
+        doubles = new double[rowGroupSize];
+        ids = new long[rowGroupSize];
+        scratchLongs = new long[rowGroupSize];
+        scratchInts = new int[rowGroupSize];
+        scratchStrings = new String[rowGroupSize];
+        scratchDoubles = new double[rowGroupSize];
+        file = new FileOutputStream(path.toFile());
+        out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        position = 8;
+    }
+
+    /**
+     * Writes all the machines of {@code machines} to a new archive.
+     *
+     * @param path file to create
+     * @param machines machines to write
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Path path, Collection<? extends Machine> machines) throws IOException {
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(path)) {
+            for (Machine machine : machines)
+                writer.write(machine);
+        }
+    }
+
+    /**
+     * Appends a machine to the archive.
+     *
+     * @param machine machine to write
+     * @throws IOException if the file can not be written
+     * @throws NullPointerException if the machine is null
+     * @throws IllegalArgumentException if the class of the machine is unknown
+     */
+    public void write(Machine machine) throws IOException {
+        Objects.requireNonNull(machine, "Argument must be not null");
+        id = machine.getId();
+        try {
+            toSink(machine, this);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            id = Machine.NO_ID;
+        }
+    }
+
+    /**
+     * Passes the fields of a machine to a sink.
+     *
+     * @throws IllegalArgumentException if the class of the machine is unknown
+     */
+    static void toSink(Machine machine, MachineSink sink) {
+        if (machine instanceof Lathe) {
+            Lathe l = (Lathe) machine;
+            sink.lathe(l.getPower(), l.getWeight(), l.getModel(), l.getMaxDiameter(), l.getMaxLengthDetail(),
+                    l.isThread());
+        } else if (machine instanceof CncMilling) {
+            CncMilling c = (CncMilling) machine;
+            sink.cncMilling(c.getPower(), c.getWeight(), c.getModel(), c.getMaxSpindleSpeed(), c.getMaxMillingSped(),
+                    c.getTableArea(), c.getSoftwareName(), c.getNumberAix());
+        } else if (machine instanceof UniversalMilling) {
+            UniversalMilling u = (UniversalMilling) machine;
+            sink.universalMilling(u.getPower(), u.getWeight(), u.getModel(), u.getMaxSpindleSpeed(),
+                    u.getMaxMillingSped(), u.getTableArea(), u.getTypeMilling(), u.getDegreeLimb());
+        } else {
+            throw new IllegalArgumentException("Unknown machine class: " + machine.getClass().getName());
+        }
+    }
+
+    @Override
+    public void lathe(int power, int weight, String model, int maxDiameter, int maxLengthDetail, boolean thread) {
+        int row = row(Column.KIND_LATHE, power, weight, model);
+        ints[Column.MAX_DIAMETER.ordinal()][row] = maxDiameter;
+        ints[Column.MAX_LENGTH_DETAIL.ordinal()][row] = maxLengthDetail;
+        ints[Column.THREAD.ordinal()][row] = thread ? 1 : 0;
+    }
+
+    @Override
+    public void cncMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                           int tableArea, String softwareName, int numberAix) {
+        int row = row(Column.KIND_CNC_MILLING, power, weight, model);
+        milling(row, maxSpindleSpeed, maxMillingSped, tableArea);
+        strings[Column.SOFTWARE_NAME.ordinal()][row] = softwareName;
+        ints[Column.NUMBER_AIX.ordinal()][row] = numberAix;
+    }
+
+    @Override
+    public void universalMilling(int power, int weight, String model, int maxSpindleSpeed, int maxMillingSped,
+                                 int tableArea, TypeMillingMachine typeMilling, double degreeLimb) {
+        int row = row(Column.KIND_UNIVERSAL_MILLING, power, weight, model);
+        milling(row, maxSpindleSpeed, maxMillingSped, tableArea);
+        ints[Column.TYPE_MILLING.ordinal()][row] = typeMilling == null ? 0 : typeMilling.ordinal() + 1;
+        doubles[row] = degreeLimb;
+    }
+
+    /**
+     * Starts a new row with zeroes in every column, flushing the full row group first.
+     */
+    private int row(int kind, int power, int weight, String model) {
+        if (closed)
+            throw new IllegalStateException("Archive is closed");
+        if (rows == rowGroupSize) {
+            try {
+                flushRowGroup();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int row = rows++;
+        for (Column column : COLUMNS) {
+            if (column.getType() == Column.Type.INT)
+                ints[column.ordinal()][row] = 0;
+            else if (column.getType() == Column.Type.STRING)
+                strings[column.ordinal()][row] = null;
+        }
+        doubles[row] = 0;
+        ids[row] = id;
+        ints[Column.KIND.ordinal()][row] = kind;
+        ints[Column.POWER.ordinal()][row] = power;
+        ints[Column.WEIGHT.ordinal()][row] = weight;
+        strings[Column.MODEL.ordinal()][row] = model;
+        return row;
+    }
+
+    private void milling(int row, int maxSpindleSpeed, int maxMillingSped, int tableArea) {
+        ints[Column.MAX_SPINDLE_SPEED.ordinal()][row] = maxSpindleSpeed;
+        ints[Column.MAX_MILLING_SPED.ordinal()][row] = maxMillingSped;
+        ints[Column.TABLE_AREA.ordinal()][row] = tableArea;
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0)
+            return;
+        RowGroupMeta meta = new RowGroupMeta(rows);
+        int[] kinds = ints[Column.KIND.ordinal()];
+        for (Column column : COLUMNS) {
+            chunk.reset();
+            int c = column.ordinal();
+            /* only the rows of the kinds which have the field are stored */
+            int count = 0;
+            for (int i = 0; i < rows; i++) {
+                if (column.appliesTo(kinds[i])) {
+                    switch (column.getType()) {
+                        case INT:
+                            scratchInts[count] = ints[c][i];
+                            meta.include(c, ints[c][i]);
+                            break;
+                        case STRING:
+                            scratchStrings[count] = strings[c][i];
+                            meta.include(c, strings[c][i]);
+                            break;
+                        case LONG:
+                            scratchLongs[count] = ids[i];
+                            meta.include(c, ids[i]);
+                            break;
+                        default:
+                            scratchDoubles[count] = doubles[i];
+                            meta.include(c, doubles[i]);
+                    }
+                    count++;
+                }
+            }
+            chunkOut.writeInt(count);
+            switch (column.getType()) {
+                case INT:
+                    IntCodec.write(chunkOut, scratchInts, count);
+                    break;
+                case STRING:
+                    writeDictionary(scratchStrings, count);
+                    break;
+                case LONG:
+                    IntCodec.writeLongs(chunkOut, scratchLongs, count);
+                    break;
+                default:
+                    writeDoubles(scratchDoubles, count);
+            }
+            chunkOut.flush();
+            meta.offsets[c] = position;
+            meta.lengths[c] = chunk.size();
+            chunk.writeTo(out);
+            position += chunk.size();
+        }
+        rowGroups.add(meta);
+        rows = 0;
+    }
+
+    /**
+     * Writes the distinct strings of the chunk followed by the bit-packed codes of the rows.
+     * Code 0 stands for {@code null}.
+     */
+    private void writeDictionary(String[] values, int count) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] rowCodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            String value = values[i];
+            if (value == null)
+                continue;
+            Integer code = codes.get(value);
+            if (code == null) {
+                dictionary.add(value);
+                code = dictionary.size();
+                codes.put(value, code);
+            }
+            rowCodes[i] = code;
+        }
+        chunkOut.writeInt(dictionary.size());
+        for (String value : dictionary)
+            chunkOut.writeUTF(value);
+        IntCodec.write(chunkOut, rowCodes, count);
+    }
+
+    /**
+     * Writes the distinct doubles of the chunk followed by the bit-packed codes of the rows.
+     * Machines have few distinct steps of the limb, so this is much smaller than raw values.
+     */
+    private void writeDoubles(double[] values, int count) throws IOException {
+        Map<Long, Integer> codes = new HashMap<>();
+        List<Long> dictionary = new ArrayList<>();
+        int[] rowCodes = new int[count];
+        for (int i = 0; i < count; i++) {
+            Long bits = Double.doubleToRawLongBits(values[i]);
+            Integer code = codes.get(bits);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(bits);
+                codes.put(bits, code);
+            }
+            rowCodes[i] = code;
+        }
+        chunkOut.writeInt(dictionary.size());
+        for (long bits : dictionary)
+            chunkOut.writeLong(bits);
+        IntCodec.write(chunkOut, rowCodes, count);
+    }
+
+    /**
+     * Flushes the last row group, writes the footer and closes the file.
+     *
+     * @throws IOException if the file can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            flushRowGroup();
+            long footerPosition = position;
+            out.writeInt(rowGroups.size());
+            for (RowGroupMeta meta : rowGroups)
+                meta.write(out);
+            out.writeLong(footerPosition);
+            out.writeInt(MAGIC);
+            out.flush();
+            file.getFD().sync();
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    /** Footer entry of a row group. */
+    static final class RowGroupMeta {
+        final int rowCount;
+        final long[] offsets = new long[COLUMNS.length];
+        final int[] lengths = new int[COLUMNS.length];
+        final long[] min = new long[COLUMNS.length];
+        final long[] max = new long[COLUMNS.length];
+        /* null while the column has no value other than null */
+        final String[] minStrings = new String[COLUMNS.length];
+        final String[] maxStrings = new String[COLUMNS.length];
+        final double[] minDoubles = new double[COLUMNS.length];
+        final double[] maxDoubles = new double[COLUMNS.length];
+
+        RowGroupMeta(int rowCount) {
+            this.rowCount = rowCount;
+            Arrays.fill(min, Long.MAX_VALUE);
+            Arrays.fill(max, Long.MIN_VALUE);
+            Arrays.fill(minDoubles, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxDoubles, Double.NEGATIVE_INFINITY);
+        }
+
+        void include(int column, long value) {
+            min[column] = Math.min(min[column], value);
+            max[column] = Math.max(max[column], value);
+        }
+
+        /** Includes a string in the lexicographic range; nulls never match and are left out. */
+        void include(int column, String value) {
+            if (value == null)
+                return;
+            if (minStrings[column] == null || value.compareTo(minStrings[column]) < 0)
+                minStrings[column] = value;
+            if (maxStrings[column] == null || value.compareTo(maxStrings[column]) > 0)
+                maxStrings[column] = value;
+        }
+
+        /** Includes a double in the range; {@code NaN} never matches and is left out. */
+        void include(int column, double value) {
+            if (value < minDoubles[column])
+                minDoubles[column] = value;
+            if (value > maxDoubles[column])
+                maxDoubles[column] = value;
+        }
+
+        /**
+         * Returns {@code true} if some row of the group may have a value of
+         * {@code column} between {@code from} and {@code to}.
+         */
+        boolean mayContain(Column column, long from, long to) {
+            int c = column.ordinal();
+            return min[c] <= to && max[c] >= from;
+        }
+
+        boolean mayContain(Column column, String from, String to) {
+            int c = column.ordinal();
+            return minStrings[c] != null && minStrings[c].compareTo(to) <= 0 && maxStrings[c].compareTo(from) >= 0;
+        }
+
+        boolean mayContain(Column column, double from, double to) {
+            int c = column.ordinal();
+            return minDoubles[c] <= to && maxDoubles[c] >= from;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(rowCount);
+            for (Column column : COLUMNS) {
+                int c = column.ordinal();
+                out.writeLong(offsets[c]);
+                out.writeInt(lengths[c]);
+                switch (column.getType()) {
+                    case STRING:
+                        out.writeBoolean(minStrings[c] != null);
+                        if (minStrings[c] != null) {
+                            out.writeUTF(minStrings[c]);
+                            out.writeUTF(maxStrings[c]);
+                        }
+                        break;
+                    case DOUBLE:
+                        out.writeDouble(minDoubles[c]);
+                        out.writeDouble(maxDoubles[c]);
+                        break;
+                    default:
+                        out.writeLong(min[c]);
+                        out.writeLong(max[c]);
+                }
+            }
+        }
+
+        static RowGroupMeta read(DataInput in) throws IOException {
+            RowGroupMeta meta = new RowGroupMeta(in.readInt());
+            for (Column column : COLUMNS) {
+                int c = column.ordinal();
+                meta.offsets[c] = in.readLong();
+                meta.lengths[c] = in.readInt();
+                switch (column.getType()) {
+                    case STRING:
+                        if (in.readBoolean()) {
+                            meta.minStrings[c] = in.readUTF();
+                            meta.maxStrings[c] = in.readUTF();
+                        }
+                        break;
+                    case DOUBLE:
+                        meta.minDoubles[c] = in.readDouble();
+                        meta.maxDoubles[c] = in.readDouble();
+                        break;
+                    default:
+                        meta.min[c] = in.readLong();
+                        meta.max[c] = in.readLong();
+                }
+            }
+            return meta;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package archive;
+
+/**
+ * Condition {@code from <= value <= to} on a double column. {@code NaN} never matches.
+ * Rows of machine classes which do not have the field never match.
+ */
+public final class DoubleRange extends Range {
+    private final double from;
+    private final double to;
+
+    /**
+     * Creates the condition.
+     *
+     * @param column double column
+     * @param from minimum value, inclusive
+     * @param to maximum value, inclusive
+     * @throws IllegalArgumentException if the column is not a double column
+     */
+    public DoubleRange(Column column, double from, double to) {
+        super(column, Column.Type.DOUBLE, "a double");
+        this.from = from;
+        this.to = to;
+    }
+
+    public double getFrom() {
+        return from;
+    }
+
+    public double getTo() {
+        return to;
+    }
+
+    @Override
+    boolean mayMatch(ColumnarArchiveWriter.RowGroupMeta meta) {
+        return meta.mayContain(getColumn(), from, to);
+    }
+
+    @Override
+    boolean test(RowGroup group, int row) {
+        double value = group.getDegreeLimb(row);
+        return value >= from && value <= to;
+    }
+
+    @Override
+    public String toString() {
+        return from + " <= " + getColumn() + " <= " + to;
+    }
+}
@@ -0,0 +1,343 @@
+package archive;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimal FlatBuffers encoder and decoder for the Arrow IPC metadata of
+ * {@code ArrowExporter} and {@code ArrowBatch}.
+ *
+ * <p>The encoder lays objects out front to back: a table comes after its vtable and
+ * before the objects it references, so every {@code uoffset} points forward as the
+ * format requires. Scalars are aligned to their size, structs and their vectors to
+ * 8 bytes, and everything is little-endian.
+ */
+final class FlatBuffers {
+
+    private FlatBuffers() {
+    }
+
+    /** Object which a table field can reference. */
+    abstract static class Node {
+        /** Writes the object and returns its position. */
+        abstract int write(Encoder out);
+    }
+
+    /** Table built field by field; absent fields take their default value. */
+    static final class Table extends Node {
+        private final List<Field> fields = new ArrayList<>();
+        private int fieldCount;
+
+        Table addByte(int id, int value) {
+            return add(new Field(id, 1, value, null));
+        }
+
+        Table addBoolean(int id, boolean value) {
+            return add(new Field(id, 1, value ? 1 : 0, null));
+        }
+
+        Table addShort(int id, int value) {
+            return add(new Field(id, 2, value, null));
+        }
+
+        Table addInt(int id, int value) {
+            return add(new Field(id, 4, value, null));
+        }
+
+        Table addLong(int id, long value) {
+            return add(new Field(id, 8, value, null));
+        }
+
+        Table add(int id, Node child) {
+            return add(new Field(id, 4, 0, child));
+        }
+
+        private Table add(Field field) {
+            fields.add(field);
+            fieldCount = Math.max(fieldCount, field.id + 1);
+            return this;
+        }
+
+        @Override
+        int write(Encoder out) {
+            /* largest fields first, so that alignment needs little padding */
+            List<Field> sorted = new ArrayList<>(fields);
+            sorted.sort((a, b) -> b.size - a.size);
+            int[] offsets = new int[fieldCount];
+            int size = 4;
+            int alignment = 4;
+            for (Field field : sorted) {
+                size = align(size, field.size);
+                offsets[field.id] = size;
+                size += field.size;
+                alignment = Math.max(alignment, field.size);
+            }
+
+            out.align(2);
+            int vtable = out.position();
+            out.putShort(4 + 2 * fieldCount);
+            out.putShort(size);
+            for (int offset : offsets)
+                out.putShort(offset);
+            out.align(alignment);
+            int table = out.position();
+            out.skip(size);
+            out.putInt(table, table - vtable);
+            for (Field field : fields) {
+                int at = table + offsets[field.id];
+                switch (field.size) {
+                    case 1:
+                        out.putByte(at, (int) field.value);
+                        break;
+                    case 2:
+                        out.putShort(at, (int) field.value);
+                        break;
+                    case 4:
+                        if (field.child == null)
+                            out.putInt(at, (int) field.value);
+                        break;
+                    default:
+                        out.putLong(at, field.value);
+                }
+            }
+            for (Field field : fields) {
+                if (field.child != null) {
+                    int at = table + offsets[field.id];
+                    out.putInt(at, field.child.write(out) - at);
+                }
+            }
+            return table;
+        }
+    }
+
+    /** Scalar field of a table, or a reference to {@code child}. */
+    private static final class Field {
+        final int id;
+        final int size;
+        final long value;
+        final Node child;
+
+        Field(int id, int size, long value, Node child) {
+            this.id = id;
+            this.size = size;
+            this.value = value;
+            this.child = child;
+        }
+    }
+
+    /** UTF-8 string with a terminating zero. */
+    static Node string(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return new Node() {
+            @Override
+            int write(Encoder out) {
+                out.align(4);
+                int position = out.position();
+                out.putInt(bytes.length);
+                out.putBytes(bytes);
+                out.putByte(0);
+                return position;
+            }
+        };
+    }
+
+    /** Vector of tables. */
+    static Node tables(List<Table> tables) {
+        return new Node() {
+            @Override
+            int write(Encoder out) {
+                out.align(4);
+                int position = out.position();
+                out.putInt(tables.size());
+                int slots = out.position();
+                out.skip(4 * tables.size());
+                for (int i = 0; i < tables.size(); i++) {
+                    int slot = slots + 4 * i;
+                    out.putInt(slot, tables.get(i).write(out) - slot);
+                }
+                return position;
+            }
+        };
+    }
+
+    /**
+     * Vector of structs made of {@code longsPerStruct} 8-byte words each. A 4-byte
+     * member followed by 4 bytes of padding is passed as a {@code long} holding it.
+     */
+    static Node structs(int longsPerStruct, long... words) {
+        return new Node() {
+            @Override
+            int write(Encoder out) {
+                /* the elements after the length must start at a multiple of 8 */
+                out.align(8);
+                out.skip(4);
+                int position = out.position();
+                out.putInt(words.length / longsPerStruct);
+                for (long word : words)
+                    out.putLong(out.position(), word);
+                return position;
+            }
+        };
+    }
+
+    /**
+     * Encodes a table as the root of a buffer.
+     *
+     * @param root root table
+     * @return bytes of the buffer, a multiple of 8 long
+     */
+    static byte[] encode(Table root) {
+        Encoder out = new Encoder();
+        out.skip(4);
+        out.putInt(0, root.write(out));
+        out.align(8);
+        return out.toByteArray();
+    }
+
+    private static int align(int position, int alignment) {
+        return (position + alignment - 1) / alignment * alignment;
+    }
+
+    /** Growing little-endian byte buffer. */
+    static final class Encoder {
+        private ByteBuffer buffer = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+        private int position;
+
+        int position() {
+            return position;
+        }
+
+        void align(int alignment) {
+            skip(FlatBuffers.align(position, alignment) - position);
+        }
+
+        void skip(int length) {
+            ensure(length);
+            position += length;
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            buffer.put(position++, (byte) value);
+        }
+
+        void putShort(int value) {
+            ensure(2);
+            putShort(position, value);
+            position += 2;
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            putInt(position, value);
+            position += 4;
+        }
+
+        void putBytes(byte[] bytes) {
+            ensure(bytes.length);
+            for (byte b : bytes)
+                buffer.put(position++, b);
+        }
+
+        void putByte(int at, int value) {
+            buffer.put(at, (byte) value);
+        }
+
+        void putShort(int at, int value) {
+            buffer.putShort(at, (short) value);
+        }
+
+        void putInt(int at, int value) {
+            buffer.putInt(at, value);
+        }
+
+        /** Writes a long at {@code at}, which may be the end of the buffer. */
+        void putLong(int at, long value) {
+            if (at == position)
+                skip(8);
+            buffer.putLong(at, value);
+        }
+
+        private void ensure(int length) {
+            if (position + length > buffer.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, position + length))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+                grown.put(buffer.array(), 0, position);
+                buffer = grown;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer.array(), position);
+        }
+    }
+
+    /*
+     * Decoding. Positions are absolute positions in a little-endian buffer; the methods
+     * throw IndexOutOfBoundsException for positions outside of it.
+     */
+
+    /** Returns the root table of the buffer starting at {@code start}. */
+    static int root(ByteBuffer buffer, int start) {
+        return start + buffer.getInt(start);
+    }
+
+    /** Returns the position of a field of a table, or -1 if the field is absent. */
+    static int field(ByteBuffer buffer, int table, int id) {
+        int vtable = table - buffer.getInt(table);
+        int vtableSize = buffer.getShort(vtable) & 0xFFFF;
+        if (4 + 2 * id >= vtableSize)
+            return -1;
+        int offset = buffer.getShort(vtable + 4 + 2 * id) & 0xFFFF;
+        return offset == 0 ? -1 : table + offset;
+    }
+
+    static long getLong(ByteBuffer buffer, int table, int id, long defaultValue) {
+        int field = field(buffer, table, id);
+        return field < 0 ? defaultValue : buffer.getLong(field);
+    }
+
+    static int getShort(ByteBuffer buffer, int table, int id, int defaultValue) {
+        int field = field(buffer, table, id);
+        return field < 0 ? defaultValue : buffer.getShort(field);
+    }
+
+    static int getByte(ByteBuffer buffer, int table, int id, int defaultValue) {
+        int field = field(buffer, table, id);
+        return field < 0 ? defaultValue : buffer.get(field) & 0xFF;
+    }
+
+    /** Returns the object a field references, or -1 if the field is absent. */
+    static int child(ByteBuffer buffer, int table, int id) {
+        int field = field(buffer, table, id);
+        return field < 0 ? -1 : field + buffer.getInt(field);
+    }
+
+    /** Returns the length of a vector. */
+    static int length(ByteBuffer buffer, int vector) {
+        return buffer.getInt(vector);
+    }
+
+    /** Returns the table at {@code index} of a vector of tables. */
+    static int table(ByteBuffer buffer, int vector, int index) {
+        int slot = vector + 4 + 4 * index;
+        return slot + buffer.getInt(slot);
+    }
+
+    /** Returns the position of the struct at {@code index} of a vector of structs. */
+    static int struct(int vector, int index, int structSize) {
+        return vector + 4 + structSize * index;
+    }
+
+    /** Decodes a string. */
+    static String string(ByteBuffer buffer, int string) {
+        byte[] bytes = new byte[buffer.getInt(string)];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = buffer.get(string + 4 + i);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,264 @@
+package archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Encoding of integer column chunks.
+ *
+ * <p>A chunk is written with frame of reference (every value minus the minimum),
+ * delta encoding (every difference to the previous value minus the minimum difference)
+ * or, when it has few distinct values, as indexes into a sorted dictionary, whichever
+ * needs fewer bits. The results are non-negative numbers which are bit-packed into
+ * {@code long} words using the smallest sufficient width.
+ */
+final class IntCodec {
+    private static final byte FRAME_OF_REFERENCE = 0;
+    private static final byte DELTA = 1;
+    private static final byte DICTIONARY = 2;
+
+    /** Chunks with more distinct values are never dictionary-encoded. */
+    private static final int MAX_DICTIONARY_SIZE = 256;
+
+    private IntCodec() {
+    }
+
+    /**
+     * Writes the first {@code count} values as zig-zag variable length differences
+     * to the previous value, which is short for ascending identifiers.
+     *
+     * @param out destination
+     * @param values values to write
+     * @param count number of values
+     * @throws IOException if the destination fails
+     */
+    static void writeLongs(DataOutput out, long[] values, int count) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - previous;
+            previous = values[i];
+            long zigZag = (delta << 1) ^ (delta >> 63);
+            while ((zigZag & ~0x7FL) != 0) {
+                out.writeByte((int) (zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            out.writeByte((int) zigZag);
+        }
+    }
+
+    /**
+     * Reads {@code count} values written by {@link #writeLongs(DataOutput, long[], int)}.
+     *
+     * @param in source
+     * @param values receives the values
+     * @param count number of values
+     * @throws IOException if the source fails or a number is malformed
+     */
+    static void readLongs(DataInput in, long[] values, int count) throws IOException {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long zigZag = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (shift > 63)
+                    throw new IOException("Malformed variable length number");
+                byte b = in.readByte();
+                zigZag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    break;
+            }
+            previous += (zigZag >>> 1) ^ -(zigZag & 1);
+            values[i] = previous;
+        }
+    }
+
+    /**
+     * Writes the first {@code count} values.
+     *
+     * @param out destination
+     * @param values values to write
+     * @param count number of values
+     * @throws IOException if the destination fails
+     */
+    static void write(DataOutput out, int[] values, int count) throws IOException {
+        if (count == 0) {
+            out.writeByte(FRAME_OF_REFERENCE);
+            out.writeLong(0);
+            out.writeByte(0);
+            return;
+        }
+        long min = values[0];
+        long max = values[0];
+        long minDelta = Long.MAX_VALUE;
+        long maxDelta = Long.MIN_VALUE;
+        for (int i = 1; i < count; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+            long delta = (long) values[i] - values[i - 1];
+            minDelta = Math.min(minDelta, delta);
+            maxDelta = Math.max(maxDelta, delta);
+        }
+        int referenceWidth = width(max - min);
+        int deltaWidth = count > 1 ? width(maxDelta - minDelta) : 64;
+        int[] distinct = distinct(values, count);
+        long referenceBits = (long) referenceWidth * count;
+        long deltaBits = (long) deltaWidth * (count - 1) + 32;
+        long dictionaryBits = distinct == null ? Long.MAX_VALUE
+                : (long) width(distinct.length - 1) * count + 32L * distinct.length;
+        if (dictionaryBits < referenceBits && dictionaryBits < deltaBits) {
+            out.writeByte(DICTIONARY);
+            out.writeShort(distinct.length);
+            for (int value : distinct)
+                out.writeInt(value);
+            int dictionaryWidth = width(distinct.length - 1);
+            BitWriter writer = new BitWriter(out, dictionaryWidth);
+            for (int i = 0; i < count; i++)
+                writer.write(Arrays.binarySearch(distinct, values[i]));
+            writer.flush();
+        } else if (deltaBits < referenceBits) {
+            out.writeByte(DELTA);
+            out.writeInt(values[0]);
+            out.writeLong(minDelta);
+            out.writeByte(deltaWidth);
+            BitWriter writer = new BitWriter(out, deltaWidth);
+            for (int i = 1; i < count; i++)
+                writer.write((long) values[i] - values[i - 1] - minDelta);
+            writer.flush();
+        } else {
+            out.writeByte(FRAME_OF_REFERENCE);
+            out.writeLong(min);
+            out.writeByte(referenceWidth);
+            BitWriter writer = new BitWriter(out, referenceWidth);
+            for (int i = 0; i < count; i++)
+                writer.write(values[i] - min);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Returns the sorted distinct values, or {@code null} if there are more than
+     * {@link #MAX_DICTIONARY_SIZE} of them.
+     */
+    private static int[] distinct(int[] values, int count) {
+        int[] distinct = new int[MAX_DICTIONARY_SIZE];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int position = Arrays.binarySearch(distinct, 0, size, values[i]);
+            if (position < 0) {
+                if (size == MAX_DICTIONARY_SIZE)
+                    return null;
+                position = -position - 1;
+                System.arraycopy(distinct, position, distinct, position + 1, size - position);
+                distinct[position] = values[i];
+                size++;
+            }
+        }
+        return Arrays.copyOf(distinct, size);
+    }
+
+    /**
+     * Reads {@code count} values written by {@link #write(DataOutput, int[], int)}.
+     *
+     * @param in source
+     * @param values array receiving the values
+     * @param count number of values
+     * @throws IOException if the source fails or the chunk is malformed
+     */
+    static void read(DataInput in, int[] values, int count) throws IOException {
+        byte mode = in.readByte();
+        if (mode == DICTIONARY) {
+            int[] distinct = new int[in.readUnsignedShort()];
+            for (int i = 0; i < distinct.length; i++)
+                distinct[i] = in.readInt();
+            BitReader reader = new BitReader(in, width(distinct.length - 1));
+            for (int i = 0; i < count; i++)
+                values[i] = distinct[(int) reader.read()];
+        } else if (mode == DELTA) {
+            values[0] = in.readInt();
+            long minDelta = in.readLong();
+            BitReader reader = new BitReader(in, in.readByte());
+            for (int i = 1; i < count; i++)
+                values[i] = (int) (values[i - 1] + minDelta + reader.read());
+        } else if (mode == FRAME_OF_REFERENCE) {
+            long min = in.readLong();
+            BitReader reader = new BitReader(in, in.readByte());
+            for (int i = 0; i < count; i++)
+                values[i] = (int) (min + reader.read());
+        } else {
+            throw new IOException("Unknown int encoding: " + mode);
+        }
+    }
+
+    /**
+     * Returns the number of bits needed for a non-negative number.
+     */
+    private static int width(long value) {
+        return 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    /** Packs numbers of a fixed width into {@code long} words. */
+    private static final class BitWriter {
+        private final DataOutput out;
+        private final int width;
+        private long word;
+        private int used;
+
+        BitWriter(DataOutput out, int width) {
+            this.out = out;
+            this.width = width;
+        }
+
+        void write(long value) throws IOException {
+            if (width == 0)
+                return;
+            word |= value << used;
+            int free = 64 - used;
+            if (width >= free) {
+                out.writeLong(word);
+                word = free == 64 ? 0 : value >>> free;
+                used = width - free;
+            } else {
+                used += width;
+            }
+        }
+
+        void flush() throws IOException {
+            if (used > 0)
+                out.writeLong(word);
+        }
+    }
+
+    /** Unpacks numbers written by {@link BitWriter}. */
+    private static final class BitReader {
+        private final DataInput in;
+        private final int width;
+        private final long mask;
+        private long word;
+        private int available;
+
+        BitReader(DataInput in, int width) {
+            this.in = in;
+            this.width = width;
+            this.mask = width == 64 ? -1L : (1L << width) - 1;
+        }
+
+        long read() throws IOException {
+            if (width == 0)
+                return 0;
+            if (available >= width) {
+                long value = word & mask;
+                word = width == 64 ? 0 : word >>> width;
+                available -= width;
+                return value;
+            }
+            long value = word;
+            int have = available;
+            word = in.readLong();
+            value |= have == 0 ? word : word << have;
+            word = have == 0 ? (width == 64 ? 0 : word >>> width) : word >>> (width - have);
+            available = 64 - (width - have);
+            return value & mask;
+        }
+    }
+}
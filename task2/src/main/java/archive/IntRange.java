@@ -0,0 +1,48 @@
+package archive;
+
+/**
+ * Condition {@code from <= value <= to} on an integer column.
+ * Rows of machine classes which do not have the field never match.
+ */
+public final class IntRange extends Range {
+    private final int from;
+    private final int to;
+
+    /**
+     * Creates the condition.
+     *
+     * @param column integer column
+     * @param from minimum value, inclusive
+     * @param to maximum value, inclusive
+     * @throws IllegalArgumentException if the column is not an integer column
+     */
+    public IntRange(Column column, int from, int to) {
+        super(column, Column.Type.INT, "an integer");
+        this.from = from;
+        this.to = to;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    @Override
+    boolean mayMatch(ColumnarArchiveWriter.RowGroupMeta meta) {
+        return meta.mayContain(getColumn(), from, to);
+    }
+
+    @Override
+    boolean test(RowGroup group, int row) {
+        int value = group.getInt(getColumn(), row);
+        return value >= from && value <= to;
+    }
+
+    @Override
+    public String toString() {
+        return from + " <= " + getColumn() + " <= " + to;
+    }
+}
@@ -0,0 +1,36 @@
+package archive;
+
+import java.util.Objects;
+
+/**
+ * Condition {@code from <= value <= to} on one column of the archive.
+ * Rows of machine classes which do not have the field never match.
+ *
+ * @see IntRange
+ * @see StringRange
+ * @see DoubleRange
+ */
+public abstract class Range {
+    private final Column column;
+
+    Range(Column column, Column.Type type, String typeName) {
+        Objects.requireNonNull(column, "Argument must be not null");
+        if (column.getType() != type)
+            throw new IllegalArgumentException("Not " + typeName + " column: " + column);
+        this.column = column;
+    }
+
+    public Column getColumn() {
+        return column;
+    }
+
+    /** Returns {@code false} if the statistics of the row group show that no row matches. */
+    abstract boolean mayMatch(ColumnarArchiveWriter.RowGroupMeta meta);
+
+    /** Tests the value of the column in a row of a kind which has the field. */
+    abstract boolean test(RowGroup group, int row);
+
+    final boolean test(RowGroup group, int row, int kind) {
+        return column.appliesTo(kind) && test(group, row);
+    }
+}
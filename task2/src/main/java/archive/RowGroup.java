@@ -0,0 +1,106 @@
+package archive;
+
+import constant.TypeMillingMachine;
+import entity.MachineSink;
+
+/**
+ * Decoded columns of one row group. Only the columns requested from the reader are
+ * loaded; asking for another column throws {@code IllegalStateException}.
+ */
+public final class RowGroup {
+    private static final TypeMillingMachine[] TYPES = TypeMillingMachine.values();
+
+    private final int rowCount;
+    final int[][] ints = new int[Column.values().length][];
+    final String[][] strings = new String[Column.values().length][];
+    double[] doubles;
+    long[] ids;
+
+    RowGroup(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the value of an integer column.
+     *
+     * @param column integer column
+     * @param row row inside the group
+     * @return value of the column
+     */
+    public int getInt(Column column, int row) {
+        int[] values = ints[column.ordinal()];
+        if (values == null)
+            throw new IllegalStateException("Column is not loaded: " + column);
+        return values[row];
+    }
+
+    /**
+     * Returns the value of a string column.
+     *
+     * @param column string column
+     * @param row row inside the group
+     * @return value of the column, may be null
+     */
+    public String getString(Column column, int row) {
+        String[] values = strings[column.ordinal()];
+        if (values == null)
+            throw new IllegalStateException("Column is not loaded: " + column);
+        return values[row];
+    }
+
+    /**
+     * Returns the value of the {@code DEGREE_LIMB} column.
+     *
+     * @param row row inside the group
+     * @return value of the column
+     */
+    public double getDegreeLimb(int row) {
+        if (doubles == null)
+            throw new IllegalStateException("Column is not loaded: " + Column.DEGREE_LIMB);
+        return doubles[row];
+    }
+
+    /**
+     * Returns the value of the {@code ID} column.
+     *
+     * @param row row inside the group
+     * @return identifier of the machine, {@code Machine.NO_ID} if it has none
+     */
+    public long getId(int row) {
+        if (ids == null)
+            throw new IllegalStateException("Column is not loaded: " + Column.ID);
+        return ids[row];
+    }
+
+    /**
+     * Passes the row to {@code sink}, without the identifier. All columns must be loaded.
+     *
+     * @param row row inside the group
+     * @param sink receiver of the machine
+     */
+    public void to(int row, MachineSink sink) {
+        int power = getInt(Column.POWER, row);
+        int weight = getInt(Column.WEIGHT, row);
+        String model = getString(Column.MODEL, row);
+        switch (getInt(Column.KIND, row)) {
+            case Column.KIND_LATHE:
+                sink.lathe(power, weight, model, getInt(Column.MAX_DIAMETER, row),
+                        getInt(Column.MAX_LENGTH_DETAIL, row), getInt(Column.THREAD, row) != 0);
+                break;
+            case Column.KIND_CNC_MILLING:
+                sink.cncMilling(power, weight, model, getInt(Column.MAX_SPINDLE_SPEED, row),
+                        getInt(Column.MAX_MILLING_SPED, row), getInt(Column.TABLE_AREA, row),
+                        getString(Column.SOFTWARE_NAME, row), getInt(Column.NUMBER_AIX, row));
+                break;
+            default:
+                int type = getInt(Column.TYPE_MILLING, row);
+                sink.universalMilling(power, weight, model, getInt(Column.MAX_SPINDLE_SPEED, row),
+                        getInt(Column.MAX_MILLING_SPED, row), getInt(Column.TABLE_AREA, row),
+                        type == 0 ? null : TYPES[type - 1], getDegreeLimb(row));
+        }
+    }
+}
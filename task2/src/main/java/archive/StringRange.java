@@ -0,0 +1,51 @@
+package archive;
+
+import java.util.Objects;
+
+/**
+ * Condition {@code from <= value <= to} on a string column, in the order of
+ * {@link String#compareTo(String)}. Null values never match.
+ * Rows of machine classes which do not have the field never match.
+ */
+public final class StringRange extends Range {
+    private final String from;
+    private final String to;
+
+    /**
+     * Creates the condition.
+     *
+     * @param column string column
+     * @param from minimum value, inclusive
+     * @param to maximum value, inclusive
+     * @throws IllegalArgumentException if the column is not a string column
+     */
+    public StringRange(Column column, String from, String to) {
+        super(column, Column.Type.STRING, "a string");
+        this.from = Objects.requireNonNull(from, "Argument must be not null");
+        this.to = Objects.requireNonNull(to, "Argument must be not null");
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    @Override
+    boolean mayMatch(ColumnarArchiveWriter.RowGroupMeta meta) {
+        return meta.mayContain(getColumn(), from, to);
+    }
+
+    @Override
+    boolean test(RowGroup group, int row) {
+        String value = group.getString(getColumn(), row);
+        return value != null && value.compareTo(from) >= 0 && value.compareTo(to) <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "\"" + from + "\" <= " + getColumn() + " <= \"" + to + "\"";
+    }
+}
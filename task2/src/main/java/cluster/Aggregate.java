@@ -0,0 +1,80 @@
+package cluster;
+
+/**
+ * Aggregate of an integer field over the machines matching a query: the number of
+ * machines having the field, the sum, minimum and maximum of its values, and the
+ * number of distinct models. Aggregates of partitions merge into the aggregate of the
+ * whole catalog; the distinct models add up exactly because every model lives in one
+ * partition.
+ */
+public final class Aggregate {
+    private final long count;
+    private final long sum;
+    private final int min;
+    private final int max;
+    private final long distinctModels;
+
+    Aggregate(long count, long sum, int min, int max, long distinctModels) {
+        this.count = count;
+        this.sum = sum;
+        this.min = min;
+        this.max = max;
+        this.distinctModels = distinctModels;
+    }
+
+    /**
+     * Returns the aggregate of this partition and another one.
+     *
+     * @param other aggregate of a different partition
+     * @return merged aggregate
+     */
+    public Aggregate merge(Aggregate other) {
+        return new Aggregate(count + other.count, sum + other.sum, Math.min(min, other.min),
+                Math.max(max, other.max), distinctModels + other.distinctModels);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the smallest value.
+     *
+     * @return minimum, {@code Integer.MAX_VALUE} if no machine matched
+     */
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the largest value.
+     *
+     * @return maximum, {@code Integer.MIN_VALUE} if no machine matched
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the mean value.
+     *
+     * @return mean, NaN if no machine matched
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : (double) sum / count;
+    }
+
+    public long getDistinctModels() {
+        return distinctModels;
+    }
+
+    @Override
+    public String toString() {
+        return "Aggregate{count=" + count + ", sum=" + sum + ", min=" + min + ", max=" + max
+                + ", distinctModels=" + distinctModels + '}';
+    }
+}
@@ -0,0 +1,171 @@
+package cluster;
+
+import constant.TypeMillingMachine;
+import entity.Machine;
+import query.Condition;
+import query.MachineField;
+import query.Query;
+import storage.MachineCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Binary protocol between a {@code PartitionCoordinator} and its {@code PartitionWorker}s.
+ *
+ * <p>Every request is a request byte followed by its arguments:
+ * <ul>
+ *     <li>{@code ADD n machine...}: stores {@code n} machines;</li>
+ *     <li>{@code CLEAR}: removes all the machines;</li>
+ *     <li>{@code SIZE}: the number of machines;</li>
+ *     <li>{@code FILTER query batch}: the matching machines, streamed in batches of up to
+ *     {@code batch} machines, each batch a {@code BATCH} byte, its size and its machines,
+ *     and then an {@code END} byte;</li>
+ *     <li>{@code AGGREGATE query field}: count, sum, minimum and maximum of an integer
+ *     field and the number of distinct models of the matching machines;</li>
+ *     <li>{@code SHUTDOWN}: stops the worker.</li>
+ * </ul>
+ * Answers other than the streamed batches start with a status byte. Counts are varints
+ * and machines are written with {@code MachineCodec}. A query is its number of
+ * conditions, and for every condition the ordinal of its field, a range flag and either
+ * the bounds or the tagged value.
+ */
+final class ClusterProtocol {
+    static final byte ADD = 0;
+    static final byte CLEAR = 1;
+    static final byte SIZE = 2;
+    static final byte FILTER = 3;
+    static final byte AGGREGATE = 4;
+    static final byte SHUTDOWN = 5;
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+    static final byte BATCH = 2;
+    static final byte END = 3;
+
+    private static final byte NULL_VALUE = 0;
+    private static final byte INT_VALUE = 1;
+    private static final byte STRING_VALUE = 2;
+    private static final byte BOOLEAN_VALUE = 3;
+    private static final byte DOUBLE_VALUE = 4;
+    private static final byte TYPE_MILLING_VALUE = 5;
+
+    private ClusterProtocol() {
+    }
+
+    static void writeQuery(DataOutputStream out, Query query) throws IOException {
+        List<Condition> conditions = query.getConditions();
+        MachineCodec.writeVarInt(out, conditions.size());
+        for (Condition condition : conditions) {
+            out.writeByte(condition.getField().ordinal());
+            out.writeBoolean(condition.isRange());
+            if (condition.isRange()) {
+                out.writeInt(condition.getFrom());
+                out.writeInt(condition.getTo());
+            } else {
+                writeValue(out, condition.getValue());
+            }
+        }
+    }
+
+    static Query readQuery(DataInputStream in) throws IOException {
+        int count = MachineCodec.readVarInt(in);
+        if (count < 0)
+            throw new IOException("Malformed query");
+        Condition[] conditions = new Condition[count];
+        for (int i = 0; i < count; i++) {
+            MachineField field = readField(in);
+            if (in.readBoolean())
+                conditions[i] = Condition.between(field, in.readInt(), in.readInt());
+            else
+                conditions[i] = Condition.eq(field, readValue(in));
+        }
+        return Query.where(conditions);
+    }
+
+    static MachineField readField(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        MachineField[] fields = MachineField.values();
+        if (ordinal >= fields.length)
+            throw new IOException("Unknown field: " + ordinal);
+        return fields[ordinal];
+    }
+
+    /**
+     * Checks that the values of the query can be sent.
+     *
+     * @throws IllegalArgumentException if a value has an unsupported type
+     */
+    static void checkQuery(Query query) {
+        for (Condition condition : query.getConditions()) {
+            Object value = condition.getValue();
+            if (!(value == null || value instanceof Integer || value instanceof String
+                    || value instanceof Boolean || value instanceof Double
+                    || value instanceof TypeMillingMachine))
+                throw new IllegalArgumentException("Unsupported value: " + value);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_VALUE);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT_VALUE);
+            out.writeInt((Integer) value);
+        } else if (value instanceof String) {
+            out.writeByte(STRING_VALUE);
+            out.writeUTF((String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN_VALUE);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE_VALUE);
+            out.writeDouble((Double) value);
+        } else {
+            out.writeByte(TYPE_MILLING_VALUE);
+            out.writeByte(((TypeMillingMachine) value).ordinal());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case NULL_VALUE:
+                return null;
+            case INT_VALUE:
+                return in.readInt();
+            case STRING_VALUE:
+                return in.readUTF();
+            case BOOLEAN_VALUE:
+                return in.readBoolean();
+            case DOUBLE_VALUE:
+                return in.readDouble();
+            case TYPE_MILLING_VALUE:
+                int ordinal = in.readUnsignedByte();
+                TypeMillingMachine[] types = TypeMillingMachine.values();
+                if (ordinal >= types.length)
+                    throw new IOException("Unknown type of milling: " + ordinal);
+                return types[ordinal];
+            default:
+                throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    static void writeMachines(DataOutputStream out, List<Machine> machines, int from, int to) throws IOException {
+        MachineCodec.writeVarInt(out, to - from);
+        for (int i = from; i < to; i++)
+            MachineCodec.write(out, machines.get(i));
+    }
+
+    static Machine[] readMachines(DataInputStream in) throws IOException {
+        int count = MachineCodec.readVarInt(in);
+        if (count < 0)
+            throw new IOException("Malformed batch");
+        Machine[] machines = new Machine[count];
+        for (int i = 0; i < count; i++)
+            machines[i] = MachineCodec.read(in);
+        return machines;
+    }
+}
@@ -0,0 +1,96 @@
+package cluster;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker processes of a partitioned catalog on this machine. Every worker is a JVM
+ * running {@code PartitionWorker} with the class path of the current JVM and listening
+ * on a free loopback port.
+ */
+public class LocalCluster implements Closeable {
+    private final Process[] processes;
+    private final int[] ports;
+
+    private LocalCluster(Process[] processes, int[] ports) {
+        this.processes = processes;
+        this.ports = ports;
+    }
+
+    /**
+     * Starts the worker processes and waits until all of them listen.
+     *
+     * @param workers number of workers
+     * @return running cluster
+     * @throws IOException if a worker can not be started
+     * @throws IllegalArgumentException if {@code workers} is not positive
+     */
+    public static LocalCluster start(int workers) throws IOException {
+        if (workers <= 0)
+            throw new IllegalArgumentException("Illegal number of workers: " + workers);
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process[] processes = new Process[workers];
+        int[] ports = new int[workers];
+        LocalCluster cluster = new LocalCluster(processes, ports);
+        try {
+            for (int w = 0; w < workers; w++)
+                processes[w] = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        PartitionWorker.class.getName())
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+            for (int w = 0; w < workers; w++) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(processes[w].getInputStream(), StandardCharsets.UTF_8));
+                String line = reader.readLine();
+                if (line == null || !line.startsWith(PartitionWorker.READY))
+                    throw new IOException("Worker " + w + " did not start: " + line);
+                ports[w] = Integer.parseInt(line.substring(PartitionWorker.READY.length()).trim());
+            }
+        } catch (IOException | RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+        return cluster;
+    }
+
+    /**
+     * Returns the ports of the workers in the order of their partitions.
+     *
+     * @return ports
+     */
+    public int[] getPorts() {
+        return ports.clone();
+    }
+
+    /**
+     * Connects a new coordinator to the workers.
+     *
+     * @return coordinator
+     * @throws IOException if a worker can not be reached
+     */
+    public PartitionCoordinator connect() throws IOException {
+        return new PartitionCoordinator(ports);
+    }
+
+    /** Stops the worker processes. */
+    @Override
+    public void close() {
+        for (Process process : processes)
+            if (process != null)
+                process.destroy();
+        for (Process process : processes)
+            if (process != null)
+                try {
+                    if (!process.waitFor(5, TimeUnit.SECONDS))
+                        process.destroyForcibly();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+    }
+}
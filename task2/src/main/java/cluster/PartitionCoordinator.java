@@ -0,0 +1,330 @@
+package cluster;
+
+import container.MachineList;
+import entity.Machine;
+import query.MachineField;
+import query.Query;
+import storage.MachineCodec;
+import sync.MachineHash;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Machine catalog partitioned by the hash of the model over {@code PartitionWorker}s.
+ *
+ * <p>Every machine is stored by the worker {@link #partition(Machine)} chooses, so all
+ * the machines of one model live in the same worker. Requests are scattered: the
+ * coordinator writes a request to every worker before it reads the first answer, so
+ * the workers compute in parallel. Filter results stream back in batches; a reader
+ * thread per worker hands the batches over to the calling thread, which passes them
+ * on in the order they arrive. Aggregates of the workers are merged, and the number of
+ * distinct models adds up exactly because no model is split between workers.
+ *
+ * <p>The coordinator keeps one connection per worker; its methods are synchronized,
+ * so one request is in flight at a time.
+ */
+public class PartitionCoordinator implements Closeable {
+    /** Default number of machines per streamed batch. */
+    public static final int DEFAULT_BATCH_SIZE = 512;
+
+    /** Marks the end of the stream of one worker in the queue of batches. */
+    private static final Machine[] END = new Machine[0];
+
+    private final Socket[] sockets;
+    private final DataInputStream[] ins;
+    private final DataOutputStream[] outs;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Connects to the workers on the loopback ports. The order of the ports defines the
+     * partitions, so it must stay the same for the lifetime of the catalog.
+     *
+     * @param ports ports of the workers
+     * @throws IOException if a worker can not be reached
+     * @throws IllegalArgumentException if there are no ports
+     */
+    public PartitionCoordinator(int... ports) throws IOException {
+        if (ports.length == 0)
+            throw new IllegalArgumentException("No workers");
+        sockets = new Socket[ports.length];
+        ins = new DataInputStream[ports.length];
+        outs = new DataOutputStream[ports.length];
+        try {
+            for (int w = 0; w < ports.length; w++) {
+                sockets[w] = new Socket(InetAddress.getLoopbackAddress(), ports[w]);
+                sockets[w].setTcpNoDelay(true);
+                ins[w] = new DataInputStream(new BufferedInputStream(sockets[w].getInputStream()));
+                outs[w] = new DataOutputStream(new BufferedOutputStream(sockets[w].getOutputStream()));
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public int getPartitions() {
+        return sockets.length;
+    }
+
+    /**
+     * Sets the number of machines a worker sends in one batch of a filter result.
+     *
+     * @param batchSize machines per batch
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public synchronized void setBatchSize(int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the partition of a machine, which depends only on its model.
+     *
+     * @param machine machine
+     * @return partition from 0 to {@code getPartitions() - 1}
+     */
+    public int partition(Machine machine) {
+        return (int) Math.floorMod(MachineHash.hash(machine.getModel()), (long) sockets.length);
+    }
+
+    /**
+     * Stores a machine in its partition.
+     *
+     * @param machine machine
+     * @throws IOException if the worker fails
+     */
+    public void add(Machine machine) throws IOException {
+        addAll(Collections.singletonList(machine));
+    }
+
+    /**
+     * Stores the machines, sending every worker its share in one request.
+     *
+     * @param machines machines
+     * @throws IOException if a worker fails
+     */
+    public synchronized void addAll(Collection<? extends Machine> machines) throws IOException {
+        Objects.requireNonNull(machines, "Argument must be not null");
+        List<List<Machine>> shares = new ArrayList<>();
+        for (int w = 0; w < sockets.length; w++)
+            shares.add(new ArrayList<>());
+        for (Machine machine : machines) {
+            Objects.requireNonNull(machine, "Argument must be not null");
+            shares.get(partition(machine)).add(machine);
+        }
+        for (int w = 0; w < sockets.length; w++) {
+            List<Machine> share = shares.get(w);
+            if (share.isEmpty())
+                continue;
+            outs[w].writeByte(ClusterProtocol.ADD);
+            ClusterProtocol.writeMachines(outs[w], share, 0, share.size());
+            outs[w].flush();
+        }
+        for (int w = 0; w < sockets.length; w++)
+            if (!shares.get(w).isEmpty())
+                expectOk(w);
+    }
+
+    /**
+     * Removes all the machines from all the workers.
+     *
+     * @throws IOException if a worker fails
+     */
+    public synchronized void clear() throws IOException {
+        scatter(ClusterProtocol.CLEAR);
+        for (int w = 0; w < sockets.length; w++)
+            expectOk(w);
+    }
+
+    /**
+     * Returns the number of machines in all the workers.
+     *
+     * @return number of machines
+     * @throws IOException if a worker fails
+     */
+    public synchronized long size() throws IOException {
+        scatter(ClusterProtocol.SIZE);
+        long size = 0;
+        for (int w = 0; w < sockets.length; w++) {
+            expectOk(w);
+            size += MachineCodec.readVarInt(ins[w]);
+        }
+        return size;
+    }
+
+    /**
+     * Passes the machines matching the query to the consumer as the workers stream them
+     * back. The consumer is called on the calling thread; machines of one worker come in
+     * the order of its partition, batches of different workers interleave.
+     *
+     * @param query query
+     * @param consumer receives the matching machines
+     * @throws IOException if a worker fails
+     * @throws IllegalArgumentException if a value of the query can not be sent
+     */
+    public synchronized void filter(Query query, Consumer<? super Machine> consumer) throws IOException {
+        Objects.requireNonNull(query, "Argument must be not null");
+        Objects.requireNonNull(consumer, "Argument must be not null");
+        ClusterProtocol.checkQuery(query);
+        for (int w = 0; w < sockets.length; w++) {
+            outs[w].writeByte(ClusterProtocol.FILTER);
+            ClusterProtocol.writeQuery(outs[w], query);
+            MachineCodec.writeVarInt(outs[w], batchSize);
+            outs[w].flush();
+        }
+        BlockingQueue<Object> batches = new ArrayBlockingQueue<>(4 * sockets.length);
+        for (int w = 0; w < sockets.length; w++) {
+            DataInputStream in = ins[w];
+            Thread reader = new Thread(() -> readBatches(in, batches), "machine-partition-reader-" + w);
+            reader.setDaemon(true);
+            reader.start();
+        }
+        IOException failure = null;
+        RuntimeException consumerFailure = null;
+        // drain every stream even after a failure, so the connections stay in step
+        for (int finished = 0; finished < sockets.length; ) {
+            Object item;
+            try {
+                item = batches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new InterruptedIOException("Interrupted while gathering results");
+            }
+            if (item == END) {
+                finished++;
+            } else if (item instanceof IOException) {
+                finished++;
+                if (failure == null)
+                    failure = (IOException) item;
+            } else if (consumerFailure == null) {
+                try {
+                    for (Machine machine : (Machine[]) item)
+                        consumer.accept(machine);
+                } catch (RuntimeException e) {
+                    consumerFailure = e;
+                }
+            }
+        }
+        if (failure != null)
+            throw failure;
+        if (consumerFailure != null)
+            throw consumerFailure;
+    }
+
+    /**
+     * Returns the machines matching the query.
+     *
+     * @param query query
+     * @return new list of the matching machines
+     * @throws IOException if a worker fails
+     */
+    public MachineList filter(Query query) throws IOException {
+        MachineList result = new MachineList();
+        filter(query, result::add);
+        return result;
+    }
+
+    /**
+     * Aggregates an integer field over the machines matching the query.
+     *
+     * @param query query
+     * @param field integer field
+     * @return merged aggregate of all the workers
+     * @throws IOException if a worker fails
+     * @throws IllegalArgumentException if the field is not an integer field
+     */
+    public synchronized Aggregate aggregate(Query query, MachineField field) throws IOException {
+        Objects.requireNonNull(query, "Argument must be not null");
+        if (!field.isInteger())
+            throw new IllegalArgumentException("Not an integer field: " + field);
+        ClusterProtocol.checkQuery(query);
+        for (int w = 0; w < sockets.length; w++) {
+            outs[w].writeByte(ClusterProtocol.AGGREGATE);
+            ClusterProtocol.writeQuery(outs[w], query);
+            outs[w].writeByte(field.ordinal());
+            outs[w].flush();
+        }
+        Aggregate total = new Aggregate(0, 0, Integer.MAX_VALUE, Integer.MIN_VALUE, 0);
+        for (int w = 0; w < sockets.length; w++) {
+            expectOk(w);
+            DataInputStream in = ins[w];
+            total = total.merge(new Aggregate(in.readLong(), in.readLong(), in.readInt(), in.readInt(),
+                    MachineCodec.readVarInt(in)));
+        }
+        return total;
+    }
+
+    /**
+     * Stops all the workers.
+     *
+     * @throws IOException if a worker fails
+     */
+    public synchronized void shutdown() throws IOException {
+        scatter(ClusterProtocol.SHUTDOWN);
+        for (int w = 0; w < sockets.length; w++)
+            expectOk(w);
+    }
+
+    private static void readBatches(DataInputStream in, BlockingQueue<Object> batches) {
+        Object last = END;
+        try {
+            for (int tag = in.readUnsignedByte(); tag != ClusterProtocol.END; tag = in.readUnsignedByte()) {
+                if (tag != ClusterProtocol.BATCH)
+                    throw new IOException("Unexpected answer: " + tag);
+                batches.put(ClusterProtocol.readMachines(in));
+            }
+        } catch (IOException e) {
+            last = e;
+        } catch (InterruptedException e) {
+            last = new InterruptedIOException("Interrupted while reading results");
+        }
+        try {
+            batches.put(last);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void scatter(byte request) throws IOException {
+        for (DataOutputStream out : outs) {
+            out.writeByte(request);
+            out.flush();
+        }
+    }
+
+    private void expectOk(int worker) throws IOException {
+        int status = ins[worker].readUnsignedByte();
+        if (status != ClusterProtocol.OK)
+            throw new IOException("Worker " + worker + " failed: " + status);
+    }
+
+    /**
+     * Closes the connections; the workers keep running.
+     *
+     * @throws IOException if a socket can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        for (Socket socket : sockets)
+            if (socket != null)
+                socket.close();
+    }
+}
@@ -0,0 +1,224 @@
+package cluster;
+
+import container.MachineList;
+import entity.Machine;
+import query.MachineField;
+import query.Query;
+import query.QueryEngine;
+import storage.MachineCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Holds one partition of a machine catalog in a local {@code MachineList} and answers
+ * the requests of a {@code PartitionCoordinator} on a loopback socket, as described in
+ * {@code ClusterProtocol}. Filters run through a {@code QueryEngine} over the partition.
+ *
+ * <p>Connections are served one after the other by a daemon thread, so the partition
+ * is only ever touched by that thread; {@link #close()} closes the connection being
+ * served. Run as a process, the worker prints
+ * {@code READY port} on its standard output once it listens, and exits after a
+ * {@code SHUTDOWN} request or when its standard input is closed, e.g. because the
+ * process which started it died.
+ */
+public class PartitionWorker implements Closeable {
+    /** First line printed by a worker process, followed by its port. */
+    static final String READY = "READY ";
+
+    private final MachineList machines = new MachineList();
+    private final QueryEngine engine = new QueryEngine(machines);
+    private final ServerSocket server;
+    private final Thread acceptor;
+
+    /** Connection being served, closed by {@link #close()}. */
+    private volatile Socket active;
+
+    /**
+     * Starts an empty worker.
+     *
+     * @param port loopback port, 0 for any free port
+     * @throws IOException if the port can not be bound
+     */
+    public PartitionWorker(int port) throws IOException {
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        acceptor = new Thread(this::acceptLoop, "machine-partition-worker");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Waits until the worker is shut down or closed.
+     *
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void awaitShutdown() throws InterruptedException {
+        acceptor.join();
+    }
+
+    private void acceptLoop() {
+        boolean running = true;
+        while (running && !server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                active = socket;
+                if (server.isClosed())
+                    break;
+                socket.setTcpNoDelay(true);
+                running = serve(socket);
+            } catch (SocketException e) {
+                // closed
+            } catch (IOException e) {
+                // the coordinator went away, serve the next one
+            } finally {
+                active = null;
+            }
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            // nothing to release
+        }
+    }
+
+    /** Serves one connection; returns {@code false} after a shutdown request. */
+    private boolean serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        while (true) {
+            int request = in.read();
+            if (request < 0)
+                return true;
+            switch (request) {
+                case ClusterProtocol.ADD:
+                    machines.addAll(Arrays.asList(ClusterProtocol.readMachines(in)));
+                    out.writeByte(ClusterProtocol.OK);
+                    break;
+                case ClusterProtocol.CLEAR:
+                    machines.clear();
+                    out.writeByte(ClusterProtocol.OK);
+                    break;
+                case ClusterProtocol.SIZE:
+                    out.writeByte(ClusterProtocol.OK);
+                    MachineCodec.writeVarInt(out, machines.size());
+                    break;
+                case ClusterProtocol.FILTER:
+                    answerFilter(in, out);
+                    break;
+                case ClusterProtocol.AGGREGATE:
+                    answerAggregate(in, out);
+                    break;
+                case ClusterProtocol.SHUTDOWN:
+                    out.writeByte(ClusterProtocol.OK);
+                    out.flush();
+                    return false;
+                default:
+                    throw new IOException("Unknown request: " + request);
+            }
+            out.flush();
+        }
+    }
+
+    private void answerFilter(DataInputStream in, DataOutputStream out) throws IOException {
+        Query query = ClusterProtocol.readQuery(in);
+        int batch = MachineCodec.readVarInt(in);
+        if (batch <= 0)
+            throw new IOException("Illegal batch size: " + batch);
+        MachineList result = engine.execute(query);
+        for (int from = 0; from < result.size(); from += batch) {
+            out.writeByte(ClusterProtocol.BATCH);
+            ClusterProtocol.writeMachines(out, result, from, Math.min(from + batch, result.size()));
+            // let the coordinator merge this batch while the next one is written
+            out.flush();
+        }
+        out.writeByte(ClusterProtocol.END);
+    }
+
+    private void answerAggregate(DataInputStream in, DataOutputStream out) throws IOException {
+        Query query = ClusterProtocol.readQuery(in);
+        MachineField field = ClusterProtocol.readField(in);
+        if (!field.isInteger()) {
+            out.writeByte(ClusterProtocol.ERROR);
+            return;
+        }
+        long count = 0;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        Set<String> models = new HashSet<>();
+        for (Machine machine : engine.execute(query)) {
+            models.add(machine.getModel());
+            if (!field.appliesTo(machine))
+                continue;
+            int value = field.intValue(machine);
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        out.writeByte(ClusterProtocol.OK);
+        out.writeLong(count);
+        out.writeLong(sum);
+        out.writeInt(min);
+        out.writeInt(max);
+        MachineCodec.writeVarInt(out, models.size());
+    }
+
+    /**
+     * Stops accepting connections and closes the connection being served.
+     *
+     * @throws IOException if a socket can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        Socket socket = active;
+        if (socket != null)
+            socket.close();
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a worker process.
+     *
+     * @param args optional loopback port, any free port by default
+     * @throws IOException if the port can not be bound
+     * @throws InterruptedException if the main thread is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        PartitionWorker worker = new PartitionWorker(args.length > 0 ? Integer.parseInt(args[0]) : 0);
+        Thread watchdog = new Thread(() -> {
+            try {
+                while (System.in.read() >= 0) {
+                    // wait for the end of the input
+                }
+            } catch (IOException e) {
+                // the parent is gone as well
+            }
+            System.exit(0);
+        }, "machine-partition-watchdog");
+        watchdog.setDaemon(true);
+        watchdog.start();
+        System.out.println(READY + worker.getPort());
+        System.out.flush();
+        worker.awaitShutdown();
+    }
+}
@@ -0,0 +1,113 @@
+package replay;
+
+import trace.TraceOp;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Latencies of the replayed operations, kept per operation.
+ */
+public final class LatencyReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final long[][] samples = new long[TraceOp.values().length][];
+    private final int[] counts = new int[TraceOp.values().length];
+    private final int[] errors = new int[TraceOp.values().length];
+    private final boolean[] sorted = new boolean[TraceOp.values().length];
+    private long elapsedNanos;
+
+    LatencyReport() {
+        Arrays.fill(samples, new long[0]);
+    }
+
+    void add(TraceOp op, long nanos) {
+        int o = op.ordinal();
+        if (counts[o] == samples[o].length)
+            samples[o] = Arrays.copyOf(samples[o], Math.max(64, counts[o] * 2));
+        samples[o][counts[o]++] = nanos;
+        sorted[o] = false;
+    }
+
+    void error(TraceOp op) {
+        errors[op.ordinal()]++;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the wall time of the whole replay.
+     *
+     * @return nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of replayed operations of the kind.
+     *
+     * @param op operation
+     * @return number of operations
+     */
+    public int getCount(TraceOp op) {
+        return counts[op.ordinal()];
+    }
+
+    /**
+     * Returns the number of operations of the kind that threw an exception.
+     *
+     * @param op operation
+     * @return number of failed operations
+     */
+    public int getErrors(TraceOp op) {
+        return errors[op.ordinal()];
+    }
+
+    /**
+     * Returns the latency below which the percentage of the operations of the kind completed.
+     *
+     * @param op operation
+     * @param percentile percentage from 0 to 100
+     * @return latency in nanoseconds, 0 if there were no such operations
+     */
+    public long getPercentile(TraceOp op, double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Illegal percentile: " + percentile);
+        int o = op.ordinal();
+        if (counts[o] == 0)
+            return 0;
+        if (!sorted[o]) {
+            Arrays.sort(samples[o], 0, counts[o]);
+            sorted[o] = true;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * counts[o]);
+        return samples[o][Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Returns a table with the count, percentiles and maximum of every replayed operation,
+     * in microseconds.
+     *
+     * @return table
+     */
+    @Override
+    public String toString() {
+        StringBuilder b = new StringBuilder(String.format(Locale.ROOT, "%-14s %9s %7s", "op", "count", "errors"));
+        for (double percentile : PERCENTILES)
+            b.append(String.format(Locale.ROOT, " %9s", "p" + (percentile % 1 == 0 ? String.valueOf((int) percentile)
+                    : String.valueOf(percentile))));
+        b.append(String.format(Locale.ROOT, " %9s%n", "max"));
+        for (TraceOp op : TraceOp.values()) {
+            if (getCount(op) == 0)
+                continue;
+            b.append(String.format(Locale.ROOT, "%-14s %9d %7d", op, getCount(op), getErrors(op)));
+            for (double percentile : PERCENTILES)
+                b.append(String.format(Locale.ROOT, " %9.1f", getPercentile(op, percentile) / 1000.0));
+            b.append(String.format(Locale.ROOT, " %9.1f%n", getPercentile(op, 100) / 1000.0));
+        }
+        return b.append(String.format(Locale.ROOT, "elapsed %.1f ms", elapsedNanos / 1e6)).toString();
+    }
+}
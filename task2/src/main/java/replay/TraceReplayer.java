@@ -0,0 +1,134 @@
+package replay;
+
+import container.MachineList;
+import entity.Machine;
+import trace.TraceOp;
+import trace.TraceReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a trace written by {@code TraceRecorder} against a {@code List<Machine>}
+ * and measures the latency of every operation.
+ *
+ * <p>With speed {@code 1} the operations are started with the pauses they had when they
+ * were recorded, with speed {@code 2} with half the pauses and so on; speed {@code 0}
+ * replays without pauses. The latency of an operation is the time the list took to
+ * execute it. An operation throwing a {@code RuntimeException}, e.g. because another
+ * list implementation checks indexes differently, is counted as an error.
+ */
+public final class TraceReplayer {
+    /** Receives the results of the operations, so they are not optimized away. */
+    private static volatile long sink;
+
+    private TraceReplayer() {
+    }
+
+    /**
+     * Replays the trace.
+     *
+     * @param trace trace file
+     * @param target list receiving the operations, normally empty
+     * @param speed speed-up relative to the recording, 0 for no pauses
+     * @return latencies of the operations
+     * @throws IOException if the trace can not be read
+     */
+    public static LatencyReport replay(Path trace, List<Machine> target, double speed) throws IOException {
+        Objects.requireNonNull(target, "Argument must be not null");
+        if (speed < 0 || Double.isNaN(speed))
+            throw new IllegalArgumentException("Illegal speed: " + speed);
+        LatencyReport report = new LatencyReport();
+        long start = System.nanoTime();
+        double scheduledMicros = 0;
+        long consumed = 0;
+        try (TraceReader reader = TraceReader.open(trace)) {
+            while (reader.next()) {
+                if (speed > 0) {
+                    scheduledMicros += reader.getMicros() / speed;
+                    long wait = start + (long) (scheduledMicros * 1000) - System.nanoTime();
+                    if (wait > 0)
+                        LockSupport.parkNanos(wait);
+                }
+                TraceOp op = reader.getOp();
+                long begin = System.nanoTime();
+                try {
+                    consumed += execute(target, op, reader);
+                    report.add(op, System.nanoTime() - begin);
+                } catch (RuntimeException e) {
+                    report.error(op);
+                }
+            }
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        sink = consumed;
+        return report;
+    }
+
+    /** Executes the operation of the current record and returns a value depending on its result. */
+    private static long execute(List<Machine> target, TraceOp op, TraceReader record) {
+        int index = record.getIndex();
+        Machine machine = record.getMachine();
+        switch (op) {
+            case ADD:
+                return target.add(machine) ? 1 : 0;
+            case INSERT:
+                target.add(index, machine);
+                return 0;
+            case GET:
+                return target.get(index) == null ? 0 : 1;
+            case SET:
+                return target.set(index, machine) == null ? 0 : 1;
+            case INDEX_OF:
+                return target.indexOf(machine);
+            case REMOVE:
+                return target.remove(index) == null ? 0 : 1;
+            case REMOVE_OBJECT:
+                return target.remove(machine) ? 1 : 0;
+            case ADD_ALL:
+                return target.addAll(record.getMachines()) ? 1 : 0;
+            case INSERT_ALL:
+                return target.addAll(index, record.getMachines()) ? 1 : 0;
+            case ITERATE:
+                long visited = 0;
+                Iterator<Machine> iterator = target.iterator();
+                for (int i = 0; i < index && iterator.hasNext(); i++)
+                    visited += iterator.next() == null ? 0 : 1;
+                return visited;
+            default:
+                target.clear();
+                return 0;
+        }
+    }
+
+    /**
+     * Replays a trace and prints the latency table.
+     * Arguments: trace file, optional speed (default 1), optional name of a
+     * {@code List<Machine>} class with a public no-argument constructor
+     * (default {@code container.MachineList}).
+     *
+     * @param args arguments
+     * @throws Exception if the trace can not be replayed
+     */
+    @SuppressWarnings("unchecked")
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceReplayer <trace> [speed] [list class]");
+            return;
+        }
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        List<Machine> target = args.length > 2
+                ? (List<Machine>) Class.forName(args[2]).getConstructor().newInstance()
+                : new MachineList();
+        LatencyReport report = replay(Paths.get(args[0]), target, speed);
+        System.out.println(report);
+        System.out.println("final size " + target.size() + ", replayed in "
+                + TimeUnit.NANOSECONDS.toMillis(report.getElapsedNanos()) + " ms");
+    }
+}
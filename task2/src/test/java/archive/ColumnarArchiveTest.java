@@ -0,0 +1,222 @@
+package archive;
+
+import constant.TypeMillingMachine;
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import entity.UniversalMilling;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import storage.MachineCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+public class ColumnarArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MachineList machines;
+    private Path file;
+
+    @Before
+    public void init() throws IOException {
+        Random random = new Random(42);
+        machines = new MachineList();
+        for (int i = 0; i < 1000; i++) {
+            switch (i % 3) {
+                case 0:
+                    machines.add(new Lathe(i, -random.nextInt(100), "1k6" + i % 5,
+                            200 + random.nextInt(300), 2000 + i, i % 2 == 0));
+                    break;
+                case 1:
+                    machines.add(new CncMilling(i, 3000, "DMU " + i % 7, 14000, 5000, 2,
+                            i % 4 == 0 ? "Fanuc" : "Heidenhain", 3 + i % 3));
+                    break;
+                default:
+                    machines.add(new UniversalMilling(i, 2100, "6P82", 1600, 1250, 1,
+                            TypeMillingMachine.values()[i % 3], i % 4 / 100.0));
+            }
+        }
+        file = folder.getRoot().toPath().resolve("catalog.mca");
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(file, 100)) {
+            for (Machine machine : machines)
+                writer.write(machine);
+        }
+    }
+
+    @Test
+    public void readAllRestoresMachines() throws IOException {
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+            Assert.assertEquals(10, reader.getRowGroupCount());
+            Assert.assertEquals(1000, reader.getRowCount());
+            Assert.assertArrayEquals(machines.toArray(), reader.readMachines().toArray());
+        }
+    }
+
+    @Test
+    public void identifiersSurviveArchiveAndArrowExport() throws IOException {
+        for (int i = 0; i < machines.size(); i += 2)
+            machines.get(i).setId(1000 + i);
+        Path withIds = folder.getRoot().toPath().resolve("ids.mca");
+        ColumnarArchiveWriter.write(withIds, machines);
+        Path arrow = folder.getRoot().toPath().resolve("ids.arrow");
+        ArrowExporter.export(machines, arrow);
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(withIds);
+             ArrowBatch batch = ArrowBatch.open(arrow)) {
+            MachineList archived = reader.readMachines();
+            MachineList exported = batch.toMachineList();
+            Assert.assertEquals(1998, batch.getLong(Column.ID, 998));
+            for (int i = 0; i < machines.size(); i++) {
+                Assert.assertEquals(machines.get(i).getId(), archived.get(i).getId());
+                Assert.assertEquals(machines.get(i).getId(), exported.get(i).getId());
+            }
+            Assert.assertEquals(500, archived.indexOfId(1500));
+            Assert.assertEquals(998, exported.indexOfId(1998));
+            Assert.assertEquals(Machine.NO_ID, exported.get(1).getId());
+        }
+    }
+
+    @Test
+    public void rangeSkipsRowGroups() throws IOException {
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+            MachineList found = reader.readMachines(new IntRange(Column.POWER, 250, 349),
+                    new IntRange(Column.NUMBER_AIX, 4, 4));
+            Assert.assertEquals(8, reader.getSkippedRowGroups());
+            for (Machine machine : found) {
+                Assert.assertTrue(machine instanceof CncMilling);
+                Assert.assertEquals(4, ((CncMilling) machine).getNumberAix());
+            }
+            Assert.assertEquals(34, found.size());
+        }
+    }
+
+    @Test
+    public void stringAndDoubleRangesSkipRowGroups() throws IOException {
+        Path sorted = folder.getRoot().toPath().resolve("sorted.mca");
+        try (ColumnarArchiveWriter writer = new ColumnarArchiveWriter(sorted, 100)) {
+            for (int i = 0; i < 1000; i++) {
+                String model = "M0" + i / 100;
+                if (i % 2 == 0)
+                    writer.lathe(i, 0, model, 300, 4000, true);
+                else
+                    writer.universalMilling(i, 0, model, 1600, 1250, 1, null, i / 100 * 0.5);
+            }
+        }
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(sorted)) {
+            MachineList found = reader.readMachines(new StringRange(Column.MODEL, "M03", "M04"));
+            Assert.assertEquals(8, reader.getSkippedRowGroups());
+            Assert.assertEquals(200, found.size());
+            Assert.assertEquals("M03", found.get(0).getModel());
+            found = reader.readMachines(new DoubleRange(Column.DEGREE_LIMB, 1.0, 1.0));
+            Assert.assertEquals(9, reader.getSkippedRowGroups());
+            Assert.assertEquals(50, found.size());
+            for (Machine machine : found)
+                Assert.assertEquals(1.0, ((UniversalMilling) machine).getDegreeLimb(), 0);
+            found = reader.readMachines(new StringRange(Column.SOFTWARE_NAME, "", "\uffff"));
+            Assert.assertEquals(10, reader.getSkippedRowGroups());
+            Assert.assertEquals(0, found.size());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stringRangeNeedsStringColumn() {
+        new StringRange(Column.POWER, "a", "b");
+    }
+
+    @Test
+    public void scanReadsOnlyRequestedColumns() throws IOException {
+        List<String> models = new ArrayList<>();
+        try (ColumnarArchiveReader reader = new ColumnarArchiveReader(file)) {
+            reader.scan(EnumSet.of(Column.MODEL), (group, row) -> {
+                models.add(group.getString(Column.MODEL, row));
+                try {
+                    group.getInt(Column.WEIGHT, row);
+                    Assert.fail();
+                } catch (IllegalStateException expected) {
+                    // column was not requested
+                }
+            }, new IntRange(Column.MAX_DIAMETER, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        }
+        Assert.assertEquals(334, models.size());
+    }
+
+    @Test
+    public void archiveIsSmallerThanCodecForm() throws IOException {
+        Path large = folder.getRoot().toPath().resolve("large.mca");
+        ColumnarArchiveWriter.write(large, machines);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Machine machine : machines)
+            MachineCodec.write(out, machine);
+        Assert.assertTrue(Files.size(large) * 3 < bytes.size());
+    }
+
+    @Test
+    public void arrowExportRestoresMachines() throws IOException {
+        Path arrow = folder.getRoot().toPath().resolve("catalog.arrow");
+        Assert.assertEquals(1000, ArrowExporter.export(machines, arrow));
+        byte[] file = Files.readAllBytes(arrow);
+        Assert.assertEquals("ARROW1", new String(file, 0, 6, StandardCharsets.US_ASCII));
+        Assert.assertEquals("ARROW1", new String(file, file.length - 6, 6, StandardCharsets.US_ASCII));
+        Assert.assertEquals(-1, ByteBuffer.wrap(file, 8, 4).getInt());
+        try (ArrowBatch batch = ArrowBatch.open(arrow)) {
+            Assert.assertEquals(1000, batch.getRowCount());
+            Assert.assertArrayEquals(machines.toArray(), batch.toMachineList().toArray());
+            Assert.assertEquals(0, batch.getNullCount(Column.POWER));
+            Assert.assertEquals(0, batch.getBuffer(Column.POWER, 0).remaining());
+            Assert.assertEquals(4000, batch.getBuffer(Column.POWER, 1).remaining());
+            Assert.assertEquals(666, batch.getNullCount(Column.MAX_DIAMETER));
+            Assert.assertEquals(667, batch.getNullCount(Column.TYPE_MILLING));
+            ByteBuffer kinds = batch.getBuffer(Column.KIND, 1);
+            for (int row = 0; row < 1000; row++)
+                Assert.assertEquals(row % 3 + 1, kinds.get(row));
+            Assert.assertTrue(batch.isNull(Column.NUMBER_AIX, 0));
+            Assert.assertEquals(4, batch.getInt(Column.NUMBER_AIX, 1));
+            Assert.assertEquals("BORING", batch.getString(Column.TYPE_MILLING, 5));
+        }
+    }
+
+    @Test
+    public void arrowExportEncodesNullsAndUtf8() throws IOException {
+        String cyrillic = "\u0422\u043E\u043A\u0430\u0440\u043D\u044B\u0439 16\u041A20";
+        List<Machine> list = new ArrayList<>();
+        list.add(new Lathe(1, 2, null, 3, 4, true));
+        list.add(new CncMilling(5, 6, cyrillic, 7, 8, 9, null, 3));
+        list.add(new UniversalMilling(10, 11, "DMU \uD83D\uDE00", 12, 13, 14, null, 0.5));
+        Path arrow = folder.getRoot().toPath().resolve("nulls.arrow");
+        ArrowExporter.export(list, arrow);
+        try (ArrowBatch batch = ArrowBatch.open(arrow)) {
+            Assert.assertNull(batch.getString(Column.MODEL, 0));
+            Assert.assertEquals(cyrillic, batch.getString(Column.MODEL, 1));
+            Assert.assertEquals("DMU \uD83D\uDE00", batch.getString(Column.MODEL, 2));
+            ByteBuffer offsets = batch.getBuffer(Column.MODEL, 1);
+            int bytes = (cyrillic + "DMU \uD83D\uDE00").getBytes(StandardCharsets.UTF_8).length;
+            Assert.assertEquals(0, offsets.getInt(4));
+            Assert.assertEquals(bytes, offsets.getInt(12));
+            Assert.assertEquals(bytes, batch.getBuffer(Column.MODEL, 2).remaining());
+            Assert.assertEquals(1, batch.getNullCount(Column.MODEL));
+            Assert.assertEquals(3, batch.getNullCount(Column.SOFTWARE_NAME));
+            Assert.assertTrue(batch.isNull(Column.TYPE_MILLING, 2));
+            Assert.assertTrue(batch.getBoolean(Column.THREAD, 0));
+            Assert.assertTrue(batch.isNull(Column.THREAD, 1));
+            Assert.assertEquals(0.5, batch.getDouble(Column.DEGREE_LIMB, 2), 0);
+            Assert.assertEquals(9, batch.getInt(Column.TABLE_AREA, 1));
+            Assert.assertEquals(Column.KIND_UNIVERSAL_MILLING, batch.getKind(2));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package cluster;
+
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Test;
+import query.Condition;
+import query.MachineField;
+import query.Query;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class PartitionClusterTest {
+
+    private static List<Machine> catalog(int size) {
+        List<Machine> machines = new ArrayList<>();
+        for (int i = 0; i < size; i++)
+            if (i % 2 == 0)
+                machines.add(new Lathe(i % 700, 1000 + i, "1k62-" + i % 90, 400, 1000, i % 4 == 0));
+            else
+                machines.add(new CncMilling(i % 700, 3000, "DMU " + i % 60, 14000, 5000, 2, "Fanuc", 3 + i % 3));
+        return machines;
+    }
+
+    private static Map<Machine, Integer> counts(List<Machine> machines) {
+        Map<Machine, Integer> counts = new HashMap<>();
+        for (Machine machine : machines)
+            counts.merge(machine, 1, Integer::sum);
+        return counts;
+    }
+
+    @Test
+    public void scatterGatherOverWorkerProcesses() throws IOException {
+        List<Machine> machines = catalog(3000);
+        try (LocalCluster cluster = LocalCluster.start(3);
+             PartitionCoordinator coordinator = cluster.connect()) {
+            coordinator.addAll(machines);
+            Assert.assertEquals(coordinator.size(), 3000);
+
+            Query query = Query.where(Condition.between(MachineField.POWER, 100, 299),
+                    Condition.eq(MachineField.TYPE, "Lathe"));
+            List<Machine> expected = new ArrayList<>();
+            for (Machine machine : machines)
+                if (query.test(machine))
+                    expected.add(machine);
+            MachineList result = coordinator.filter(query);
+            Assert.assertEquals(counts(result), counts(expected));
+
+            Aggregate aggregate = coordinator.aggregate(Query.where(), MachineField.NUMBER_AIX);
+            Assert.assertEquals(aggregate.getCount(), 1500);
+            Assert.assertEquals(aggregate.getSum(), 1500 * 4);
+            Assert.assertEquals(aggregate.getMin(), 3);
+            Assert.assertEquals(aggregate.getMax(), 5);
+            Assert.assertEquals(aggregate.getDistinctModels(), 75);
+
+            coordinator.clear();
+            Assert.assertEquals(coordinator.size(), 0);
+        }
+    }
+
+    @Test
+    public void resultsStreamInBatches() throws IOException, InterruptedException {
+        PartitionWorker first = new PartitionWorker(0);
+        PartitionWorker second = new PartitionWorker(0);
+        try (PartitionCoordinator coordinator = new PartitionCoordinator(first.getPort(), second.getPort())) {
+            List<Machine> machines = catalog(1000);
+            coordinator.addAll(machines);
+            Set<String> models = new HashSet<>();
+            for (Machine machine : machines)
+                Assert.assertTrue(coordinator.partition(machine) >= 0 && coordinator.partition(machine) < 2);
+            coordinator.setBatchSize(7);
+            List<Machine> streamed = new ArrayList<>();
+            coordinator.filter(Query.where(), machine -> {
+                streamed.add(machine);
+                models.add(machine.getModel());
+            });
+            Assert.assertEquals(counts(streamed), counts(machines));
+            Assert.assertEquals(models.size(), 75);
+
+            // a failing consumer does not break the connections
+            try {
+                coordinator.filter(Query.where(), machine -> {
+                    throw new IllegalStateException("stop");
+                });
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals(e.getMessage(), "stop");
+            }
+            Assert.assertEquals(coordinator.size(), 1000);
+            Aggregate power = coordinator.aggregate(Query.where(Condition.eq(MachineField.MODEL, "DMU 7")),
+                    MachineField.POWER);
+            Assert.assertEquals(power.getDistinctModels(), 1);
+            Assert.assertEquals(power.getCount(), 17);
+            coordinator.shutdown();
+        }
+        first.awaitShutdown();
+        second.awaitShutdown();
+    }
+
+    @Test(timeout = 10000)
+    public void closeDropsIdleConnection() throws IOException {
+        PartitionWorker worker = new PartitionWorker(0);
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(), worker.getPort())) {
+            idle.getOutputStream().write(ClusterProtocol.SIZE);
+            Assert.assertEquals(idle.getInputStream().read(), ClusterProtocol.OK);
+            Assert.assertEquals(idle.getInputStream().read(), 0);
+            worker.close();
+            Assert.assertEquals(idle.getInputStream().read(), -1);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package replay;
+
+import container.MachineList;
+import entity.CncMilling;
+import entity.Lathe;
+import entity.Machine;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import trace.TraceOp;
+import trace.TraceReader;
+import trace.TraceRecorder;
+import trace.TracedMachineList;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+public class TraceReplayTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path record(List<Machine> expected) throws IOException {
+        Path file = folder.getRoot().toPath().resolve("list.trace");
+        try (TraceRecorder recorder = TraceRecorder.open(file)) {
+            TracedMachineList list = new TracedMachineList(recorder);
+            Machine lathe = new Lathe(1, 5, "1k62", 400, 1000, true);
+            for (int i = 0; i < 100; i++)
+                list.add(new CncMilling(i, 3000, "DMU " + i, 14000, 5000, 2, "Fanuc", 3));
+            list.add(50, lathe);
+            list.get(10);
+            list.set(20, lathe);
+            list.indexOf(lathe);
+            list.remove(0);
+            list.remove(lathe);
+            list.addAll(Arrays.asList(lathe, null, lathe));
+            int visited = 0;
+            for (Machine machine : list)
+                visited++;
+            Assert.assertEquals(list.size(), visited);
+            Assert.assertEquals(108, recorder.getRecords());
+            expected.addAll(list);
+        }
+        return file;
+    }
+
+    @Test
+    public void readerReturnsRecords() throws IOException {
+        Path file = record(new ArrayList<>());
+        try (TraceReader reader = TraceReader.open(file)) {
+            int records = 0;
+            Machine first = null;
+            while (reader.next()) {
+                records++;
+                if (records == 1)
+                    first = reader.getMachine();
+                if (reader.getOp() == TraceOp.ITERATE)
+                    Assert.assertEquals(102, reader.getIndex());
+                if (reader.getOp() == TraceOp.ADD_ALL)
+                    Assert.assertEquals(3, reader.getMachines().size());
+                if (reader.getOp() == TraceOp.INSERT)
+                    Assert.assertEquals(50, reader.getIndex());
+            }
+            Assert.assertEquals(108, records);
+            Assert.assertEquals("DMU 0", first.getModel());
+        }
+    }
+
+    @Test
+    public void replayReproducesList() throws IOException {
+        List<Machine> expected = new ArrayList<>();
+        Path file = record(expected);
+        List<List<Machine>> targets = new ArrayList<>();
+        targets.add(new MachineList());
+        targets.add(new ArrayList<>());
+        targets.add(new LinkedList<>());
+        for (List<Machine> target : targets) {
+            LatencyReport report = TraceReplayer.replay(file, target, 0);
+            Assert.assertEquals(expected, target);
+            Assert.assertEquals(100, report.getCount(TraceOp.ADD));
+            Assert.assertEquals(1, report.getCount(TraceOp.ADD_ALL));
+            Assert.assertEquals(1, report.getCount(TraceOp.ITERATE));
+            Assert.assertEquals(0, report.getErrors(TraceOp.GET));
+            Assert.assertTrue(report.getPercentile(TraceOp.ADD, 50) <= report.getPercentile(TraceOp.ADD, 99));
+            Assert.assertTrue(report.toString().contains("ADD"));
+        }
+    }
+}